@@ -30,6 +30,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.annotation.Nullable;
 
@@ -39,6 +44,7 @@ import org.adempiere.ad.dao.IQueryInsertExecutor.QueryInsertExecutorResult;
 import org.adempiere.ad.dao.IQueryOrderBy;
 import org.adempiere.ad.dao.IQueryUpdater;
 import org.adempiere.ad.dao.ISqlQueryUpdater;
+import org.adempiere.ad.dao.QueryProjectionRow;
 import org.adempiere.ad.persistence.TableModelLoader;
 import org.adempiere.ad.security.IUserRolePermissions;
 import org.adempiere.exceptions.AdempiereException;
@@ -55,6 +61,8 @@ import org.compiere.util.Env;
 import org.slf4j.Logger;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 import de.metas.logging.LogManager;
 import de.metas.process.IADPInstanceDAO;
@@ -346,7 +354,7 @@ public class TypedSqlQuery<T> extends AbstractTypedQuery<T>
 	 * @return model or null if we reached the and of the cursor
 	 * @throws SQLException
 	 */
-	private final <ET extends T> ET retrieveNextModel(final ResultSet rs, final Class<ET> clazz) throws SQLException
+	/* package */final <ET extends T> ET retrieveNextModel(final ResultSet rs, final Class<ET> clazz) throws SQLException
 	{
 		while (rs.next())
 		{
@@ -790,6 +798,74 @@ public class TypedSqlQuery<T> extends AbstractTypedQuery<T>
 		return result;
 	}
 
+	@Override
+	public <R> List<R> listProjected(@NonNull final Function<QueryProjectionRow, R> rowMapper, final String... columnNames)
+	{
+		Check.assumeNotEmpty(columnNames, "columnNames not empty");
+		Check.assumeNull(postQueryFilter, "No post-filter shall be defined when listing projected rows");
+
+		final String tableName = getTableName();
+		final ImmutableList<String> columnNamesList = ImmutableList.copyOf(columnNames);
+		final ImmutableMap<String, Integer> columnIndexes = QueryProjectionRow.indexColumnNames(columnNamesList);
+
+		//
+		// Build columns SQL
+		final POInfo poInfo = getPOInfo();
+		final Class<?>[] columnClasses = new Class<?>[columnNames.length];
+		final StringBuilder sqlColumnNames = new StringBuilder();
+		for (int i = 0; i < columnNames.length; i++)
+		{
+			final int columnIndex = poInfo.getColumnIndex(columnNames[i]);
+			if (columnIndex < 0)
+			{
+				throw new DBException("Column '" + columnNames[i] + "' not found for table " + tableName);
+			}
+
+			if (sqlColumnNames.length() > 0)
+			{
+				sqlColumnNames.append(", ");
+			}
+			sqlColumnNames.append(poInfo.getColumnSqlForSelect(columnIndex));
+
+			columnClasses[i] = poInfo.getColumnClass(columnIndex);
+		}
+
+		final StringBuilder sqlSelect = new StringBuilder("SELECT ").append(sqlColumnNames);
+		final StringBuilder fromClause = new StringBuilder(" FROM ").append(getSqlFrom());
+		final String sql = buildSQL(sqlSelect, fromClause, true);
+
+		final List<R> result = new ArrayList<>();
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try
+		{
+			pstmt = DB.prepareStatement(sql, this.trxName);
+			rs = createResultSet(pstmt);
+			while (rs.next())
+			{
+				final Object[] values = new Object[columnClasses.length];
+				for (int i = 0; i < columnClasses.length; i++)
+				{
+					final Object value = DB.retrieveValue(rs, i + 1, columnClasses[i]);
+					values[i] = rs.wasNull() ? null : value; // e.g. don't convert NULL to zero
+				}
+				result.add(rowMapper.apply(new QueryProjectionRow(columnIndexes, values)));
+			}
+		}
+		catch (final SQLException e)
+		{
+			throw new DBException(e, sql, getParametersEffective());
+		}
+		finally
+		{
+			DB.close(rs, pstmt);
+			rs = null;
+			pstmt = null;
+		}
+
+		return result;
+	}
+
 	@Override
 	public int count() throws DBException
 	{
@@ -931,6 +1007,20 @@ public class TypedSqlQuery<T> extends AbstractTypedQuery<T>
 		}
 	}
 
+	/**
+	 * Streams the records using a server side cursor (see {@link CursorPOIterator}). The fetch size can be set using {@link #OPTION_IteratorBufferSize}.
+	 */
+	@Override
+	public <ET extends T> Stream<ET> streamUsingCursor(final Class<ET> clazz) throws DBException
+	{
+		final Integer fetchSize = getOption(OPTION_IteratorBufferSize);
+		final CursorPOIterator<T, ET> cursor = new CursorPOIterator<>(this, clazz, fetchSize != null ? fetchSize : CursorPOIterator.DEFAULT_FetchSize);
+
+		final boolean parallel = false;
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED), parallel)
+				.onClose(cursor::close);
+	}
+
 	/**
 	 * Get a List of composed IDs for this Query.
 	 *
@@ -0,0 +1,179 @@
+package org.adempiere.model;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.adempiere.ad.persistence.IModelColumnGetterMethodInfo;
+import org.adempiere.ad.persistence.IModelInternalAccessor;
+import org.adempiere.ad.persistence.IModelMethodInfo;
+import org.adempiere.exceptions.AdempiereException;
+import org.compiere.model.POInfo;
+
+/**
+ * Base class of the model interface implementations which are generated by {@link GeneratedModelAccessorFactory}.
+ * <p>
+ * A generated class is the bytecode equivalent of a {@link java.lang.reflect.Proxy} with {@link POWrapper} as invocation handler, but:
+ * <ul>
+ * <li>each method is bound to its {@link IModelMethodInfo} when the class is generated, so there is no per call method lookup
+ * <li>plain column getters read the PO value by column index, which is resolved once per {@link POInfo} and not on every call
+ * </ul>
+ * <p>
+ * The method names of this class contain an underscore, so that they won't clash with model interface methods.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+public abstract class GeneratedModelAccessor
+{
+	private final POWrapper wrapper;
+	private final ClassInfo classInfo;
+
+	protected GeneratedModelAccessor(final POWrapper wrapper, final ClassInfo classInfo)
+	{
+		this.wrapper = wrapper;
+		this.classInfo = classInfo;
+	}
+
+	public final POWrapper get_POWrapper()
+	{
+		return wrapper;
+	}
+
+	/**
+	 * Called by generated plain column getters.
+	 *
+	 * @param getterIndex index of the getter, as assigned by {@link GeneratedModelAccessorFactory}
+	 */
+	protected final Object get_ColumnValue(final int getterIndex)
+	{
+		return classInfo.getColumnValue(wrapper, getterIndex);
+	}
+
+	/**
+	 * Called by all the other generated methods.
+	 *
+	 * @param methodIndex index of the method, as assigned by {@link GeneratedModelAccessorFactory}
+	 */
+	protected final Object invoke_ModelMethod(final int methodIndex, final Object[] args)
+	{
+		return classInfo.invokeModelMethod(wrapper, methodIndex, args);
+	}
+
+	/**
+	 * Informations shared by all instances of one generated class.
+	 */
+	public static final class ClassInfo
+	{
+		private final Class<?> modelClass;
+		private final IModelMethodInfo[] methodInfos;
+		private final IModelColumnGetterMethodInfo[] getterInfos;
+
+		/** Resolved columns by table name, because one model interface might be used to wrap POs of different tables */
+		private final ConcurrentHashMap<String, ResolvedColumns> resolvedColumnsByTableName = new ConcurrentHashMap<>();
+
+		/* package */ ClassInfo(final Class<?> modelClass, final List<IModelMethodInfo> methodInfos, final List<IModelColumnGetterMethodInfo> getterInfos)
+		{
+			this.modelClass = modelClass;
+			this.methodInfos = methodInfos.toArray(new IModelMethodInfo[methodInfos.size()]);
+			this.getterInfos = getterInfos.toArray(new IModelColumnGetterMethodInfo[getterInfos.size()]);
+		}
+
+		@Override
+		public String toString()
+		{
+			return "ClassInfo [modelClass=" + modelClass + "]";
+		}
+
+		private Object getColumnValue(final POWrapper wrapper, final int getterIndex)
+		{
+			final ResolvedColumns columns = getResolvedColumns(wrapper.getPO().getPOInfo());
+			final IModelInternalAccessor modelAccessor = wrapper.getInternalAccessor();
+			return getterInfos[getterIndex].getValue(modelAccessor, columns.columnNames[getterIndex], columns.columnIndexes[getterIndex]);
+		}
+
+		private Object invokeModelMethod(final POWrapper wrapper, final int methodIndex, final Object[] args)
+		{
+			final IModelInternalAccessor modelAccessor = wrapper.getInternalAccessor();
+			try
+			{
+				return methodInfos[methodIndex].invoke(modelAccessor, args);
+			}
+			catch (final RuntimeException e)
+			{
+				throw e;
+			}
+			catch (final Exception e)
+			{
+				throw AdempiereException.wrapIfNeeded(e);
+			}
+		}
+
+		private ResolvedColumns getResolvedColumns(final POInfo poInfo)
+		{
+			final String tableName = poInfo.getTableName();
+			ResolvedColumns columns = resolvedColumnsByTableName.get(tableName);
+			if (columns == null || columns.poInfo != poInfo)
+			{
+				// NOTE: POInfo instances are cached per table, so we get here only the first time per table or after the POInfo cache was reset
+				columns = new ResolvedColumns(poInfo, getterInfos);
+				resolvedColumnsByTableName.put(tableName, columns);
+			}
+			return columns;
+		}
+	}
+
+	/**
+	 * Column names and indexes of all getters of a {@link ClassInfo}, resolved against one particular {@link POInfo}.
+	 */
+	private static final class ResolvedColumns
+	{
+		private final POInfo poInfo;
+		private final String[] columnNames;
+		private final int[] columnIndexes;
+
+		private ResolvedColumns(final POInfo poInfo, final IModelColumnGetterMethodInfo[] getterInfos)
+		{
+			this.poInfo = poInfo;
+			this.columnNames = new String[getterInfos.length];
+			this.columnIndexes = new int[getterInfos.length];
+
+			for (int i = 0; i < getterInfos.length; i++)
+			{
+				columnNames[i] = null;
+				columnIndexes[i] = -1;
+				for (final String candidateColumnName : getterInfos[i].getCandidateColumnNames())
+				{
+					final int columnIndex = poInfo.getColumnIndex(candidateColumnName);
+					if (columnIndex >= 0)
+					{
+						columnNames[i] = candidateColumnName;
+						columnIndexes[i] = columnIndex;
+						break;
+					}
+				}
+			}
+		}
+	}
+}
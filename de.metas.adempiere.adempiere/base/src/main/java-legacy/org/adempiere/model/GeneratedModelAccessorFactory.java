@@ -0,0 +1,259 @@
+package org.adempiere.model;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.adempiere.ad.persistence.IModelClassInfo;
+import org.adempiere.ad.persistence.IModelColumnGetterMethodInfo;
+import org.adempiere.ad.persistence.IModelMethodInfo;
+import org.adempiere.ad.persistence.ModelClassIntrospector;
+import org.adempiere.exceptions.AdempiereException;
+import org.slf4j.Logger;
+
+import de.metas.logging.LogManager;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+import javassist.NotFoundException;
+
+/**
+ * Generates (at runtime, on first use) one {@link GeneratedModelAccessor} subclass per model interface and uses it instead of a {@link java.lang.reflect.Proxy} to wrap POs.
+ * <p>
+ * Enabled by setting the JVM system property {@value #SYSTEM_PROPERTY_Enabled} to <code>true</code>, or by calling {@link POWrapper#setUseGeneratedModelAccessors(boolean)}.
+ * If the class for a given model interface can't be generated, we log a warning and fall back to the proxy for that interface.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+/* package */ final class GeneratedModelAccessorFactory
+{
+	public static final GeneratedModelAccessorFactory instance = new GeneratedModelAccessorFactory();
+
+	/* package */ static final String SYSTEM_PROPERTY_Enabled = "org.adempiere.model.POWrapper.UseGeneratedModelAccessors";
+
+	private static final transient Logger logger = LogManager.getLogger(GeneratedModelAccessorFactory.class);
+
+	private static final String CLASSNAME_Suffix = "$$GeneratedModelAccessor";
+
+	private volatile boolean enabled = Boolean.getBoolean(SYSTEM_PROPERTY_Enabled);
+
+	private final ConcurrentHashMap<Class<?>, Optional<GeneratedClass>> generatedClasses = new ConcurrentHashMap<>();
+
+	private GeneratedModelAccessorFactory()
+	{
+	}
+
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	public void setEnabled(final boolean enabled)
+	{
+		this.enabled = enabled;
+	}
+
+	/**
+	 * @return a new instance of the generated class which implements <code>modelClass</code> and delegates to given <code>wrapper</code>,
+	 *         or <code>null</code> if this factory is disabled or the class could not be generated.
+	 */
+	public <T> T createOrNull(final Class<T> modelClass, final POWrapper wrapper)
+	{
+		if (!enabled)
+		{
+			return null;
+		}
+
+		final GeneratedClass generatedClass = generatedClasses.computeIfAbsent(modelClass, this::generateClassOrEmpty).orElse(null);
+		if (generatedClass == null)
+		{
+			return null;
+		}
+
+		try
+		{
+			return modelClass.cast(generatedClass.constructor.newInstance(wrapper, generatedClass.classInfo));
+		}
+		catch (final Exception e)
+		{
+			throw AdempiereException.wrapIfNeeded(e)
+					.setParameter("modelClass", modelClass)
+					.appendParametersToMessage();
+		}
+	}
+
+	private Optional<GeneratedClass> generateClassOrEmpty(final Class<?> modelClass)
+	{
+		try
+		{
+			final GeneratedClass generatedClass = generateClass(modelClass);
+			logger.debug("Generated {} for {}", generatedClass.constructor.getDeclaringClass(), modelClass);
+			return Optional.of(generatedClass);
+		}
+		catch (final Exception e)
+		{
+			logger.warn("Failed generating model accessor class for {}. Using a proxy instead.", modelClass, e);
+			return Optional.empty();
+		}
+	}
+
+	private GeneratedClass generateClass(final Class<?> modelClass) throws Exception
+	{
+		if (!modelClass.isInterface())
+		{
+			throw new AdempiereException("Not an interface: " + modelClass);
+		}
+
+		final IModelClassInfo modelClassInfo = ModelClassIntrospector.getInstance().getModelClassInfo(modelClass);
+		if (modelClassInfo == null)
+		{
+			throw new AdempiereException("Not a model interface: " + modelClass);
+		}
+
+		final ClassPool classPool = new ClassPool(true);
+		classPool.appendClassPath(new LoaderClassPath(GeneratedModelAccessor.class.getClassLoader()));
+		classPool.appendClassPath(new LoaderClassPath(modelClass.getClassLoader()));
+
+		final CtClass ctClass = classPool.makeClass(modelClass.getName() + CLASSNAME_Suffix, classPool.get(GeneratedModelAccessor.class.getName()));
+		ctClass.addInterface(classPool.get(modelClass.getName()));
+		ctClass.addConstructor(CtNewConstructor.make(
+				toCtClasses(classPool, POWrapper.class, GeneratedModelAccessor.ClassInfo.class),
+				new CtClass[] {},
+				"{ super($1, $2); }",
+				ctClass));
+
+		//
+		// Implement all interface methods, plus the Object methods which are also routed through the invocation handler in case of a proxy.
+		final List<IModelMethodInfo> methodInfos = new ArrayList<>();
+		final List<IModelColumnGetterMethodInfo> getterInfos = new ArrayList<>();
+		final Set<String> implementedSignatures = new HashSet<>();
+		for (final Method method : getMethodsToImplement(modelClass))
+		{
+			final String signature = method.getName() + Arrays.toString(method.getParameterTypes());
+			if (!implementedSignatures.add(signature))
+			{
+				// e.g. covariant return types; we would also have to generate bridge methods, so better let the proxy handle it.
+				throw new AdempiereException("Method signature is declared more than once: " + signature);
+			}
+
+			final IModelMethodInfo methodInfo = modelClassInfo.getMethodInfo(method);
+
+			final String body;
+			if (methodInfo instanceof IModelColumnGetterMethodInfo)
+			{
+				body = "{ return ($r)get_ColumnValue(" + getterInfos.size() + "); }";
+				getterInfos.add((IModelColumnGetterMethodInfo)methodInfo);
+			}
+			else
+			{
+				body = "{ return ($r)invoke_ModelMethod(" + methodInfos.size() + ", $args); }";
+				methodInfos.add(methodInfo);
+			}
+
+			ctClass.addMethod(CtNewMethod.make(
+					Modifier.PUBLIC,
+					toCtClass(classPool, method.getReturnType()),
+					method.getName(),
+					toCtClasses(classPool, method.getParameterTypes()),
+					toCtClasses(classPool, method.getExceptionTypes()),
+					body,
+					ctClass));
+		}
+
+		final Class<?> generatedClass = ctClass.toClass(modelClass.getClassLoader(), GeneratedModelAccessor.class.getProtectionDomain());
+		ctClass.detach();
+
+		final Constructor<?> constructor = generatedClass.getConstructor(POWrapper.class, GeneratedModelAccessor.ClassInfo.class);
+		final GeneratedModelAccessor.ClassInfo classInfo = new GeneratedModelAccessor.ClassInfo(modelClass, methodInfos, getterInfos);
+		return new GeneratedClass(constructor, classInfo);
+	}
+
+	private static List<Method> getMethodsToImplement(final Class<?> modelClass) throws NoSuchMethodException
+	{
+		final List<Method> methods = new ArrayList<>();
+		final Set<String> methodNames = new HashSet<>();
+		for (final Method method : modelClass.getMethods())
+		{
+			if (Modifier.isStatic(method.getModifiers()))
+			{
+				continue;
+			}
+			methods.add(method);
+			methodNames.add(method.getName());
+		}
+
+		final Method[] objectMethods = new Method[] {
+				Object.class.getMethod("equals", Object.class),
+				Object.class.getMethod("hashCode"),
+				Object.class.getMethod("toString") };
+		for (final Method objectMethod : objectMethods)
+		{
+			if (!methodNames.contains(objectMethod.getName()))
+			{
+				methods.add(objectMethod);
+			}
+		}
+
+		return methods;
+	}
+
+	private static CtClass toCtClass(final ClassPool classPool, final Class<?> type) throws NotFoundException
+	{
+		// NOTE: getTypeName() returns "java.lang.String[]" for arrays, which is the notation javassist expects
+		return classPool.get(type.getTypeName());
+	}
+
+	private static CtClass[] toCtClasses(final ClassPool classPool, final Class<?>... types) throws NotFoundException
+	{
+		final CtClass[] ctClasses = new CtClass[types.length];
+		for (int i = 0; i < types.length; i++)
+		{
+			ctClasses[i] = toCtClass(classPool, types[i]);
+		}
+		return ctClasses;
+	}
+
+	private static final class GeneratedClass
+	{
+		private final Constructor<?> constructor;
+		private final GeneratedModelAccessor.ClassInfo classInfo;
+
+		private GeneratedClass(final Constructor<?> constructor, final GeneratedModelAccessor.ClassInfo classInfo)
+		{
+			this.constructor = constructor;
+			this.classInfo = classInfo;
+		}
+	}
+}
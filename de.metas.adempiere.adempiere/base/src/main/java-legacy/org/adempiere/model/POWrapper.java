@@ -148,9 +148,33 @@ public class POWrapper implements InvocationHandler, IInterfaceWrapper
 			}
 		}
 
+		final POWrapper wrapper = new POWrapper(cl, po, useOldValuesEffective, trlAdLanguageEffective);
+		final T generatedModel = GeneratedModelAccessorFactory.instance.createOrNull(cl, wrapper);
+		if (generatedModel != null)
+		{
+			return generatedModel;
+		}
+
 		return (T)Proxy.newProxyInstance(cl.getClassLoader(),
 				new Class<?>[] { cl },
-				new POWrapper(cl, po, useOldValuesEffective, trlAdLanguageEffective));
+				wrapper);
+	}
+
+	/**
+	 * Enables or disables wrapping POs into instances of classes which are generated at runtime, instead of into {@link Proxy}s.
+	 * <p>
+	 * The initial value is taken from the system property {@value GeneratedModelAccessorFactory#SYSTEM_PROPERTY_Enabled}.
+	 *
+	 * @see GeneratedModelAccessorFactory
+	 */
+	public static void setUseGeneratedModelAccessors(final boolean useGeneratedModelAccessors)
+	{
+		GeneratedModelAccessorFactory.instance.setEnabled(useGeneratedModelAccessors);
+	}
+
+	public static boolean isUseGeneratedModelAccessors()
+	{
+		return GeneratedModelAccessorFactory.instance.isEnabled();
 	}
 
 	/**
@@ -318,15 +342,16 @@ public class POWrapper implements InvocationHandler, IInterfaceWrapper
 			return (T)model;
 		}
 
-		if (Proxy.isProxyClass(model.getClass()))
+		final POWrapper poWrapper = getPOWrapperOrNull(model);
+		if (poWrapper != null)
+		{
+			return (T)poWrapper.getPO();
+		}
+
+		if (checkOtherWrapper && Proxy.isProxyClass(model.getClass()))
 		{
 			final InvocationHandler ih = Proxy.getInvocationHandler(model);
-			if (ih instanceof POWrapper)
-			{
-				final POWrapper wrapper = (POWrapper)ih;
-				return (T)wrapper.getPO();
-			}
-			if (checkOtherWrapper && ih instanceof GridTabWrapper)
+			if (ih instanceof GridTabWrapper)
 			{
 				final GridTabWrapper wrapper = (GridTabWrapper)ih;
 				return wrapper.getPO();
@@ -338,6 +363,11 @@ public class POWrapper implements InvocationHandler, IInterfaceWrapper
 
 	private static final POWrapper getPOWrapperOrNull(final Object model)
 	{
+		if (model instanceof GeneratedModelAccessor)
+		{
+			return ((GeneratedModelAccessor)model).get_POWrapper();
+		}
+
 		if (Proxy.isProxyClass(model.getClass()))
 		{
 			final InvocationHandler ih = Proxy.getInvocationHandler(model);
@@ -1051,6 +1081,11 @@ public class POWrapper implements InvocationHandler, IInterfaceWrapper
 		return null;
 	}
 
+	/* package */ IModelInternalAccessor getInternalAccessor()
+	{
+		return modelInternalAccessor;
+	}
+
 	/** {@link POWrapper} internal accessor implementation */
 	private final IModelInternalAccessor modelInternalAccessor = new IModelInternalAccessor()
 	{
@@ -51,7 +51,17 @@ public abstract class Convert
 
 	/**	Logger	*/
 	private static final transient Logger log = LogManager.getLogger(Convert.class);
-	
+
+	/** Cache of converted statements; <code>null</code> if this converter does not want to be cached */
+	private final ConvertCache cache = isCacheable() ? ConvertCache.forConverter(getClass()) : null;
+
+	/**
+	 * @return true if the converted statements shall be cached. Pass-through converters don't need caching.
+	 */
+	protected boolean isCacheable()
+	{
+		return true;
+	}
 
 	/**
 	 *  Convert SQL Statement (stops at first error).
@@ -70,9 +80,52 @@ public abstract class Convert
 			return null;
 		}
 		//
-		return convertIt (sqlStatements);
+		if (cache == null)
+		{
+			return convertIt(sqlStatements);
+		}
+		else if (isDMLWithoutParameters(sqlStatements))
+		{
+			cache.countNotCacheable();
+			return convertIt(sqlStatements);
+		}
+		else
+		{
+			return cache.getOrConvert(sqlStatements, this::convertIt);
+		}
 	}   //  convert
 
+	/**
+	 * @return true if given SQL is an INSERT, UPDATE or DELETE without bind parameters.
+	 *         Such statements (e.g. the ones which are issued by {@link org.compiere.model.PO} when saving or deleting) contain literal values,
+	 *         so they are not likely to be converted again and would only pollute the cache.
+	 */
+	private static boolean isDMLWithoutParameters(final String sql)
+	{
+		if (sql.indexOf('?') >= 0)
+		{
+			return false;
+		}
+
+		int start = 0;
+		while (start < sql.length() && Character.isWhitespace(sql.charAt(start)))
+		{
+			start++;
+		}
+
+		return startsWithKeyword(sql, start, "INSERT")
+				|| startsWithKeyword(sql, start, "UPDATE")
+				|| startsWithKeyword(sql, start, "DELETE");
+	}
+
+	private static boolean startsWithKeyword(final String sql, final int start, final String keyword)
+	{
+		final int keywordEnd = start + keyword.length();
+		return sql.regionMatches(true, start, keyword, 0, keyword.length())
+				&& keywordEnd < sql.length()
+				&& Character.isWhitespace(sql.charAt(keywordEnd));
+	}
+
 	/**
 	 *  Return last conversion error or null.
 	 *  @return lst conversion error
@@ -0,0 +1,238 @@
+package org.compiere.dbPort;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.adempiere.util.jmx.IJMXNameAware;
+import org.adempiere.util.jmx.JMXRegistry;
+import org.adempiere.util.jmx.JMXRegistry.OnJMXAlreadyExistsPolicy;
+import org.slf4j.Logger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+
+import de.metas.logging.LogManager;
+
+/**
+ * Bounded cache of converted SQL statements, keyed by the raw SQL.
+ * <p>
+ * There is one cache per {@link Convert} implementation, because the same SQL is converted differently by each of them.
+ * <p>
+ * Not cached are:
+ * <ul>
+ * <li>INSERT, UPDATE and DELETE statements without bind parameters, because they contain literal values
+ * <li>statements longer than {@link #getMaxStatementLength()}
+ * <li>failed conversions, i.e. the ones where the converter threw an exception
+ * </ul>
+ * The cache can be configured by the following system properties:
+ * <ul>
+ * <li>{@value #SYSTEM_PROPERTY_Enabled} (default {@value #DEFAULT_Enabled})
+ * <li>{@value #SYSTEM_PROPERTY_MaxSize} (default {@value #DEFAULT_MaxSize})
+ * <li>{@value #SYSTEM_PROPERTY_MaxStatementLength} (default {@value #DEFAULT_MaxStatementLength})
+ * </ul>
+ * We are using system properties and not AD_SysConfig because the SysConfig is loaded using the very same converter.
+ */
+public final class ConvertCache implements ConvertCacheMBean, IJMXNameAware
+{
+	public static ConvertCache forConverter(final Class<? extends Convert> converterClass)
+	{
+		return converterClass2cache.computeIfAbsent(converterClass, ConvertCache::createAndRegister);
+	}
+
+	private static ConvertCache createAndRegister(final Class<? extends Convert> converterClass)
+	{
+		final ConvertCache cache = new ConvertCache(converterClass);
+		try
+		{
+			JMXRegistry.get().registerJMX(cache, OnJMXAlreadyExistsPolicy.Replace);
+		}
+		catch (final Exception e)
+		{
+			logger.warn("Failed registering JMX bean for {}. Ignored.", cache, e);
+		}
+		return cache;
+	}
+
+	private static final transient Logger logger = LogManager.getLogger(ConvertCache.class);
+
+	private static final ConcurrentHashMap<Class<? extends Convert>, ConvertCache> converterClass2cache = new ConcurrentHashMap<>();
+
+	public static final String SYSTEM_PROPERTY_Enabled = "org.compiere.dbPort.ConvertCache.Enabled";
+	private static final boolean DEFAULT_Enabled = true;
+	public static final String SYSTEM_PROPERTY_MaxSize = "org.compiere.dbPort.ConvertCache.MaxSize";
+	private static final int DEFAULT_MaxSize = 10000;
+	public static final String SYSTEM_PROPERTY_MaxStatementLength = "org.compiere.dbPort.ConvertCache.MaxStatementLength";
+	private static final int DEFAULT_MaxStatementLength = 8000;
+
+	private final String jmxName;
+	private volatile boolean enabled;
+	private final int maxSize;
+	private final int maxStatementLength;
+	private final Cache<String, ImmutableList<String>> cache;
+	private final AtomicLong notCacheableCount = new AtomicLong();
+
+	private ConvertCache(final Class<? extends Convert> converterClass)
+	{
+		jmxName = ConvertCache.class.getName() + ":type=" + converterClass.getSimpleName();
+		enabled = Boolean.parseBoolean(System.getProperty(SYSTEM_PROPERTY_Enabled, String.valueOf(DEFAULT_Enabled)));
+		maxSize = Integer.getInteger(SYSTEM_PROPERTY_MaxSize, DEFAULT_MaxSize);
+		maxStatementLength = Integer.getInteger(SYSTEM_PROPERTY_MaxStatementLength, DEFAULT_MaxStatementLength);
+		cache = CacheBuilder.newBuilder()
+				.maximumSize(maxSize)
+				.recordStats()
+				.build();
+	}
+
+	@Override
+	public String getJMXName()
+	{
+		return jmxName;
+	}
+
+	/**
+	 * @param sql raw SQL
+	 * @param converter function which converts the given SQL
+	 * @return converted SQL statements
+	 */
+	public List<String> getOrConvert(final String sql, final Function<String, List<String>> converter)
+	{
+		if (!enabled || sql.length() > maxStatementLength)
+		{
+			notCacheableCount.incrementAndGet();
+			return converter.apply(sql);
+		}
+
+		final ImmutableList<String> cachedResult = cache.getIfPresent(sql);
+		if (cachedResult != null)
+		{
+			return cachedResult;
+		}
+
+		final ImmutableList<String> resultImmutable = ImmutableList.copyOf(converter.apply(sql));
+		cache.put(sql, resultImmutable);
+		return resultImmutable;
+	}
+
+	/**
+	 * Counts a statement which was explicitly marked as not cacheable.
+	 */
+	void countNotCacheable()
+	{
+		notCacheableCount.incrementAndGet();
+	}
+
+	@Override
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	@Override
+	public void setEnabled(final boolean enabled)
+	{
+		this.enabled = enabled;
+		if (!enabled)
+		{
+			cache.invalidateAll();
+		}
+	}
+
+	@Override
+	public long getSize()
+	{
+		return cache.size();
+	}
+
+	@Override
+	public long getMaxSize()
+	{
+		return maxSize;
+	}
+
+	@Override
+	public int getMaxStatementLength()
+	{
+		return maxStatementLength;
+	}
+
+	@Override
+	public long getHitCount()
+	{
+		return cache.stats().hitCount();
+	}
+
+	@Override
+	public long getMissCount()
+	{
+		return cache.stats().missCount();
+	}
+
+	@Override
+	public double getHitRate()
+	{
+		return cache.stats().hitRate();
+	}
+
+	@Override
+	public long getNotCacheableCount()
+	{
+		return notCacheableCount.get();
+	}
+
+	@Override
+	public long getEvictionCount()
+	{
+		return cache.stats().evictionCount();
+	}
+
+	@Override
+	public String getStatistics()
+	{
+		final CacheStats stats = cache.stats();
+		return "size=" + cache.size() + "/" + maxSize
+				+ ", hits=" + stats.hitCount()
+				+ ", misses=" + stats.missCount()
+				+ ", hitRate=" + stats.hitRate()
+				+ ", evictions=" + stats.evictionCount()
+				+ ", notCacheable=" + notCacheableCount.get();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ConvertCache[" + jmxName + ", " + getStatistics() + "]";
+	}
+
+	@Override
+	public void reset()
+	{
+		cache.invalidateAll();
+		cache.cleanUp();
+	}
+}
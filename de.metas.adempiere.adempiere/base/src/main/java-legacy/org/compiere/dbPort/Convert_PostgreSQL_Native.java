@@ -11,6 +11,11 @@ import java.util.List;
  */
 public final class Convert_PostgreSQL_Native extends Convert
 {
+	@Override
+	protected boolean isCacheable()
+	{
+		return false; // pass-through, nothing to cache
+	}
 
 	@Override
 	protected final List<String> convertStatement(final String sqlStatement)
@@ -0,0 +1,97 @@
+package org.compiere.model;
+
+import org.adempiere.util.jmx.IJMXNameAware;
+
+import lombok.NonNull;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public final class JMXModelValidationEngine implements JMXModelValidationEngineMBean, IJMXNameAware
+{
+	private final ModelValidationEngine engine;
+
+	JMXModelValidationEngine(@NonNull final ModelValidationEngine engine)
+	{
+		this.engine = engine;
+	}
+
+	@Override
+	public String getJMXName()
+	{
+		return ModelValidationEngine.class.getName() + ":type=ModelValidationEngine";
+	}
+
+	@Override
+	public int getModelChangeListenersCount()
+	{
+		return engine.getModelChangeDispatchTable().size();
+	}
+
+	@Override
+	public int getModelChangeDispatchArraysCount()
+	{
+		return engine.getModelChangeDispatchTable().getDispatchArraysCount();
+	}
+
+	@Override
+	public boolean isInterceptorTimingEnabled()
+	{
+		return engine.getInterceptorTimings().isEnabled();
+	}
+
+	@Override
+	public void setInterceptorTimingEnabled(final boolean enabled)
+	{
+		engine.getInterceptorTimings().setEnabled(enabled);
+	}
+
+	@Override
+	public int getInterceptorTimingSampleRate()
+	{
+		return engine.getInterceptorTimings().getSampleRate();
+	}
+
+	@Override
+	public void setInterceptorTimingSampleRate(final int sampleRate)
+	{
+		engine.getInterceptorTimings().setSampleRate(sampleRate);
+	}
+
+	@Override
+	public String[] getInterceptorTimings()
+	{
+		return engine.getInterceptorTimings().toSummaryLines().toArray(new String[0]);
+	}
+
+	@Override
+	public String[] getTopInterceptorTimings(final int limit)
+	{
+		return engine.getInterceptorTimings().toSummaryLines().stream().limit(Math.max(limit, 0)).toArray(String[]::new);
+	}
+
+	@Override
+	public void resetInterceptorTimings()
+	{
+		engine.getInterceptorTimings().reset();
+	}
+}
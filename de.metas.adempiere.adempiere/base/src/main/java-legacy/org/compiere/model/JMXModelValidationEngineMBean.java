@@ -0,0 +1,52 @@
+package org.compiere.model;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * JMX interface of {@link ModelValidationEngine}.
+ */
+public interface JMXModelValidationEngineMBean
+{
+	/** @return how many (table name, client) entries have model change listeners */
+	int getModelChangeListenersCount();
+
+	/** @return how many (table name, change type, client) dispatch arrays were computed since the last registration change */
+	int getModelChangeDispatchArraysCount();
+
+	boolean isInterceptorTimingEnabled();
+
+	void setInterceptorTimingEnabled(boolean enabled);
+
+	/** @return N, where one out of N interceptor invocations is measured */
+	int getInterceptorTimingSampleRate();
+
+	void setInterceptorTimingSampleRate(int sampleRate);
+
+	/** @return latency percentiles of each interceptor, per table and timing, most expensive first */
+	String[] getInterceptorTimings();
+
+	/** @return the <code>limit</code> most expensive entries of {@link #getInterceptorTimings()} */
+	String[] getTopInterceptorTimings(int limit);
+
+	void resetInterceptorTimings();
+}
@@ -0,0 +1,138 @@
+package org.compiere.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.Builder;
+import lombok.Value;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Lock-free latency histogram with log-linear buckets, similar to an HDR histogram with 2 significant digits:
+ * values are grouped into powers of two, each split into {@value #SUB_BUCKETS} linear sub-buckets, so the relative error is at most ~3%.
+ * <p>
+ * Recording is a couple of atomic increments, so it's cheap enough to be used on hot paths.
+ */
+final class LatencyHistogram
+{
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS_COUNT = (63 - SUB_BUCKET_BITS) * SUB_BUCKETS + 2 * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS_COUNT);
+	private final LongAdder totalCount = new LongAdder();
+	private final LongAdder totalValue = new LongAdder();
+	private final AtomicLong maxValue = new AtomicLong();
+
+	public void record(final long value)
+	{
+		final long valueNotNegative = Math.max(value, 0);
+		counts.incrementAndGet(indexOf(valueNotNegative));
+		totalCount.increment();
+		totalValue.add(valueNotNegative);
+		maxValue.accumulateAndGet(valueNotNegative, Math::max);
+	}
+
+	static int indexOf(final long value)
+	{
+		if (value < SUB_BUCKETS)
+		{
+			return (int)value;
+		}
+
+		final int exponent = 63 - Long.numberOfLeadingZeros(value);
+		final int shift = exponent - SUB_BUCKET_BITS;
+		return shift * SUB_BUCKETS + (int)(value >>> shift);
+	}
+
+	/**
+	 * @return highest value which is recorded in the bucket with given index
+	 */
+	static long highestValueOf(final int index)
+	{
+		if (index < SUB_BUCKETS)
+		{
+			return index;
+		}
+
+		final int shift = index / SUB_BUCKETS - 1;
+		final long mantissa = index - shift * SUB_BUCKETS;
+		return ((mantissa + 1) << shift) - 1;
+	}
+
+	public Snapshot snapshot()
+	{
+		final long[] countsSnapshot = new long[BUCKETS_COUNT];
+		long count = 0;
+		for (int i = 0; i < BUCKETS_COUNT; i++)
+		{
+			countsSnapshot[i] = counts.get(i);
+			count += countsSnapshot[i];
+		}
+
+		return Snapshot.builder()
+				.count(count)
+				.mean(totalCount.sum() > 0 ? totalValue.sum() / totalCount.sum() : 0)
+				.p50(valueAtPercentile(countsSnapshot, count, 50))
+				.p90(valueAtPercentile(countsSnapshot, count, 90))
+				.p99(valueAtPercentile(countsSnapshot, count, 99))
+				.p999(valueAtPercentile(countsSnapshot, count, 99.9))
+				.max(maxValue.get())
+				.build();
+	}
+
+	private static long valueAtPercentile(final long[] counts, final long totalCount, final double percentile)
+	{
+		if (totalCount <= 0)
+		{
+			return 0;
+		}
+
+		final long countAtPercentile = Math.max(1, (long)Math.ceil(percentile / 100 * totalCount));
+		long cumulativeCount = 0;
+		for (int i = 0; i < counts.length; i++)
+		{
+			cumulativeCount += counts[i];
+			if (cumulativeCount >= countAtPercentile)
+			{
+				return highestValueOf(i);
+			}
+		}
+		return highestValueOf(counts.length - 1);
+	}
+
+	@Value
+	@Builder
+	public static class Snapshot
+	{
+		long count;
+		long mean;
+		long p50;
+		long p90;
+		long p99;
+		long p999;
+		long max;
+	}
+}
@@ -39,6 +39,7 @@ import org.compiere.util.DB;
 import org.compiere.util.Ini;
 import org.slf4j.Logger;
 
+import de.metas.cache.CacheMgt;
 import de.metas.document.sequence.IDocumentNoBuilder;
 import de.metas.logging.LogManager;
 import de.metas.util.Check;
@@ -69,6 +70,20 @@ public class MSequence extends X_AD_Sequence
 
 	public static final int QUERY_TIME_OUT = 10;
 
+	/**
+	 * How many table IDs shall be reserved in one go. Default is 1, i.e. each ID is fetched from <code>AD_Sequence</code>.
+	 * Can be overridden per table by appending <code>.TableName</code> to the sysconfig name.
+	 */
+	public static final String SYSCONFIG_IDBlockSize = "org.compiere.model.MSequence.IDBlockSize";
+	private static final int DEFAULT_IDBlockSize = 1;
+
+	private static final TableIDBlockAllocator idBlockAllocator = new TableIDBlockAllocator(MSequence::retrieveIDBlock);
+	static
+	{
+		// the reserved IDs might be stale after AD_Sequence was changed, e.g. when CurrentNext was set manually
+		CacheMgt.get().addCacheResetListener(I_AD_Sequence.Table_Name, request -> resetReservedIDBlocks());
+	}
+
 	public static int getNextID(int AD_Client_ID, String TableName)
 	{
 		return getNextID(AD_Client_ID, TableName, ITrx.TRXNAME_None);
@@ -94,6 +109,17 @@ public class MSequence extends X_AD_Sequence
 
 		s_log.trace("{} - AdempiereSys={} [{}]", TableName, adempiereSys, trxName);
 
+		// Hand out IDs from a block that was reserved in advance, if configured.
+		// Not for dictionary or project IDs, because those shall be consecutive and might come from the central ID server.
+		if (!adempiereSys && !isQueryProjectIDServer(TableName, AD_Client_ID))
+		{
+			final int blockSize = getIDBlockSize(TableName);
+			if (blockSize > 1)
+			{
+				return idBlockAllocator.getNextID(TableName, blockSize);
+			}
+		}
+
 		final String selectSQL = "SELECT CurrentNext, CurrentNextSys, IncrementNo, AD_Sequence_ID "
 				+ "FROM AD_Sequence "
 				+ "WHERE Name=?"
@@ -246,6 +272,105 @@ public class MSequence extends X_AD_Sequence
 		}
 	}	// getNextID
 
+	private static int getIDBlockSize(final String tableName)
+	{
+		final ISysConfigBL sysConfigBL = Services.get(ISysConfigBL.class);
+		final int defaultBlockSize = sysConfigBL.getIntValue(SYSCONFIG_IDBlockSize, DEFAULT_IDBlockSize);
+		return sysConfigBL.getIntValue(SYSCONFIG_IDBlockSize + "." + tableName, defaultBlockSize);
+	}
+
+	/**
+	 * Reserves <code>blockSize</code> IDs by advancing <code>AD_Sequence.CurrentNext</code> in one go (out of transaction).
+	 */
+	private static TableIDBlockAllocator.IDBlock retrieveIDBlock(final String tableName, final int blockSize)
+	{
+		final String selectSQL = "SELECT CurrentNext, IncrementNo, AD_Sequence_ID "
+				+ "FROM AD_Sequence "
+				+ "WHERE Name=?"
+				+ " AND IsActive='Y' AND IsTableID='Y' AND IsAutoSequence='Y' "
+				+ " FOR UPDATE OF AD_Sequence ";
+
+		Connection conn = null;
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		boolean success = false;
+		try
+		{
+			conn = DB.getConnectionID();
+
+			pstmt = conn.prepareStatement(selectSQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_UPDATABLE);
+			pstmt.setString(1, tableName);
+			if (DB.getDatabase().isQueryTimeoutSupported())
+			{
+				pstmt.setQueryTimeout(QUERY_TIME_OUT);
+			}
+
+			rs = pstmt.executeQuery();
+			if (!rs.next())
+			{
+				throw new AdempiereException("No AD_Sequence found for " + tableName);
+			}
+
+			final int firstId = rs.getInt(1);
+			final int incrementNo = rs.getInt(2);
+			final int AD_Sequence_ID = rs.getInt(3);
+
+			final PreparedStatement updateSQL = conn.prepareStatement("UPDATE AD_Sequence SET CurrentNext = CurrentNext + ? WHERE AD_Sequence_ID = ?");
+			try
+			{
+				updateSQL.setInt(1, incrementNo * blockSize);
+				updateSQL.setInt(2, AD_Sequence_ID);
+				updateSQL.executeUpdate();
+			}
+			finally
+			{
+				updateSQL.close();
+			}
+
+			conn.commit();
+			success = true;
+
+			s_log.debug("Reserved {} IDs for {} starting with {}", blockSize, tableName, firstId);
+			return new TableIDBlockAllocator.IDBlock(firstId, incrementNo, blockSize);
+		}
+		catch (final Exception ex)
+		{
+			throw AdempiereException.wrapIfNeeded(ex)
+					.setParameter("tableName", tableName)
+					.setParameter("blockSize", blockSize);
+		}
+		finally
+		{
+			if (!success && conn != null)
+			{
+				try
+				{
+					conn.rollback();
+				}
+				catch (final SQLException e)
+				{
+					s_log.warn("Failed rolling back {}", conn, e);
+				}
+			}
+			DB.close(rs, pstmt);
+			DB.close(conn);
+		}
+	}
+
+	/**
+	 * Forgets the table IDs which were reserved in advance but not yet handed out.
+	 * Called when the <code>AD_Sequence</code> cache is reset, e.g. after <code>AD_Sequence.CurrentNext</code> was changed.
+	 */
+	private static long resetReservedIDBlocks()
+	{
+		final int countTables = idBlockAllocator.reset();
+		if (countTables > 0)
+		{
+			s_log.info("Forgot the reserved IDs of {} tables", countTables);
+		}
+		return countTables;
+	}
+
 	/**
 	 * Get Next ID
 	 *
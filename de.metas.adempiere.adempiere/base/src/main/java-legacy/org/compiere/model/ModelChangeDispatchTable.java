@@ -0,0 +1,174 @@
+package org.compiere.model;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.adempiere.ad.modelvalidator.ModelInterceptor2ModelValidatorWrapper;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Immutable snapshot of the model change listeners of {@link ModelValidationEngine}.
+ * <p>
+ * For each (table name, change type, AD_Client_ID) it lazily computes the array of validators to be invoked,
+ * i.e. system level validators followed by client level validators, already filtered by client and by change type.
+ * <p>
+ * On each registration change, the engine creates a new instance, so the lookups never need to lock.
+ */
+final class ModelChangeDispatchTable
+{
+	public static final ModelChangeDispatchTable EMPTY = new ModelChangeDispatchTable(ImmutableMap.of(), ImmutableSet.of());
+
+	private static final ModelValidator[] NO_VALIDATORS = new ModelValidator[0];
+
+	/** validators indexed by {@link ModelValidationEngine}'s property names (see {@link #getPropertyNameSystem(String)} and {@link #getPropertyNameClient(String, int)} */
+	private final ImmutableMap<String, ImmutableList<ModelValidator>> validatorsByPropertyName;
+	private final ImmutableSet<ModelValidator> globalValidators;
+
+	private final ConcurrentHashMap<DispatchKey, ModelValidator[]> dispatchArrays = new ConcurrentHashMap<>();
+
+	ModelChangeDispatchTable(
+			@NonNull final Map<String, ? extends Collection<ModelValidator>> validatorsByPropertyName,
+			@NonNull final Collection<ModelValidator> globalValidators)
+	{
+		final ImmutableMap.Builder<String, ImmutableList<ModelValidator>> validatorsByPropertyNameBuilder = ImmutableMap.builder();
+		validatorsByPropertyName.forEach((propertyName, validators) -> {
+			if (validators != null && !validators.isEmpty())
+			{
+				validatorsByPropertyNameBuilder.put(propertyName, ImmutableList.copyOf(validators));
+			}
+		});
+		this.validatorsByPropertyName = validatorsByPropertyNameBuilder.build();
+		this.globalValidators = ImmutableSet.copyOf(globalValidators);
+	}
+
+	static String getPropertyNameSystem(final String tableName)
+	{
+		return tableName + "*";
+	}
+
+	static String getPropertyNameClient(final String tableName, final int adClientId)
+	{
+		return tableName + adClientId;
+	}
+
+	public boolean isEmpty()
+	{
+		return validatorsByPropertyName.isEmpty();
+	}
+
+	public int size()
+	{
+		return validatorsByPropertyName.size();
+	}
+
+	public int getDispatchArraysCount()
+	{
+		return dispatchArrays.size();
+	}
+
+	/**
+	 * @return true if there is at least one validator registered for given table and client (no matter the change type)
+	 */
+	public boolean hasValidators(@NonNull final String tableName, final int adClientId)
+	{
+		return validatorsByPropertyName.containsKey(getPropertyNameSystem(tableName))
+				|| validatorsByPropertyName.containsKey(getPropertyNameClient(tableName, adClientId));
+	}
+
+	/**
+	 * @return validators to be invoked, in invocation order; never returns null; the returned array shall not be changed
+	 */
+	public ModelValidator[] getValidators(@NonNull final String tableName, final int changeType, final int adClientId)
+	{
+		return dispatchArrays.computeIfAbsent(DispatchKey.of(tableName, changeType, adClientId), this::computeValidators);
+	}
+
+	private ModelValidator[] computeValidators(final DispatchKey key)
+	{
+		final ImmutableList.Builder<ModelValidator> result = ImmutableList.builder();
+		collectValidators(result, validatorsByPropertyName.get(getPropertyNameSystem(key.getTableName())), key);
+		collectValidators(result, validatorsByPropertyName.get(getPropertyNameClient(key.getTableName(), key.getAdClientId())), key);
+
+		final ImmutableList<ModelValidator> validators = result.build();
+		return validators.isEmpty() ? NO_VALIDATORS : validators.toArray(new ModelValidator[validators.size()]);
+	}
+
+	private void collectValidators(
+			final ImmutableList.Builder<ModelValidator> result,
+			final List<ModelValidator> validators,
+			final DispatchKey key)
+	{
+		if (validators == null)
+		{
+			return;
+		}
+
+		for (final ModelValidator validator : validators)
+		{
+			if (isApplicable(validator, key))
+			{
+				result.add(validator);
+			}
+		}
+	}
+
+	private boolean isApplicable(final ModelValidator validator, final DispatchKey key)
+	{
+		if (key.getAdClientId() != validator.getAD_Client_ID() && !globalValidators.contains(validator))
+		{
+			return false;
+		}
+
+		final int changeType = key.getChangeType();
+		if (changeType == ModelValidator.TYPE_SUBSEQUENT)
+		{
+			// subsequent processing is handled by the engine and not by the validator
+			return true;
+		}
+
+		if (validator instanceof ModelInterceptor2ModelValidatorWrapper)
+		{
+			return ((ModelInterceptor2ModelValidatorWrapper)validator).isModelChangeSubscribed(key.getTableName(), changeType);
+		}
+
+		return true;
+	}
+
+	@Value(staticConstructor = "of")
+	private static class DispatchKey
+	{
+		String tableName;
+		int changeType;
+		int adClientId;
+	}
+}
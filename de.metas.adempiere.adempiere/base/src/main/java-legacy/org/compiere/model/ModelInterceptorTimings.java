@@ -0,0 +1,157 @@
+package org.compiere.model;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+
+import de.metas.util.Check;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Collects latency histograms of the model interceptors, per (interceptor, table, model change type or document timing).
+ * <p>
+ * Only one out of {@link #getSampleRate()} invocations is measured, so it's cheap enough to be left enabled in production.
+ * Disabled by default. Can be enabled via JMX (see {@link JMXModelValidationEngineMBean}) or via the system properties {@value #SYSTEM_PROPERTY_Enabled} and {@value #SYSTEM_PROPERTY_SampleRate}.
+ */
+final class ModelInterceptorTimings
+{
+	static final String SYSTEM_PROPERTY_Enabled = "org.compiere.model.ModelValidationEngine.TimingEnabled";
+	static final String SYSTEM_PROPERTY_SampleRate = "org.compiere.model.ModelValidationEngine.TimingSampleRate";
+	private static final int DEFAULT_SampleRate = 10;
+
+	private volatile boolean enabled = Boolean.getBoolean(SYSTEM_PROPERTY_Enabled);
+	private volatile int sampleRate = Math.max(Integer.getInteger(SYSTEM_PROPERTY_SampleRate, DEFAULT_SampleRate), 1);
+
+	private final ConcurrentHashMap<TimingKey, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	public void setEnabled(final boolean enabled)
+	{
+		this.enabled = enabled;
+	}
+
+	/**
+	 * @return N, where one out of N invocations is measured
+	 */
+	public int getSampleRate()
+	{
+		return sampleRate;
+	}
+
+	public void setSampleRate(final int sampleRate)
+	{
+		Check.assume(sampleRate >= 1, "sampleRate >= 1");
+		this.sampleRate = sampleRate;
+	}
+
+	public void reset()
+	{
+		histograms.clear();
+	}
+
+	/**
+	 * @return true if the current invocation shall be measured
+	 */
+	public boolean isSampled()
+	{
+		if (!enabled)
+		{
+			return false;
+		}
+
+		final int sampleRate = this.sampleRate;
+		return sampleRate <= 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+	}
+
+	public void record(
+			@NonNull final ModelValidator validator,
+			@NonNull final String tableName,
+			@NonNull final String timingName,
+			final long durationNanos)
+	{
+		histograms.computeIfAbsent(TimingKey.of(validator, tableName, timingName), key -> new LatencyHistogram())
+				.record(durationNanos);
+	}
+
+	/**
+	 * @return summary lines, most expensive interceptor first
+	 */
+	public List<String> toSummaryLines()
+	{
+		final int sampleRate = this.sampleRate;
+		return histograms.entrySet()
+				.stream()
+				.map(entry -> new TimingSummary(entry.getKey(), entry.getValue().snapshot(), sampleRate))
+				.sorted(Comparator.comparing(TimingSummary::getEstimatedTotalNanos).reversed())
+				.map(TimingSummary::toSummaryLine)
+				.collect(ImmutableList.toImmutableList());
+	}
+
+	@Value(staticConstructor = "of")
+	private static class TimingKey
+	{
+		ModelValidator validator;
+		String tableName;
+		String timingName;
+	}
+
+	@Value
+	private static class TimingSummary
+	{
+		TimingKey key;
+		LatencyHistogram.Snapshot histogram;
+		/** estimated total time spent, i.e. the sampled time multiplied by the sample rate */
+		long estimatedTotalNanos;
+
+		private TimingSummary(final TimingKey key, final LatencyHistogram.Snapshot histogram, final int sampleRate)
+		{
+			this.key = key;
+			this.histogram = histogram;
+			this.estimatedTotalNanos = histogram.getCount() * histogram.getMean() * sampleRate;
+		}
+
+		private String toSummaryLine()
+		{
+			return key.getTableName() + " - " + key.getValidator() + " (" + key.getTimingName() + ")"
+					+ ": samples=" + histogram.getCount()
+					+ ", estimatedTotalMillis=" + TimeUnit.NANOSECONDS.toMillis(estimatedTotalNanos)
+					+ ", meanMicros=" + TimeUnit.NANOSECONDS.toMicros(histogram.getMean())
+					+ ", p50Micros=" + TimeUnit.NANOSECONDS.toMicros(histogram.getP50())
+					+ ", p90Micros=" + TimeUnit.NANOSECONDS.toMicros(histogram.getP90())
+					+ ", p99Micros=" + TimeUnit.NANOSECONDS.toMicros(histogram.getP99())
+					+ ", p999Micros=" + TimeUnit.NANOSECONDS.toMicros(histogram.getP999())
+					+ ", maxMicros=" + TimeUnit.NANOSECONDS.toMicros(histogram.getMax());
+		}
+	}
+}
@@ -59,6 +59,8 @@ import org.adempiere.processing.model.MADProcessablePO;
 import org.adempiere.processing.service.IProcessingService;
 import org.adempiere.service.IClientDAO;
 import org.adempiere.util.LegacyAdapters;
+import org.adempiere.util.jmx.JMXRegistry;
+import org.adempiere.util.jmx.JMXRegistry.OnJMXAlreadyExistsPolicy;
 import org.adempiere.util.lang.IAutoCloseable;
 import org.compiere.Adempiere;
 import org.compiere.Adempiere.RunMode;
@@ -111,6 +113,7 @@ public class ModelValidationEngine implements IModelValidationEngine
 			// NOTE: we need to instantiate and assign it to static variable immediatelly
 			// else, in init() method, this get() is called indirectly which leads us to have 2 ModelValidationEngine instances
 			s_engine = new ModelValidationEngine();
+			JMXRegistry.get().registerJMX(new JMXModelValidationEngine(s_engine), OnJMXAlreadyExistsPolicy.Replace);
 		}
 		if (State.TO_BE_INITALIZED.equals(state))
 		{
@@ -480,6 +483,13 @@ public class ModelValidationEngine implements IModelValidationEngine
 
 	private ArrayList<ModelValidator> m_globalValidators = new ArrayList<>();
 
+	/**
+	 * Immutable snapshot of {@link #m_modelChangeListeners} and {@link #m_globalValidators}, used when firing model changes.
+	 * Rebuilt on each registration change, so firing model changes doesn't have to lock.
+	 */
+	private volatile ModelChangeDispatchTable modelChangeDispatchTable = ModelChangeDispatchTable.EMPTY;
+	private final ModelInterceptorTimings interceptorTimings = new ModelInterceptorTimings();
+
 	/**
 	 * Contains model validators for subsequent processing. The boolean value tells if the subsequent processing takes place directly when fireModelChange() is invoked with this type (
 	 * <code>true</code>) or later on (<code>false</code>).
@@ -643,7 +653,7 @@ public class ModelValidationEngine implements IModelValidationEngine
 	 * @param tableName table name
 	 * @param listener listener
 	 */
-	public void addModelChange(String tableName, ModelValidator listener)
+	public synchronized void addModelChange(String tableName, ModelValidator listener)
 	{
 		if (tableName == null || listener == null)
 		{
@@ -674,6 +684,8 @@ public class ModelValidationEngine implements IModelValidationEngine
 				log.debug("Listener " + listener + " already added for " + propertyName);
 			}
 		}
+
+		rebuildModelChangeDispatchTable();
 	}	// addModelValidator
 
 	@Override
@@ -694,7 +706,7 @@ public class ModelValidationEngine implements IModelValidationEngine
 	 * @param tableName table name
 	 * @param listener listener
 	 */
-	public void removeModelChange(String tableName, ModelValidator listener)
+	public synchronized void removeModelChange(String tableName, ModelValidator listener)
 	{
 		if (tableName == null || listener == null)
 		{
@@ -711,8 +723,25 @@ public class ModelValidationEngine implements IModelValidationEngine
 		{
 			m_modelChangeListeners.remove(propertyName);
 		}
+
+		rebuildModelChangeDispatchTable();
 	}	// removeModelValidator
 
+	private synchronized void rebuildModelChangeDispatchTable()
+	{
+		modelChangeDispatchTable = new ModelChangeDispatchTable(m_modelChangeListeners, m_globalValidators);
+	}
+
+	/* package */ ModelChangeDispatchTable getModelChangeDispatchTable()
+	{
+		return modelChangeDispatchTable;
+	}
+
+	/* package */ ModelInterceptorTimings getInterceptorTimings()
+	{
+		return interceptorTimings;
+	}
+
 	@Override
 	public void removeModelChange(String tableName, IModelInterceptor interceptor)
 	{
@@ -725,6 +754,38 @@ public class ModelValidationEngine implements IModelValidationEngine
 		this.removeModelChange(tableName, modelValidator);
 	}
 
+	/**
+	 * @return true if there is at least one model interceptor which would be notified when given PO is created or changed
+	 */
+	public boolean hasModelChangeInterceptors(final PO po)
+	{
+		final ModelChangeDispatchTable dispatchTable = this.modelChangeDispatchTable;
+		if (dispatchTable.isEmpty())
+		{
+			return false;
+		}
+
+		if (dispatchTable.hasValidators(po.get_TableName(), po.getAD_Client_ID()))
+		{
+			return true;
+		}
+
+		final IADTableScriptValidatorDAO tableScriptValidatorDAO = Services.get(IADTableScriptValidatorDAO.class);
+		for (final int changeType : new int[] { ModelValidator.TYPE_AFTER_NEW, ModelValidator.TYPE_AFTER_CHANGE, ModelValidator.TYPE_SUBSEQUENT })
+		{
+			final List<I_AD_Table_ScriptValidator> scriptValidators = tableScriptValidatorDAO.retrieveTableScriptValidators(
+					po.getCtx(),
+					po.get_Table_ID(),
+					ModelValidator.tableEventValidators[changeType]);
+			if (scriptValidators != null && !scriptValidators.isEmpty())
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
 	/**
 	 * Fire Model Change. Call modelChange method of added validators
 	 *
@@ -734,7 +795,8 @@ public class ModelValidationEngine implements IModelValidationEngine
 	 */
 	public void fireModelChange(final PO po, final int changeType)
 	{
-		if (po == null || m_modelChangeListeners.isEmpty())
+		final ModelChangeDispatchTable dispatchTable = this.modelChangeDispatchTable;
+		if (po == null || dispatchTable.isEmpty())
 		{
 			return;
 		}
@@ -751,18 +813,9 @@ public class ModelValidationEngine implements IModelValidationEngine
 		boolean haveInterceptors = false;
 
 		//
-		// Retrieve system level model interceptors
-		final String propertyNameSystem = getPropertyName(po.get_TableName());
-		final List<ModelValidator> interceptorsSystem = m_modelChangeListeners.get(propertyNameSystem);
-		final boolean haveSystemInterceptors = interceptorsSystem != null && !interceptorsSystem.isEmpty();
-		haveInterceptors = haveInterceptors || haveSystemInterceptors;
-
-		//
-		// Retrieve client level model interceptors
-		final String propertyNameClient = getPropertyName(po.get_TableName(), po.getAD_Client_ID());
-		final List<ModelValidator> interceptorsClient = m_modelChangeListeners.get(propertyNameClient);
-		final boolean haveClientInterceptors = interceptorsClient != null && !interceptorsClient.isEmpty();
-		haveInterceptors = haveInterceptors || haveClientInterceptors;
+		// Retrieve system and client level model interceptors
+		final ModelValidator[] interceptors = dispatchTable.getValidators(po.get_TableName(), changeType, po.getAD_Client_ID());
+		haveInterceptors = haveInterceptors || interceptors.length > 0;
 
 		//
 		// Retrieve script interceptors
@@ -797,7 +850,7 @@ public class ModelValidationEngine implements IModelValidationEngine
 		//
 		// Execute interceptors
 		final String trxName = po.get_TrxName();
-		executeInTrx(trxName, changeType, () -> fireModelChange0(po, changeType, interceptorsSystem, interceptorsClient, scriptValidators));
+		executeInTrx(trxName, changeType, () -> fireModelChange0(po, changeType, interceptors, scriptValidators));
 	}	// fireModelChange
 
 	private final void executeInTrx(final String trxName, final int changeTypeOrDocTiming, @NonNull final Runnable runnable)
@@ -833,21 +886,11 @@ public class ModelValidationEngine implements IModelValidationEngine
 	private final void fireModelChange0(
 			final PO po,
 			final int changeType,
-			@Nullable List<ModelValidator> interceptorsSystem,
-			@Nullable List<ModelValidator> interceptorsClient,
+			@NonNull final ModelValidator[] interceptors,
 			@Nullable List<I_AD_Table_ScriptValidator> scriptValidators)
 	{
-		if (interceptorsSystem != null)
-		{
-			// ad_entitytype.modelvalidationclasses
-			invokeModelChangeMethods(po, changeType, interceptorsSystem);
-		}
-
-		if (interceptorsClient != null)
-		{
-			// ad_client.modelvalidationclasses
-			invokeModelChangeMethods(po, changeType, interceptorsClient);
-		}
+		// ad_entitytype.modelvalidationclasses, followed by ad_client.modelvalidationclasses
+		invokeModelChangeMethods(po, changeType, interceptors);
 
 		//
 		// now process the script model validator for this event
@@ -954,11 +997,26 @@ public class ModelValidationEngine implements IModelValidationEngine
 	private final void invokeModelChangeMethods(
 			@NonNull final PO po,
 			final int changeType,
-			@NonNull final List<ModelValidator> validators)
+			@NonNull final ModelValidator[] validators)
 	{
+		final ModelInterceptorTimings timings = this.interceptorTimings;
 		for (final ModelValidator validator : validators)
 		{
-			invokeModelChangeMethod(po, changeType, validator);
+			if (!timings.isSampled())
+			{
+				invokeModelChangeMethod(po, changeType, validator);
+				continue;
+			}
+
+			final long startNanos = System.nanoTime();
+			try
+			{
+				invokeModelChangeMethod(po, changeType, validator);
+			}
+			finally
+			{
+				timings.record(validator, po.get_TableName(), ModelChangeType.valueOf(changeType).name(), System.nanoTime() - startNanos);
+			}
 		}
 	}
 
@@ -970,10 +1028,7 @@ public class ModelValidationEngine implements IModelValidationEngine
 	{
 		try
 		{
-			if (!appliesFor(validator, po.getAD_Client_ID()))
-			{
-				return;
-			}
+			// NOTE: we don't have to check if the validator applies for PO's AD_Client_ID because that was already checked by ModelChangeDispatchTable
 			if (changeType == ModelValidator.TYPE_SUBSEQUENT)
 			{
 				handleTypeSubsequent(po, validator);
@@ -1195,7 +1250,7 @@ public class ModelValidationEngine implements IModelValidationEngine
 				validator = list.get(i);
 				if (appliesFor(validator, po.getAD_Client_ID()))
 				{
-					final String error = validator.docValidate(po, docTiming);
+					final String error = invokeDocValidate(po, docTiming, validator);
 					if (error != null && error.length() > 0)
 					{
 						throw new AdempiereException(error);
@@ -1209,6 +1264,25 @@ public class ModelValidationEngine implements IModelValidationEngine
 		}
 	}
 
+	private String invokeDocValidate(final PO po, final int docTiming, final ModelValidator validator)
+	{
+		final ModelInterceptorTimings timings = this.interceptorTimings;
+		if (!timings.isSampled())
+		{
+			return validator.docValidate(po, docTiming);
+		}
+
+		final long startNanos = System.nanoTime();
+		try
+		{
+			return validator.docValidate(po, docTiming);
+		}
+		finally
+		{
+			timings.record(validator, po.get_TableName(), DocTimingType.valueOf(docTiming).name(), System.nanoTime() - startNanos);
+		}
+	}
+
 	@Override
 	public void addImportInterceptor(String importTableName, IImportInterceptor listener)
 	{
@@ -1397,11 +1471,12 @@ public class ModelValidationEngine implements IModelValidationEngine
 		}
 	}
 
-	private final void registerGlobal(ModelValidator validator)
+	private final synchronized void registerGlobal(ModelValidator validator)
 	{
 		if (!m_globalValidators.contains(validator))
 		{
 			m_globalValidators.add(validator);
+			rebuildModelChangeDispatchTable();
 		}
 	}
 
@@ -1413,12 +1488,12 @@ public class ModelValidationEngine implements IModelValidationEngine
 
 	private final String getPropertyName(String tableName)
 	{
-		return tableName + "*";
+		return ModelChangeDispatchTable.getPropertyNameSystem(tableName);
 	}
 
 	private final String getPropertyName(String tableName, int AD_Client_ID)
 	{
-		return tableName + AD_Client_ID;
+		return ModelChangeDispatchTable.getPropertyNameClient(tableName, AD_Client_ID);
 	}
 
 	private final String getPropertyName(String tableName, ModelValidator listener)
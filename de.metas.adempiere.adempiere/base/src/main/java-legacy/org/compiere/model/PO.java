@@ -37,6 +37,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantLock;
 
 import javax.annotation.OverridingMethodsMustInvokeSuper;
@@ -58,9 +59,11 @@ import org.adempiere.ad.session.ChangeLogRecord;
 import org.adempiere.ad.session.ISessionBL;
 import org.adempiere.ad.session.ISessionDAO;
 import org.adempiere.ad.session.MFSession;
+import org.adempiere.ad.trx.api.IBatchedPersistenceScope;
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.ad.trx.api.ITrxListenerManager.TrxEventTiming;
 import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.ad.trx.api.IWriteBehindScope;
 import org.adempiere.ad.trx.api.OnTrxMissingPolicy;
 import org.adempiere.ad.validationRule.IValidationContext;
 import org.adempiere.ad.validationRule.IValidationRuleFactory;
@@ -325,6 +328,10 @@ public abstract class PO
 	 * Compared to {@link #m_createNew} this flag will be never ever reset so can always know if this PO was created now.
 	 */
 	private boolean m_wasJustCreated = false;
+	/**
+	 * INSERT/UPDATE statement of the current save, if it was queued in a batched persistence scope instead of being executed.
+	 */
+	private String m_batchedStatementSql = null;
 	/** Deleted ID */
 	private int m_idOld = 0;
 	/** Custom Columns */
@@ -1801,6 +1808,33 @@ public abstract class PO
 		return success;
 	}	// load
 
+	/**
+	 * Takes over the values which were just loaded into given instance of the same record. The values which were set but not saved yet are preserved.
+	 * <p>
+	 * Used when this instance is handed out again instead of the just loaded one (see {@link IWriteBehindScope}),
+	 * so that it does not hide the changes which were made in database meanwhile.
+	 *
+	 * @param loaded instance of the same record, which was just loaded from database
+	 */
+	public final void refreshLoadedValuesFrom(@NonNull final PO loaded)
+	{
+		if (loaded == this)
+		{
+			return;
+		}
+		Check.assume(get_Table_ID() == loaded.get_Table_ID() && get_ID() == loaded.get_ID(), "{} and {} shall be the same record", this, loaded);
+
+		final int size = get_ColumnCount();
+		for (int index = 0; index < size; index++)
+		{
+			m_oldValues[index] = loaded.m_oldValues[index];
+			m_valueLoaded[index] = loaded.m_valueLoaded[index];
+		}
+		m_stale = loaded.m_stale;
+		m_translations = null; // reset cached translations
+		loadComplete(true);
+	}
+
 	private final boolean loadColumn(final int index, final ResultSet rs)
 	{
 		boolean success = true;
@@ -2717,9 +2751,42 @@ public abstract class PO
 			return;
 		}
 
+		//
+		// In a write-behind scope, we only mark this record as dirty and we save it once, when the scope is flushed
+		if (deferSaveIfWriteBehind())
+		{
+			return;
+		}
+
 		final ITrxManager trxManager = get_TrxManager();
 		final String trxNameInitial = m_trxName;
 		final boolean newRecordInitial = m_createNew;
+
+		//
+		// In a batched persistence scope, our SQL statement will be queued anyway,
+		// so there is no point in creating (and releasing) a savepoint in this transaction.
+		if (getBatchedPersistenceScopeIfAllowed() != null)
+		{
+			try
+			{
+				save0();
+			}
+			catch (final Exception e)
+			{
+				// our statement shall not be executed with the next batch, because this save failed
+				removeBatchedStatementIfPending();
+
+				// restoring settings and flags before failing
+				m_createNew = newRecordInitial;
+				throw AdempiereException.wrapIfNeeded(e);
+			}
+			finally
+			{
+				m_batchedStatementSql = null;
+			}
+			return;
+		}
+
 		trxManager.run(trxNameInitial, new TrxRunnable2()
 		{
 			@Override
@@ -2897,6 +2964,8 @@ public abstract class PO
 		// Call ModelValidators TYPE_AFTER_NEW/TYPE_AFTER_CHANGE - teo_sarca [ 1675490 ]
 		if (success)
 		{
+			flushBatchedStatementIfPending();
+
 			final boolean replication = isReplication();
 			fireModelChange(newRecord ? (replication ? ModelValidator.TYPE_AFTER_NEW_REPLICATION : ModelValidator.TYPE_AFTER_NEW)
 					: (replication ? ModelValidator.TYPE_AFTER_CHANGE_REPLICATION : ModelValidator.TYPE_AFTER_CHANGE));
@@ -3243,8 +3312,15 @@ public abstract class PO
 			//
 			// Execute UPDATE SQL
 			log.trace("Save update: SQL={}", sql);
+			final IBatchedPersistenceScope batchedPersistenceScope = !lobHasData() ? getBatchedPersistenceScopeIfAllowed() : null;
 			final int no;
-			if (isUseTimeoutForUpdate())
+			if (batchedPersistenceScope != null)
+			{
+				m_batchedStatementSql = sql.toString();
+				batchedPersistenceScope.addStatement(m_batchedStatementSql);
+				no = 1;
+			}
+			else if (isUseTimeoutForUpdate())
 				no = DB.executeUpdateEx(sql.toString(), m_trxName, QUERY_TIME_OUT);
 			else
 				no = DB.executeUpdateEx(sql.toString(), m_trxName);
@@ -3274,6 +3350,145 @@ public abstract class PO
 		return saveFinish(false, true);  // newRecord=false, success=true
 	}   // saveUpdate
 
+	/**
+	 * Defers the save of this PO, if it's not new and it was loaded in the write-behind scope which is open on this PO's transaction.
+	 *
+	 * @return true if the save was deferred
+	 * @see IWriteBehindScope
+	 */
+	private final boolean deferSaveIfWriteBehind()
+	{
+		if (is_new() || !p_info.isSingleKeyColumnName())
+		{
+			return false;
+		}
+
+		final IWriteBehindScope scope = get_TrxManager().getWriteBehindScopeOrNull(m_trxName);
+		if (scope == null || scope.isFlushing())
+		{
+			return false;
+		}
+
+		// The caller expects to see the values which are loaded after save right away
+		if (p_info.isLoadAfterSave() || lobHasData())
+		{
+			return false;
+		}
+
+		return scope.deferSave(get_TableName(), get_ID(), this, this::saveEx);
+	}
+
+	/**
+	 * Executes the queued statement of this PO's current save (and all statements queued before it) if the after-save interceptors are going to be fired,
+	 * so that they see this record in database and a failing statement fails this save, and not some unrelated statement later.
+	 */
+	private final void flushBatchedStatementIfPending()
+	{
+		final IBatchedPersistenceScope scope = getPendingBatchedStatementScopeOrNull();
+		if (scope != null && ModelValidationEngine.get().hasModelChangeInterceptors(this))
+		{
+			scope.flush();
+		}
+	}
+
+	private final void removeBatchedStatementIfPending()
+	{
+		final IBatchedPersistenceScope scope = getPendingBatchedStatementScopeOrNull();
+		if (scope != null)
+		{
+			scope.removeStatement(m_batchedStatementSql);
+		}
+	}
+
+	private final IBatchedPersistenceScope getPendingBatchedStatementScopeOrNull()
+	{
+		if (m_batchedStatementSql == null)
+		{
+			return null;
+		}
+
+		final IBatchedPersistenceScope scope = get_TrxManager().getBatchedPersistenceScopeOrNull(m_trxName);
+		return scope != null && scope.isPending(m_batchedStatementSql) ? scope : null;
+	}
+
+	/** PO classes which are overriding {@link #afterSave(boolean, boolean)} */
+	private static final ConcurrentHashMap<Class<?>, Boolean> s_afterSaveOverriddenByClass = new ConcurrentHashMap<>();
+
+	/**
+	 * @return the batched persistence scope which is open on this PO's transaction, if this PO is allowed to be saved in it; <code>null</code> otherwise
+	 * @see #isBatchedPersistenceAllowed()
+	 */
+	private final IBatchedPersistenceScope getBatchedPersistenceScopeIfAllowed()
+	{
+		final IBatchedPersistenceScope scope = get_TrxManager().getBatchedPersistenceScopeOrNull(m_trxName);
+		if (scope == null)
+		{
+			return null;
+		}
+		return isBatchedPersistenceAllowed() ? scope : null;
+	}
+
+	/**
+	 * Checks if the INSERT/UPDATE statement of this PO can be queued instead of being executed right away.
+	 * That's the case if nothing is expected to read this record from database right after it was saved.
+	 *
+	 * @see IBatchedPersistenceScope
+	 */
+	private final boolean isBatchedPersistenceAllowed()
+	{
+		if (p_info.isLoadAfterSave())
+		{
+			return false;
+		}
+
+		// Change logs are inserted right away, so we would flush on each save anyways
+		if (p_info.isChangeLog() && Services.get(ISessionBL.class).isChangeLogEnabled())
+		{
+			return false;
+		}
+
+		if (MTree.hasTree(get_Table_ID()))
+		{
+			return false;
+		}
+
+		if (getDynAttribute(DYNATTR_CopyRecordSupport) != null)
+		{
+			return false;
+		}
+
+		if (isAfterSaveOverridden(getClass()))
+		{
+			return false;
+		}
+
+		if (ModelValidationEngine.get().hasModelChangeInterceptors(this))
+		{
+			return false;
+		}
+
+		return true;
+	}
+
+	private static final boolean isAfterSaveOverridden(final Class<?> poClass)
+	{
+		return s_afterSaveOverriddenByClass.computeIfAbsent(poClass, clazz -> {
+			for (Class<?> c = clazz; c != null && c != PO.class; c = c.getSuperclass())
+			{
+				try
+				{
+					c.getDeclaredMethod("afterSave", boolean.class, boolean.class);
+					return true;
+				}
+				catch (final NoSuchMethodException e)
+				{
+					// not declared here; check the superclass
+				}
+			}
+			return false;
+		});
+	}
+
 	private final boolean isUseTimeoutForUpdate()
 	{
 		return "true".equalsIgnoreCase(System.getProperty(USE_TIMEOUT_FOR_UPDATE, "false"))
@@ -3635,12 +3850,24 @@ public abstract class PO
 
 		//
 		// Execute actual database INSERT
-		final int no = DB.executeUpdate(sqlInsert.toString(),
-				(Object[])null,  // params,
-				OnFail.ThrowException,  // onFail
-				m_trxName,
-				0,  // timeOut,
-				loadAfterInsertProcessor);
+		// (or queue it, if we are in a batched persistence scope and we don't need to get something back from database)
+		final IBatchedPersistenceScope batchedPersistenceScope = loadAfterInsertProcessor == null && !lobHasData() ? getBatchedPersistenceScopeIfAllowed() : null;
+		final int no;
+		if (batchedPersistenceScope != null)
+		{
+			m_batchedStatementSql = sqlInsert.toString();
+			batchedPersistenceScope.addStatement(m_batchedStatementSql);
+			no = 1;
+		}
+		else
+		{
+			no = DB.executeUpdate(sqlInsert.toString(),
+					(Object[])null,  // params,
+					OnFail.ThrowException,  // onFail
+					m_trxName,
+					0,  // timeOut,
+					loadAfterInsertProcessor);
+		}
 		boolean ok = no == 1;
 
 		//
@@ -4558,6 +4785,14 @@ public abstract class PO
 		m_lobInfo.add(lob);
 	}	// lobAdd
 
+	/**
+	 * @return true if there are LOBs to be saved
+	 */
+	private boolean lobHasData()
+	{
+		return m_lobInfo != null && !m_lobInfo.isEmpty();
+	}
+
 	/**
 	 * Save LOB
 	 *
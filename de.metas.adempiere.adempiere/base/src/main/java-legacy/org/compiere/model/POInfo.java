@@ -36,6 +36,7 @@ import org.compiere.util.DisplayType;
 import org.compiere.util.Env;
 import org.slf4j.Logger;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
@@ -209,6 +210,41 @@ public final class POInfo implements Serializable
 		loadInfo(trxName);
 	}   // PInfo
 
+	/**
+	 * Create Persistent Info from given columns, without loading anything from database.
+	 *
+	 * @param AD_Table_ID AD_Table_ID
+	 * @param tableName table name
+	 * @param accessLevel table access level
+	 * @param columns column infos, in the order of the table columns
+	 */
+	@VisibleForTesting
+	POInfo(final int AD_Table_ID, @NonNull final String tableName, @NonNull final TableAccessLevel accessLevel, @NonNull final List<POInfoColumn> columns)
+	{
+		super();
+
+		m_AD_Table_ID = AD_Table_ID;
+		m_TableName = tableName;
+		m_AccessLevel = accessLevel;
+		m_isView = false;
+
+		final List<String> keyColumnNames = new ArrayList<>();
+		final List<String> parentColumnNames = new ArrayList<>();
+		for (final POInfoColumn column : columns)
+		{
+			if (column.IsKey)
+			{
+				keyColumnNames.add(column.getColumnName());
+			}
+			if (column.IsParent)
+			{
+				parentColumnNames.add(column.getColumnName());
+			}
+		}
+
+		initColumns(columns, keyColumnNames, parentColumnNames);
+	}
+
 	/** Table_ID */
 	private int m_AD_Table_ID = 0;
 	/** Table Name */
@@ -387,6 +423,14 @@ public final class POInfo implements Serializable
 			pstmt = null;
 		}
 
+		initColumns(list, keyColumnNames, parentColumnNames);
+	}   // loadInfo
+
+	/**
+	 * Sets the given columns and builds the pre-calculated values, indexes and SQLs from them.
+	 */
+	private final void initColumns(final List<POInfoColumn> list, final List<String> keyColumnNames, final List<String> parentColumnNames)
+	{
 		// convert to array
 		m_columns = list.toArray(new POInfoColumn[list.size()]);
 
@@ -465,7 +509,7 @@ public final class POInfo implements Serializable
 		sqlSelectByKeys = buildSqlSelectByKeys();
 
 		trlInfo = POTrlRepository.instance.createPOTrlInfo(m_TableName, m_keyColumnName, translatedColumnNames);
-	}   // loadInfo
+	}
 
 	/**
 	 * String representation
@@ -0,0 +1,236 @@
+package org.compiere.model;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.slf4j.Logger;
+
+import com.google.common.base.MoreObjects;
+
+import de.metas.logging.LogManager;
+import de.metas.util.Check;
+
+/**
+ * Hands out table IDs from blocks which were reserved in <code>AD_Sequence</code> in one go.
+ * <p>
+ * IDs are handed out lock-free. When a block is half used, the next one is reserved asynchronously, so that usually no caller has to wait for the database.
+ * <p>
+ * The IDs which were reserved but not handed out (e.g. when the server is stopped) are lost, so the bigger the block size, the bigger the gaps.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ * @see MSequence#getNextID(int, String, String)
+ */
+/* package */ final class TableIDBlockAllocator
+{
+	private static final transient Logger logger = LogManager.getLogger(TableIDBlockAllocator.class);
+
+	/**
+	 * Reserves a new block of IDs in database.
+	 */
+	@FunctionalInterface
+	interface IDBlockRetriever
+	{
+		IDBlock retrieveIDBlock(String tableName, int blockSize);
+	}
+
+	private final IDBlockRetriever retriever;
+	private final Executor refillExecutor;
+	private final ConcurrentHashMap<String, TableIDs> tableName2ids = new ConcurrentHashMap<>();
+
+	/* package */ TableIDBlockAllocator(final IDBlockRetriever retriever)
+	{
+		this(retriever, Executors.newSingleThreadExecutor(CustomizableThreadFactory.builder()
+				.setThreadNamePrefix(TableIDBlockAllocator.class.getName() + "-Refill")
+				.setDaemon(true)
+				.build()));
+	}
+
+	/* package */ TableIDBlockAllocator(final IDBlockRetriever retriever, final Executor refillExecutor)
+	{
+		Check.assumeNotNull(retriever, "retriever not null");
+		Check.assumeNotNull(refillExecutor, "refillExecutor not null");
+		this.retriever = retriever;
+		this.refillExecutor = refillExecutor;
+	}
+
+	public int getNextID(final String tableName, final int blockSize)
+	{
+		Check.assume(blockSize > 0, "blockSize > 0");
+		return tableName2ids.computeIfAbsent(tableName, TableIDs::new).nextID(blockSize);
+	}
+
+	/**
+	 * Forgets all reserved IDs. Mainly used when <code>AD_Sequence</code> was changed manually.
+	 *
+	 * @return for how many tables IDs were reserved
+	 */
+	public int reset()
+	{
+		final int countTables = tableName2ids.size();
+		tableName2ids.clear();
+		return countTables;
+	}
+
+	/**
+	 * A range of reserved IDs.
+	 */
+	static final class IDBlock
+	{
+		private final int incrementNo;
+		private final long endExclusive;
+		private final long lowWaterMark;
+		private final AtomicLong nextID;
+		private final AtomicBoolean refillRequested = new AtomicBoolean(false);
+
+		/**
+		 * @param firstID first reserved ID
+		 * @param incrementNo increment between two consecutive IDs
+		 * @param size how many IDs were reserved
+		 */
+		IDBlock(final int firstID, final int incrementNo, final int size)
+		{
+			Check.assume(firstID > 0, "firstID > 0");
+			Check.assume(incrementNo > 0, "incrementNo > 0");
+			Check.assume(size > 0, "size > 0");
+
+			this.incrementNo = incrementNo;
+			this.endExclusive = firstID + (long)incrementNo * size;
+			this.lowWaterMark = firstID + (long)incrementNo * (size / 2);
+			this.nextID = new AtomicLong(firstID);
+		}
+
+		@Override
+		public String toString()
+		{
+			return MoreObjects.toStringHelper(this)
+					.add("nextID", nextID.get())
+					.add("endExclusive", endExclusive)
+					.add("incrementNo", incrementNo)
+					.toString();
+		}
+
+		/** @return next ID or <code>-1</code> if this block is exhausted */
+		private long nextIDOrExhausted()
+		{
+			final long id = nextID.getAndAdd(incrementNo);
+			return id < endExclusive ? id : -1;
+		}
+
+		/** @return true if the given ID was handed out and the block is half used, and nobody requested a refill yet */
+		private boolean isRefillNeeded(final long id)
+		{
+			return id >= lowWaterMark && refillRequested.compareAndSet(false, true);
+		}
+	}
+
+	private final class TableIDs
+	{
+		private final String tableName;
+		private volatile IDBlock current;
+		private volatile CompletableFuture<IDBlock> nextBlockFuture;
+
+		private TableIDs(final String tableName)
+		{
+			this.tableName = tableName;
+		}
+
+		public int nextID(final int blockSize)
+		{
+			while (true)
+			{
+				final IDBlock block = current;
+				if (block != null)
+				{
+					final long id = block.nextIDOrExhausted();
+					if (id > 0)
+					{
+						if (block.isRefillNeeded(id))
+						{
+							refillAsync(blockSize);
+						}
+						return toInt(id);
+					}
+				}
+
+				switchToNextBlock(block, blockSize);
+			}
+		}
+
+		private synchronized void switchToNextBlock(final IDBlock exhaustedBlock, final int blockSize)
+		{
+			if (current != exhaustedBlock)
+			{
+				return; // another thread already switched
+			}
+
+			final CompletableFuture<IDBlock> future = nextBlockFuture;
+			nextBlockFuture = null;
+
+			IDBlock nextBlock = null;
+			if (future != null)
+			{
+				try
+				{
+					nextBlock = future.join();
+				}
+				catch (final Exception e)
+				{
+					logger.warn("Failed reserving IDs asynchronously for {}. Retrying synchronously.", tableName, e);
+				}
+			}
+			if (nextBlock == null)
+			{
+				nextBlock = retriever.retrieveIDBlock(tableName, blockSize);
+			}
+
+			logger.debug("Switched to {} for {}", nextBlock, tableName);
+			current = nextBlock;
+		}
+
+		private synchronized void refillAsync(final int blockSize)
+		{
+			if (nextBlockFuture != null)
+			{
+				return;
+			}
+			nextBlockFuture = CompletableFuture.supplyAsync(() -> retriever.retrieveIDBlock(tableName, blockSize), refillExecutor);
+		}
+
+		private int toInt(final long id)
+		{
+			if (id > Integer.MAX_VALUE)
+			{
+				throw new AdempiereException("ID overflow for " + tableName + ": " + id);
+			}
+			return (int)id;
+		}
+	}
+}
@@ -42,6 +42,8 @@ import org.adempiere.ad.security.UserRolePermissionsKey;
 import org.adempiere.ad.session.ISessionBL;
 import org.adempiere.context.ContextProvider;
 import org.adempiere.context.ThreadLocalContextProvider;
+import org.adempiere.context.UserContext;
+import org.adempiere.context.UserContextProperties;
 import org.adempiere.exceptions.AdempiereException;
 import org.adempiere.service.ClientId;
 import org.adempiere.service.IClientDAO;
@@ -339,7 +341,45 @@ public final class Env
 	 */
 	public static final Properties newTemporaryCtx()
 	{
-		return new Properties();
+		return new UserContextProperties();
+	}
+
+	/**
+	 * Creates and returns a new temporary context (see {@link #newTemporaryCtx()}) which contains the values of given <code>userContext</code>.
+	 *
+	 * @return new context to be used temporary
+	 */
+	public static final Properties newTemporaryCtx(@NonNull final UserContext userContext)
+	{
+		final Properties ctx = newTemporaryCtx();
+		userContext.updateCtx(ctx);
+		return ctx;
+	}
+
+	/**
+	 * @return typed snapshot of given context's login values; in case the ctx is an {@link UserContextProperties}, the snapshot is cached until the ctx changes
+	 */
+	public static UserContext getUserContext(@NonNull final Properties ctx)
+	{
+		final UserContextProperties userContextProperties = UserContextProperties.castOrNull(ctx);
+		return userContextProperties != null
+				? userContextProperties.getUserContext()
+				: UserContext.ofCtx(ctx);
+	}
+
+	public static UserContext getUserContext()
+	{
+		return getUserContext(getCtx());
+	}
+
+	/**
+	 * @return cached {@link UserContext} if given context supports it, <code>null</code> otherwise
+	 */
+	@Nullable
+	private static UserContext getUserContextIfCached(final Properties ctx)
+	{
+		final UserContextProperties userContextProperties = UserContextProperties.castOrNull(ctx);
+		return userContextProperties != null ? userContextProperties.getUserContext() : null;
 	}
 
 	/**
@@ -353,7 +393,7 @@ public final class Env
 	public static final Properties deriveCtx(final Properties ctx)
 	{
 		Check.assumeNotNull(ctx, "ctx not null");
-		return new Properties(ctx);
+		return new UserContextProperties(ctx);
 	}
 
 	/**
@@ -368,7 +408,7 @@ public final class Env
 	{
 		Check.assumeNotNull(ctx, "ctx not null");
 
-		final Properties newCtx = new Properties();
+		final Properties newCtx = new UserContextProperties();
 
 		// we can't use this great tool, because it (reasonably) assumes that the given ctx doews not have null values
 		// org.springframework.util.CollectionUtils.mergePropertiesIntoMap(ctx, newCtx);
@@ -1142,6 +1182,11 @@ public final class Env
 	 */
 	public static int getAD_Client_ID(Properties ctx)
 	{
+		final UserContext userContext = getUserContextIfCached(ctx);
+		if (userContext != null)
+		{
+			return userContext.getAdClientId();
+		}
 		return Env.getContextAsInt(ctx, CTXNAME_AD_Client_ID);
 	}	// getAD_Client_ID
 	
@@ -1173,6 +1218,11 @@ public final class Env
 	 */
 	public static int getAD_Org_ID(Properties ctx)
 	{
+		final UserContext userContext = getUserContextIfCached(ctx);
+		if (userContext != null)
+		{
+			return userContext.getAdOrgId();
+		}
 		return getContextAsInt(ctx, CTXNAME_AD_Org_ID);
 	}	// getAD_Client_ID
 	
@@ -1199,6 +1249,11 @@ public final class Env
 	 */
 	public static int getAD_User_ID(Properties ctx)
 	{
+		final UserContext userContext = getUserContextIfCached(ctx);
+		if (userContext != null)
+		{
+			return userContext.getAdUserId();
+		}
 		return getContextAsInt(ctx, CTXNAME_AD_User_ID);
 	}	// getAD_User_ID
 
@@ -1237,6 +1292,11 @@ public final class Env
 	 */
 	public static int getAD_Role_ID(Properties ctx)
 	{
+		final UserContext userContext = getUserContextIfCached(ctx);
+		if (userContext != null)
+		{
+			return userContext.getAdRoleId();
+		}
 		return Env.getContextAsInt(ctx, CTXNAME_AD_Role_ID);
 	}
 
@@ -1419,7 +1479,8 @@ public final class Env
 	{
 		if (ctx != null)
 		{
-			final String lang = getContext(ctx, CTXNAME_AD_Language);
+			final UserContext userContext = getUserContextIfCached(ctx);
+			final String lang = userContext != null ? userContext.getAdLanguage() : getContext(ctx, CTXNAME_AD_Language);
 			if (!Check.isEmpty(lang))
 			{
 				return lang;
@@ -1842,7 +1903,7 @@ public final class Env
 	 */
 	public static Properties getRemoteCallCtx(final Properties ctx)
 	{
-		final Properties ctxLight = new Properties();
+		final Properties ctxLight = new UserContextProperties();
 		final Set<String> keys = ctx.stringPropertyNames(); // all property names (including the ones from the underlying "defaults")
 		for (final String key : keys)
 		{
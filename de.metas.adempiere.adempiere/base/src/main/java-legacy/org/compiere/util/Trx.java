@@ -22,6 +22,8 @@ import java.beans.VetoableChangeListener;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.List;
 
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.ad.trx.api.ITrxManager;
@@ -309,6 +311,26 @@ public class Trx extends AbstractTrx implements VetoableChangeListener
 		return false;
 	}	// rollback
 
+	@Override
+	protected int[] executeBatchNative(final List<String> sqls) throws SQLException
+	{
+		final Connection connection = getConnection();
+		Statement stmt = null;
+		try
+		{
+			stmt = connection.createStatement();
+			for (final String sql : sqls)
+			{
+				stmt.addBatch(DB.getDatabase().convertStatement(sql));
+			}
+			return stmt.executeBatch();
+		}
+		finally
+		{
+			DB.close(stmt);
+		}
+	}
+
 	@Override
 	protected boolean commitNative(boolean throwException) throws SQLException
 	{
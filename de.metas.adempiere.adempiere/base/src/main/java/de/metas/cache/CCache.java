@@ -28,6 +28,8 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -77,7 +79,8 @@ public class CCache<K, V> implements CacheInterface
 				null, // additionalTableNamesToResetFor
 				maxSize, // initialCapacity // FIXME this is confusing because in case of LRU, initialCapacity is used as maxSize
 				expireAfterMinutes,
-				CacheMapType.LRU);
+				CacheMapType.LRU,
+				null); // recordsExtractor
 	}
 
 	/**
@@ -92,7 +95,8 @@ public class CCache<K, V> implements CacheInterface
 				null, // additionalTableNamesToResetFor
 				initialCapacity,
 				expireAfterMinutes,
-				CacheMapType.HashMap);
+				CacheMapType.HashMap,
+				null); // recordsExtractor
 	}
 
 	public static enum CacheMapType
@@ -120,8 +124,27 @@ public class CCache<K, V> implements CacheInterface
 
 	private static final Logger logger = LogManager.getLogger(CCache.class);
 
-	/** Internal map that is used as cache */
-	private final Cache<K, V> cache;
+	/** Internal map that is used as cache. Might be replaced when the LRU cache is resized, see {@link #resizeLRU(int)}. */
+	private volatile Cache<K, V> cache;
+	private final CacheMapType cacheMapType;
+	/** LRU max size or HashMap initial capacity */
+	private volatile int initialCapacity;
+	/** Statistics of the internal caches which were replaced by {@link #resizeLRU(int)} */
+	private volatile CacheStats replacedCachesStats = new CacheStats(0, 0, 0, 0, 0, 0);
+	/**
+	 * Held (shared) while invalidating and (exclusively) by {@link #resizeLRU(int)},
+	 * so that a resize can't copy values which are concurrently invalidated in the old internal cache.
+	 */
+	private final ReentrantReadWriteLock invalidateVsResizeLock = new ReentrantReadWriteLock();
+
+	/** Optional index used to invalidate only the entries which were built from a given record */
+	private final CCacheRecordsIndex<K, V> recordsIndex;
+	/** If the records index has more entries than this factor multiplied by cache size, the whole cache is reset to get rid of the stale index entries */
+	private static final int RECORDS_INDEX_MAX_ENTRIES_PER_CACHED_VALUE = 10;
+
+	private final AtomicLong resetCount = new AtomicLong();
+	private final AtomicLong resetForRecordCount = new AtomicLong();
+	private final AtomicLong resetForRecordInvalidatedKeysCount = new AtomicLong();
 
 	static final AtomicLong NEXT_CACHE_ID = new AtomicLong(1);
 	/** unique cache ID, mainly used for tracking, logging and debugging */
@@ -171,9 +194,17 @@ public class CCache<K, V> implements CacheInterface
 				null, // additionalTableNamesToResetFor
 				initialCapacity,
 				expireMinutes,
-				CacheMapType.HashMap);
+				CacheMapType.HashMap,
+				null); // recordsExtractor
 	}
 
+	/**
+	 * @param recordsExtractor optional function which returns all records from which a given cached value was built.
+	 *            If set, the invalidation of a record which was returned for some cached values will evict only those values, instead of resetting the whole cache.
+	 *            Invalidations of any other records (e.g. new ones, or the ones of {@code additionalTableNamesToResetFor}) will still reset the whole cache.
+	 *            IMPORTANT: the function must return <b>all</b> records of the value's table which the value was built from,
+	 *            and a changed record shall not start to belong to the value of another key (e.g. because the key is a column that was changed).
+	 */
 	@Builder
 	protected CCache(
 			final String cacheName,
@@ -181,7 +212,8 @@ public class CCache<K, V> implements CacheInterface
 			@Singular("additionalTableNameToResetFor") final Set<String> additionalTableNamesToResetFor,
 			final Integer initialCapacity,
 			final Integer expireMinutes,
-			final CacheMapType cacheMapType)
+			final CacheMapType cacheMapType,
+			final Function<V, ? extends Collection<TableRecordReference>> recordsExtractor)
 	{
 		this.cacheId = NEXT_CACHE_ID.getAndIncrement();
 
@@ -224,10 +256,13 @@ public class CCache<K, V> implements CacheInterface
 		this.labels = buildCacheLabels(tableNameEffective, additionalTableNamesToResetFor);
 
 		this.expireMinutes = expireMinutes != null ? expireMinutes : EXPIREMINUTES_Never;
+		this.cacheMapType = cacheMapType != null ? cacheMapType : CacheMapType.HashMap;
+		this.initialCapacity = initialCapacity != null ? initialCapacity : 0;
 		this.cache = buildGuavaCache(
-				cacheMapType != null ? cacheMapType : CacheMapType.HashMap,
-				initialCapacity != null ? initialCapacity : 0,
+				this.cacheMapType,
+				this.initialCapacity,
 				this.expireMinutes);
+		this.recordsIndex = recordsExtractor != null ? new CCacheRecordsIndex<>(recordsExtractor) : null;
 
 		if (DEBUG)
 		{
@@ -317,9 +352,64 @@ public class CCache<K, V> implements CacheInterface
 			cacheBuilder = cacheBuilder.expireAfterWrite(expireMinutes, TimeUnit.MINUTES);
 		}
 
+		cacheBuilder = cacheBuilder.recordStats();
+
 		return cacheBuilder.build();
 	}
 
+	/**
+	 * @return true if this is an LRU cache, i.e. it has a maximum size
+	 */
+	/* package */ boolean isLRU()
+	{
+		return cacheMapType == CacheMapType.LRU;
+	}
+
+	/**
+	 * @return LRU cache maximum size or -1 if this is not an LRU cache
+	 */
+	public int getMaxSize()
+	{
+		return isLRU() ? initialCapacity : -1;
+	}
+
+	/**
+	 * Changes the maximum size of this LRU cache.
+	 * <p>
+	 * The cached values are copied to a new internal cache (at most <code>newMaxSize</code> of them).
+	 * Values which are added concurrently might be lost, which is OK for a cache.
+	 *
+	 * @return true if resized
+	 */
+	/* package */ synchronized boolean resizeLRU(final int newMaxSize)
+	{
+		if (!isLRU() || newMaxSize <= 0 || newMaxSize == initialCapacity)
+		{
+			return false;
+		}
+
+		final Cache<K, V> cacheOld;
+		invalidateVsResizeLock.writeLock().lock();
+		try
+		{
+			cacheOld = cache;
+			final Cache<K, V> cacheNew = buildGuavaCache(cacheMapType, newMaxSize, expireMinutes);
+			cacheNew.putAll(cacheOld.asMap());
+			cache = cacheNew;
+		}
+		finally
+		{
+			invalidateVsResizeLock.writeLock().unlock();
+		}
+
+		replacedCachesStats = replacedCachesStats.plus(cacheOld.stats());
+		logger.debug("Resized {} from {} to {}", this, initialCapacity, newMaxSize);
+		initialCapacity = newMaxSize;
+
+		cacheOld.invalidateAll();
+		return true;
+	}
+
 	/**
 	 * @return unique cache ID
 	 */
@@ -379,6 +469,7 @@ public class CCache<K, V> implements CacheInterface
 	{
 		final long no = cache.size();
 		clear();
+		resetCount.incrementAndGet();
 		if (no > 0)
 		{
 			logger.trace("Reset {} entries from {}", no, this);
@@ -389,17 +480,72 @@ public class CCache<K, V> implements CacheInterface
 	private void clear()
 	{
 		// Clear
-		cache.invalidateAll();
-		cache.cleanUp();
+		if (recordsIndex != null)
+		{
+			recordsIndex.clear();
+		}
+		invalidate(internalCache -> {
+			internalCache.invalidateAll();
+			internalCache.cleanUp();
+		});
 
 		m_justReset = true;
 	}	// clear
 
 	@Override
-	public long resetForRecordId(final TableRecordReference recordRef)
+	public long resetForRecordId(@NonNull final TableRecordReference recordRef)
+	{
+		final Set<K> keysToInvalidate = recordsIndex != null ? recordsIndex.getKeysToInvalidateOrNull(recordRef) : null;
+		if (keysToInvalidate == null)
+		{
+			// NOTE: we don't know which keys were built from given record, so we are reseting everything
+			return reset();
+		}
+
+		resetForRecordCount.incrementAndGet();
+		if (keysToInvalidate.isEmpty())
+		{
+			return 0;
+		}
+
+		invalidate(internalCache -> internalCache.invalidateAll(keysToInvalidate));
+		resetForRecordInvalidatedKeysCount.addAndGet(keysToInvalidate.size());
+		logger.trace("Reset {} entries for {} from {}", keysToInvalidate.size(), recordRef, this);
+		return keysToInvalidate.size();
+	}
+
+	/**
+	 * Runs given invalidation on the current internal cache, making sure it's not replaced by {@link #resizeLRU(int)} meanwhile.
+	 */
+	private void invalidate(final Consumer<Cache<K, V>> invalidation)
 	{
-		// NOTE: reseting only by "key" is not supported at this level, so we are reseting everything
-		return reset();
+		invalidateVsResizeLock.readLock().lock();
+		try
+		{
+			invalidation.accept(cache);
+		}
+		finally
+		{
+			invalidateVsResizeLock.readLock().unlock();
+		}
+	}
+
+	private void addToRecordsIndex(final K key, final V value)
+	{
+		if (recordsIndex == null)
+		{
+			return;
+		}
+
+		// Make sure the index does not grow indefinitely because of evicted/expired values
+		final long maxEntries = RECORDS_INDEX_MAX_ENTRIES_PER_CACHED_VALUE * Math.max(cache.size(), 1000);
+		if (recordsIndex.getEntriesCount() > maxEntries)
+		{
+			logger.debug("Records index of {} has more than {} entries. Resetting the cache.", this, maxEntries);
+			reset();
+		}
+
+		recordsIndex.add(key, value);
 	}
 
 	@Override
@@ -432,13 +578,13 @@ public class CCache<K, V> implements CacheInterface
 	public V remove(final K key)
 	{
 		final V value = cache.getIfPresent(key);
-		cache.invalidate(key);
+		invalidate(internalCache -> internalCache.invalidate(key));
 		return value;
 	}
 
 	public void removeAll(final Iterable<K> keys)
 	{
-		cache.invalidateAll(keys);
+		invalidate(internalCache -> internalCache.invalidateAll(keys));
 	}
 
 	/**
@@ -499,9 +645,24 @@ public class CCache<K, V> implements CacheInterface
 			return cache.getIfPresent(key);
 		}
 
+		final Callable<V> valueInitializerEffective;
+		if (recordsIndex != null)
+		{
+			// index the value before it's added to cache, so that a record invalidation which comes right after will find it
+			valueInitializerEffective = () -> {
+				final V value = valueInitializer.call();
+				addToRecordsIndex(key, value);
+				return value;
+			};
+		}
+		else
+		{
+			valueInitializerEffective = valueInitializer;
+		}
+
 		try
 		{
-			return cache.get(key, valueInitializer);
+			return cache.get(key, valueInitializerEffective);
 		}
 		catch (final InvalidCacheLoadException e)
 		{
@@ -585,6 +746,7 @@ public class CCache<K, V> implements CacheInterface
 		if (!keysToLoad.isEmpty())
 		{
 			final Map<K, V> valuesLoaded = valuesLoader.apply(keysToLoad);
+			valuesLoaded.forEach(this::addToRecordsIndex);
 			valuesLoaded.forEach(cache::put); // add loaded values to cache
 			values.addAll(valuesLoaded.values()); // add loaded values to the list we will return
 		}
@@ -623,10 +785,11 @@ public class CCache<K, V> implements CacheInterface
 		m_justReset = false;
 		if (value == null)
 		{
-			cache.invalidate(key);
+			invalidate(internalCache -> internalCache.invalidate(key));
 		}
 		else
 		{
+			addToRecordsIndex(key, value);
 			cache.put(key, value);
 		}
 	}	// put
@@ -638,6 +801,7 @@ public class CCache<K, V> implements CacheInterface
 	 */
 	public void putAll(final Map<? extends K, ? extends V> map)
 	{
+		map.forEach(this::addToRecordsIndex);
 		cache.putAll(map);
 	}
 
@@ -717,12 +881,27 @@ public class CCache<K, V> implements CacheInterface
 	// return this;
 	// }
 
+	private CacheStats getGuavaStats()
+	{
+		return replacedCachesStats.plus(cache.stats());
+	}
+
 	/**
 	 * @return cache statistics
 	 */
 	public CCacheStats stats()
 	{
-		return new CCacheStats(cacheId, cacheName, cache.size(), cache.stats());
+		return new CCacheStats(
+				cacheId,
+				cacheName,
+				labels,
+				cache.size(),
+				getMaxSize(),
+				getGuavaStats(),
+				recordsIndex != null,
+				resetCount.get(),
+				resetForRecordCount.get(),
+				resetForRecordInvalidatedKeysCount.get());
 	}
 
 	@SuppressWarnings("serial")
@@ -732,16 +911,38 @@ public class CCache<K, V> implements CacheInterface
 
 		private final long cacheId;
 		private final String name;
+		private final ImmutableSet<CacheLabel> labels;
 		private final long size;
+		private final int maxSize;
 		private final CacheStats guavaStats;
-
-		private CCacheStats(final long cacheId, final String name, final long size, final CacheStats guavaStats)
+		private final boolean recordsIndexed;
+		private final long resetCount;
+		private final long resetForRecordCount;
+		private final long resetForRecordInvalidatedKeysCount;
+
+		private CCacheStats(
+				final long cacheId,
+				final String name,
+				final ImmutableSet<CacheLabel> labels,
+				final long size,
+				final int maxSize,
+				final CacheStats guavaStats,
+				final boolean recordsIndexed,
+				final long resetCount,
+				final long resetForRecordCount,
+				final long resetForRecordInvalidatedKeysCount)
 		{
 			super();
 			this.cacheId = cacheId;
 			this.name = name;
+			this.labels = labels;
 			this.size = size;
+			this.maxSize = maxSize;
 			this.guavaStats = guavaStats;
+			this.recordsIndexed = recordsIndexed;
+			this.resetCount = resetCount;
+			this.resetForRecordCount = resetForRecordCount;
+			this.resetForRecordInvalidatedKeysCount = resetForRecordInvalidatedKeysCount;
 		}
 
 		@Override
@@ -750,7 +951,13 @@ public class CCache<K, V> implements CacheInterface
 			return MoreObjects.toStringHelper(this)
 					.add("name", name)
 					.add("size", size)
+					.add("maxSize", maxSize > 0 ? maxSize : null)
+					.add("hitRate", guavaStats.hitRate())
 					.add("guavaStats", guavaStats)
+					.add("recordsIndexed", recordsIndexed)
+					.add("resetCount", resetCount)
+					.add("resetForRecordCount", resetForRecordCount)
+					.add("resetForRecordInvalidatedKeysCount", resetForRecordInvalidatedKeysCount)
 					.add("cacheId", cacheId)
 					.toString();
 		}
@@ -758,7 +965,7 @@ public class CCache<K, V> implements CacheInterface
 		@Override
 		public int hashCode()
 		{
-			return Objects.hash(cacheId, name, size, guavaStats);
+			return Objects.hash(cacheId, name, size, guavaStats, resetCount, resetForRecordCount);
 		}
 
 		@Override
@@ -770,7 +977,12 @@ public class CCache<K, V> implements CacheInterface
 				return cacheId == other.cacheId
 						&& name.equals(other.name)
 						&& size == other.size
-						&& guavaStats.equals(other.guavaStats);
+						&& maxSize == other.maxSize
+						&& guavaStats.equals(other.guavaStats)
+						&& recordsIndexed == other.recordsIndexed
+						&& resetCount == other.resetCount
+						&& resetForRecordCount == other.resetForRecordCount
+						&& resetForRecordInvalidatedKeysCount == other.resetForRecordInvalidatedKeysCount;
 			}
 			return false;
 		}
@@ -785,14 +997,47 @@ public class CCache<K, V> implements CacheInterface
 			return name;
 		}
 
+		public Set<CacheLabel> getLabels()
+		{
+			return labels;
+		}
+
 		public long getSize()
 		{
 			return size;
 		}
 
+		/** @return LRU max size or -1 if the cache is not an LRU cache */
+		public int getMaxSize()
+		{
+			return maxSize;
+		}
+
 		public CacheStats getGuavaStats()
 		{
 			return guavaStats;
 		}
+
+		public boolean isRecordsIndexed()
+		{
+			return recordsIndexed;
+		}
+
+		/** @return how many times the whole cache was reset */
+		public long getResetCount()
+		{
+			return resetCount;
+		}
+
+		/** @return how many record invalidations were answered using the records index, without resetting the whole cache */
+		public long getResetForRecordCount()
+		{
+			return resetForRecordCount;
+		}
+
+		public long getResetForRecordInvalidatedKeysCount()
+		{
+			return resetForRecordInvalidatedKeysCount;
+		}
 	}
 }	// CCache
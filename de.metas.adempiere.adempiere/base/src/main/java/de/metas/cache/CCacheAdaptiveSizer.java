@@ -0,0 +1,260 @@
+package de.metas.cache;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.slf4j.Logger;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.cache.CacheStats;
+
+import de.metas.logging.LogManager;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Periodically grows the maximum size of the LRU {@link CCache}s which are thrashing, i.e. which evict values and have a high miss rate.
+ * <p>
+ * The sum of all LRU caches' maximum sizes is kept below a global budget. Because we don't know how big the cached values are, the budget is a number of entries and not bytes.
+ * Caches are never shrunk, but they will be reset anyway when their tables change.
+ * <p>
+ * Disabled by default. It can be configured by the following system properties:
+ * <ul>
+ * <li>{@value #SYSTEM_PROPERTY_Enabled} (default {@value #DEFAULT_Enabled})
+ * <li>{@value #SYSTEM_PROPERTY_MaxTotalEntries} (default {@value #DEFAULT_MaxTotalEntries})
+ * <li>{@value #SYSTEM_PROPERTY_IntervalSeconds} (default {@value #DEFAULT_IntervalSeconds})
+ * </ul>
+ */
+final class CCacheAdaptiveSizer
+{
+	private static final Logger logger = LogManager.getLogger(CCacheAdaptiveSizer.class);
+
+	public static final String SYSTEM_PROPERTY_Enabled = "de.metas.cache.AdaptiveSizing.Enabled";
+	private static final boolean DEFAULT_Enabled = false;
+	public static final String SYSTEM_PROPERTY_MaxTotalEntries = "de.metas.cache.AdaptiveSizing.MaxTotalEntries";
+	private static final int DEFAULT_MaxTotalEntries = 1_000_000;
+	public static final String SYSTEM_PROPERTY_IntervalSeconds = "de.metas.cache.AdaptiveSizing.IntervalSeconds";
+	private static final int DEFAULT_IntervalSeconds = 60;
+
+	/** Don't judge a cache which had less requests than this in one interval */
+	private static final long MIN_REQUESTS = 1000;
+	/** Grow a cache only if its miss rate is at least this */
+	private static final double MIN_MISS_RATE = 0.3;
+	private static final int GROW_FACTOR = 2;
+
+	private final Supplier<Stream<CacheInterface>> cachesSupplier;
+	private final int maxTotalEntries;
+	private final int intervalSeconds;
+
+	/** cacheId to the stats we've seen on last run */
+	private final Map<Long, CacheStats> lastStatsByCacheId = new ConcurrentHashMap<>();
+
+	private ScheduledExecutorService executor; // lazy
+	private ScheduledFuture<?> scheduledFuture;
+	private long resizeCount = 0;
+
+	public static CCacheAdaptiveSizer createFromSystemProperties(@NonNull final Supplier<Stream<CacheInterface>> cachesSupplier)
+	{
+		final CCacheAdaptiveSizer sizer = builder()
+				.cachesSupplier(cachesSupplier)
+				.maxTotalEntries(Integer.getInteger(SYSTEM_PROPERTY_MaxTotalEntries, DEFAULT_MaxTotalEntries))
+				.intervalSeconds(Integer.getInteger(SYSTEM_PROPERTY_IntervalSeconds, DEFAULT_IntervalSeconds))
+				.build();
+
+		final boolean enabled = Boolean.parseBoolean(System.getProperty(SYSTEM_PROPERTY_Enabled, String.valueOf(DEFAULT_Enabled)));
+		sizer.setEnabled(enabled);
+
+		return sizer;
+	}
+
+	@Builder
+	private CCacheAdaptiveSizer(
+			@NonNull final Supplier<Stream<CacheInterface>> cachesSupplier,
+			final int maxTotalEntries,
+			final int intervalSeconds)
+	{
+		this.cachesSupplier = cachesSupplier;
+		this.maxTotalEntries = maxTotalEntries;
+		this.intervalSeconds = intervalSeconds > 0 ? intervalSeconds : DEFAULT_IntervalSeconds;
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("enabled", isEnabled())
+				.add("maxTotalEntries", maxTotalEntries)
+				.add("intervalSeconds", intervalSeconds)
+				.add("resizeCount", resizeCount)
+				.toString();
+	}
+
+	public synchronized boolean isEnabled()
+	{
+		return scheduledFuture != null;
+	}
+
+	public synchronized void setEnabled(final boolean enabled)
+	{
+		if (enabled == isEnabled())
+		{
+			return;
+		}
+
+		if (enabled)
+		{
+			if (executor == null)
+			{
+				executor = Executors.newSingleThreadScheduledExecutor(CustomizableThreadFactory.builder()
+						.setThreadNamePrefix(CCacheAdaptiveSizer.class.getSimpleName())
+						.setDaemon(true)
+						.build());
+			}
+			scheduledFuture = executor.scheduleWithFixedDelay(this::runNoFail, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+			logger.info("Enabled: {}", this);
+		}
+		else
+		{
+			scheduledFuture.cancel(false);
+			scheduledFuture = null;
+			lastStatsByCacheId.clear();
+			logger.info("Disabled: {}", this);
+		}
+	}
+
+	private void runNoFail()
+	{
+		try
+		{
+			run();
+		}
+		catch (final Exception ex)
+		{
+			logger.warn("Failed resizing caches. Ignored.", ex);
+		}
+	}
+
+	/**
+	 * Checks all LRU caches once and grows those which are thrashing.
+	 *
+	 * @return how many caches were resized
+	 */
+	/* package */ synchronized int run()
+	{
+		final List<CCache<?, ?>> caches = cachesSupplier.get()
+				.filter(cache -> cache instanceof CCache)
+				.map(cache -> (CCache<?, ?>)cache)
+				.filter(CCache::isLRU)
+				.collect(Collectors.toList());
+
+		// forget the caches which are gone
+		final Set<Long> cacheIds = caches.stream().map(CCache::getCacheId).collect(Collectors.toSet());
+		lastStatsByCacheId.keySet().retainAll(cacheIds);
+
+		long totalMaxSize = caches.stream().mapToLong(CCache::getMaxSize).sum();
+
+		// evaluate all caches first, then grow the ones with most misses first
+		final List<Candidate> candidates = caches.stream()
+				.map(this::toCandidateOrNull)
+				.filter(candidate -> candidate != null)
+				.sorted(Comparator.comparing(Candidate::getMissCount).reversed())
+				.collect(Collectors.toList());
+
+		int resized = 0;
+		for (final Candidate candidate : candidates)
+		{
+			final CCache<?, ?> cache = candidate.getCache();
+			final int maxSize = cache.getMaxSize();
+			final long growBy = Math.min((long)maxSize * (GROW_FACTOR - 1), maxTotalEntries - totalMaxSize);
+			if (growBy <= 0)
+			{
+				logger.debug("Not growing {} because the budget of {} entries is exhausted", cache, maxTotalEntries);
+				break;
+			}
+
+			if (cache.resizeLRU((int)(maxSize + growBy)))
+			{
+				totalMaxSize += growBy;
+				resized++;
+				resizeCount++;
+				logger.info("Grown {} by {} entries because of miss rate {}", cache, growBy, candidate.getMissRate());
+			}
+		}
+
+		return resized;
+	}
+
+	private Candidate toCandidateOrNull(final CCache<?, ?> cache)
+	{
+		final CacheStats stats = cache.stats().getGuavaStats();
+		final CacheStats lastStats = lastStatsByCacheId.put(cache.getCacheId(), stats);
+		if (lastStats == null)
+		{
+			return null; // first time we see it
+		}
+
+		final CacheStats delta = stats.minus(lastStats);
+		if (delta.requestCount() < MIN_REQUESTS)
+		{
+			return null;
+		}
+		if (delta.evictionCount() <= 0)
+		{
+			return null; // not limited by max size
+		}
+		if (delta.missRate() < MIN_MISS_RATE)
+		{
+			return null;
+		}
+
+		return Candidate.builder()
+				.cache(cache)
+				.missCount(delta.missCount())
+				.missRate(delta.missRate())
+				.build();
+	}
+
+	@Value
+	@Builder
+	private static class Candidate
+	{
+		@NonNull
+		CCache<?, ?> cache;
+		long missCount;
+		double missRate;
+	}
+}
@@ -0,0 +1,119 @@
+package de.metas.cache;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.adempiere.util.lang.impl.TableRecordReference;
+
+import com.google.common.base.MoreObjects;
+
+import lombok.NonNull;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Reverse index from {@link TableRecordReference} to the keys of the cached values which were built from that record.
+ * <p>
+ * The index is an over-approximation: keys are not removed when their values are evicted, but only when the record is invalidated or the whole index is cleared.
+ * Invalidating a key which is no longer cached is harmless.
+ * <p>
+ * A record invalidation can only be answered by this index if the record was returned by the records extractor for some cached value.
+ * For all other records (e.g. new ones, which might belong to a cached query result), the cache needs to be fully reset (see {@link #getKeysToInvalidateOrNull(TableRecordReference)}).
+ *
+ * @param <K> cache key type
+ * @param <V> cached value type
+ */
+final class CCacheRecordsIndex<K, V>
+{
+	private final Function<V, ? extends Collection<TableRecordReference>> recordsExtractor;
+	private final ConcurrentHashMap<TableRecordReference, Set<K>> record2keys = new ConcurrentHashMap<>();
+	private final AtomicLong entriesCount = new AtomicLong();
+
+	CCacheRecordsIndex(@NonNull final Function<V, ? extends Collection<TableRecordReference>> recordsExtractor)
+	{
+		this.recordsExtractor = recordsExtractor;
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("records", record2keys.size())
+				.add("entriesCount", entriesCount.get())
+				.toString();
+	}
+
+	public void add(final K key, final V value)
+	{
+		if (key == null || value == null)
+		{
+			return;
+		}
+
+		final Collection<TableRecordReference> recordRefs = recordsExtractor.apply(value);
+		if (recordRefs == null || recordRefs.isEmpty())
+		{
+			return;
+		}
+
+		for (final TableRecordReference recordRef : recordRefs)
+		{
+			if (record2keys.computeIfAbsent(recordRef, k -> ConcurrentHashMap.newKeySet()).add(key))
+			{
+				entriesCount.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * @return keys to be invalidated for given record or <code>null</code> if this index cannot tell, i.e. the whole cache shall be reset
+	 */
+	public Set<K> getKeysToInvalidateOrNull(@NonNull final TableRecordReference recordRef)
+	{
+		final Set<K> keys = record2keys.remove(recordRef);
+		if (keys == null)
+		{
+			return null;
+		}
+
+		entriesCount.addAndGet(-keys.size());
+		return keys;
+	}
+
+	public void clear()
+	{
+		record2keys.clear();
+		entriesCount.set(0);
+	}
+
+	/**
+	 * @return how many record/key pairs are currently indexed (including stale ones)
+	 */
+	public long getEntriesCount()
+	{
+		return entriesCount.get();
+	}
+}
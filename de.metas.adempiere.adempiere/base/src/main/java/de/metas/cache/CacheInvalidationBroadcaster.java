@@ -0,0 +1,363 @@
+package de.metas.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.slf4j.Logger;
+
+import com.google.common.base.MoreObjects;
+
+import de.metas.cache.model.CacheInvalidateMultiRequest;
+import de.metas.cache.model.CacheInvalidateRequest;
+import de.metas.logging.LogManager;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Collects the cache invalidation requests to be broadcasted and sends them as one {@link CacheInvalidateMultiRequest}:
+ * <ul>
+ * <li>after {@code delayMillis} since the first request was collected, or
+ * <li>as soon as {@code maxRequests} requests were collected.
+ * </ul>
+ * Requests for the same record are sent only once. If more than {@code maxRecordsPerTable} records of the same table were collected,
+ * they are collapsed to one "all records of that table" request.
+ * <p>
+ * If {@code delayMillis} is not positive, each request is sent right away, without collecting.
+ */
+final class CacheInvalidationBroadcaster
+{
+	private static final Logger logger = LogManager.getLogger(CacheInvalidationBroadcaster.class);
+
+	private final Consumer<CacheInvalidateMultiRequest> sender;
+	private final long delayMillis;
+	private final int maxRequests;
+	private final int maxRecordsPerTable;
+	private final ScheduledExecutorService executor;
+
+	private final Object lock = new Object();
+	private boolean pendingResetAll = false;
+	private final LinkedHashMap<String, PendingTableRequests> pendingByTableName = new LinkedHashMap<>();
+	private int pendingRequestsCount = 0;
+	private boolean flushScheduled = false;
+
+	private final AtomicLong receivedRequestsCount = new AtomicLong();
+	private final AtomicLong duplicateRequestsCount = new AtomicLong();
+	private final AtomicLong collapsedRequestsCount = new AtomicLong();
+	private final AtomicLong sentRequestsCount = new AtomicLong();
+	private final AtomicLong sentEventsCount = new AtomicLong();
+
+	@Builder
+	private CacheInvalidationBroadcaster(
+			@NonNull final Consumer<CacheInvalidateMultiRequest> sender,
+			final long delayMillis,
+			final int maxRequests,
+			final int maxRecordsPerTable,
+			final ScheduledExecutorService executor)
+	{
+		this.sender = sender;
+		this.delayMillis = delayMillis;
+		this.maxRequests = maxRequests > 0 ? maxRequests : Integer.MAX_VALUE;
+		this.maxRecordsPerTable = maxRecordsPerTable > 0 ? maxRecordsPerTable : Integer.MAX_VALUE;
+
+		if (delayMillis <= 0)
+		{
+			this.executor = null;
+		}
+		else if (executor != null)
+		{
+			this.executor = executor;
+		}
+		else
+		{
+			this.executor = Executors.newSingleThreadScheduledExecutor(CustomizableThreadFactory.builder()
+					.setThreadNamePrefix(CacheInvalidationBroadcaster.class.getSimpleName())
+					.setDaemon(true)
+					.build());
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("delayMillis", delayMillis)
+				.add("maxRequests", maxRequests)
+				.add("maxRecordsPerTable", maxRecordsPerTable)
+				.toString();
+	}
+
+	public void broadcast(@NonNull final CacheInvalidateMultiRequest multiRequest)
+	{
+		receivedRequestsCount.addAndGet(multiRequest.getRequests().size());
+
+		if (executor == null)
+		{
+			send(multiRequest);
+			return;
+		}
+
+		final boolean flushNow;
+		final boolean scheduleFlush;
+		synchronized (lock)
+		{
+			if (multiRequest.isResetAll())
+			{
+				collapsedRequestsCount.addAndGet(pendingRequestsCount);
+				clearPending();
+				pendingResetAll = true;
+			}
+			else if (pendingResetAll)
+			{
+				collapsedRequestsCount.addAndGet(multiRequest.getRequests().size());
+			}
+			else
+			{
+				multiRequest.getRequests().forEach(this::addPending);
+			}
+
+			flushNow = pendingRequestsCount >= maxRequests;
+			scheduleFlush = !flushScheduled;
+			flushScheduled = true;
+		}
+
+		if (flushNow)
+		{
+			executor.execute(this::flush);
+		}
+		else if (scheduleFlush)
+		{
+			executor.schedule(this::flush, delayMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void addPending(final CacheInvalidateRequest request)
+	{
+		final String tableName = request.getTableNameEffective();
+		final PendingTableRequests pendingTableRequests = pendingByTableName.computeIfAbsent(tableName, PendingTableRequests::new);
+
+		if (request.isAllRecords())
+		{
+			if (pendingTableRequests.isAllRecords())
+			{
+				duplicateRequestsCount.incrementAndGet();
+			}
+			collapseToAllRecords(pendingTableRequests);
+			return;
+		}
+		else if (pendingTableRequests.isAllRecords())
+		{
+			collapsedRequestsCount.incrementAndGet();
+			keepRootRecordOfChildRequest(request);
+			return;
+		}
+
+		if (pendingTableRequests.add(request))
+		{
+			pendingRequestsCount++;
+		}
+		else
+		{
+			duplicateRequestsCount.incrementAndGet();
+		}
+
+		if (pendingTableRequests.size() > maxRecordsPerTable)
+		{
+			collapseToAllRecords(pendingTableRequests);
+		}
+	}
+
+	private void collapseToAllRecords(final PendingTableRequests pendingTableRequests)
+	{
+		if (pendingTableRequests.isAllRecords())
+		{
+			return;
+		}
+
+		final List<CacheInvalidateRequest> requestsToCollapse = pendingTableRequests.setAllRecords();
+		collapsedRequestsCount.addAndGet(requestsToCollapse.size());
+		pendingRequestsCount = pendingRequestsCount - requestsToCollapse.size() + 1;
+
+		// The child record requests are also invalidating the root record. Make sure we don't lose that.
+		requestsToCollapse.forEach(this::keepRootRecordOfChildRequest);
+	}
+
+	private void keepRootRecordOfChildRequest(final CacheInvalidateRequest request)
+	{
+		if (request.getChildTableName() == null || request.getRootTableName() == null || request.getRootRecordOrNull() == null)
+		{
+			return;
+		}
+
+		addPending(CacheInvalidateRequest.rootRecord(request.getRootTableName(), request.getRootRecordId()));
+	}
+
+	private void clearPending()
+	{
+		pendingResetAll = false;
+		pendingByTableName.clear();
+		pendingRequestsCount = 0;
+	}
+
+	/**
+	 * Sends all collected requests.
+	 */
+	public void flush()
+	{
+		final CacheInvalidateMultiRequest multiRequest;
+		synchronized (lock)
+		{
+			flushScheduled = false;
+			multiRequest = toMultiRequestOrNull();
+			clearPending();
+		}
+
+		if (multiRequest != null)
+		{
+			send(multiRequest);
+		}
+	}
+
+	private CacheInvalidateMultiRequest toMultiRequestOrNull()
+	{
+		if (pendingResetAll)
+		{
+			return CacheInvalidateMultiRequest.all();
+		}
+
+		final List<CacheInvalidateRequest> requests = new ArrayList<>(pendingRequestsCount);
+		pendingByTableName.values().forEach(pendingTableRequests -> pendingTableRequests.collectTo(requests));
+		return !requests.isEmpty() ? CacheInvalidateMultiRequest.of(requests) : null;
+	}
+
+	private void send(final CacheInvalidateMultiRequest multiRequest)
+	{
+		try
+		{
+			sender.accept(multiRequest);
+			sentEventsCount.incrementAndGet();
+			sentRequestsCount.addAndGet(multiRequest.getRequests().size());
+		}
+		catch (final Exception ex)
+		{
+			logger.warn("Failed broadcasting {}. Ignored.", multiRequest, ex);
+		}
+	}
+
+	public Statistics getStatistics()
+	{
+		return Statistics.builder()
+				.receivedRequestsCount(receivedRequestsCount.get())
+				.duplicateRequestsCount(duplicateRequestsCount.get())
+				.collapsedRequestsCount(collapsedRequestsCount.get())
+				.sentRequestsCount(sentRequestsCount.get())
+				.sentEventsCount(sentEventsCount.get())
+				.build();
+	}
+
+	@Value
+	@Builder
+	public static class Statistics
+	{
+		long receivedRequestsCount;
+		long duplicateRequestsCount;
+		long collapsedRequestsCount;
+		long sentRequestsCount;
+		long sentEventsCount;
+	}
+
+	/** Record requests of one table, deduplicated by record (the request IDs are ignored) */
+	private static final class PendingTableRequests
+	{
+		private final String tableName;
+		private boolean allRecords = false;
+		private final Map<RecordKey, CacheInvalidateRequest> requestsByRecord = new HashMap<>();
+
+		private PendingTableRequests(final String tableName)
+		{
+			this.tableName = tableName;
+		}
+
+		public boolean isAllRecords()
+		{
+			return allRecords;
+		}
+
+		public int size()
+		{
+			return requestsByRecord.size();
+		}
+
+		/** @return true if added, false if there was already a request for the same record */
+		public boolean add(final CacheInvalidateRequest request)
+		{
+			return requestsByRecord.putIfAbsent(RecordKey.of(request), request) == null;
+		}
+
+		/** @return the record requests which were replaced */
+		public List<CacheInvalidateRequest> setAllRecords()
+		{
+			allRecords = true;
+			final List<CacheInvalidateRequest> requests = new ArrayList<>(requestsByRecord.values());
+			requestsByRecord.clear();
+			return requests;
+		}
+
+		public void collectTo(final List<CacheInvalidateRequest> requests)
+		{
+			if (allRecords)
+			{
+				requests.add(CacheInvalidateRequest.allRecordsForTable(tableName));
+			}
+			else
+			{
+				requests.addAll(requestsByRecord.values());
+			}
+		}
+	}
+
+	@Value
+	private static class RecordKey
+	{
+		static RecordKey of(final CacheInvalidateRequest request)
+		{
+			return new RecordKey(request.getRootTableName(), request.getRootRecordId(), request.getChildTableName(), request.getChildRecordId());
+		}
+
+		String rootTableName;
+		int rootRecordId;
+		String childTableName;
+		int childRecordId;
+	}
+}
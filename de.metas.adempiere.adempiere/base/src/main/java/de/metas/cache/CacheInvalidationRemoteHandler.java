@@ -5,6 +5,8 @@ import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.adempiere.ad.dao.cache.CacheInvalidateMultiRequestSerializer;
+import org.adempiere.service.ISysConfigBL;
+import org.compiere.Adempiere;
 import org.slf4j.Logger;
 
 import com.google.common.collect.ImmutableSet;
@@ -63,6 +65,15 @@ final class CacheInvalidationRemoteHandler implements IEventListener
 
 	private final CacheInvalidateMultiRequestSerializer jsonSerializer = new CacheInvalidateMultiRequestSerializer();
 
+	private static final String SYSCONFIG_BroadcastDelayMillis = "de.metas.cache.CacheInvalidationRemoteHandler.BroadcastDelayMillis";
+	private static final int DEFAULT_BroadcastDelayMillis = 50;
+	private static final String SYSCONFIG_BroadcastMaxRequests = "de.metas.cache.CacheInvalidationRemoteHandler.BroadcastMaxRequests";
+	private static final int DEFAULT_BroadcastMaxRequests = 500;
+	private static final String SYSCONFIG_BroadcastMaxRecordsPerTable = "de.metas.cache.CacheInvalidationRemoteHandler.BroadcastMaxRecordsPerTable";
+	private static final int DEFAULT_BroadcastMaxRecordsPerTable = 100;
+
+	private volatile CacheInvalidationBroadcaster _broadcaster; // lazy
+
 	private CacheInvalidationRemoteHandler()
 	{
 	}
@@ -127,7 +138,42 @@ final class CacheInvalidationRemoteHandler implements IEventListener
 			return;
 		}
 
-		// Broadcast the event.
+		// Broadcast the event (coalesced with other requests)
+		getBroadcaster().broadcast(request);
+	}
+
+	private CacheInvalidationBroadcaster getBroadcaster()
+	{
+		CacheInvalidationBroadcaster broadcaster = _broadcaster;
+		if (broadcaster == null)
+		{
+			synchronized (this)
+			{
+				broadcaster = _broadcaster;
+				if (broadcaster == null)
+				{
+					broadcaster = _broadcaster = createBroadcaster();
+				}
+			}
+		}
+		return broadcaster;
+	}
+
+	private CacheInvalidationBroadcaster createBroadcaster()
+	{
+		final ISysConfigBL sysConfigBL = Services.get(ISysConfigBL.class);
+		final CacheInvalidationBroadcaster broadcaster = CacheInvalidationBroadcaster.builder()
+				.sender(this::sendEventNow)
+				.delayMillis(Adempiere.isUnitTestMode() ? 0 : sysConfigBL.getIntValue(SYSCONFIG_BroadcastDelayMillis, DEFAULT_BroadcastDelayMillis))
+				.maxRequests(sysConfigBL.getIntValue(SYSCONFIG_BroadcastMaxRequests, DEFAULT_BroadcastMaxRequests))
+				.maxRecordsPerTable(sysConfigBL.getIntValue(SYSCONFIG_BroadcastMaxRecordsPerTable, DEFAULT_BroadcastMaxRecordsPerTable))
+				.build();
+		logger.info("Created {}", broadcaster);
+		return broadcaster;
+	}
+
+	private void sendEventNow(final CacheInvalidateMultiRequest request)
+	{
 		final Event event = createEventFromRequest(request);
 		Services.get(IEventBusFactory.class)
 				.getEventBus(TOPIC_CacheInvalidation)
@@ -136,6 +182,15 @@ final class CacheInvalidationRemoteHandler implements IEventListener
 		logger.debug("Broadcasting cache invalidation of {}, event={}", request, event);
 	}
 
+	/**
+	 * @return broadcasting statistics or null if nothing was broadcasted yet
+	 */
+	public CacheInvalidationBroadcaster.Statistics getBroadcastStatistics()
+	{
+		final CacheInvalidationBroadcaster broadcaster = _broadcaster;
+		return broadcaster != null ? broadcaster.getStatistics() : null;
+	}
+
 	private boolean isAllowBroadcast(final CacheInvalidateMultiRequest multiRequest)
 	{
 		return multiRequest.getRequests().stream().anyMatch(this::isAllowBroadcast);
@@ -16,6 +16,8 @@
  *****************************************************************************/
 package de.metas.cache;
 
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -43,6 +45,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.MapMaker;
 import com.google.common.collect.Maps;
 
+import de.metas.cache.CCache.CCacheStats;
 import de.metas.cache.model.CacheInvalidateMultiRequest;
 import de.metas.cache.model.CacheInvalidateRequest;
 import de.metas.logging.LogManager;
@@ -77,6 +80,8 @@ public final class CacheMgt
 	private final AtomicBoolean cacheResetRunning = new AtomicBoolean();
 	private final AtomicLong lastCacheReset = new AtomicLong();
 
+	private final CCacheAdaptiveSizer adaptiveSizer = CCacheAdaptiveSizer.createFromSystemProperties(this::streamCaches);
+
 	private CacheMgt()
 	{
 		JMXRegistry.get().registerJMX(new JMXCacheMgt(), OnJMXAlreadyExistsPolicy.Replace);
@@ -137,6 +142,51 @@ public final class CacheMgt
 		return CacheInvalidationRemoteHandler.instance.getTableNamesToBroadcast();
 	}
 
+	/**
+	 * @return all registered caches (each one only once, even if it's registered for more labels)
+	 */
+	public Stream<CacheInterface> streamCaches()
+	{
+		final Set<Long> seenCacheIds = ConcurrentHashMap.newKeySet();
+		return cachesByLabel.values()
+				.stream()
+				.flatMap(CachesGroup::streamCaches)
+				.filter(cache -> seenCacheIds.add(cache.getCacheId()));
+	}
+
+	/**
+	 * @return statistics about broadcasting cache invalidations to other nodes or null if nothing was broadcasted yet
+	 */
+	/* package */ CacheInvalidationBroadcaster.Statistics getBroadcastStatistics()
+	{
+		return CacheInvalidationRemoteHandler.instance.getBroadcastStatistics();
+	}
+
+	/**
+	 * @return statistics of all {@link CCache}s
+	 */
+	public List<CCacheStats> getCacheStatistics()
+	{
+		return streamCaches()
+				.filter(cache -> cache instanceof CCache)
+				.map(cache -> ((CCache<?, ?>)cache).stats())
+				.sorted(Comparator.comparing(CCacheStats::getName))
+				.collect(ImmutableList.toImmutableList());
+	}
+
+	public boolean isAdaptiveSizingEnabled()
+	{
+		return adaptiveSizer.isEnabled();
+	}
+
+	/**
+	 * Enables/disables periodically growing the LRU caches which are thrashing. See {@link CCacheAdaptiveSizer}.
+	 */
+	public void setAdaptiveSizingEnabled(final boolean enabled)
+	{
+		adaptiveSizer.setEnabled(enabled);
+	}
+
 	/** @return last time cache reset timestamp */
 	public long getLastCacheReset()
 	{
@@ -568,7 +618,7 @@ public final class CacheMgt
 			caches.remove(cache.getCacheId());
 		}
 
-		private final Stream<CacheInterface> streamCaches()
+		public Stream<CacheInterface> streamCaches()
 		{
 			return caches.values()
 					.stream()
@@ -0,0 +1,83 @@
+package de.metas.cache;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.CacheStats;
+
+import de.metas.cache.CCache.CCacheStats;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Actuator endpoint (<code>/cacheStatistics</code>) which lists the statistics of all {@link CCache}s.
+ */
+@Component
+public class CacheStatisticsEndpoint extends AbstractEndpoint<List<Map<String, Object>>>
+{
+	public CacheStatisticsEndpoint()
+	{
+		super("cacheStatistics");
+	}
+
+	@Override
+	public List<Map<String, Object>> invoke()
+	{
+		return CacheMgt.get()
+				.getCacheStatistics()
+				.stream()
+				.map(CacheStatisticsEndpoint::toJson)
+				.collect(Collectors.toList());
+	}
+
+	private static Map<String, Object> toJson(final CCacheStats stats)
+	{
+		final CacheStats guavaStats = stats.getGuavaStats();
+
+		// NOTE: guava's CacheStats has no getters, so we need to convert it explicitly
+		final Map<String, Object> json = new LinkedHashMap<>();
+		json.put("name", stats.getName());
+		json.put("cacheId", stats.getCacheId());
+		json.put("labels", stats.getLabels().stream().map(CacheLabel::getName).collect(Collectors.toList()));
+		json.put("size", stats.getSize());
+		if (stats.getMaxSize() > 0)
+		{
+			json.put("maxSize", stats.getMaxSize());
+		}
+		json.put("hitCount", guavaStats.hitCount());
+		json.put("missCount", guavaStats.missCount());
+		json.put("hitRate", guavaStats.hitRate());
+		json.put("loadCount", guavaStats.loadCount());
+		json.put("averageLoadPenaltyMillis", guavaStats.averageLoadPenalty() / 1_000_000);
+		json.put("evictionCount", guavaStats.evictionCount());
+		json.put("recordsIndexed", stats.isRecordsIndexed());
+		json.put("resetCount", stats.getResetCount());
+		json.put("resetForRecordCount", stats.getResetForRecordCount());
+		return json;
+	}
+}
@@ -1,11 +1,18 @@
 package de.metas.cache;
 
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import org.adempiere.util.jmx.IJMXNameAware;
 import org.slf4j.Logger;
 
+import com.google.common.cache.CacheStats;
+
+import de.metas.cache.CCache.CCacheStats;
 import de.metas.logging.LogManager;
 
 /**
@@ -68,6 +75,52 @@ public class JMXCacheMgt implements JMXCacheMgtMBean, IJMXNameAware
 				.toArray(size -> new String[size]);
 	}
 
+	@Override
+	public String[] getCacheStatistics()
+	{
+		return getCacheMgt()
+				.getCacheStatistics()
+				.stream()
+				.map(CCacheStats::toString)
+				.toArray(size -> new String[size]);
+	}
+
+	@Override
+	public String[] getCacheStatisticsByLabel()
+	{
+		final Map<CacheLabel, CacheStats> statsByLabel = new TreeMap<>(Comparator.comparing(CacheLabel::getName));
+		final Map<CacheLabel, Long> sizeByLabel = new HashMap<>();
+		for (final CCacheStats cacheStats : getCacheMgt().getCacheStatistics())
+		{
+			for (final CacheLabel label : cacheStats.getLabels())
+			{
+				statsByLabel.merge(label, cacheStats.getGuavaStats(), CacheStats::plus);
+				sizeByLabel.merge(label, cacheStats.getSize(), Long::sum);
+			}
+		}
+
+		return statsByLabel.entrySet()
+				.stream()
+				.map(e -> e.getKey().getName()
+						+ ": size=" + sizeByLabel.get(e.getKey())
+						+ ", hitRate=" + e.getValue().hitRate()
+						+ ", averageLoadPenaltyMillis=" + e.getValue().averageLoadPenalty() / 1_000_000
+						+ ", " + e.getValue())
+				.toArray(size -> new String[size]);
+	}
+
+	@Override
+	public boolean isAdaptiveSizingEnabled()
+	{
+		return getCacheMgt().isAdaptiveSizingEnabled();
+	}
+
+	@Override
+	public void setAdaptiveSizingEnabled(final boolean enabled)
+	{
+		getCacheMgt().setAdaptiveSizingEnabled(enabled);
+	}
+
 	@Override
 	public String[] getTableNamesToBroadcast()
 	{
@@ -77,6 +130,12 @@ public class JMXCacheMgt implements JMXCacheMgtMBean, IJMXNameAware
 		return tableNamesArray;
 	}
 
+	@Override
+	public String getBroadcastStatistics()
+	{
+		return String.valueOf(getCacheMgt().getBroadcastStatistics());
+	}
+
 	@Override
 	public void enableRemoteCacheInvalidationForTableName(final String tableName)
 	{
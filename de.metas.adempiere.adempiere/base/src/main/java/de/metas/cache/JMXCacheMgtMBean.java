@@ -16,8 +16,27 @@ public interface JMXCacheMgtMBean
 
 	String[] getCacheLabels();
 
+	/**
+	 * @return statistics (size, hit rate, full and per record resets) of each cache
+	 */
+	String[] getCacheStatistics();
+
+	/**
+	 * @return statistics (size, hits, misses, load time, evictions) aggregated by cache label
+	 */
+	String[] getCacheStatisticsByLabel();
+
+	boolean isAdaptiveSizingEnabled();
+
+	void setAdaptiveSizingEnabled(boolean enabled);
+
 	String[] getTableNamesToBroadcast();
 
+	/**
+	 * @return how many cache invalidation requests were received, deduplicated, collapsed and sent to other nodes
+	 */
+	String getBroadcastStatistics();
+
 	void enableRemoteCacheInvalidationForTableName(String tableName);
 
 	long resetAll();
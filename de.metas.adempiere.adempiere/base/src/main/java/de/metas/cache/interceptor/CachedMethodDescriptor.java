@@ -27,13 +27,17 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Callable;
 
+import org.adempiere.model.InterfaceWrapperHelper;
 import org.adempiere.util.lang.EqualsBuilder;
 import org.adempiere.util.lang.HashcodeBuilder;
 import org.adempiere.util.lang.ObjectUtils;
+import org.adempiere.util.lang.impl.TableRecordReference;
 import org.adempiere.util.proxy.Cached;
+import org.adempiere.util.proxy.IInvocationContext;
 import org.compiere.util.Util.ArrayKey;
 
 import com.google.common.collect.ImmutableList;
@@ -302,10 +306,46 @@ import de.metas.util.Check;
 			expireMinutes = DEFAULT_CacheExpireMinutes;
 		}
 
-		final CCache<ArrayKey, Object> cache = new CCache<>(cacheName, initialCapacity, expireMinutes);
+		final CCache<ArrayKey, Object> cache = CCache.<ArrayKey, Object> builder()
+				.cacheName(cacheName)
+				.initialCapacity(initialCapacity)
+				.expireMinutes(expireMinutes)
+				.recordsExtractor(cachedAnnotation.resetOnlyForReturnedRecords() ? CachedMethodDescriptor::extractReturnedRecords : null)
+				.build();
 		return cache;
 	}
 
+	/**
+	 * @return the models which were returned by the cached method; values which are not models are not indexed, so any record change will reset the whole cache for them
+	 */
+	private static List<TableRecordReference> extractReturnedRecords(final Object value)
+	{
+		if (value instanceof Collection)
+		{
+			final Collection<?> models = (Collection<?>)value;
+			if (!models.stream().allMatch(CachedMethodDescriptor::isModel))
+			{
+				return ImmutableList.of();
+			}
+			return TableRecordReference.ofCollection(models);
+		}
+		else if (isModel(value))
+		{
+			return ImmutableList.of(TableRecordReference.of(value));
+		}
+		else
+		{
+			return ImmutableList.of();
+		}
+	}
+
+	private static boolean isModel(final Object value)
+	{
+		return value != null
+				&& value != IInvocationContext.NullResult
+				&& InterfaceWrapperHelper.getModelTableNameOrNull(value) != null;
+	}
+
 	/**
 	 * Callable used to create method level cache container.
 	 */
@@ -0,0 +1,98 @@
+package de.metas.event;
+
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import de.metas.util.Check;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Configures a {@link Topic} to dispatch its events to each subscriber asynchronously, using bounded queues.
+ * <p>
+ * Each subscriber gets its own {@link #getLanes()} lanes. Each lane has a bounded queue and a thread which invokes the subscriber.
+ * Events with the same ordering key (see {@link #getOrderingKeyExtractor()}) always go to the same lane, so they are delivered in the order they were posted.
+ * If no ordering key extractor is set, all events go to the same lane.
+ * <p>
+ * What happens when a lane's queue is full is decided by the {@link OverflowPolicy}.
+ */
+@Value
+public class AsyncDispatchConfig
+{
+	public enum OverflowPolicy
+	{
+		/** Block the posting thread until there is room in the queue */
+		BLOCK,
+		/** Drop the event which is currently posted */
+		DROP_NEWEST,
+		/** Drop the oldest queued event to make room for the one which is currently posted */
+		DROP_OLDEST,
+		/** Throw an exception to the posting thread */
+		FAIL,
+	}
+
+	private static final int DEFAULT_QueueCapacity = 10000;
+
+	int lanes;
+	int queueCapacity;
+	OverflowPolicy overflowPolicy;
+	Function<Event, Object> orderingKeyExtractor;
+
+	@Builder
+	private AsyncDispatchConfig(
+			final int lanes,
+			final int queueCapacity,
+			@Nullable final OverflowPolicy overflowPolicy,
+			@Nullable final Function<Event, Object> orderingKeyExtractor)
+	{
+		Check.assume(lanes >= 0, "lanes >= 0");
+		Check.assume(queueCapacity >= 0, "queueCapacity >= 0");
+
+		this.lanes = lanes > 0 ? lanes : 1;
+		this.queueCapacity = queueCapacity > 0 ? queueCapacity : DEFAULT_QueueCapacity;
+		this.overflowPolicy = overflowPolicy != null ? overflowPolicy : OverflowPolicy.BLOCK;
+		this.orderingKeyExtractor = orderingKeyExtractor;
+	}
+
+	/**
+	 * @return index of the lane to be used for given event
+	 */
+	public int getLaneIndex(@NonNull final Event event)
+	{
+		if (lanes <= 1 || orderingKeyExtractor == null)
+		{
+			return 0;
+		}
+
+		final Object key = orderingKeyExtractor.apply(event);
+		if (key == null)
+		{
+			return 0;
+		}
+		return Math.floorMod(key.hashCode(), lanes);
+	}
+}
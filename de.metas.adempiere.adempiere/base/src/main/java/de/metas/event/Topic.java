@@ -1,7 +1,10 @@
 package de.metas.event;
 
+import javax.annotation.Nullable;
+
 import de.metas.util.Check;
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
 import lombok.NonNull;
 import lombok.Value;
 
@@ -10,12 +13,19 @@ import lombok.Value;
  * @see Type
  */
 @Value
+@EqualsAndHashCode(of = { "name", "type" })
 public class Topic
 {
 	String name;
 	Type type;
 	String fullName;
 
+	/**
+	 * If set, the events are dispatched to each local subscriber asynchronously, see {@link AsyncDispatchConfig}.
+	 * Not part of the topic's identity.
+	 */
+	AsyncDispatchConfig asyncDispatchConfig;
+
 	public static final Topic remote(final String name)
 	{
 		return builder().name(name).type(Type.REMOTE).build();
@@ -34,10 +44,12 @@ public class Topic
 	@Builder(toBuilder = true)
 	private Topic(
 			@NonNull final String name,
-			@NonNull final Type type)
+			@NonNull final Type type,
+			@Nullable final AsyncDispatchConfig asyncDispatchConfig)
 	{
 		this.name = Check.assumeNotEmpty(name, "name not empty");
 		this.type = type;
+		this.asyncDispatchConfig = asyncDispatchConfig;
 
 		this.fullName = type + "." + name;
 	}
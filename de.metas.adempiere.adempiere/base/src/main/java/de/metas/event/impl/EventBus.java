@@ -23,6 +23,8 @@ package de.metas.event.impl;
  */
 
 import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 
@@ -37,6 +39,7 @@ import com.google.common.eventbus.Subscribe;
 import com.google.common.eventbus.SubscriberExceptionContext;
 import com.google.common.eventbus.SubscriberExceptionHandler;
 
+import de.metas.event.AsyncDispatchConfig;
 import de.metas.event.Event;
 import de.metas.event.EventBusConstants;
 import de.metas.event.IEventBus;
@@ -85,14 +88,22 @@ final class EventBus implements IEventBus
 
 	private final ExecutorService executorOrNull;
 
+	private final AsyncDispatchConfig asyncDispatchConfig;
+	private final List<OrderedAsyncEventDispatcher> asyncDispatchers = new CopyOnWriteArrayList<>();
+
 	/**
 	 * @param executor if not null, the system creates an {@link AsyncEventBus}; also, it shuts down this executor on {@link #destroy()}
+	 * @param asyncDispatchConfig if not null, each subscriber gets its own {@link OrderedAsyncEventDispatcher}; {@code executor} shall be null in this case
 	 */
 	public EventBus(
 			@NonNull final String topicName,
-			@Nullable final ExecutorService executor)
+			@Nullable final ExecutorService executor,
+			@Nullable final AsyncDispatchConfig asyncDispatchConfig)
 	{
+		Check.assume(executor == null || asyncDispatchConfig == null, "executor and asyncDispatchConfig shall not be set both");
+
 		this.executorOrNull = executor;
+		this.asyncDispatchConfig = asyncDispatchConfig;
 		this.topicName = Check.assumeNotEmpty(topicName, "name not empty");
 
 		if (executor == null)
@@ -112,6 +123,7 @@ final class EventBus implements IEventBus
 				.omitNullValues()
 				.add("topicName", topicName)
 				.add("type", type)
+				.add("asyncDispatchConfig", asyncDispatchConfig)
 				.add("destroyed", destroyed ? Boolean.TRUE : null)
 				.toString();
 	}
@@ -133,6 +145,10 @@ final class EventBus implements IEventBus
 		{
 			executorOrNull.shutdown(); // not 100% sure it's needed, but better safe than sorry
 		}
+
+		asyncDispatchers.forEach(OrderedAsyncEventDispatcher::stop);
+		asyncDispatchers.clear();
+
 		logger.trace("{0} - Destroyed", this);
 	}
 
@@ -221,33 +237,99 @@ final class EventBus implements IEventBus
 
 	}
 
-	@AllArgsConstructor
-	@ToString
+	/**
+	 * @return the dispatcher which shall be used to deliver the events to given listener or {@code null} if the events shall be delivered directly
+	 */
+	private OrderedAsyncEventDispatcher createAsyncDispatcherOrNull(
+			@NonNull final String listenerName,
+			@NonNull final Consumer<Event> eventConsumer)
+	{
+		if (asyncDispatchConfig == null)
+		{
+			return null;
+		}
+
+		final OrderedAsyncEventDispatcher dispatcher = OrderedAsyncEventDispatcher.builder()
+				.topicName(topicName)
+				.listenerName(listenerName)
+				.config(asyncDispatchConfig)
+				.eventConsumer(eventConsumer)
+				.build()
+				.registerJMX();
+		asyncDispatchers.add(dispatcher);
+		return dispatcher;
+	}
+
+	private void stopAsyncDispatcher(@Nullable final OrderedAsyncEventDispatcher dispatcher)
+	{
+		if (dispatcher == null)
+		{
+			return;
+		}
+
+		dispatcher.stop();
+		asyncDispatchers.remove(dispatcher);
+	}
+
+	@ToString(exclude = "asyncDispatcher")
 	private class GuavaEventListenerAdapter
 	{
 		@NonNull
 		private final IEventListener eventListener;
+		private final OrderedAsyncEventDispatcher asyncDispatcher;
+
+		private GuavaEventListenerAdapter(@NonNull final IEventListener eventListener)
+		{
+			this.eventListener = eventListener;
+			this.asyncDispatcher = createAsyncDispatcherOrNull(eventListener.toString(), this::deliver);
+		}
 
 		@Subscribe
 		public void onEvent(@NonNull final Event event)
+		{
+			if (asyncDispatcher != null)
+			{
+				asyncDispatcher.enqueue(event);
+			}
+			else
+			{
+				deliver(event);
+			}
+		}
+
+		private void deliver(@NonNull final Event event)
 		{
 			invokeEventListener(this.eventListener, event);
 		}
 	}
 
-	@ToString
+	@ToString(exclude = "asyncDispatcher")
 	private class WeakGuavaEventListenerAdapter
 	{
 		@NonNull
 		private final WeakReference<IEventListener> eventListenerRef;
+		private final OrderedAsyncEventDispatcher asyncDispatcher;
 
 		private WeakGuavaEventListenerAdapter(@NonNull final IEventListener eventListener)
 		{
 			eventListenerRef = new WeakReference<>(eventListener);
+			asyncDispatcher = createAsyncDispatcherOrNull(eventListener.toString(), this::deliver);
 		}
 
 		@Subscribe
 		public void onEvent(final Event event)
+		{
+			if (asyncDispatcher != null)
+			{
+				asyncDispatcher.enqueue(event);
+			}
+			else
+			{
+				deliver(event);
+			}
+		}
+
+		private void deliver(final Event event)
 		{
 			final IEventListener eventListener = eventListenerRef.get();
 			if (eventListener == null)
@@ -257,6 +339,7 @@ final class EventBus implements IEventBus
 				{
 					guavaEventBus.unregister(this);
 				}
+				stopAsyncDispatcher(asyncDispatcher);
 				return;
 			}
 
@@ -22,6 +22,7 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.SetMultimap;
 
+import de.metas.event.AsyncDispatchConfig;
 import de.metas.event.EventBusConstants;
 import de.metas.event.IEventBus;
 import de.metas.event.IEventBusFactory;
@@ -136,7 +137,9 @@ public class EventBusFactory implements IEventBusFactory
 	private final EventBus createEventBus(final Topic topic)
 	{
 		// Create the event bus
-		final EventBus eventBus = new EventBus(topic.getName(), createExecutorOrNull(topic.getName()));
+		final AsyncDispatchConfig asyncDispatchConfig = getAsyncDispatchConfigOrNull(topic);
+		final ExecutorService executor = asyncDispatchConfig == null ? createExecutorOrNull(topic.getName()) : null;
+		final EventBus eventBus = new EventBus(topic.getName(), executor, asyncDispatchConfig);
 
 		// whether the event is really stored is determined for each individual event
 		eventBus.subscribe(EventBus2EventLogHandler.INSTANCE);
@@ -166,6 +169,16 @@ public class EventBusFactory implements IEventBusFactory
 		return eventBus;
 	}
 
+	private static AsyncDispatchConfig getAsyncDispatchConfigOrNull(@NonNull final Topic topic)
+	{
+		// NOTE: same as for the executor, in unit test mode we dispatch synchronously
+		if (!EventBusConstants.isEventBusPostEventsAsync())
+		{
+			return null;
+		}
+		return topic.getAsyncDispatchConfig();
+	}
+
 	private ExecutorService createExecutorOrNull(@NonNull final String eventBusName)
 	{
 		// Setup EventBus executor
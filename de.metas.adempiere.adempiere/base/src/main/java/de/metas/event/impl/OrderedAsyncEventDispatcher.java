@@ -0,0 +1,378 @@
+package de.metas.event.impl;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.management.ObjectName;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.adempiere.util.jmx.IJMXNameAware;
+import org.adempiere.util.jmx.JMXRegistry;
+import org.adempiere.util.jmx.JMXRegistry.OnJMXAlreadyExistsPolicy;
+import org.slf4j.Logger;
+
+import com.google.common.base.MoreObjects;
+
+import de.metas.event.AsyncDispatchConfig;
+import de.metas.event.AsyncDispatchConfig.OverflowPolicy;
+import de.metas.event.Event;
+import de.metas.event.EventBusConstants;
+import lombok.Builder;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Dispatches the events to one subscriber asynchronously, using bounded queues ("lanes"), see {@link AsyncDispatchConfig}.
+ * <p>
+ * Each lane has a dedicated thread, so the events of one lane are delivered in the same order as they were enqueued.
+ */
+final class OrderedAsyncEventDispatcher implements OrderedAsyncEventDispatcherMBean, IJMXNameAware
+{
+	private static final Logger logger = EventBusConstants.getLogger(OrderedAsyncEventDispatcher.class);
+
+	private static final AtomicLong nextId = new AtomicLong(1);
+
+	private final String topicName;
+	private final String listenerName;
+	private final AsyncDispatchConfig config;
+	private final Consumer<Event> eventConsumer;
+	private final String jmxName;
+
+	private final Lane[] lanes;
+	private final ExecutorService executor;
+	private volatile boolean stopped = false;
+	private ObjectName jmxObjectName;
+
+	private final AtomicLong enqueuedCount = new AtomicLong();
+	private final AtomicLong dispatchedCount = new AtomicLong();
+	private final AtomicLong droppedCount = new AtomicLong();
+	private final AtomicLong failedCount = new AtomicLong();
+	private volatile long lastLagNanos = 0;
+	private final AtomicLong maxLagNanos = new AtomicLong();
+
+	@Builder
+	private OrderedAsyncEventDispatcher(
+			@NonNull final String topicName,
+			@NonNull final String listenerName,
+			@NonNull final AsyncDispatchConfig config,
+			@NonNull final Consumer<Event> eventConsumer)
+	{
+		final long id = nextId.getAndIncrement();
+		this.topicName = topicName;
+		this.listenerName = listenerName;
+		this.config = config;
+		this.eventConsumer = eventConsumer;
+		this.jmxName = EventBusConstants.JMX_BASE_NAME
+				+ ":type=AsyncDispatch"
+				+ ",topic=" + ObjectName.quote(topicName)
+				+ ",id=" + id;
+
+		final int lanesCount = config.getLanes();
+		this.lanes = new Lane[lanesCount];
+		this.executor = Executors.newFixedThreadPool(lanesCount, CustomizableThreadFactory.builder()
+				.setThreadNamePrefix(OrderedAsyncEventDispatcher.class.getSimpleName() + "-" + topicName + "-" + id)
+				.setDaemon(true)
+				.build());
+		for (int i = 0; i < lanesCount; i++)
+		{
+			final Lane lane = new Lane(config.getQueueCapacity());
+			lanes[i] = lane;
+			executor.execute(() -> runLane(lane));
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("topicName", topicName)
+				.add("listener", listenerName)
+				.add("config", config)
+				.toString();
+	}
+
+	@Override
+	public String getJMXName()
+	{
+		return jmxName;
+	}
+
+	public OrderedAsyncEventDispatcher registerJMX()
+	{
+		try
+		{
+			jmxObjectName = JMXRegistry.get().registerJMX(this, OnJMXAlreadyExistsPolicy.Replace);
+		}
+		catch (final Exception ex)
+		{
+			logger.warn("Failed registering JMX bean for {}. Ignored.", this, ex);
+		}
+		return this;
+	}
+
+	public void stop()
+	{
+		stopped = true;
+		executor.shutdownNow();
+
+		if (jmxObjectName != null)
+		{
+			JMXRegistry.get().unregisterJMX(jmxObjectName, false);
+			jmxObjectName = null;
+		}
+
+		final int lostEvents = getQueueDepth();
+		if (lostEvents > 0)
+		{
+			logger.warn("{} stopped. {} queued events were not dispatched", this, lostEvents);
+		}
+	}
+
+	public void enqueue(@NonNull final Event event)
+	{
+		if (stopped)
+		{
+			logger.warn("Attempt to dispatch an event using a stopped {}. Ignored. \n Event: {}", this, event);
+			return;
+		}
+
+		final Lane lane = lanes[config.getLaneIndex(event)];
+		final QueuedEvent queuedEvent = new QueuedEvent(event, System.nanoTime());
+
+		final OverflowPolicy overflowPolicy = config.getOverflowPolicy();
+		if (overflowPolicy == OverflowPolicy.BLOCK)
+		{
+			try
+			{
+				lane.queue.put(queuedEvent);
+			}
+			catch (final InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new AdempiereException("Interrupted while waiting to enqueue the event", e)
+						.appendParametersToMessage()
+						.setParameter("dispatcher", this)
+						.setParameter("event", event);
+			}
+		}
+		else if (overflowPolicy == OverflowPolicy.DROP_NEWEST)
+		{
+			if (!lane.queue.offer(queuedEvent))
+			{
+				droppedCount.incrementAndGet();
+				logger.debug("Queue full. Dropped {} from {}", event, this);
+				return;
+			}
+		}
+		else if (overflowPolicy == OverflowPolicy.DROP_OLDEST)
+		{
+			while (!lane.queue.offer(queuedEvent))
+			{
+				final QueuedEvent droppedEvent = lane.queue.poll();
+				if (droppedEvent != null)
+				{
+					droppedCount.incrementAndGet();
+					logger.debug("Queue full. Dropped {} from {}", droppedEvent.event, this);
+				}
+			}
+		}
+		else if (overflowPolicy == OverflowPolicy.FAIL)
+		{
+			if (!lane.queue.offer(queuedEvent))
+			{
+				droppedCount.incrementAndGet();
+				throw new AdempiereException("Event queue is full")
+						.appendParametersToMessage()
+						.setParameter("dispatcher", this)
+						.setParameter("event", event);
+			}
+		}
+		else
+		{
+			throw new AdempiereException("Unknown overflow policy: " + overflowPolicy);
+		}
+
+		enqueuedCount.incrementAndGet();
+	}
+
+	private void runLane(final Lane lane)
+	{
+		while (!stopped)
+		{
+			final QueuedEvent queuedEvent;
+			try
+			{
+				queuedEvent = lane.queue.poll(1, TimeUnit.SECONDS);
+			}
+			catch (final InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return;
+			}
+			if (queuedEvent == null)
+			{
+				continue;
+			}
+
+			final long lagNanos = System.nanoTime() - queuedEvent.enqueuedNanos;
+			lastLagNanos = lagNanos;
+			maxLagNanos.accumulateAndGet(lagNanos, Math::max);
+
+			try
+			{
+				eventConsumer.accept(queuedEvent.event);
+			}
+			catch (final Throwable ex)
+			{
+				failedCount.incrementAndGet();
+				logger.error("Failed dispatching {} using {}", queuedEvent.event, this, ex);
+			}
+			finally
+			{
+				dispatchedCount.incrementAndGet();
+			}
+		}
+	}
+
+	@Override
+	public String getTopicName()
+	{
+		return topicName;
+	}
+
+	@Override
+	public String getListener()
+	{
+		return listenerName;
+	}
+
+	@Override
+	public int getLanes()
+	{
+		return lanes.length;
+	}
+
+	@Override
+	public int getQueueCapacity()
+	{
+		return config.getQueueCapacity();
+	}
+
+	@Override
+	public String getOverflowPolicy()
+	{
+		return config.getOverflowPolicy().name();
+	}
+
+	@Override
+	public int getQueueDepth()
+	{
+		int depth = 0;
+		for (final Lane lane : lanes)
+		{
+			depth += lane.queue.size();
+		}
+		return depth;
+	}
+
+	@Override
+	public long getEnqueuedCount()
+	{
+		return enqueuedCount.get();
+	}
+
+	@Override
+	public long getDispatchedCount()
+	{
+		return dispatchedCount.get();
+	}
+
+	@Override
+	public long getDroppedCount()
+	{
+		return droppedCount.get();
+	}
+
+	@Override
+	public long getFailedCount()
+	{
+		return failedCount.get();
+	}
+
+	@Override
+	public long getOldestQueuedEventAgeMillis()
+	{
+		final long now = System.nanoTime();
+		long maxAgeNanos = 0;
+		for (final Lane lane : lanes)
+		{
+			final QueuedEvent head = lane.queue.peek();
+			if (head != null)
+			{
+				maxAgeNanos = Math.max(maxAgeNanos, now - head.enqueuedNanos);
+			}
+		}
+		return TimeUnit.NANOSECONDS.toMillis(maxAgeNanos);
+	}
+
+	@Override
+	public long getLastLagMillis()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(lastLagNanos);
+	}
+
+	@Override
+	public long getMaxLagMillis()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(maxLagNanos.get());
+	}
+
+	private static final class Lane
+	{
+		/** array based, i.e. a ring buffer */
+		private final ArrayBlockingQueue<QueuedEvent> queue;
+
+		private Lane(final int capacity)
+		{
+			queue = new ArrayBlockingQueue<>(capacity);
+		}
+	}
+
+	private static final class QueuedEvent
+	{
+		private final Event event;
+		private final long enqueuedNanos;
+
+		private QueuedEvent(final Event event, final long enqueuedNanos)
+		{
+			this.event = event;
+			this.enqueuedNanos = enqueuedNanos;
+		}
+	}
+}
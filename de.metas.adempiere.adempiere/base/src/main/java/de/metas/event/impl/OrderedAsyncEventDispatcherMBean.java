@@ -0,0 +1,59 @@
+package de.metas.event.impl;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * JMX bean interface of {@link OrderedAsyncEventDispatcher}.
+ */
+public interface OrderedAsyncEventDispatcherMBean
+{
+	String getTopicName();
+
+	String getListener();
+
+	int getLanes();
+
+	int getQueueCapacity();
+
+	String getOverflowPolicy();
+
+	/** @return how many events are currently queued (all lanes) */
+	int getQueueDepth();
+
+	long getEnqueuedCount();
+
+	long getDispatchedCount();
+
+	long getDroppedCount();
+
+	long getFailedCount();
+
+	/** @return how long the oldest queued event is already waiting */
+	long getOldestQueuedEventAgeMillis();
+
+	/** @return how long the last dispatched event was waiting in the queue */
+	long getLastLagMillis();
+
+	/** @return the longest time an event was waiting in the queue */
+	long getMaxLagMillis();
+}
@@ -5,6 +5,7 @@ import java.util.concurrent.ExecutorService;
 
 import org.compiere.Adempiere;
 
+import de.metas.event.AsyncDispatchConfig;
 import de.metas.event.IEventBus;
 import de.metas.event.IEventBusFactory;
 import de.metas.event.IEventListener;
@@ -62,7 +63,8 @@ public class PlainEventBusFactory implements IEventBusFactory
 	private EventBus createEventBus(final Topic topic)
 	{
 		final ExecutorService executor = null;
-		return new EventBus(topic.getName(), executor);
+		final AsyncDispatchConfig asyncDispatchConfig = null;
+		return new EventBus(topic.getName(), executor, asyncDispatchConfig);
 	}
 
 	@Override
@@ -49,7 +49,6 @@ import org.apache.activemq.ActiveMQConnection;
 import org.apache.activemq.transport.TransportListener;
 import org.slf4j.Logger;
 
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
@@ -75,9 +74,9 @@ public class ActiveMQJMSEndpoint implements IEventBusRemoteEndpoint
 	private static final String MSG_Event_RemoteEndpointDisconnected = "Event.RemoteEndpointDisconnected";
 	private static final String MSG_Event_RemoteEndpointConnected = "Event.RemoteEndpointConnected";
 
-	@VisibleForTesting
-	public static final IEventSerializer DEFAULT_EVENT_SERIALIZER = JacksonJsonEventSerializer.instance;
-	private final IEventSerializer eventSerializer = DEFAULT_EVENT_SERIALIZER;
+	private static final String JMS_PROPERTY_ContentType = "metasfresh_ContentType";
+
+	private final IEventSerializer eventSerializer = EventSerializers.getSenderSerializer();
 
 	private final ExceptionListener exceptionListener = jmsException -> ActiveMQJMSEndpoint.this.onJMSException(jmsException);
 
@@ -338,10 +337,21 @@ public class ActiveMQJMSEndpoint implements IEventBusRemoteEndpoint
 				return;
 			}
 
-			final String messageText = eventSerializer.toString(event);
 			final Session jmsSession = getSession();
-			final TextMessage jmsMessage = jmsSession.createTextMessage();
-			jmsMessage.setText(messageText);
+			final Message jmsMessage;
+			if (eventSerializer.isBinary())
+			{
+				final BytesMessage bytesMessage = jmsSession.createBytesMessage();
+				bytesMessage.writeBytes(eventSerializer.toBytes(event));
+				jmsMessage = bytesMessage;
+			}
+			else
+			{
+				final TextMessage textMessage = jmsSession.createTextMessage();
+				textMessage.setText(eventSerializer.toString(event));
+				jmsMessage = textMessage;
+			}
+			jmsMessage.setStringProperty(JMS_PROPERTY_ContentType, eventSerializer.getContentType());
 			jmsMessage.setStringProperty(JMS_PROPERTY_ClientID, getClientID()); // flag it so we know that we issued it
 
 			final MessageProducer jmsProducer = getTopicProducer(topicName);
@@ -403,7 +413,6 @@ public class ActiveMQJMSEndpoint implements IEventBusRemoteEndpoint
 
 		private final WeakReference<IEventBus> eventBusRef;
 		private final MessageConsumer jmsConsumer;
-		private final IEventSerializer eventSerializer;
 		private final String eventBusId;
 		private final String jmsClientId;
 		//
@@ -418,7 +427,6 @@ public class ActiveMQJMSEndpoint implements IEventBusRemoteEndpoint
 			this.eventBusId = jms.createEventBusId(topicName);
 			this.jmsConsumer = jms.createTopicConsumer(topicName);
 			this.jmsClientId = jms.getClientID();
-			this.eventSerializer = jms.eventSerializer;
 
 			this.jmsConsumer.setMessageListener(this);
 		}
@@ -439,7 +447,6 @@ public class ActiveMQJMSEndpoint implements IEventBusRemoteEndpoint
 				return;
 			}
 
-			String eventAsString = null;
 			try
 			{
 				// Avoid message which were sent by our topic producer
@@ -449,10 +456,19 @@ public class ActiveMQJMSEndpoint implements IEventBusRemoteEndpoint
 					return;
 				}
 
-				eventAsString = extractText(jmsMessage);
-				logger.trace("Received message(text): \n{}", eventAsString);
-
-				final Event event = eventSerializer.fromString(eventAsString);
+				// NOTE: older nodes are not setting the content type, but they are always sending JSON
+				final IEventSerializer eventSerializer = EventSerializers.getByContentType(jmsMessage.getStringProperty(JMS_PROPERTY_ContentType));
+				final Event event;
+				if (eventSerializer.isBinary())
+				{
+					event = eventSerializer.fromBytes(extractBytes(jmsMessage));
+				}
+				else
+				{
+					final String eventAsString = extractText(jmsMessage);
+					logger.trace("Received message(text): \n{}", eventAsString);
+					event = eventSerializer.fromString(eventAsString);
+				}
 				logger.trace("Received event: {}", event);
 
 				// Flag the event that it was received by JMS
@@ -491,6 +507,24 @@ public class ActiveMQJMSEndpoint implements IEventBusRemoteEndpoint
 			eventBusRef.clear();
 		}
 
+		private static final byte[] extractBytes(final Message jmsMessage) throws JMSException
+		{
+			Check.assumeNotNull(jmsMessage, "message not null");
+
+			if (jmsMessage instanceof BytesMessage)
+			{
+				final BytesMessage bytesMessage = (BytesMessage)jmsMessage;
+				final int bytes_len = (int)bytesMessage.getBodyLength();
+				final byte[] bytes = new byte[bytes_len];
+				bytesMessage.readBytes(bytes);
+				return bytes;
+			}
+			else
+			{
+				throw new AdempiereException("Binary message expected: " + jmsMessage + " (class: " + jmsMessage.getClass() + ")");
+			}
+		}
+
 		private static final String extractText(final Message jmsMessage) throws JMSException
 		{
 			Check.assumeNotNull(jmsMessage, "message not null");
@@ -0,0 +1,106 @@
+package de.metas.event.remote;
+
+import javax.annotation.Nullable;
+
+import org.adempiere.exceptions.AdempiereException;
+
+import com.google.common.collect.ImmutableMap;
+
+import de.metas.event.EventBusConstants;
+import de.metas.util.Check;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Registry of the available {@link IEventSerializer}s.
+ * <p>
+ * The sender uses the serializer configured via the system property {@value #SYSTEM_PROPERTY_ContentType} and sends its content type along with the event.
+ * The receiver picks the serializer by that content type.
+ * Messages without content type are coming from older nodes and are JSON.
+ * <p>
+ * So, in a cluster with mixed versions, keep the default (JSON) until all nodes are able to read the binary format.
+ */
+public final class EventSerializers
+{
+	public static final String SYSTEM_PROPERTY_ContentType = "de.metas.event.remote.EventSerializer.ContentType";
+
+	private static final ImmutableMap<String, IEventSerializer> serializersByContentType = ImmutableMap.<String, IEventSerializer> builder()
+			.put(JacksonJsonEventSerializer.CONTENT_TYPE, JacksonJsonEventSerializer.instance)
+			.put(JacksonSmileEventSerializer.CONTENT_TYPE, JacksonSmileEventSerializer.instance)
+			.build();
+
+	private static final IEventSerializer DEFAULT = JacksonJsonEventSerializer.instance;
+
+	private EventSerializers()
+	{
+	}
+
+	/**
+	 * @return the serializer to be used when sending events
+	 */
+	public static IEventSerializer getSenderSerializer()
+	{
+		final String contentType = System.getProperty(SYSTEM_PROPERTY_ContentType);
+		if (Check.isEmpty(contentType, true))
+		{
+			return DEFAULT;
+		}
+
+		final IEventSerializer serializer = serializersByContentType.get(contentType.trim());
+		if (serializer == null)
+		{
+			EventBusConstants.getLogger(EventSerializers.class)
+					.warn("Unknown content type `{}` configured via {}. Using {}", contentType, SYSTEM_PROPERTY_ContentType, DEFAULT.getContentType());
+			return DEFAULT;
+		}
+		return serializer;
+	}
+
+	/**
+	 * @param contentType content type of the received message; {@code null} means the message was sent by an older node, i.e. it's JSON
+	 */
+	public static IEventSerializer getByContentType(@Nullable final String contentType)
+	{
+		if (Check.isEmpty(contentType, true))
+		{
+			return DEFAULT;
+		}
+
+		final IEventSerializer serializer = serializersByContentType.get(extractMimeType(contentType));
+		if (serializer == null)
+		{
+			throw new AdempiereException("No event serializer found for content type: " + contentType);
+		}
+		return serializer;
+	}
+
+	/**
+	 * @return given content type without parameters like "; charset=UTF-8"
+	 */
+	private static String extractMimeType(final String contentType)
+	{
+		final int idx = contentType.indexOf(';');
+		final String mimeType = idx >= 0 ? contentType.substring(0, idx) : contentType;
+		return mimeType.trim().toLowerCase();
+	}
+}
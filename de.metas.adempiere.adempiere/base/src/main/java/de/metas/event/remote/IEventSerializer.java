@@ -24,6 +24,7 @@ import com.google.common.annotations.VisibleForTesting;
  * #L%
  */
 
+import java.nio.charset.StandardCharsets;
 
 import de.metas.event.Event;
 
@@ -36,7 +37,30 @@ import de.metas.event.Event;
 @VisibleForTesting
 public interface IEventSerializer
 {
+	/**
+	 * @return MIME content type of the serialized events; used to pick the right serializer on the receiving side
+	 */
+	String getContentType();
+
+	/**
+	 * @return true if {@link #toBytes(Event)} produces binary data which is not meant to be transported as text
+	 */
+	default boolean isBinary()
+	{
+		return false;
+	}
+
 	String toString(Event event);
 
 	Event fromString(String eventStr);
+
+	default byte[] toBytes(final Event event)
+	{
+		return toString(event).getBytes(StandardCharsets.UTF_8);
+	}
+
+	default Event fromBytes(final byte[] eventBytes)
+	{
+		return fromString(new String(eventBytes, StandardCharsets.UTF_8));
+	}
 }
@@ -29,6 +29,8 @@ public class JacksonJsonEventSerializer implements IEventSerializer
 {
 	public static final transient JacksonJsonEventSerializer instance = new JacksonJsonEventSerializer();
 
+	public static final String CONTENT_TYPE = "application/json";
+
 	private final JSONObjectMapper<Event> delegate;
 
 	private JacksonJsonEventSerializer()
@@ -36,6 +38,12 @@ public class JacksonJsonEventSerializer implements IEventSerializer
 		delegate = JSONObjectMapper.forClass(Event.class);
 	}
 
+	@Override
+	public String getContentType()
+	{
+		return CONTENT_TYPE;
+	}
+
 	@Override
 	public String toString(final Event event)
 	{
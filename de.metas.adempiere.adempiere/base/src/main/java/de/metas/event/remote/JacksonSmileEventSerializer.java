@@ -0,0 +1,115 @@
+package de.metas.event.remote;
+
+import java.io.IOException;
+import java.util.Base64;
+
+import org.adempiere.exceptions.AdempiereException;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import de.metas.event.Event;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Serializes {@link Event}s using the binary <a href="https://github.com/FasterXML/smile-format-specification">Smile</a> format,
+ * i.e. the same data model as {@link JacksonJsonEventSerializer}, but with a more compact encoding.
+ */
+public class JacksonSmileEventSerializer implements IEventSerializer
+{
+	public static final transient JacksonSmileEventSerializer instance = new JacksonSmileEventSerializer();
+
+	public static final String CONTENT_TYPE = "application/x-jackson-smile";
+
+	private final ObjectMapper smileObjectMapper;
+
+	private JacksonSmileEventSerializer()
+	{
+		final SmileFactory smileFactory = new SmileFactory();
+		// back references make repeated property names and short values (e.g. property types) cheap
+		smileFactory.enable(SmileGenerator.Feature.CHECK_SHARED_NAMES);
+		smileFactory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+
+		smileObjectMapper = new ObjectMapper(smileFactory);
+		smileObjectMapper.registerModule(new JavaTimeModule());
+		smileObjectMapper.disable(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE);
+		// NOTE: we keep WRITE_DATES_AS_TIMESTAMPS enabled (i.e. jackson's default), because numeric timestamps are smaller than ISO strings
+	}
+
+	@Override
+	public String getContentType()
+	{
+		return CONTENT_TYPE;
+	}
+
+	@Override
+	public boolean isBinary()
+	{
+		return true;
+	}
+
+	@Override
+	public byte[] toBytes(final Event event)
+	{
+		try
+		{
+			return smileObjectMapper.writeValueAsBytes(event);
+		}
+		catch (final IOException ex)
+		{
+			throw new AdempiereException("Failed converting event to smile: " + event, ex);
+		}
+	}
+
+	@Override
+	public Event fromBytes(final byte[] eventBytes)
+	{
+		try
+		{
+			return smileObjectMapper.readValue(eventBytes, Event.class);
+		}
+		catch (final IOException ex)
+		{
+			throw new AdempiereException("Failed converting smile to event", ex);
+		}
+	}
+
+	/**
+	 * @return the smile bytes, base64 encoded
+	 */
+	@Override
+	public String toString(final Event event)
+	{
+		return Base64.getEncoder().encodeToString(toBytes(event));
+	}
+
+	@Override
+	public Event fromString(final String eventStr)
+	{
+		return fromBytes(Base64.getDecoder().decode(eventStr));
+	}
+}
@@ -1,13 +1,14 @@
 package de.metas.event.remote;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.Objects;
 
 import org.slf4j.Logger;
 import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.messaging.handler.annotation.Header;
-import org.springframework.messaging.handler.annotation.Payload;
 
 import de.metas.event.Event;
 import de.metas.event.EventBusConstants;
@@ -49,6 +50,8 @@ public class RabbitMQEventBusRemoteEndpoint implements IEventBusRemoteEndpoint
 
 	private static final String HEADER_SenderId = "metasfresh-events.SenderId";
 	private static final String HEADER_TopicName = "metasfresh-events.TopicName";
+	/** Header used by spring's Jackson2JsonMessageConverter to find out the payload type; needed by nodes which are not aware of the content type */
+	private static final String HEADER_TypeId = "__TypeId__";
 
 	private final String senderId;
 	private final AmqpTemplate amqpTemplate;
@@ -62,11 +65,14 @@ public class RabbitMQEventBusRemoteEndpoint implements IEventBusRemoteEndpoint
 	}
 
 	@RabbitListener(queues = AMQPEventBusConfiguration.EVENTS_QUEUE_NAME_SPEL)
-	public void onRemoteEvent(
-			@Payload final Event event,
-			@Header(HEADER_SenderId) final String senderId,
-			@Header(HEADER_TopicName) final String topicName)
+	public void onRemoteEvent(@NonNull final Message message)
 	{
+		final MessageProperties messageProperties = message.getMessageProperties();
+		final Map<String, Object> headers = messageProperties.getHeaders();
+		final String senderId = Objects.toString(headers.get(HEADER_SenderId), null);
+		final String topicName = Objects.toString(headers.get(HEADER_TopicName), null);
+
+		Event event = null;
 		try
 		{
 			if (Objects.equals(getSenderId(), senderId))
@@ -74,6 +80,9 @@ public class RabbitMQEventBusRemoteEndpoint implements IEventBusRemoteEndpoint
 				return;
 			}
 
+			event = EventSerializers.getByContentType(messageProperties.getContentType())
+					.fromBytes(message.getBody());
+
 			final Topic topic = Topic.of(topicName, Type.REMOTE);
 			final IEventBus eventBus = Services.get(IEventBusFactory.class).getEventBusIfExists(topic);
 			if (eventBus == null)
@@ -106,12 +115,20 @@ public class RabbitMQEventBusRemoteEndpoint implements IEventBusRemoteEndpoint
 				return;
 			}
 
-			amqpTemplate.convertAndSend(AMQPEventBusConfiguration.EVENTS_EXCHANGE_NAME, "", event, message -> {
-				final Map<String, Object> headers = message.getMessageProperties().getHeaders();
-				headers.put(HEADER_SenderId, getSenderId());
-				headers.put(HEADER_TopicName, topicName);
-				return message;
-			});
+			final IEventSerializer eventSerializer = EventSerializers.getSenderSerializer();
+
+			final MessageProperties messageProperties = new MessageProperties();
+			messageProperties.setContentType(eventSerializer.getContentType());
+			if (!eventSerializer.isBinary())
+			{
+				messageProperties.setContentEncoding(StandardCharsets.UTF_8.name());
+				messageProperties.setHeader(HEADER_TypeId, Event.class.getName());
+			}
+			messageProperties.setHeader(HEADER_SenderId, getSenderId());
+			messageProperties.setHeader(HEADER_TopicName, topicName);
+
+			final Message message = new Message(eventSerializer.toBytes(event), messageProperties);
+			amqpTemplate.send(AMQPEventBusConfiguration.EVENTS_EXCHANGE_NAME, "", message);
 
 			logger.debug("Send event; topicName={}; event={}",topicName, event);
 		}
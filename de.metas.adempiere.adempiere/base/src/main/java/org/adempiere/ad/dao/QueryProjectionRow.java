@@ -0,0 +1,138 @@
+package org.adempiere.ad.dao;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.compiere.model.IQuery;
+
+import com.google.common.collect.ImmutableMap;
+
+import de.metas.util.StringUtils;
+import lombok.NonNull;
+
+/**
+ * One row loaded by {@link IQuery#listProjected(java.util.function.Function, String...)}.
+ * <p>
+ * It only contains the values of the selected columns, indexed by a column name to index map which is shared between all the rows of one query result.
+ * So, unlike loading full models, there is no PO, no old values and no per-row map.
+ */
+public final class QueryProjectionRow
+{
+	/**
+	 * @return column name to index map, to be shared by all the rows of a query result
+	 */
+	public static ImmutableMap<String, Integer> indexColumnNames(@NonNull final List<String> columnNames)
+	{
+		final ImmutableMap.Builder<String, Integer> columnIndexes = ImmutableMap.builder();
+		for (int i = 0; i < columnNames.size(); i++)
+		{
+			columnIndexes.put(columnNames.get(i), i);
+		}
+		return columnIndexes.build();
+	}
+
+	private final ImmutableMap<String, Integer> columnIndexes;
+	private final Object[] values;
+
+	/**
+	 * @param values the values, in the order of <code>columnIndexes</code>; the array is not copied, so don't change it afterwards
+	 */
+	public QueryProjectionRow(
+			@NonNull final ImmutableMap<String, Integer> columnIndexes,
+			@NonNull final Object[] values)
+	{
+		if (columnIndexes.size() != values.length)
+		{
+			throw new AdempiereException("Column names and values shall have the same size")
+					.setParameter("columnNames", columnIndexes.keySet())
+					.setParameter("values", Arrays.asList(values));
+		}
+
+		this.columnIndexes = columnIndexes;
+		this.values = values;
+	}
+
+	@Override
+	public String toString()
+	{
+		final StringBuilder sb = new StringBuilder("QueryProjectionRow{");
+		columnIndexes.forEach((columnName, index) -> {
+			if (index > 0)
+			{
+				sb.append(", ");
+			}
+			sb.append(columnName).append("=").append(values[index]);
+		});
+		return sb.append("}").toString();
+	}
+
+	public Object getValue(@NonNull final String columnName)
+	{
+		final Integer index = columnIndexes.get(columnName);
+		if (index == null)
+		{
+			throw new AdempiereException("Column " + columnName + " was not selected")
+					.setParameter("selectedColumnNames", columnIndexes.keySet());
+		}
+		return values[index];
+	}
+
+	/** @return value as int or zero if the value is <code>null</code> (same as {@link org.compiere.model.PO#get_ValueAsInt(String)}) */
+	public int getValueAsInt(final String columnName)
+	{
+		final Object value = getValue(columnName);
+		return value == null ? 0 : ((Number)value).intValue();
+	}
+
+	/** @return value or {@link BigDecimal#ZERO} if the value is <code>null</code> */
+	public BigDecimal getValueAsBigDecimal(final String columnName)
+	{
+		final Object value = getValue(columnName);
+		if (value == null)
+		{
+			return BigDecimal.ZERO;
+		}
+		return value instanceof BigDecimal ? (BigDecimal)value : new BigDecimal(value.toString());
+	}
+
+	public String getValueAsString(final String columnName)
+	{
+		final Object value = getValue(columnName);
+		return value == null ? null : value.toString();
+	}
+
+	public boolean getValueAsBoolean(final String columnName)
+	{
+		return StringUtils.toBoolean(getValue(columnName));
+	}
+
+	public Timestamp getValueAsTimestamp(final String columnName)
+	{
+		return (Timestamp)getValue(columnName);
+	}
+}
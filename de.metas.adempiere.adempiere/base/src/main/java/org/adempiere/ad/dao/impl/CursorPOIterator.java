@@ -0,0 +1,214 @@
+package org.adempiere.ad.dao.impl;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.exceptions.DBException;
+import org.adempiere.model.InterfaceWrapperHelper;
+import org.compiere.util.DB;
+import org.slf4j.Logger;
+
+import com.google.common.base.MoreObjects;
+
+import de.metas.logging.LogManager;
+import de.metas.util.Services;
+import lombok.NonNull;
+
+/**
+ * {@link Iterator} over a {@link TypedSqlQuery} result which is backed by a server side database cursor.
+ * <p>
+ * Unlike {@link POBufferedIterator}, the query is executed only once and the rows are fetched in chunks of <code>fetchSize</code> while iterating, so the memory usage is constant and the database
+ * does not have to re-execute the query for each page.
+ * <p>
+ * Because postgres uses a cursor only if auto-commit is off, the iterator runs in the query's transaction or, if the query has no transaction, on a dedicated connection of its own.
+ * In both cases the cursor is kept open until the iterator is exhausted or {@link #close()}d, so make sure to always close it.
+ *
+ * @param <ET> model interface
+ */
+/* package */final class CursorPOIterator<T, ET extends T> implements Iterator<ET>, Closeable
+{
+	private static final transient Logger logger = LogManager.getLogger(CursorPOIterator.class);
+
+	/** Default fetch size, if {@link org.compiere.model.IQuery#OPTION_IteratorBufferSize} was not set */
+	static final int DEFAULT_FetchSize = 500;
+
+	private final TypedSqlQuery<T> query;
+	private final Class<ET> clazz;
+	private final String sql;
+	private final boolean readOnlyRecords;
+
+	/** Connection which was created only for this cursor; <code>null</code> if we are running in query's transaction */
+	private Connection ownConnection;
+	private PreparedStatement pstmt;
+	private ResultSet rs;
+
+	private ET next = null;
+	private boolean closed = false;
+	private int countFetched = 0;
+
+	CursorPOIterator(@NonNull final TypedSqlQuery<T> query, final Class<ET> clazz, final int fetchSize)
+	{
+		this.query = query;
+		this.clazz = clazz;
+		this.sql = query.buildSQL(null, null, true);
+		this.readOnlyRecords = query.isReadOnlyRecords();
+
+		open(fetchSize > 0 ? fetchSize : DEFAULT_FetchSize);
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("closed", closed)
+				.add("countFetched", countFetched)
+				.add("ownConnection", ownConnection != null)
+				.add("sql", sql)
+				.toString();
+	}
+
+	private void open(final int fetchSize)
+	{
+		boolean success = false;
+		try
+		{
+			final ITrx trx = Services.get(ITrxManager.class).getTrx(query.getTrxName());
+			if (Services.get(ITrxManager.class).isNull(trx))
+			{
+				ownConnection = DB.createConnection(false, Connection.TRANSACTION_READ_COMMITTED);
+				// we are bypassing DB.prepareStatement here, so we need to convert the SQL ourselves
+				final String sqlConverted = DB.getDatabase().convertStatement(sql);
+				pstmt = ownConnection.prepareStatement(sqlConverted, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			}
+			else
+			{
+				pstmt = DB.prepareStatement(sql, trx.getTrxName());
+			}
+
+			pstmt.setFetchSize(fetchSize);
+			DB.setParameters(pstmt, query.getParametersEffective());
+			rs = pstmt.executeQuery();
+
+			success = true;
+		}
+		catch (final SQLException e)
+		{
+			throw new DBException(e, sql, query.getParametersEffective());
+		}
+		finally
+		{
+			if (!success)
+			{
+				close();
+			}
+		}
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		if (next != null)
+		{
+			return true;
+		}
+		if (closed)
+		{
+			return false;
+		}
+
+		boolean success = false;
+		try
+		{
+			next = query.retrieveNextModel(rs, clazz);
+			success = true;
+		}
+		catch (final SQLException e)
+		{
+			throw new DBException(e, sql, query.getParametersEffective());
+		}
+		finally
+		{
+			// close the cursor as soon as we reached the end or we failed
+			if (!success || next == null)
+			{
+				close();
+			}
+		}
+
+		return next != null;
+	}
+
+	@Override
+	public ET next()
+	{
+		if (!hasNext())
+		{
+			throw new NoSuchElementException();
+		}
+
+		final ET model = next;
+		next = null;
+		countFetched++;
+
+		InterfaceWrapperHelper.setSaveDeleteDisabled(model, readOnlyRecords);
+		return model;
+	}
+
+	@Override
+	public void close()
+	{
+		if (closed)
+		{
+			return;
+		}
+		closed = true;
+
+		DB.close(rs, pstmt);
+		rs = null;
+		pstmt = null;
+
+		if (ownConnection != null)
+		{
+			try
+			{
+				// we did not change anything; just end the transaction in which the cursor was living
+				ownConnection.rollback();
+			}
+			catch (final SQLException e)
+			{
+				logger.warn("Failed ending the cursor's transaction on {}. Ignored.", this, e);
+			}
+			DB.close(ownConnection);
+			ownConnection = null;
+		}
+	}
+}
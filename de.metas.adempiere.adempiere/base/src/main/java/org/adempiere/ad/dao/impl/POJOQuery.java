@@ -36,6 +36,7 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import org.adempiere.ad.dao.ICompositeQueryFilter;
 import org.adempiere.ad.dao.IQueryBL;
@@ -43,6 +44,7 @@ import org.adempiere.ad.dao.IQueryFilter;
 import org.adempiere.ad.dao.IQueryInsertExecutor.QueryInsertExecutorResult;
 import org.adempiere.ad.dao.IQueryOrderBy;
 import org.adempiere.ad.dao.IQueryUpdater;
+import org.adempiere.ad.dao.QueryProjectionRow;
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.ad.wrapper.POJOLookupMap;
 import org.adempiere.exceptions.AdempiereException;
@@ -53,6 +55,7 @@ import org.compiere.util.DB;
 import org.compiere.util.Env;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 import de.metas.process.PInstanceId;
 import de.metas.util.Check;
@@ -876,6 +879,26 @@ public class POJOQuery<T> extends AbstractTypedQuery<T>
 		return new ArrayList<>(result);
 	}
 
+	@Override
+	public <R> List<R> listProjected(@NonNull final Function<QueryProjectionRow, R> rowMapper, final String... columnNames)
+	{
+		Check.assumeNotEmpty(columnNames, "columnNames not empty");
+		final ImmutableMap<String, Integer> columnIndexes = QueryProjectionRow.indexColumnNames(ImmutableList.copyOf(columnNames));
+
+		final List<R> result = new ArrayList<>();
+		for (final T record : list())
+		{
+			final Object[] values = new Object[columnNames.length];
+			for (int i = 0; i < columnNames.length; i++)
+			{
+				values[i] = InterfaceWrapperHelper.getValue(record, columnNames[i]).orElse(null);
+			}
+			result.add(rowMapper.apply(new QueryProjectionRow(columnIndexes, values)));
+		}
+
+		return result;
+	}
+
 	@Override
 	public final <AT> List<AT> listDistinct(final String columnName, final Class<AT> valueType)
 	{
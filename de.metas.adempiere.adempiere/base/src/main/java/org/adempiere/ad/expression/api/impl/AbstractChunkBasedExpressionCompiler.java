@@ -10,6 +10,9 @@ import org.adempiere.ad.expression.exceptions.ExpressionCompileException;
 import org.compiere.util.CtxName;
 import org.compiere.util.CtxNames;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 /*
  * #%L
  * de.metas.adempiere.adempiere.base
@@ -48,6 +51,12 @@ public abstract class AbstractChunkBasedExpressionCompiler<V, ET extends IExpres
 	protected static final String PARAMETER_DOUBLE_TAG = PARAMETER_TAG + PARAMETER_TAG;
 
 	// NOTE to developer: make sure there are no variables here since we are using a shared instance
+	// (the compiled expressions cache is fine, because compiled expressions are immutable)
+
+	/** Expressions which were compiled using {@link ExpressionContext#EMPTY}, indexed by expression string */
+	private final Cache<String, ET> compiledExpressionsCache = CacheBuilder.newBuilder()
+			.maximumSize(10000)
+			.build();
 
 	protected AbstractChunkBasedExpressionCompiler()
 	{
@@ -72,6 +81,25 @@ public abstract class AbstractChunkBasedExpressionCompiler<V, ET extends IExpres
 			return getNullExpression();
 		}
 
+		// NOTE: we are caching only the expressions without a particular context, because the context could be used by implementations
+		if (context != ExpressionContext.EMPTY)
+		{
+			return compile0(context, expressionStr);
+		}
+
+		final ET cachedExpression = compiledExpressionsCache.getIfPresent(expressionStr);
+		if (cachedExpression != null)
+		{
+			return cachedExpression;
+		}
+
+		final ET expression = compile0(context, expressionStr);
+		compiledExpressionsCache.put(expressionStr, expression);
+		return expression;
+	}
+
+	private ET compile0(final ExpressionContext context, final String expressionStr)
+	{
 		String inStr = expressionStr;
 		int i = inStr.indexOf(PARAMETER_TAG);
 		if (i < 0)
@@ -86,7 +114,7 @@ public abstract class AbstractChunkBasedExpressionCompiler<V, ET extends IExpres
 			if (i > 0)
 			{
 				final String chunk = inStr.substring(0, i);
-				chunks.add(chunk);
+				addConstantChunk(chunks, chunk);
 			}
 			else
 			{
@@ -105,7 +133,7 @@ public abstract class AbstractChunkBasedExpressionCompiler<V, ET extends IExpres
 			{
 				// Double marker (e.g. @@)
 				// => consider it's an escaped marker, so append "@" only
-				chunks.add(PARAMETER_TAG);
+				addConstantChunk(chunks, PARAMETER_TAG);
 			}
 			else
 			{
@@ -122,7 +150,7 @@ public abstract class AbstractChunkBasedExpressionCompiler<V, ET extends IExpres
 		// Add the remaining chunk, if any
 		if (!inStr.isEmpty())
 		{
-			chunks.add(inStr);
+			addConstantChunk(chunks, inStr);
 		}
 
 		//
@@ -136,4 +164,20 @@ public abstract class AbstractChunkBasedExpressionCompiler<V, ET extends IExpres
 
 		return createGeneralExpression(context, expressionStr, chunks);
 	}
+
+	/**
+	 * Adds given constant string to chunks. If the last chunk is also a constant string, they are merged (i.e. constant folding).
+	 */
+	private static void addConstantChunk(final List<Object> chunks, final String constant)
+	{
+		final int lastIndex = chunks.size() - 1;
+		if (lastIndex >= 0 && chunks.get(lastIndex) instanceof String)
+		{
+			chunks.set(lastIndex, chunks.get(lastIndex) + constant);
+		}
+		else
+		{
+			chunks.add(constant);
+		}
+	}
 }
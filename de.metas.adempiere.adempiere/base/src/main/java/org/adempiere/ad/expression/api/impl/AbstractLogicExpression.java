@@ -8,6 +8,22 @@ import org.compiere.util.Evaluatee;
 
 public abstract class AbstractLogicExpression implements ILogicExpression
 {
+	private transient CompiledLogicExpression _compiled; // lazy
+
+	/**
+	 * @return the evaluation form of this expression; it's built only once
+	 */
+	/* package */ final CompiledLogicExpression getCompiled()
+	{
+		CompiledLogicExpression compiled = _compiled;
+		if (compiled == null)
+		{
+			// NOTE: it's fine if it's built more than once by concurrent threads, because it's immutable
+			compiled = _compiled = CompiledLogicExpression.of(this);
+		}
+		return compiled;
+	}
+
 	@Override
 	public final Boolean evaluate(final Evaluatee ctx, final OnVariableNotFound onVariableNotFound)
 	{
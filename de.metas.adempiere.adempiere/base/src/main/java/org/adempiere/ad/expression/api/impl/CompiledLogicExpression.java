@@ -0,0 +1,549 @@
+package org.adempiere.ad.expression.api.impl;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.adempiere.ad.expression.api.IExpressionEvaluator.OnVariableNotFound;
+import org.adempiere.ad.expression.api.ILogicExpression;
+import org.adempiere.ad.expression.exceptions.ExpressionEvaluationException;
+import org.compiere.util.CtxName;
+import org.compiere.util.Evaluatee;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import lombok.NonNull;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Evaluation form of an {@link ILogicExpression}, built once per expression (see {@link AbstractLogicExpression}).
+ * <p>
+ * Compared to walking the {@link ILogicExpression} tree:
+ * <ul>
+ * <li>each distinct parameter gets a slot, so it's resolved at most once per evaluation, without any map lookups
+ * <li>constant operands are trimmed, unquoted and converted to {@link BigDecimal} upfront
+ * <li>the logic operators are short-circuiting without allocating suppliers
+ * </ul>
+ * The results (including the error handling) are the same as the ones of {@link LogicExpressionEvaluator}.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ */
+/* package */ final class CompiledLogicExpression
+{
+	public static CompiledLogicExpression of(@NonNull final ILogicExpression expression)
+	{
+		return new CompiledLogicExpression(expression);
+	}
+
+	private final ILogicExpression expression;
+	private final ImmutableList<CtxName> parameters;
+	private final Node root;
+
+	private CompiledLogicExpression(final ILogicExpression expression)
+	{
+		this.expression = expression;
+		this.parameters = ImmutableList.copyOf(expression.getParameters());
+		this.root = createNode(expression);
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("expression", expression)
+				.add("parameters", parameters)
+				.toString();
+	}
+
+	/**
+	 * @return evaluation result or <code>null</code> if it could not be evaluated
+	 */
+	public Boolean evaluateOrNull(final Evaluation evaluation)
+	{
+		try
+		{
+			return root.evaluateOrNull(evaluation);
+		}
+		catch (final Exception ex)
+		{
+			throw ExpressionEvaluationException.wrapIfNeeded(ex)
+					.setParameter("expression", expression)
+					.setParameter("context", evaluation)
+					.appendParametersToMessage();
+		}
+	}
+
+	public Evaluation newEvaluation(@Nullable final Evaluatee params, final OnVariableNotFound onVariableNotFound)
+	{
+		return new Evaluation(parameters, params, onVariableNotFound);
+	}
+
+	private Node createNode(final ILogicExpression expr)
+	{
+		if (expr.isConstant())
+		{
+			return expr.constantValue() ? ConstantNode.TRUE : ConstantNode.FALSE;
+		}
+		else if (expr instanceof LogicTuple)
+		{
+			final LogicTuple tuple = (LogicTuple)expr;
+			return new TupleNode(createOperand(tuple.getOperand1()), tuple.getOperator(), createOperand(tuple.getOperand2()));
+		}
+		else if (expr instanceof LogicExpression)
+		{
+			final LogicExpression logicExpr = (LogicExpression)expr;
+			final Node left = createNode(logicExpr.getLeft());
+			final Node right = createNode(logicExpr.getRight());
+			final String operator = logicExpr.getOperator();
+			if (ILogicExpression.LOGIC_OPERATOR_AND.equals(operator))
+			{
+				return new AndNode(left, right);
+			}
+			else if (ILogicExpression.LOGIC_OPERATOR_OR.equals(operator))
+			{
+				return new OrNode(left, right);
+			}
+			else if (ILogicExpression.LOGIC_OPERATOR_XOR.equals(operator))
+			{
+				return new XorNode(left, right);
+			}
+			else
+			{
+				// shall not happen because expression was already compiled and validated
+				throw new ExpressionEvaluationException("Invalid operator: " + operator);
+			}
+		}
+		else
+		{
+			throw new ExpressionEvaluationException("Unsupported ILogicExpression type: " + expr + " (class: " + expr.getClass() + ")");
+		}
+	}
+
+	private Operand createOperand(final Object operand)
+	{
+		if (operand instanceof CtxName)
+		{
+			final int slot = parameters.indexOf(operand);
+			if (slot < 0)
+			{
+				// shall not happen
+				throw new ExpressionEvaluationException("Parameter " + operand + " not found in " + parameters);
+			}
+			return Operand.ofSlot(slot);
+		}
+		else
+		{
+			// we can trim whitespaces in this case; if user really wants to have spaces at the beginning/ending of the
+			// string, he/she shall quote it
+			final String value = LogicExpressionEvaluator.stripQuotes(operand.toString().trim());
+			return Operand.ofConstant(value);
+		}
+	}
+
+	/**
+	 * The state of one evaluation, i.e. the resolved parameter values.
+	 */
+	/* package */ static final class Evaluation
+	{
+		private final List<CtxName> parameters;
+		private final Evaluatee params;
+		private final OnVariableNotFound onVariableNotFound;
+
+		private final String[] values;
+		/** Slots in the order they were resolved */
+		private final int[] resolvedSlots;
+		private int resolvedCount = 0;
+
+		private Evaluation(final List<CtxName> parameters, final Evaluatee params, final OnVariableNotFound onVariableNotFound)
+		{
+			this.parameters = parameters;
+
+			// NOTE: null is OK in case we really don't need the params
+			this.params = params;
+			this.onVariableNotFound = onVariableNotFound;
+
+			final int parametersCount = parameters.size();
+			values = new String[parametersCount];
+			resolvedSlots = new int[parametersCount];
+		}
+
+		@Override
+		public String toString()
+		{
+			return MoreObjects.toStringHelper(this)
+					.add("onVariableNotFound", onVariableNotFound)
+					.add("params", params)
+					.toString();
+		}
+
+		/**
+		 * @return value or {@link LogicExpressionEvaluator#VALUE_NotFound}
+		 */
+		private String getValue(final int slot)
+		{
+			String value = values[slot];
+			if (value == null)
+			{
+				value = LogicExpressionEvaluator.resolveCtxName(parameters.get(slot), params, onVariableNotFound);
+				values[slot] = value;
+				resolvedSlots[resolvedCount] = slot;
+				resolvedCount++;
+			}
+			return value;
+		}
+
+		/**
+		 * @return the parameters which were resolved so far (in resolving order) or <code>null</code> if none
+		 */
+		@Nullable
+		public Map<CtxName, String> getUsedParameters()
+		{
+			if (resolvedCount <= 0)
+			{
+				return null;
+			}
+
+			final Map<CtxName, String> usedParameters = new LinkedHashMap<>(resolvedCount);
+			for (int i = 0; i < resolvedCount; i++)
+			{
+				final int slot = resolvedSlots[i];
+				usedParameters.put(parameters.get(slot), values[slot]);
+			}
+			return usedParameters;
+		}
+	}
+
+	private static final class Operand
+	{
+		public static Operand ofSlot(final int slot)
+		{
+			return new Operand(slot, null);
+		}
+
+		public static Operand ofConstant(final String value)
+		{
+			return new Operand(-1, value);
+		}
+
+		private final int slot;
+
+		private final String constantValue;
+		private final BigDecimal constantValueBD;
+		private final String constantValueStr;
+
+		private Operand(final int slot, final String constantValue)
+		{
+			this.slot = slot;
+			this.constantValue = constantValue;
+			this.constantValueBD = constantValue != null ? LogicExpressionEvaluator.toBigDecimalOrNull(constantValue) : null;
+			this.constantValueStr = constantValue != null ? LogicExpressionEvaluator.stripQuotes(constantValue) : null;
+		}
+
+		/**
+		 * @return value or {@link LogicExpressionEvaluator#VALUE_NotFound}
+		 */
+		public String getValue(final Evaluation evaluation)
+		{
+			return slot >= 0 ? evaluation.getValue(slot) : constantValue;
+		}
+
+		/**
+		 * @return given <code>value</code> as {@link BigDecimal}, like {@link LogicExpressionEvaluator#evaluateLogicTuple(String, String, String)} does
+		 */
+		public BigDecimal toBigDecimalOrNull(final String value)
+		{
+			return slot >= 0 ? LogicExpressionEvaluator.toBigDecimalOrNull(value) : constantValueBD;
+		}
+
+		/**
+		 * @return given <code>value</code> as string to be compared, like {@link LogicExpressionEvaluator#evaluateLogicTuple(String, String, String)} does
+		 */
+		public String toComparableString(final String value)
+		{
+			return slot >= 0 ? LogicExpressionEvaluator.stripQuotes(value) : constantValueStr;
+		}
+	}
+
+	private static interface Node
+	{
+		Boolean evaluateOrNull(Evaluation evaluation);
+	}
+
+	private static final class ConstantNode implements Node
+	{
+		public static final ConstantNode TRUE = new ConstantNode(Boolean.TRUE);
+		public static final ConstantNode FALSE = new ConstantNode(Boolean.FALSE);
+
+		private final Boolean value;
+
+		private ConstantNode(final Boolean value)
+		{
+			this.value = value;
+		}
+
+		@Override
+		public Boolean evaluateOrNull(final Evaluation evaluation)
+		{
+			return value;
+		}
+	}
+
+	private static final class TupleNode implements Node
+	{
+		private final Operand operand1;
+		private final String operator;
+		private final Operand operand2;
+
+		private TupleNode(final Operand operand1, final String operator, final Operand operand2)
+		{
+			this.operand1 = operand1;
+			this.operator = operator;
+			this.operand2 = operand2;
+		}
+
+		@Override
+		public Boolean evaluateOrNull(final Evaluation evaluation)
+		{
+			try
+			{
+				final String value1 = operand1.getValue(evaluation);
+				if (value1 == LogicExpressionEvaluator.VALUE_NotFound)
+				{
+					return null;
+				}
+				final String value2 = operand2.getValue(evaluation);
+				if (value2 == LogicExpressionEvaluator.VALUE_NotFound)
+				{
+					return null;
+				}
+
+				return evaluate(value1, value2);
+			}
+			catch (final Exception ex)
+			{
+				// NOTE: the logic operators are relying on getting ExpressionEvaluationExceptions only
+				throw ExpressionEvaluationException.wrapIfNeeded(ex);
+			}
+		}
+
+		private boolean evaluate(final String value1, final String value2)
+		{
+			if (value1 == null || value2 == null)
+			{
+				return false;
+			}
+
+			//
+			// Try comparing BigDecimals
+			final BigDecimal value1BD = operand1.toBigDecimalOrNull(value1);
+			if (value1BD != null)
+			{
+				final BigDecimal value2BD = operand2.toBigDecimalOrNull(value2);
+				if (value2BD != null)
+				{
+					return LogicExpressionEvaluator.evaluateLogicTupleForComparables(value1BD, operator, value2BD);
+				}
+			}
+
+			//
+			// Try comparing as Strings
+			return LogicExpressionEvaluator.evaluateLogicTupleForComparables(operand1.toComparableString(value1), operator, operand2.toComparableString(value2));
+		}
+	}
+
+	/** Same logic as LogicExpressionEvaluator's AND evaluator */
+	private static final class AndNode implements Node
+	{
+		private final Node left;
+		private final Node right;
+
+		private AndNode(final Node left, final Node right)
+		{
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		public Boolean evaluateOrNull(final Evaluation evaluation)
+		{
+			Boolean leftValue = null;
+			ExpressionEvaluationException leftValueError = null;
+			try
+			{
+				leftValue = left.evaluateOrNull(evaluation);
+			}
+			catch (final ExpressionEvaluationException ex)
+			{
+				leftValue = null;
+				leftValueError = ex;
+			}
+
+			if (Boolean.FALSE.equals(leftValue))
+			{
+				// does not matter the value of right expression
+				return Boolean.FALSE;
+			}
+
+			final Boolean rightValue;
+			try
+			{
+				rightValue = right.evaluateOrNull(evaluation);
+			}
+			catch (final ExpressionEvaluationException rightValueError)
+			{
+				if (leftValueError != null)
+				{
+					rightValueError.addSuppressed(leftValueError);
+				}
+				throw rightValueError;
+			}
+
+			if (rightValue == null)
+			{
+				if (leftValueError != null)
+				{
+					throw leftValueError;
+				}
+				return null;
+			}
+			else if (Boolean.FALSE.equals(rightValue))
+			{
+				return Boolean.FALSE;
+			}
+			else if (leftValueError != null)
+			{
+				throw leftValueError;
+			}
+			else
+			{
+				return leftValue; // null or TRUE
+			}
+		}
+	}
+
+	/** Same logic as LogicExpressionEvaluator's OR evaluator */
+	private static final class OrNode implements Node
+	{
+		private final Node left;
+		private final Node right;
+
+		private OrNode(final Node left, final Node right)
+		{
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		public Boolean evaluateOrNull(final Evaluation evaluation)
+		{
+			Boolean leftValue = null;
+			ExpressionEvaluationException leftValueError = null;
+			try
+			{
+				leftValue = left.evaluateOrNull(evaluation);
+			}
+			catch (final ExpressionEvaluationException ex)
+			{
+				leftValue = null;
+				leftValueError = ex;
+			}
+
+			if (Boolean.TRUE.equals(leftValue))
+			{
+				// does not matter the value of right expression
+				return Boolean.TRUE;
+			}
+
+			final Boolean rightValue;
+			try
+			{
+				rightValue = right.evaluateOrNull(evaluation);
+			}
+			catch (final ExpressionEvaluationException rightValueError)
+			{
+				if (leftValueError != null)
+				{
+					rightValueError.addSuppressed(leftValueError);
+				}
+				throw rightValueError;
+			}
+
+			if (rightValue == null)
+			{
+				if (leftValueError != null)
+				{
+					throw leftValueError;
+				}
+				return null;
+			}
+			else if (Boolean.TRUE.equals(rightValue))
+			{
+				return Boolean.TRUE;
+			}
+			else if (leftValueError != null)
+			{
+				throw leftValueError;
+			}
+			else
+			{
+				return leftValue; // null or FALSE
+			}
+		}
+	}
+
+	/** Same logic as LogicExpressionEvaluator's XOR evaluator */
+	private static final class XorNode implements Node
+	{
+		private final Node left;
+		private final Node right;
+
+		private XorNode(final Node left, final Node right)
+		{
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		public Boolean evaluateOrNull(final Evaluation evaluation)
+		{
+			final Boolean leftValue = left.evaluateOrNull(evaluation);
+			if (leftValue == null)
+			{
+				return null;
+			}
+
+			final Boolean rightValue = right.evaluateOrNull(evaluation);
+			if (rightValue == null)
+			{
+				return null;
+			}
+
+			return leftValue.booleanValue() != rightValue.booleanValue();
+		}
+	}
+}
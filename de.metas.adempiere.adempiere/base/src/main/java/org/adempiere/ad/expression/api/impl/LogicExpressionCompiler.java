@@ -34,8 +34,11 @@ import org.adempiere.ad.expression.api.ILogicExpressionCompiler;
 import org.adempiere.ad.expression.exceptions.ExpressionCompileException;
 import org.adempiere.service.ISysConfigBL;
 import org.compiere.util.Env;
+import org.compiere.util.Util.ArrayKey;
 
 import com.google.common.base.Joiner;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import de.metas.util.Check;
 import de.metas.util.Services;
@@ -50,6 +53,11 @@ public class LogicExpressionCompiler implements ILogicExpressionCompiler
 
 	private static final String TUPLE_OPERATORS = Joiner.on("").join(LogicTuple.OPERATORS);
 
+	/** Compiled expressions, indexed by expression string and "use operator precedence" flag */
+	private final Cache<ArrayKey, ILogicExpression> compiledExpressionsCache = CacheBuilder.newBuilder()
+			.maximumSize(10000)
+			.build();
+
 	private LogicExpressionCompiler()
 	{
 		super();
@@ -77,6 +85,24 @@ public class LogicExpressionCompiler implements ILogicExpressionCompiler
 	{
 		Check.assume(!Check.isEmpty(expressionStr, true), "expressionStr is not empty");
 
+		// NOTE: compiled expressions are immutable and they depend only on the expression string and on the operator precedence setting.
+		// The operator precedence matters only if there are AND operators.
+		final boolean useOperatorPrecedence = expressionStr.contains(ILogicExpression.LOGIC_OPERATOR_AND) && isUseOperatorPrecedence();
+		final ArrayKey key = ArrayKey.of(expressionStr, useOperatorPrecedence);
+		final ILogicExpression cachedExpression = compiledExpressionsCache.getIfPresent(key);
+		if (cachedExpression != null)
+		{
+			return cachedExpression;
+		}
+
+		final ILogicExpression expression = compile0(expressionStr, useOperatorPrecedence);
+		compiledExpressionsCache.put(key, expression);
+		return expression;
+	}
+
+	private ILogicExpression compile0(final String expressionStr, final boolean useOperatorPrecedence)
+	{
+
 		// NOTE: we shall not trim nor replace all whitespaces (i.e. replaceAll(" ", "")) from expressionStr because
 		// there can be values which really need to contain white spaces
 		final StringTokenizer st = new StringTokenizer(expressionStr, LOGIC_OPERATORS, true);
@@ -100,10 +126,10 @@ public class LogicExpressionCompiler implements ILogicExpressionCompiler
 					+ "\n Allowed logic operators are: " + LOGIC_OPERATORS);
 		}
 
-		return compile(tokens.iterator(), false);
+		return compile(tokens.iterator(), false, useOperatorPrecedence);
 	}
 
-	private ILogicExpression compile(final Iterator<String> tokens, final boolean goingDown)
+	private ILogicExpression compile(final Iterator<String> tokens, final boolean goingDown, final boolean useOperatorPrecedence)
 	{
 		LogicExpressionBuilder result = new LogicExpressionBuilder();
 		while (tokens.hasNext())
@@ -114,7 +140,7 @@ public class LogicExpressionCompiler implements ILogicExpressionCompiler
 			// Sub-expression start
 			if ("(".equals(token))
 			{
-				final ILogicExpression child = compile(tokens, false);
+				final ILogicExpression child = compile(tokens, false, useOperatorPrecedence);
 				result.addChild(child);
 			}
 			//
@@ -128,15 +154,15 @@ public class LogicExpressionCompiler implements ILogicExpressionCompiler
 				}
 				else
 				{
-					if (isUseOperatorPrecedence() && AbstractLogicExpression.LOGIC_OPERATOR_AND.equals(operator))
+					if (useOperatorPrecedence && AbstractLogicExpression.LOGIC_OPERATOR_AND.equals(operator))
 					{
 						// If precedence is enabled, & nodes are sent down the tree, | nodes up.
-						final ILogicExpression right = LogicExpressionBuilder.build(result.getRight(), operator, compile(tokens, false));
+						final ILogicExpression right = LogicExpressionBuilder.build(result.getRight(), operator, compile(tokens, false, useOperatorPrecedence));
 						result.setRight(right);
 					}
 					else
 					{
-						result = result.buildAndCompose(operator, compile(tokens, true));
+						result = result.buildAndCompose(operator, compile(tokens, true, useOperatorPrecedence));
 					}
 				}
 			}
@@ -215,8 +215,17 @@ public class LogicExpressionEvaluator implements ILogicExpressionEvaluator
 	@Override
 	public Boolean evaluate(final Evaluatee params, final ILogicExpression expr, final OnVariableNotFound onVariableNotFound)
 	{
-		final ExpressionEvaluationContext ctx = new ExpressionEvaluationContext(params, onVariableNotFound);
-		final Boolean value = evaluateOrNull(ctx, expr);
+		final Boolean value;
+		final CompiledLogicExpression compiledExpr = getCompiledOrNull(expr);
+		if (compiledExpr != null)
+		{
+			value = compiledExpr.evaluateOrNull(compiledExpr.newEvaluation(params, onVariableNotFound));
+		}
+		else
+		{
+			final ExpressionEvaluationContext ctx = new ExpressionEvaluationContext(params, onVariableNotFound);
+			value = evaluateOrNull(ctx, expr);
+		}
 		final boolean valueFinal = value == null ? false : value;
 		logger.trace("Evaluated {} => {} => {}", expr, value, valueFinal);
 
@@ -225,6 +234,26 @@ public class LogicExpressionEvaluator implements ILogicExpressionEvaluator
 
 	@Override
 	public LogicExpressionResult evaluateToResult(final Evaluatee params, final ILogicExpression expr, final OnVariableNotFound onVariableNotFound) throws ExpressionEvaluationException
+	{
+		final CompiledLogicExpression compiledExpr = getCompiledOrNull(expr);
+		if (compiledExpr != null)
+		{
+			final CompiledLogicExpression.Evaluation evaluation = compiledExpr.newEvaluation(params, onVariableNotFound);
+			final Boolean value = compiledExpr.evaluateOrNull(evaluation);
+			final LogicExpressionResult result = LogicExpressionResult.of(value, expr, evaluation.getUsedParameters());
+
+			logger.trace("Evaluated {} => {} => {}", expr, value, result);
+
+			return result;
+		}
+
+		return evaluateToResultByWalkingTree(params, expr, onVariableNotFound);
+	}
+
+	/**
+	 * Evaluates given expression by walking the expression tree, without using its compiled form.
+	 */
+	/* package */ LogicExpressionResult evaluateToResultByWalkingTree(final Evaluatee params, final ILogicExpression expr, final OnVariableNotFound onVariableNotFound) throws ExpressionEvaluationException
 	{
 		final ExpressionEvaluationContext ctx = new ExpressionEvaluationContext(params, onVariableNotFound);
 		final Boolean value = evaluateOrNull(ctx, expr);
@@ -235,6 +264,18 @@ public class LogicExpressionEvaluator implements ILogicExpressionEvaluator
 		return result;
 	}
 
+	/**
+	 * @return the evaluation form of given expression or <code>null</code> if it shall be evaluated by walking the expression tree
+	 */
+	private static CompiledLogicExpression getCompiledOrNull(final ILogicExpression expr)
+	{
+		if (expr instanceof AbstractLogicExpression && !expr.isConstant())
+		{
+			return ((AbstractLogicExpression)expr).getCompiled();
+		}
+		return null;
+	}
+
 	private Boolean evaluateOrNull(final ExpressionEvaluationContext ctx, final ILogicExpression expr)
 	{
 		logger.trace("Evaluating {}", expr);
@@ -347,24 +388,15 @@ public class LogicExpressionEvaluator implements ILogicExpressionEvaluator
 
 		//
 		// Try comparing BigDecimals
-		try
+		final BigDecimal value1bd = toBigDecimalOrNull(valueObj1);
+		if (value1bd != null)
 		{
-			if (!valueObj1.startsWith("'"))
+			final BigDecimal value2bd = toBigDecimalOrNull(valueObj2);
+			if (value2bd != null)
 			{
-				final BigDecimal value1bd = new BigDecimal(valueObj1);
-
-				if (!valueObj2.startsWith("'"))
-				{
-					final BigDecimal value2bd = new BigDecimal(valueObj2);
-
-					return evaluateLogicTupleForComparables(value1bd, operand, value2bd);
-				}
+				return evaluateLogicTupleForComparables(value1bd, operand, value2bd);
 			}
 		}
-		catch (final Exception ex)
-		{
-			logger.trace("Failed extracting BigDecimals but going forward", ex);
-		}
 
 		//
 		// Try comparing as Strings
@@ -375,7 +407,38 @@ public class LogicExpressionEvaluator implements ILogicExpressionEvaluator
 		}
 	}
 
-	private static final <T> boolean evaluateLogicTupleForComparables(final Comparable<T> value1, final String operand, final T value2)
+	/**
+	 * @return given value as {@link BigDecimal} or <code>null</code> if it's quoted or it's not a number
+	 */
+	/* package */static BigDecimal toBigDecimalOrNull(final String value)
+	{
+		if (value.isEmpty() || value.startsWith("'"))
+		{
+			return null;
+		}
+
+		// Avoid the costs of an exception if it's clearly not a number; a BigDecimal string contains only these characters
+		for (int i = 0, length = value.length(); i < length; i++)
+		{
+			final char ch = value.charAt(i);
+			if ((ch < '0' || ch > '9') && ch != '-' && ch != '+' && ch != '.' && ch != 'e' && ch != 'E')
+			{
+				return null;
+			}
+		}
+
+		try
+		{
+			return new BigDecimal(value);
+		}
+		catch (final NumberFormatException ex)
+		{
+			logger.trace("Failed extracting BigDecimal from {} but going forward", value, ex);
+			return null;
+		}
+	}
+
+	/* package */static final <T> boolean evaluateLogicTupleForComparables(final Comparable<T> value1, final String operand, final T value2)
 	{
 		//
 		if (operand.equals(LogicTuple.OPERATOR_Equals))
@@ -515,6 +578,48 @@ public class LogicExpressionEvaluator implements ILogicExpressionEvaluator
 		}
 	}
 
+	/**
+	 * Gets parameter value from context
+	 *
+	 * @return value or {@link #VALUE_NotFound}
+	 */
+	/* package */static final String resolveCtxName(final CtxName ctxName, final Evaluatee params, final OnVariableNotFound onVariableNotFound)
+	{
+		final String value = ctxName.getValueAsString(params);
+		final boolean valueNotFound = Env.isPropertyValueNull(ctxName.getName(), value);
+
+		// Give it another try in case it's and ID (backward compatibility)
+		// Handling of ID compare (null => 0)
+		if (valueNotFound && Env.isNumericPropertyName(ctxName.getName()))
+		{
+			final String defaultValue = "0";
+			logger.trace("Evaluated {}={} (default value)", ctxName, defaultValue);
+			return defaultValue;
+		}
+
+		if (valueNotFound)
+		{
+			if (onVariableNotFound == OnVariableNotFound.ReturnNoResult)
+			{
+				// i.e. !ignoreUnparsable
+				logger.trace("Evaluated {}=<value not found>", ctxName);
+				return VALUE_NotFound;
+			}
+			else if (onVariableNotFound == OnVariableNotFound.Fail)
+			{
+				throw new ExpressionEvaluationException("Parameter '" + ctxName.getName() + "' not found in context"
+						+ "\n Context: " + params
+						+ "\n OnVariableNotFound: " + onVariableNotFound);
+			}
+			else
+			{
+				throw new ExpressionEvaluationException("Unknown " + OnVariableNotFound.class + " value: " + onVariableNotFound);
+			}
+		}
+
+		return value;
+	}
+
 	//
 	//
 	//
@@ -582,39 +687,7 @@ public class LogicExpressionEvaluator implements ILogicExpressionEvaluator
 
 		private final String resolveCtxName(final CtxName ctxName)
 		{
-			final String value = ctxName.getValueAsString(params);
-			final boolean valueNotFound = Env.isPropertyValueNull(ctxName.getName(), value);
-
-			// Give it another try in case it's and ID (backward compatibility)
-			// Handling of ID compare (null => 0)
-			if (valueNotFound && Env.isNumericPropertyName(ctxName.getName()))
-			{
-				final String defaultValue = "0";
-				logger.trace("Evaluated {}={} (default value)", ctxName, defaultValue);
-				return defaultValue;
-			}
-
-			if (valueNotFound)
-			{
-				if (onVariableNotFound == OnVariableNotFound.ReturnNoResult)
-				{
-					// i.e. !ignoreUnparsable
-					logger.trace("Evaluated {}=<value not found>", ctxName);
-					return VALUE_NotFound;
-				}
-				else if (onVariableNotFound == OnVariableNotFound.Fail)
-				{
-					throw new ExpressionEvaluationException("Parameter '" + ctxName.getName() + "' not found in context"
-							+ "\n Context: " + params
-							+ "\n Evaluator: " + this);
-				}
-				else
-				{
-					throw new ExpressionEvaluationException("Unknown " + OnVariableNotFound.class + " value: " + onVariableNotFound);
-				}
-			}
-
-			return value;
+			return LogicExpressionEvaluator.resolveCtxName(ctxName, params, onVariableNotFound);
 		}
 
 		@Nullable
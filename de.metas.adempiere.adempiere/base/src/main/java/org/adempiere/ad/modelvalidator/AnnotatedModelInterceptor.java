@@ -149,6 +149,22 @@ import lombok.NonNull;
 		// nothing
 	}
 
+	/**
+	 * @return true if there is at least one pointcut for given table and model change type
+	 */
+	public boolean isModelChangeSubscribed(@NonNull final String tableName, final int changeType)
+	{
+		final ImmutableSet<Pointcut> pointcuts = descriptor.getPointcuts(PointcutKey.of(tableName, PointcutType.ModelChange));
+		for (final Pointcut pointcut : pointcuts)
+		{
+			if (pointcut.getTimings().contains(changeType))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public final void onModelChange(final Object model, final ModelChangeType changeType)
 	{
@@ -116,6 +116,18 @@ public final class ModelInterceptor2ModelValidatorWrapper implements ModelValida
 		return interceptor.getAD_Client_ID();
 	}
 
+	/**
+	 * @return false if we know for sure that the wrapped interceptor does nothing on given table and model change type
+	 */
+	public boolean isModelChangeSubscribed(final String tableName, final int changeTypeCode)
+	{
+		if (interceptor instanceof AnnotatedModelInterceptor)
+		{
+			return ((AnnotatedModelInterceptor)interceptor).isModelChangeSubscribed(tableName, changeTypeCode);
+		}
+		return true;
+	}
+
 	@Override
 	public final String modelChange(final PO po, final int changeTypeCode) throws Exception
 	{
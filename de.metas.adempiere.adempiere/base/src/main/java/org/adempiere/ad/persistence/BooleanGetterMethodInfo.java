@@ -23,6 +23,9 @@ package org.adempiere.ad.persistence;
  */
 
 import java.lang.reflect.Method;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
 
 /**
  * Boolean getter handler
@@ -32,47 +35,51 @@ import java.lang.reflect.Method;
  * @author tsa
  *
  */
-/* package */class BooleanGetterMethodInfo extends AbstractModelMethodInfo
+/* package */class BooleanGetterMethodInfo extends AbstractModelMethodInfo implements IModelColumnGetterMethodInfo
 {
 
 	private final String propertyName;
 	private final Class<?> returnType;
+	private final ImmutableList<String> candidateColumnNames;
 
 	public BooleanGetterMethodInfo(final Method interfaceMethod, final String propertyName)
 	{
 		super(interfaceMethod);
 		this.propertyName = propertyName;
 		this.returnType = interfaceMethod.getReturnType();
+		this.candidateColumnNames = ImmutableList.of(propertyName, "Is" + propertyName, "is" + propertyName);
 	}
 
 	@Override
 	public Object invoke(final IModelInternalAccessor model, final Object[] methodArgs_IGNORED) throws Exception
 	{
-		// TODO: optimization: cache matched PropertyName and ColumnIndex
-
-		String propertyNameToUse = propertyName;
-		int ii = model.getColumnIndex(propertyNameToUse);
-		if (ii >= 0)
+		for (final String columnName : getCandidateColumnNames())
 		{
-			return model.getValue(propertyNameToUse, ii, returnType);
+			final int columnIndex = model.getColumnIndex(columnName);
+			if (columnIndex >= 0)
+			{
+				return model.getValue(columnName, columnIndex, returnType);
+			}
 		}
 
-		propertyNameToUse = "Is" + propertyName;
-		ii = model.getColumnIndex(propertyNameToUse);
-		if (ii >= 0)
-		{
-			return model.getValue(propertyNameToUse, ii, returnType);
-		}
+		//
+		throw new IllegalArgumentException("Method " + getInterfaceMethod() + " is not supported on model " + model);
+	}
+
+	@Override
+	public List<String> getCandidateColumnNames()
+	{
+		return candidateColumnNames;
+	}
 
-		propertyNameToUse = "is" + propertyName;
-		ii = model.getColumnIndex(propertyNameToUse);
-		if (ii >= 0)
+	@Override
+	public Object getValue(final IModelInternalAccessor model, final String columnName, final int columnIndex)
+	{
+		if (columnIndex < 0)
 		{
-			return model.getValue(propertyNameToUse, ii, returnType);
+			throw new IllegalArgumentException("Method " + getInterfaceMethod() + " is not supported on model " + model);
 		}
-
-		//
-		throw new IllegalArgumentException("Method " + getInterfaceMethod() + " is not supported on model " + model);
+		return model.getValue(columnName, columnIndex, returnType);
 	}
 
 }
@@ -0,0 +1,50 @@
+package org.adempiere.ad.persistence;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.util.List;
+
+/**
+ * Method info of a getter which reads a plain column value.
+ * <p>
+ * Unlike {@link #invoke(IModelInternalAccessor, Object[])}, it allows the caller to resolve the column index once and reuse it.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+public interface IModelColumnGetterMethodInfo extends IModelMethodInfo
+{
+	/**
+	 * @return column names which could back this getter, in order of preference; the first one which exists in the underlying table shall be used.
+	 */
+	List<String> getCandidateColumnNames();
+
+	/**
+	 * Gets the value using an already resolved column.
+	 *
+	 * @param columnName the first of {@link #getCandidateColumnNames()} which exists, or <code>null</code> if none exists
+	 * @param columnIndex column index of <code>columnName</code> or <code>-1</code>
+	 * @return same value as {@link #invoke(IModelInternalAccessor, Object[])} would return
+	 */
+	Object getValue(IModelInternalAccessor model, String columnName, int columnIndex);
+}
@@ -33,6 +33,8 @@ import java.util.Set;
 
 import org.adempiere.ad.table.api.IADTableDAO;
 import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.ad.trx.api.IWriteBehindScope;
 import org.adempiere.exceptions.AdempiereException;
 import org.adempiere.exceptions.DBException;
 import org.adempiere.model.GenericPO;
@@ -273,6 +275,21 @@ public final class TableModelLoader
 		return po;
 	}
 
+	/**
+	 * @return the instance which was already loaded in the write-behind scope of given transaction (if any) or the given <code>po</code>
+	 * @see IWriteBehindScope
+	 */
+	private static PO getManagedPO(final PO po, final String trxName)
+	{
+		final IWriteBehindScope writeBehindScope = Services.get(ITrxManager.class).getWriteBehindScopeOrNull(trxName);
+		if (writeBehindScope == null || po.get_KeyColumns().length != 1)
+		{
+			return po;
+		}
+
+		return writeBehindScope.getOrRegisterLoadedModel(po.get_TableName(), po.get_ID(), po, PO::refreshLoadedValuesFrom);
+	}
+
 	/**
 	 * Retrieve model from given result set.
 	 *
@@ -387,7 +404,7 @@ public final class TableModelLoader
 
 	public final <ModelType> ModelType retrieveModel(final Properties ctx, final String tableName, final Class<?> modelClass, final ResultSet rs, final String trxName)
 	{
-		final PO po = getPO(ctx, tableName, rs, trxName);
+		final PO po = getManagedPO(getPO(ctx, tableName, rs, trxName), trxName);
 
 		//
 		// Case: we have a modelClass specified
@@ -25,9 +25,12 @@ package org.adempiere.ad.persistence;
 
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
+import java.util.List;
 
 import org.compiere.model.PO;
 
+import com.google.common.collect.ImmutableList;
+
 /**
  * Value getter handler.
  * 
@@ -36,7 +39,7 @@ import org.compiere.model.PO;
  * @author tsa
  *
  */
-/* package */class ValueGetterMethodInfo extends AbstractModelMethodInfo
+/* package */class ValueGetterMethodInfo extends AbstractModelMethodInfo implements IModelColumnGetterMethodInfo
 {
 	private static final Object DEFAULTVALUE_NotSupported = new Object();
 
@@ -74,11 +77,23 @@ import org.compiere.model.PO;
 	@Override
 	public Object invoke(final IModelInternalAccessor model, final Object[] methodArgs) throws Exception
 	{
-		Object value = null;
 		final int idx = model.getColumnIndex(propertyName);
-		if (idx >= 0)
+		return getValue(model, propertyName, idx);
+	}
+
+	@Override
+	public List<String> getCandidateColumnNames()
+	{
+		return ImmutableList.of(propertyName);
+	}
+
+	@Override
+	public Object getValue(final IModelInternalAccessor model, final String columnName, final int columnIndex)
+	{
+		Object value = null;
+		if (columnIndex >= 0)
 		{
-			value = model.getValue(propertyName, idx, returnType);
+			value = model.getValue(columnName, columnIndex, returnType);
 		}
 
 		if (value != null)
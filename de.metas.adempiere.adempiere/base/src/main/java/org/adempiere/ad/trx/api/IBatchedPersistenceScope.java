@@ -0,0 +1,95 @@
+package org.adempiere.ad.trx.api;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Scope in which PO INSERTs and UPDATEs are not executed right away, but are queued on transaction level and executed as JDBC batches.
+ * <p>
+ * Only POs which are not depending on their after-save logic are queued (see <code>PO.isBatchedPersistenceAllowed()</code>); all the others are saved as usual.
+ * <p>
+ * The queued statements are executed when:
+ * <ul>
+ * <li>the queue reached its maximum size
+ * <li>any other SQL statement is about to be executed in the same transaction
+ * <li>a savepoint is about to be created or the transaction is about to be committed
+ * <li>{@link #flush()} is called or the outermost scope is closed
+ * </ul>
+ * The queued statements are discarded if the transaction is rolled back.
+ * A statement is removed from the queue if the save which queued it fails, and it is executed before the record's after-save interceptors are fired.
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ * try (final IBatchedPersistenceScope scope = trxManager.openBatchedPersistenceScope(trxName))
+ * {
+ * 	// create and save a lot of records
+ * }
+ * </pre>
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ * @see ITrxManager#openBatchedPersistenceScope(String)
+ */
+public interface IBatchedPersistenceScope extends AutoCloseable
+{
+	String getTrxName();
+
+	/**
+	 * Queues given INSERT or UPDATE statement. When executed, the statement is expected to affect exactly one row.
+	 */
+	void addStatement(String sql);
+
+	/**
+	 * Removes given statement from the queue, if it was not executed yet. To be called when the save which queued it failed afterwards.
+	 *
+	 * @return true if the statement was removed; false if it was already executed
+	 */
+	boolean removeStatement(String sql);
+
+	/**
+	 * @return true if given statement is queued and was not executed yet
+	 */
+	boolean isPending(String sql);
+
+	/**
+	 * Executes all queued statements.
+	 */
+	void flush();
+
+	/** @return how many statements were queued since the outermost scope was opened */
+	int getQueuedStatementsCount();
+
+	/** @return how many JDBC batches were executed since the outermost scope was opened */
+	int getExecutedBatchesCount();
+
+	/** @return how many database round-trips were saved by batching */
+	default int getSavedStatementsCount()
+	{
+		return Math.max(getQueuedStatementsCount() - getExecutedBatchesCount(), 0);
+	}
+
+	/**
+	 * Executes all queued statements and closes this scope. If this is the outermost scope, batching is stopped.
+	 */
+	@Override
+	void close();
+}
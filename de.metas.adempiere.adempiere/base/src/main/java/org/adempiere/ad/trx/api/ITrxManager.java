@@ -323,6 +323,45 @@ public interface ITrxManager extends ISingletonService
 	/** Run after current transaction is committed. If no transaction, the code is executed right away. */
 	void runAfterCommit(final Runnable runnable);
 
+	/**
+	 * Opens a batched persistence scope on given transaction. If there is already one open, it's joined.
+	 * <p>
+	 * Each call to this method shall be paired with one {@link IBatchedPersistenceScope#close()} call.
+	 *
+	 * @param trxName transaction name; {@link ITrx#TRXNAME_ThreadInherited} is also accepted
+	 * @throws TrxException if the transaction was not found or it does not support batched persistence
+	 * @see IBatchedPersistenceScope
+	 */
+	IBatchedPersistenceScope openBatchedPersistenceScope(String trxName);
+
+	/**
+	 * @return the batched persistence scope which is open on given transaction or <code>null</code>
+	 */
+	IBatchedPersistenceScope getBatchedPersistenceScopeOrNull(String trxName);
+
+	/**
+	 * Opens a write-behind scope on given transaction. If there is already one open, it's joined.
+	 * <p>
+	 * Each call to this method shall be paired with one {@link IWriteBehindScope#close()} call.
+	 *
+	 * @param trxName transaction name; {@link ITrx#TRXNAME_ThreadInherited} is also accepted
+	 * @throws TrxException if the transaction was not found or it does not support write-behind
+	 * @see IWriteBehindScope
+	 */
+	IWriteBehindScope openWriteBehindScope(String trxName);
+
+	/**
+	 * @return the write-behind scope which is open on given transaction or <code>null</code>
+	 */
+	IWriteBehindScope getWriteBehindScopeOrNull(String trxName);
+
+	/**
+	 * @return statistics of all write-behind scopes of this transaction manager
+	 */
+	WriteBehindStatistics getWriteBehindStatistics();
+
+	void resetWriteBehindStatistics();
+
 	/**
 	 * Commit transaction for given <code>trxName</code>.
 	 *
@@ -0,0 +1,117 @@
+package org.adempiere.ad.trx.api;
+
+import java.util.function.BiConsumer;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Opt-in transaction level identity map and write-behind buffer for models which are saved several times in the same transaction.
+ * <p>
+ * While the scope is open:
+ * <ul>
+ * <li>models which are loaded by <code>IQueryBuilder</code> queries in the transaction are deduplicated by ID, i.e. loading the same record again returns the already loaded instance
+ * <li>saving such a model, if it's not new, only marks it as dirty. The actual save (including <code>beforeSave</code>/<code>afterSave</code> and the model interceptors) is executed once, when the scope is flushed
+ * </ul>
+ * The dirty models are saved when:
+ * <ul>
+ * <li>any other SQL statement (e.g. a query) is about to be executed in the same transaction
+ * <li>a savepoint is about to be created or the transaction is about to be committed
+ * <li>{@link #flush()} is called or the outermost scope is closed
+ * </ul>
+ * The dirty models and the identity map are discarded if the transaction is rolled back. The identity map is also cleared on commit.
+ * <p>
+ * IMPORTANT: only use it in code which does not rely on the side effects of a save (e.g. the values set by interceptors) right after calling it.
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ * try (final IWriteBehindScope scope = trxManager.openWriteBehindScope(trxName))
+ * {
+ * 	// load records and save them several times
+ * }
+ * </pre>
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ * @see ITrxManager#openWriteBehindScope(String)
+ */
+public interface IWriteBehindScope extends AutoCloseable
+{
+	String getTrxName();
+
+	/**
+	 * @return the instance which was already loaded in this scope for given table and ID; if there is none, given <code>model</code> is registered and returned
+	 */
+	default <T> T getOrRegisterLoadedModel(final String tableName, final int recordId, final T model)
+	{
+		return getOrRegisterLoadedModel(tableName, recordId, model, (existingModel, loadedModel) -> {
+		});
+	}
+
+	/**
+	 * Same as {@link #getOrRegisterLoadedModel(String, int, Object)}, but if an already loaded instance is returned and it's not dirty,
+	 * <code>refresher</code> is called with that instance and given <code>model</code>, so that the returned instance gets the values which were just loaded.
+	 * That way, the changes which were made in database meanwhile (e.g. by plain SQL) are not hidden by the identity map.
+	 */
+	<T> T getOrRegisterLoadedModel(String tableName, int recordId, T model, BiConsumer<T, T> refresher);
+
+	/**
+	 * Marks given model as dirty, if it's the instance which was registered in this scope for given table and ID.
+	 *
+	 * @param saveAction executed when the scope is flushed; it shall actually save the model
+	 * @return true if the save was deferred; false if the model shall be saved right away
+	 */
+	boolean deferSave(String tableName, int recordId, Object model, Runnable saveAction);
+
+	/** @return true while the dirty models are saved; models saved meanwhile are not deferred */
+	boolean isFlushing();
+
+	/**
+	 * Saves all dirty models.
+	 * <p>
+	 * If a save fails, the exception is thrown and this scope is dropped: the remaining dirty models and the identity map are discarded
+	 * and the scope is detached from its transaction, so the failed save is not retried by each following statement.
+	 * The caller is expected to roll back the transaction.
+	 */
+	void flush();
+
+	/** @return how many saves were deferred since the outermost scope was opened */
+	int getDeferredSavesCount();
+
+	/** @return how many saves were actually executed when flushing */
+	int getExecutedSavesCount();
+
+	/** @return how many UPDATEs were elided because the same model was saved several times before flushing */
+	default int getElidedUpdatesCount()
+	{
+		return Math.max(getDeferredSavesCount() - getExecutedSavesCount(), 0);
+	}
+
+	/** @return how many times an already loaded instance was returned instead of the one which was loaded again */
+	int getDeduplicatedLoadsCount();
+
+	/**
+	 * Saves all dirty models and closes this scope. If this is the outermost scope, the identity map is discarded.
+	 */
+	@Override
+	void close();
+}
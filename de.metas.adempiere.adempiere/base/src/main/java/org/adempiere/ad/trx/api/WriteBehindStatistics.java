@@ -0,0 +1,52 @@
+package org.adempiere.ad.trx.api;
+
+import lombok.Builder;
+import lombok.Value;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Statistics of all write-behind scopes (see {@link IWriteBehindScope}) since the statistics were last reset.
+ *
+ * @see ITrxManager#getWriteBehindStatistics()
+ */
+@Value
+@Builder
+public class WriteBehindStatistics
+{
+	long scopesCount;
+	long deferredSavesCount;
+	long executedSavesCount;
+	long deduplicatedLoadsCount;
+
+	/** how many flushes failed, each one dropping its scope */
+	long failedFlushesCount;
+	/** how many dirty models were not saved because the flush failed before reaching them */
+	long droppedSavesCount;
+
+	/** @return how many UPDATEs were elided because the same model was saved several times before flushing */
+	public long getElidedUpdatesCount()
+	{
+		return Math.max(deferredSavesCount - executedSavesCount - droppedSavesCount, 0);
+	}
+}
@@ -25,14 +25,17 @@ package org.adempiere.ad.trx.api.impl;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
+import org.adempiere.ad.trx.api.IBatchedPersistenceScope;
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.ad.trx.api.ITrxListenerManager;
 import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.ad.trx.api.IWriteBehindScope;
 import org.adempiere.ad.trx.api.ITrxSavepoint;
 import org.adempiere.ad.trx.exceptions.TrxException;
 import org.adempiere.exceptions.DBException;
@@ -71,6 +74,12 @@ public abstract class AbstractTrx implements ITrx
 
 	private volatile ConcurrentHashMap<String, Object> _properties = null;
 
+	/** Batched persistence scope which is currently open on this transaction; <code>null</code> if none */
+	private volatile BatchedPersistenceScope batchedPersistenceScope = null;
+
+	/** Write-behind scope which is currently open on this transaction; <code>null</code> if none */
+	private volatile WriteBehindScope writeBehindScope = null;
+
 	//
 	// Debug info
 	private Exception debugCreateStacktrace = null;
@@ -173,6 +182,8 @@ public abstract class AbstractTrx implements ITrx
 		boolean success = false;
 		try
 		{
+			discardWriteBehindModels();
+			discardBatchedStatements();
 			success = rollbackNative(throwException);
 			return success;
 		}
@@ -220,6 +231,9 @@ public abstract class AbstractTrx implements ITrx
 		validateTrxSavepoint(savepoint);
 		try
 		{
+			// NOTE: statements and dirty models are flushed when a savepoint is created, so all the queued ones were queued after given savepoint
+			discardWriteBehindModels();
+			discardBatchedStatements();
 			return rollbackNative(savepoint);
 		}
 		catch (Exception e)
@@ -250,9 +264,16 @@ public abstract class AbstractTrx implements ITrx
 		boolean success = false;
 		try
 		{
+			// Save the models which were made dirty in a write-behind scope, if any.
+			// NOTE: we do it before firing the before-commit listeners, because saving them might register other listeners
+			flushWriteBehindModels();
+
 			// Fire before-commit listeners
 			trxListenerManager.fireBeforeCommit(this);
 
+			// Execute the statements which were queued by batched persistence scope, if any
+			flushBatchedStatements();
+
 			// Actual native commit
 			success = commitNative(throwException);
 			return success;
@@ -266,6 +287,8 @@ public abstract class AbstractTrx implements ITrx
 			// 04265: If transaction was successfully committed fire listeners
 			if (success)
 			{
+				clearWriteBehindLoadedModels();
+
 				trxListenerManager.fireAfterCommit(this);
 			}
 		}
@@ -283,6 +306,10 @@ public abstract class AbstractTrx implements ITrx
 	@Override
 	public ITrxSavepoint createTrxSavepoint(String name)
 	{
+		// Make sure the dirty models are saved and the queued statements are executed before the savepoint, so that a rollback to it would not undo them
+		flushWriteBehindModels();
+		flushBatchedStatements();
+
 		final ITrxSavepoint savepoint;
 		try
 		{
@@ -402,6 +429,143 @@ public abstract class AbstractTrx implements ITrx
 		}
 	}
 
+	/**
+	 * Opens a batched persistence scope on this transaction, or joins the one which is already open.
+	 *
+	 * @see ITrxManager#openBatchedPersistenceScope(String)
+	 */
+	public final synchronized IBatchedPersistenceScope openBatchedPersistenceScope()
+	{
+		BatchedPersistenceScope scope = batchedPersistenceScope;
+		if (scope == null)
+		{
+			scope = new BatchedPersistenceScope(this, BatchedPersistenceScope.DEFAULT_MaxBatchSize);
+			batchedPersistenceScope = scope;
+		}
+
+		scope.incrementOpenCount();
+		return scope;
+	}
+
+	/**
+	 * @return batched persistence scope which is currently open on this transaction or <code>null</code>
+	 */
+	public final IBatchedPersistenceScope getBatchedPersistenceScopeOrNull()
+	{
+		return batchedPersistenceScope;
+	}
+
+	/* package */ final synchronized void onBatchedPersistenceScopeClosed(final BatchedPersistenceScope scope)
+	{
+		if (batchedPersistenceScope == scope)
+		{
+			batchedPersistenceScope = null;
+		}
+	}
+
+	/**
+	 * Executes the statements which were queued by the batched persistence scope, if any.
+	 * <p>
+	 * Shall be called before any other statement is executed in this transaction.
+	 */
+	public final void flushBatchedStatements()
+	{
+		final BatchedPersistenceScope scope = batchedPersistenceScope;
+		if (scope != null)
+		{
+			scope.flush();
+		}
+	}
+
+	private final void discardBatchedStatements()
+	{
+		final BatchedPersistenceScope scope = batchedPersistenceScope;
+		if (scope != null)
+		{
+			scope.discard();
+		}
+	}
+
+	/**
+	 * Opens a write-behind scope on this transaction, or joins the one which is already open.
+	 *
+	 * @see ITrxManager#openWriteBehindScope(String)
+	 */
+	public final synchronized IWriteBehindScope openWriteBehindScope()
+	{
+		WriteBehindScope scope = writeBehindScope;
+		if (scope == null)
+		{
+			scope = new WriteBehindScope(this, getWriteBehindStatisticsCollector());
+			writeBehindScope = scope;
+		}
+
+		scope.incrementOpenCount();
+		return scope;
+	}
+
+	private WriteBehindStatisticsCollector getWriteBehindStatisticsCollector()
+	{
+		return trxManager instanceof AbstractTrxManager
+				? ((AbstractTrxManager)trxManager).getWriteBehindStatisticsCollector()
+				: new WriteBehindStatisticsCollector();
+	}
+
+	/**
+	 * @return write-behind scope which is currently open on this transaction or <code>null</code>
+	 */
+	public final IWriteBehindScope getWriteBehindScopeOrNull()
+	{
+		return writeBehindScope;
+	}
+
+	/* package */ final synchronized void onWriteBehindScopeClosed(final WriteBehindScope scope)
+	{
+		if (writeBehindScope == scope)
+		{
+			writeBehindScope = null;
+		}
+	}
+
+	/**
+	 * Saves the models which were made dirty in the write-behind scope, if any.
+	 * <p>
+	 * Shall be called before any other statement is executed in this transaction.
+	 */
+	public final void flushWriteBehindModels()
+	{
+		final WriteBehindScope scope = writeBehindScope;
+		if (scope != null)
+		{
+			scope.flush();
+		}
+	}
+
+	private final void discardWriteBehindModels()
+	{
+		final WriteBehindScope scope = writeBehindScope;
+		if (scope != null)
+		{
+			scope.discard();
+		}
+	}
+
+	private final void clearWriteBehindLoadedModels()
+	{
+		final WriteBehindScope scope = writeBehindScope;
+		if (scope != null)
+		{
+			scope.clearLoadedModels();
+		}
+	}
+
+	/**
+	 * Native (actual) execution of given statements as one JDBC batch.
+	 *
+	 * @return update counts, one for each statement
+	 */
+	protected abstract int[] executeBatchNative(List<String> sqls) throws Exception;
+
 	/**
 	 * Native (actual) transaction close implementation
 	 *
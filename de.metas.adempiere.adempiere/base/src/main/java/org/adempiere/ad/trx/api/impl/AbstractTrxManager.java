@@ -35,6 +35,7 @@ import java.util.concurrent.locks.ReentrantLock;
 import javax.annotation.Nullable;
 
 import org.adempiere.ad.service.IDeveloperModeBL;
+import org.adempiere.ad.trx.api.IBatchedPersistenceScope;
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.ad.trx.api.ITrxListenerManager;
 import org.adempiere.ad.trx.api.ITrxListenerManager.TrxEventTiming;
@@ -45,9 +46,11 @@ import org.adempiere.ad.trx.api.ITrxRunConfig.OnRunnableFail;
 import org.adempiere.ad.trx.api.ITrxRunConfig.OnRunnableSuccess;
 import org.adempiere.ad.trx.api.ITrxRunConfig.TrxPropagation;
 import org.adempiere.ad.trx.api.ITrxSavepoint;
+import org.adempiere.ad.trx.api.IWriteBehindScope;
 import org.adempiere.ad.trx.api.NullTrxPlaceholder;
 import org.adempiere.ad.trx.api.OnTrxMissingPolicy;
 import org.adempiere.ad.trx.api.TrxCallable;
+import org.adempiere.ad.trx.api.WriteBehindStatistics;
 import org.adempiere.ad.trx.exceptions.IllegalTrxRunStateException;
 import org.adempiere.ad.trx.exceptions.OnTrxMissingPolicyNotSupportedException;
 import org.adempiere.ad.trx.exceptions.TrxException;
@@ -112,6 +115,8 @@ public abstract class AbstractTrxManager implements ITrxManager
 	private List<ITrx> debugClosedTransactionsList = null;
 	private boolean debugConnectionBackendId = false;
 
+	private final WriteBehindStatisticsCollector writeBehindStatistics = new WriteBehindStatisticsCollector();
+
 	public AbstractTrxManager()
 	{
 		super();
@@ -995,6 +1000,77 @@ public abstract class AbstractTrxManager implements ITrxManager
 				.registerHandlingMethod(trx -> runnable.run());
 	}
 
+	@Override
+	public IBatchedPersistenceScope openBatchedPersistenceScope(final String trxName)
+	{
+		final ITrx trx = get(trxName, OnTrxMissingPolicy.Fail);
+		if (!(trx instanceof AbstractTrx))
+		{
+			throw new TrxException("Batched persistence is not supported for " + trx);
+		}
+		return ((AbstractTrx)trx).openBatchedPersistenceScope();
+	}
+
+	@Override
+	public IBatchedPersistenceScope getBatchedPersistenceScopeOrNull(final String trxName)
+	{
+		if (isNull(trxName))
+		{
+			return null;
+		}
+
+		final ITrx trx = get(trxName, OnTrxMissingPolicy.ReturnTrxNone);
+		if (!(trx instanceof AbstractTrx))
+		{
+			return null;
+		}
+		return ((AbstractTrx)trx).getBatchedPersistenceScopeOrNull();
+	}
+
+	@Override
+	public IWriteBehindScope openWriteBehindScope(final String trxName)
+	{
+		final ITrx trx = get(trxName, OnTrxMissingPolicy.Fail);
+		if (!(trx instanceof AbstractTrx))
+		{
+			throw new TrxException("Write-behind is not supported for " + trx);
+		}
+		return ((AbstractTrx)trx).openWriteBehindScope();
+	}
+
+	@Override
+	public IWriteBehindScope getWriteBehindScopeOrNull(final String trxName)
+	{
+		if (isNull(trxName))
+		{
+			return null;
+		}
+
+		final ITrx trx = get(trxName, OnTrxMissingPolicy.ReturnTrxNone);
+		if (!(trx instanceof AbstractTrx))
+		{
+			return null;
+		}
+		return ((AbstractTrx)trx).getWriteBehindScopeOrNull();
+	}
+
+	/* package */ WriteBehindStatisticsCollector getWriteBehindStatisticsCollector()
+	{
+		return writeBehindStatistics;
+	}
+
+	@Override
+	public WriteBehindStatistics getWriteBehindStatistics()
+	{
+		return writeBehindStatistics.snapshot();
+	}
+
+	@Override
+	public void resetWriteBehindStatistics()
+	{
+		writeBehindStatistics.reset();
+	}
+
 	@Override
 	public void commit(final String trxName)
 	{
@@ -0,0 +1,234 @@
+package org.adempiere.ad.trx.api.impl;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.sql.BatchUpdateException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.adempiere.ad.trx.api.IBatchedPersistenceScope;
+import org.adempiere.exceptions.DBException;
+import org.slf4j.Logger;
+
+import com.google.common.base.MoreObjects;
+
+import de.metas.logging.LogManager;
+import de.metas.util.Check;
+
+/**
+ * {@link IBatchedPersistenceScope} implementation. There is at most one instance per transaction, which is shared by all nested scopes.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+/* package */ final class BatchedPersistenceScope implements IBatchedPersistenceScope
+{
+	private static final transient Logger logger = LogManager.getLogger(BatchedPersistenceScope.class);
+
+	/** Flush the queue automatically when it reaches this size */
+	/* package */ static final int DEFAULT_MaxBatchSize = 500;
+
+	private final AbstractTrx trx;
+	private final int maxBatchSize;
+
+	private final List<String> queuedSqls = new ArrayList<>();
+	private int openCount = 0;
+	private boolean flushing = false;
+
+	private int queuedStatementsCount = 0;
+	private int executedBatchesCount = 0;
+
+	/* package */ BatchedPersistenceScope(final AbstractTrx trx, final int maxBatchSize)
+	{
+		Check.assumeNotNull(trx, "trx not null");
+		Check.assume(maxBatchSize > 0, "maxBatchSize > 0");
+
+		this.trx = trx;
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	@Override
+	public synchronized String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("trxName", getTrxName())
+				.add("openCount", openCount)
+				.add("pending", queuedSqls.size())
+				.add("queued", queuedStatementsCount)
+				.add("batches", executedBatchesCount)
+				.toString();
+	}
+
+	@Override
+	public String getTrxName()
+	{
+		return trx.getTrxName();
+	}
+
+	/* package */ synchronized void incrementOpenCount()
+	{
+		openCount++;
+	}
+
+	@Override
+	public synchronized void addStatement(final String sql)
+	{
+		Check.assumeNotEmpty(sql, "sql not empty");
+		Check.errorIf(openCount <= 0, "Scope was already closed: {}", this);
+
+		queuedSqls.add(sql);
+		queuedStatementsCount++;
+
+		if (queuedSqls.size() >= maxBatchSize)
+		{
+			flush();
+		}
+	}
+
+	@Override
+	public synchronized boolean removeStatement(final String sql)
+	{
+		final int index = queuedSqls.lastIndexOf(sql);
+		if (index < 0)
+		{
+			return false;
+		}
+
+		queuedSqls.remove(index);
+		queuedStatementsCount--;
+		return true;
+	}
+
+	@Override
+	public synchronized boolean isPending(final String sql)
+	{
+		return queuedSqls.contains(sql);
+	}
+
+	/* package */ synchronized boolean hasPendingStatements()
+	{
+		return !queuedSqls.isEmpty();
+	}
+
+	@Override
+	public synchronized void flush()
+	{
+		// NOTE: executing the batch might create other statements in the same transaction, which would call us back
+		if (flushing || queuedSqls.isEmpty())
+		{
+			return;
+		}
+
+		final List<String> sqls = new ArrayList<>(queuedSqls);
+		queuedSqls.clear();
+
+		flushing = true;
+		try
+		{
+			final int[] updateCounts = trx.executeBatchNative(sqls);
+			executedBatchesCount++;
+
+			for (int i = 0; i < sqls.size(); i++)
+			{
+				final int updateCount = updateCounts[i];
+				if (updateCount != 1 && updateCount != Statement.SUCCESS_NO_INFO)
+				{
+					throw new DBException("Expected one row to be affected but it was " + updateCount + ": " + sqls.get(i));
+				}
+			}
+
+			logger.debug("Executed {} statements in one batch: {}", sqls.size(), this);
+		}
+		catch (final DBException e)
+		{
+			throw e;
+		}
+		catch (final BatchUpdateException e)
+		{
+			// the JDBC driver reports the update counts of the statements which were executed before the failing one
+			final int[] updateCounts = e.getUpdateCounts();
+			final int failedIndex = updateCounts != null && updateCounts.length < sqls.size() ? updateCounts.length : 0;
+			throw new DBException(e.getNextException() != null ? e.getNextException() : e, sqls.get(failedIndex));
+		}
+		catch (final Exception e)
+		{
+			throw new DBException(e, sqls.get(0));
+		}
+		finally
+		{
+			flushing = false;
+		}
+	}
+
+	/**
+	 * Discards all queued statements; called when the transaction was rolled back.
+	 */
+	/* package */ synchronized void discard()
+	{
+		if (queuedSqls.isEmpty())
+		{
+			return;
+		}
+
+		logger.debug("Discarding {} queued statements because transaction was rolled back: {}", queuedSqls.size(), this);
+		queuedSqls.clear();
+	}
+
+	@Override
+	public synchronized int getQueuedStatementsCount()
+	{
+		return queuedStatementsCount;
+	}
+
+	@Override
+	public synchronized int getExecutedBatchesCount()
+	{
+		return executedBatchesCount;
+	}
+
+	@Override
+	public void close()
+	{
+		final boolean lastClose;
+		synchronized (this)
+		{
+			Check.errorIf(openCount <= 0, "Scope was already closed: {}", this);
+			openCount--;
+			lastClose = openCount <= 0;
+		}
+
+		try
+		{
+			flush();
+		}
+		finally
+		{
+			if (lastClose)
+			{
+				trx.onBatchedPersistenceScopeClosed(this);
+				logger.debug("Closed {}; saved {} statements", this, getSavedStatementsCount());
+			}
+		}
+	}
+}
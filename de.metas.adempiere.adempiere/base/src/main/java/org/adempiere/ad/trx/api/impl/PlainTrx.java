@@ -24,6 +24,7 @@ package org.adempiere.ad.trx.api.impl;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -57,6 +58,9 @@ public class PlainTrx extends AbstractTrx
 
 	private final List<ITrxSavepoint> activeSavepoints = new ArrayList<ITrxSavepoint>();
 
+	/** Statement batches which were "executed" by {@link #executeBatchNative(List)} */
+	private final List<List<String>> executedBatches = new ArrayList<>();
+
 	/** Debugging: history of transaction important actions like TrxStatus change */
 	private final List<String> debugLog;
 
@@ -226,6 +230,24 @@ public class PlainTrx extends AbstractTrx
 		return true;
 	}
 
+	@Override
+	protected int[] executeBatchNative(final List<String> sqls)
+	{
+		assertActive("Transaction shall be started before executing statements");
+
+		executedBatches.add(ImmutableList.copyOf(sqls));
+		logTrxAction("Executed batch of " + sqls.size() + " statements");
+
+		final int[] updateCounts = new int[sqls.size()];
+		Arrays.fill(updateCounts, 1);
+		return updateCounts;
+	}
+
+	public List<List<String>> getExecutedBatches()
+	{
+		return ImmutableList.copyOf(executedBatches);
+	}
+
 	@Override
 	protected boolean closeNative()
 	{
@@ -0,0 +1,308 @@
+package org.adempiere.ad.trx.api.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import org.adempiere.ad.trx.api.IWriteBehindScope;
+import org.slf4j.Logger;
+
+import com.google.common.base.MoreObjects;
+
+import de.metas.logging.LogManager;
+import de.metas.util.Check;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * {@link IWriteBehindScope} implementation. There is at most one instance per transaction, which is shared by all nested scopes.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+/* package */ final class WriteBehindScope implements IWriteBehindScope
+{
+	private static final transient Logger logger = LogManager.getLogger(WriteBehindScope.class);
+
+	private final AbstractTrx trx;
+	private final WriteBehindStatisticsCollector statistics;
+
+	private final Map<ModelKey, Object> loadedModels = new HashMap<>();
+	private final LinkedHashMap<ModelKey, Runnable> dirtyModels = new LinkedHashMap<>();
+	private int openCount = 0;
+	private boolean flushing = false;
+	/** set when a flush failed; from then on the scope is detached from its transaction and does nothing */
+	private boolean failed = false;
+
+	private int deferredSavesCount = 0;
+	private int executedSavesCount = 0;
+	private int deduplicatedLoadsCount = 0;
+
+	/* package */ WriteBehindScope(@NonNull final AbstractTrx trx, @NonNull final WriteBehindStatisticsCollector statistics)
+	{
+		this.trx = trx;
+		this.statistics = statistics;
+		statistics.incrementScopesCount();
+	}
+
+	@Override
+	public synchronized String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("trxName", getTrxName())
+				.add("openCount", openCount)
+				.add("loaded", loadedModels.size())
+				.add("dirty", dirtyModels.size())
+				.add("deferred", deferredSavesCount)
+				.add("executed", executedSavesCount)
+				.add("failed", failed)
+				.toString();
+	}
+
+	@Override
+	public String getTrxName()
+	{
+		return trx.getTrxName();
+	}
+
+	/* package */ synchronized void incrementOpenCount()
+	{
+		openCount++;
+	}
+
+	@Override
+	public synchronized <T> T getOrRegisterLoadedModel(
+			@NonNull final String tableName,
+			final int recordId,
+			@NonNull final T model,
+			@NonNull final BiConsumer<T, T> refresher)
+	{
+		if (recordId < 0 || failed)
+		{
+			return model;
+		}
+
+		final ModelKey key = ModelKey.of(tableName, recordId);
+		final Object existingModel = loadedModels.get(key);
+		if (existingModel != null && model.getClass().isInstance(existingModel))
+		{
+			deduplicatedLoadsCount++;
+			statistics.incrementDeduplicatedLoadsCount();
+
+			@SuppressWarnings("unchecked")
+			final T existingModelCasted = (T)existingModel;
+
+			// The record might have been changed in database meanwhile, so take over the values which were just loaded.
+			// Don't touch the dirty models (i.e. while flushing), because their pending save is about to be executed.
+			if (!flushing && !dirtyModels.containsKey(key))
+			{
+				refresher.accept(existingModelCasted, model);
+			}
+			return existingModelCasted;
+		}
+
+		loadedModels.put(key, model);
+		return model;
+	}
+
+	@Override
+	public synchronized boolean deferSave(@NonNull final String tableName, final int recordId, @NonNull final Object model, @NonNull final Runnable saveAction)
+	{
+		if (flushing || failed || openCount <= 0)
+		{
+			return false;
+		}
+
+		final ModelKey key = ModelKey.of(tableName, recordId);
+		if (loadedModels.get(key) != model)
+		{
+			return false;
+		}
+
+		dirtyModels.put(key, saveAction);
+		deferredSavesCount++;
+		statistics.incrementDeferredSavesCount();
+		return true;
+	}
+
+	@Override
+	public synchronized boolean isFlushing()
+	{
+		return flushing;
+	}
+
+	/* package */ synchronized boolean hasDirtyModels()
+	{
+		return !dirtyModels.isEmpty();
+	}
+
+	@Override
+	public void flush()
+	{
+		try
+		{
+			flushDirtyModels();
+		}
+		finally
+		{
+			// NOTE: outside of our lock, because the transaction locks itself before locking us
+			if (isFailed())
+			{
+				trx.onWriteBehindScopeClosed(this);
+			}
+		}
+	}
+
+	private synchronized boolean isFailed()
+	{
+		return failed;
+	}
+
+	private synchronized void flushDirtyModels()
+	{
+		// NOTE: saving the models will execute SQL statements in the same transaction, which would call us back
+		if (flushing || dirtyModels.isEmpty())
+		{
+			return;
+		}
+
+		final List<Map.Entry<ModelKey, Runnable>> entries = new ArrayList<>(dirtyModels.entrySet());
+		dirtyModels.clear();
+
+		flushing = true;
+		int savedCount = 0;
+		try
+		{
+			for (final Map.Entry<ModelKey, Runnable> entry : entries)
+			{
+				entry.getValue().run();
+				savedCount++;
+				executedSavesCount++;
+				statistics.incrementExecutedSavesCount();
+			}
+
+			logger.debug("Saved {} dirty models: {}", savedCount, this);
+		}
+		catch (final RuntimeException e)
+		{
+			// Don't keep the failed save queued: each following statement in this transaction would retry it and fail again.
+			// Instead, drop this scope, so the error is raised only here, i.e. at the flush point which hit it; the caller is expected to roll back.
+			markFailed(entries.size() - savedCount);
+			throw e;
+		}
+		finally
+		{
+			flushing = false;
+		}
+	}
+
+	private void markFailed(final int droppedSavesCount)
+	{
+		failed = true;
+		dirtyModels.clear();
+		loadedModels.clear();
+
+		statistics.recordFailedFlush(droppedSavesCount);
+		logger.warn("Flushing failed; dropped {} dirty models and detached {} from its transaction", droppedSavesCount, this);
+	}
+
+	/**
+	 * Discards the dirty models and the identity map; called when the transaction was rolled back.
+	 */
+	/* package */ synchronized void discard()
+	{
+		if (!dirtyModels.isEmpty())
+		{
+			logger.debug("Discarding {} dirty models because transaction was rolled back: {}", dirtyModels.size(), this);
+			dirtyModels.clear();
+		}
+		loadedModels.clear();
+	}
+
+	/**
+	 * Clears the identity map; called after the transaction was committed.
+	 */
+	/* package */ synchronized void clearLoadedModels()
+	{
+		loadedModels.clear();
+	}
+
+	@Override
+	public synchronized int getDeferredSavesCount()
+	{
+		return deferredSavesCount;
+	}
+
+	@Override
+	public synchronized int getExecutedSavesCount()
+	{
+		return executedSavesCount;
+	}
+
+	@Override
+	public synchronized int getDeduplicatedLoadsCount()
+	{
+		return deduplicatedLoadsCount;
+	}
+
+	@Override
+	public void close()
+	{
+		final boolean lastClose;
+		synchronized (this)
+		{
+			Check.errorIf(openCount <= 0, "Scope was already closed: {}", this);
+			openCount--;
+			lastClose = openCount <= 0;
+		}
+
+		try
+		{
+			flush();
+		}
+		finally
+		{
+			if (lastClose)
+			{
+				synchronized (this)
+				{
+					loadedModels.clear();
+				}
+				trx.onWriteBehindScopeClosed(this);
+				logger.debug("Closed {}; elided {} updates", this, getElidedUpdatesCount());
+			}
+		}
+	}
+
+	@Value(staticConstructor = "of")
+	private static class ModelKey
+	{
+		String tableName;
+		int recordId;
+	}
+}
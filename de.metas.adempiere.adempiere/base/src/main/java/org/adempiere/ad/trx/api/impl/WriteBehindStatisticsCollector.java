@@ -0,0 +1,88 @@
+package org.adempiere.ad.trx.api.impl;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.adempiere.ad.trx.api.WriteBehindStatistics;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Aggregates the counters of all {@link WriteBehindScope}s of one transaction manager.
+ */
+/* package */ final class WriteBehindStatisticsCollector
+{
+	private final LongAdder scopesCount = new LongAdder();
+	private final LongAdder deferredSavesCount = new LongAdder();
+	private final LongAdder executedSavesCount = new LongAdder();
+	private final LongAdder deduplicatedLoadsCount = new LongAdder();
+	private final LongAdder failedFlushesCount = new LongAdder();
+	private final LongAdder droppedSavesCount = new LongAdder();
+
+	public void incrementScopesCount()
+	{
+		scopesCount.increment();
+	}
+
+	public void incrementDeferredSavesCount()
+	{
+		deferredSavesCount.increment();
+	}
+
+	public void incrementExecutedSavesCount()
+	{
+		executedSavesCount.increment();
+	}
+
+	public void incrementDeduplicatedLoadsCount()
+	{
+		deduplicatedLoadsCount.increment();
+	}
+
+	public void recordFailedFlush(final int droppedSavesCount)
+	{
+		failedFlushesCount.increment();
+		this.droppedSavesCount.add(droppedSavesCount);
+	}
+
+	public WriteBehindStatistics snapshot()
+	{
+		return WriteBehindStatistics.builder()
+				.scopesCount(scopesCount.sum())
+				.deferredSavesCount(deferredSavesCount.sum())
+				.executedSavesCount(executedSavesCount.sum())
+				.deduplicatedLoadsCount(deduplicatedLoadsCount.sum())
+				.failedFlushesCount(failedFlushesCount.sum())
+				.droppedSavesCount(droppedSavesCount.sum())
+				.build();
+	}
+
+	public void reset()
+	{
+		scopesCount.reset();
+		deferredSavesCount.reset();
+		executedSavesCount.reset();
+		deduplicatedLoadsCount.reset();
+		failedFlushesCount.reset();
+		droppedSavesCount.reset();
+	}
+}
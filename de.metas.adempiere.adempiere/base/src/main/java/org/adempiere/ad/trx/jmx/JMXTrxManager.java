@@ -29,6 +29,7 @@ import java.util.List;
 
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.ad.trx.api.WriteBehindStatistics;
 import org.adempiere.exceptions.AdempiereException;
 import org.adempiere.util.jmx.IJMXNameAware;
 
@@ -184,4 +185,17 @@ public class JMXTrxManager implements JMXTrxManagerMBean, IJMXNameAware
 		return getTrxManager().isDebugConnectionBackendId();
 	}
 
+	@Override
+	public String getWriteBehindStatistics()
+	{
+		final WriteBehindStatistics statistics = getTrxManager().getWriteBehindStatistics();
+		return statistics + ", elidedUpdatesCount=" + statistics.getElidedUpdatesCount();
+	}
+
+	@Override
+	public void resetWriteBehindStatistics()
+	{
+		getTrxManager().resetWriteBehindStatistics();
+	}
+
 }
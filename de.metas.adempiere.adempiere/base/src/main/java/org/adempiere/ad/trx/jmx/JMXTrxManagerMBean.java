@@ -48,4 +48,9 @@ public interface JMXTrxManagerMBean
 
 	boolean isDebugConnectionBackendId();
 
+	/** @return deferred, executed and elided saves, deduplicated loads and failed flushes of all write-behind scopes */
+	String getWriteBehindStatistics();
+
+	void resetWriteBehindStatistics();
+
 }
@@ -40,7 +40,7 @@ import de.metas.util.Check;
  */
 public class SwingContextProvider implements ContextProvider
 {
-	private final Properties rootCtx = new Properties();
+	private final Properties rootCtx = new UserContextProperties();
 	private final InheritableThreadLocal<Properties> temporaryCtxHolder = new InheritableThreadLocal<>();
 
 	private final AbstractPropertiesProxy ctxProxy = new AbstractPropertiesProxy()
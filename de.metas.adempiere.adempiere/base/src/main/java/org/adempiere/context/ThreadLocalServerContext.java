@@ -43,7 +43,7 @@ import de.metas.util.Check;
 		@Override
 		protected Properties initialValue()
 		{
-			final Properties ctx = new Properties();
+			final Properties ctx = new UserContextProperties();
 			listener.onContextCreated(ctx);
 			return ctx;
 		}
@@ -52,7 +52,7 @@ import de.metas.util.Check;
 		@Override
 		protected Properties childValue(final Properties ctx)
 		{
-			final Properties childCtx = new Properties(ctx);
+			final Properties childCtx = new UserContextProperties(ctx);
 			listener.onChildContextCreated(ctx, childCtx);
 			return childCtx;
 		}
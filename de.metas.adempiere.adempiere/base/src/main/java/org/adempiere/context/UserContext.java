@@ -0,0 +1,107 @@
+package org.adempiere.context;
+
+import java.sql.Timestamp;
+import java.util.Properties;
+
+import javax.annotation.Nullable;
+
+import org.adempiere.service.ClientId;
+import org.adempiere.service.OrgId;
+import org.adempiere.user.UserId;
+import org.compiere.util.Env;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Immutable, typed snapshot of the login related values of a context {@link Properties}.
+ * <p>
+ * Use {@link Env#getUserContext(Properties)} to get it and {@link #toBuilder()} to derive a modified one.
+ * The {@link Properties} context stays the adapter for legacy code, see {@link UserContextProperties} and {@link Env#newTemporaryCtx(UserContext)}.
+ */
+@Value
+@Builder(toBuilder = true)
+public class UserContext
+{
+	int adClientId;
+	int adOrgId;
+	int adRoleId;
+	int adUserId;
+
+	/** Language, as stored in context (i.e. without any base language fallback) */
+	@Nullable
+	String adLanguage;
+
+	/** Login date, as stored in context (i.e. without applying the login date auto-update) */
+	@Nullable
+	Timestamp date;
+
+	/**
+	 * Reads the values from given context, the same way {@link Env} does.
+	 */
+	public static UserContext ofCtx(@NonNull final Properties ctx)
+	{
+		final String adLanguage = Env.getContext(ctx, Env.CTXNAME_AD_Language);
+		final String dateStr = ctx.getProperty(Env.CTXNAME_Date);
+
+		return builder()
+				.adClientId(Env.getContextAsInt(ctx, Env.CTXNAME_AD_Client_ID))
+				.adOrgId(Env.getContextAsInt(ctx, Env.CTXNAME_AD_Org_ID))
+				.adRoleId(Env.getContextAsInt(ctx, Env.CTXNAME_AD_Role_ID))
+				.adUserId(Env.getContextAsInt(ctx, Env.CTXNAME_AD_User_ID))
+				.adLanguage(Env.isPropertyValueNull(Env.CTXNAME_AD_Language, adLanguage) || adLanguage.isEmpty() ? null : adLanguage)
+				.date(Env.parseTimestamp(dateStr))
+				.build();
+	}
+
+	public ClientId getClientId()
+	{
+		return ClientId.ofRepoId(adClientId);
+	}
+
+	public OrgId getOrgId()
+	{
+		return OrgId.ofRepoIdOrAny(adOrgId);
+	}
+
+	public UserId getUserId()
+	{
+		return UserId.ofRepoId(adUserId);
+	}
+
+	/**
+	 * Copies all values to given context. Null values are removed from context.
+	 */
+	public void updateCtx(@NonNull final Properties ctx)
+	{
+		Env.setContext(ctx, Env.CTXNAME_AD_Client_ID, adClientId);
+		Env.setContext(ctx, Env.CTXNAME_AD_Org_ID, adOrgId);
+		Env.setContext(ctx, Env.CTXNAME_AD_Role_ID, adRoleId);
+		Env.setContext(ctx, Env.CTXNAME_AD_User_ID, adUserId);
+		Env.setContext(ctx, Env.CTXNAME_AD_Language, adLanguage);
+		Env.setContext(ctx, Env.CTXNAME_Date, date);
+	}
+}
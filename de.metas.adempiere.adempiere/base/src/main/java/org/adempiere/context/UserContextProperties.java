@@ -0,0 +1,290 @@
+package org.adempiere.context;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import org.compiere.util.Env;
+
+import de.metas.util.AbstractPropertiesProxy;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Context {@link Properties} which keeps a parsed {@link UserContext} snapshot of itself.
+ * <p>
+ * Every change increments a version counter. The snapshot is valid as long as neither this instance nor any of its {@link UserContextProperties} defaults was changed.
+ * Proxies in the defaults chain (e.g. the thread local server context) are unwrapped, and the snapshot remembers which actual instances it was computed from,
+ * so it is not reused when the proxy delegates to another context.
+ * If the defaults are neither an {@link UserContextProperties} nor a proxy of one, changes cannot be tracked and the snapshot is recomputed on each call.
+ * <p>
+ * The snapshot is used by the {@link Env} getters of client, org, role, user and language, to avoid parsing the same strings over and over again.
+ * <p>
+ * NOTE: removing entries through the iterators of {@link #entrySet()} is not tracked; please use the {@link Env} methods to change the context.
+ */
+public class UserContextProperties extends Properties
+{
+	private static final long serialVersionUID = -1584478290519425370L;
+
+	private volatile long version = 0;
+	private transient volatile CachedUserContext cachedUserContext;
+
+	public UserContextProperties()
+	{
+		super();
+	}
+
+	public UserContextProperties(@Nullable final Properties defaults)
+	{
+		super(defaults);
+	}
+
+	/**
+	 * @return the actual {@link UserContextProperties} behind given <code>ctx</code> or <code>null</code>
+	 */
+	@Nullable
+	public static UserContextProperties castOrNull(@Nullable final Properties ctx)
+	{
+		final Properties actualCtx = AbstractPropertiesProxy.unwrap(ctx);
+		return actualCtx instanceof UserContextProperties ? (UserContextProperties)actualCtx : null;
+	}
+
+	public UserContext getUserContext()
+	{
+		final CachedUserContext cachedUserContext = this.cachedUserContext;
+		if (cachedUserContext != null && cachedUserContext.isValidFor(this))
+		{
+			return cachedUserContext.userContext;
+		}
+
+		final List<UserContextProperties> chain = getDefaultsChainOrNull();
+		if (chain == null)
+		{
+			return UserContext.ofCtx(this);
+		}
+
+		// NOTE: if this ctx is changed while we are computing, the version will not match on next call, so we won't use a stale snapshot
+		final long version = chain.stream().mapToLong(ctx -> ctx.version).sum();
+		final UserContext userContext = UserContext.ofCtx(this);
+		this.cachedUserContext = new CachedUserContext(chain.toArray(new UserContextProperties[0]), version, userContext);
+		return userContext;
+	}
+
+	/**
+	 * @return this instance followed by its (unwrapped) defaults, or <code>null</code> if the chain contains a {@link Properties} which is not an {@link UserContextProperties}
+	 */
+	@Nullable
+	private List<UserContextProperties> getDefaultsChainOrNull()
+	{
+		final List<UserContextProperties> chain = new ArrayList<>();
+		UserContextProperties ctx = this;
+		while (ctx != null)
+		{
+			chain.add(ctx);
+
+			final Properties defaults = ctx.defaults;
+			if (defaults == null)
+			{
+				break;
+			}
+
+			ctx = castOrNull(defaults);
+			if (ctx == null)
+			{
+				return null;
+			}
+		}
+		return chain;
+	}
+
+	private void markChanged()
+	{
+		// NOTE: called only from synchronized methods
+		version++;
+	}
+
+	@Override
+	public synchronized Object put(final Object key, final Object value)
+	{
+		final Object valueOld = super.put(key, value);
+		if (!isSameValue(key, value, valueOld)) // e.g. the login date is re-set on each read
+		{
+			markChanged();
+		}
+		return valueOld;
+	}
+
+	/**
+	 * @return true if the values are equal and both are (or are not) a null marker (see {@link Env#isPropertyValueNull(String, String)})
+	 */
+	private static boolean isSameValue(final Object key, final Object value, final Object valueOld)
+	{
+		if (value == valueOld)
+		{
+			return true;
+		}
+		if (!(key instanceof String) || !(value instanceof String) || !value.equals(valueOld))
+		{
+			return false;
+		}
+
+		final String propertyName = (String)key;
+		return Env.isPropertyValueNull(propertyName, (String)value) == Env.isPropertyValueNull(propertyName, (String)valueOld);
+	}
+
+	@Override
+	public synchronized void putAll(final Map<? extends Object, ? extends Object> map)
+	{
+		super.putAll(map);
+		markChanged();
+	}
+
+	@Override
+	public synchronized Object remove(final Object key)
+	{
+		final Object valueOld = super.remove(key);
+		markChanged();
+		return valueOld;
+	}
+
+	@Override
+	public synchronized boolean remove(final Object key, final Object value)
+	{
+		final boolean removed = super.remove(key, value);
+		markChanged();
+		return removed;
+	}
+
+	@Override
+	public synchronized void clear()
+	{
+		super.clear();
+		markChanged();
+	}
+
+	@Override
+	public synchronized Object putIfAbsent(final Object key, final Object value)
+	{
+		final Object valueOld = super.putIfAbsent(key, value);
+		markChanged();
+		return valueOld;
+	}
+
+	@Override
+	public synchronized Object replace(final Object key, final Object value)
+	{
+		final Object valueOld = super.replace(key, value);
+		markChanged();
+		return valueOld;
+	}
+
+	@Override
+	public synchronized boolean replace(final Object key, final Object oldValue, final Object newValue)
+	{
+		final boolean replaced = super.replace(key, oldValue, newValue);
+		markChanged();
+		return replaced;
+	}
+
+	@Override
+	public synchronized void replaceAll(final BiFunction<? super Object, ? super Object, ? extends Object> function)
+	{
+		super.replaceAll(function);
+		markChanged();
+	}
+
+	@Override
+	public synchronized Object compute(final Object key, final BiFunction<? super Object, ? super Object, ? extends Object> remappingFunction)
+	{
+		final Object value = super.compute(key, remappingFunction);
+		markChanged();
+		return value;
+	}
+
+	@Override
+	public synchronized Object computeIfAbsent(final Object key, final Function<? super Object, ? extends Object> mappingFunction)
+	{
+		final Object value = super.computeIfAbsent(key, mappingFunction);
+		markChanged();
+		return value;
+	}
+
+	@Override
+	public synchronized Object computeIfPresent(final Object key, final BiFunction<? super Object, ? super Object, ? extends Object> remappingFunction)
+	{
+		final Object value = super.computeIfPresent(key, remappingFunction);
+		markChanged();
+		return value;
+	}
+
+	@Override
+	public synchronized Object merge(final Object key, final Object value, final BiFunction<? super Object, ? super Object, ? extends Object> remappingFunction)
+	{
+		final Object valueNew = super.merge(key, value, remappingFunction);
+		markChanged();
+		return valueNew;
+	}
+
+	private static final class CachedUserContext
+	{
+		/** the actual instances of the defaults chain this snapshot was computed from */
+		private final UserContextProperties[] chain;
+		private final long version;
+		private final UserContext userContext;
+
+		private CachedUserContext(final UserContextProperties[] chain, final long version, final UserContext userContext)
+		{
+			this.chain = chain;
+			this.version = version;
+			this.userContext = userContext;
+		}
+
+		/**
+		 * @return true if the defaults chain of given <code>ctx</code> still resolves to the same instances and none of them was changed
+		 */
+		private boolean isValidFor(final UserContextProperties ctx)
+		{
+			long versionSum = 0;
+			int index = 0;
+			Properties current = ctx;
+			while (current != null)
+			{
+				final Properties actual = AbstractPropertiesProxy.unwrap(current);
+				if (index >= chain.length || actual != chain[index])
+				{
+					return false;
+				}
+
+				versionSum += chain[index].version;
+				current = chain[index].defaults;
+				index++;
+			}
+			return index == chain.length && versionSum == version;
+		}
+	}
+}
@@ -68,6 +68,10 @@ import de.metas.util.Services;
 			final Trx trx = getTrx(p_vo);
 			if (trx != null)
 			{
+				// Make sure the dirty models of a write-behind scope are saved
+				// and the statements which were queued by a batched persistence scope are executed before this one
+				trx.flushWriteBehindModels();
+				trx.flushBatchedStatements();
 				conn = trx.getConnection();
 			}
 			else
@@ -42,6 +42,7 @@ import org.adempiere.ad.dao.IQueryInsertExecutor;
 import org.adempiere.ad.dao.IQueryOrderBy;
 import org.adempiere.ad.dao.IQueryUpdater;
 import org.adempiere.ad.dao.ISqlQueryUpdater;
+import org.adempiere.ad.dao.QueryProjectionRow;
 import org.adempiere.ad.model.util.Model2IdFunction;
 import org.adempiere.exceptions.DBException;
 import org.adempiere.exceptions.DBMoreThenOneRecordsFoundException;
@@ -439,6 +440,24 @@ public interface IQuery<T>
 	 */
 	List<Map<String, Object>> listColumns(String... columnNames);
 
+	/**
+	 * Selects only given columns (i.e. <code>SELECT col1, col2 ...</code>) and maps each row using given <code>rowMapper</code>.
+	 * <p>
+	 * Unlike {@link #list()} and {@link #listColumns(String...)}, no model, PO or map is created for each row, so use this when you need only a few columns of a wide table.
+	 *
+	 * @param rowMapper converts the row to the result type; the row is immutable, so it's also fine to return the row itself
+	 * @param columnNames the columns to select; at least one
+	 */
+	<R> List<R> listProjected(java.util.function.Function<QueryProjectionRow, R> rowMapper, String... columnNames);
+
+	/**
+	 * @see #listProjected(java.util.function.Function, String...)
+	 */
+	default List<QueryProjectionRow> listProjected(final String... columnNames)
+	{
+		return listProjected(java.util.function.Function.identity(), columnNames);
+	}
+
 	/**
 	 * Selects DISTINCT given columns and return the result as a list of ColumnName to Value map.
 	 *
@@ -585,4 +604,27 @@ public interface IQuery<T>
 	{
 		return list(clazz).stream();
 	}
+
+	/**
+	 * Return a lazy stream of all records that match the query criteria, backed by a database cursor (if supported by the implementation).
+	 * Unlike {@link #iterateAndStream()}, the query is executed only once, so this is the way to go when scanning big tables.
+	 * <p>
+	 * <b>IMPORTANT:</b> the stream holds the database cursor until it's fully consumed, so if you might not consume it fully, make sure you close it (e.g. try-with-resources).
+	 *
+	 * @param clazz all resulting models will be converted to this interface
+	 * @return Stream
+	 * @throws DBException
+	 */
+	default <ET extends T> Stream<ET> streamUsingCursor(final Class<ET> clazz) throws DBException
+	{
+		return stream(clazz);
+	}
+
+	/**
+	 * @see #streamUsingCursor(Class)
+	 */
+	default Stream<T> streamUsingCursor() throws DBException
+	{
+		return streamUsingCursor(getModelClass());
+	}
 }
@@ -0,0 +1,80 @@
+package de.metas.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class CCacheAdaptiveSizerTest
+{
+	private static void thrash(final CCache<Integer, String> cache, final int distinctKeys, final int requests)
+	{
+		for (int i = 0; i < requests; i++)
+		{
+			final int key = i % distinctKeys;
+			cache.getOrLoad(key, () -> "value" + key);
+		}
+	}
+
+	@Test
+	public void growThrashingCache()
+	{
+		final CCache<Integer, String> thrashingCache = CCache.newLRUCache("Thrashing", 10, CCache.EXPIREMINUTES_Never);
+		final CCache<Integer, String> goodCache = CCache.newLRUCache("Good", 10, CCache.EXPIREMINUTES_Never);
+		final CCacheAdaptiveSizer sizer = CCacheAdaptiveSizer.builder()
+				.cachesSupplier(() -> Stream.of(thrashingCache, goodCache))
+				.maxTotalEntries(1000)
+				.build();
+
+		assertThat(sizer.run()).isEqualTo(0); // first run only collects the statistics
+
+		thrash(thrashingCache, 50, 2000);
+		thrash(goodCache, 5, 2000);
+
+		assertThat(sizer.run()).isEqualTo(1);
+		assertThat(thrashingCache.getMaxSize()).isEqualTo(20);
+		assertThat(goodCache.getMaxSize()).isEqualTo(10);
+	}
+
+	@Test
+	public void respectTotalEntriesBudget()
+	{
+		final CCache<Integer, String> cache = CCache.newLRUCache("Thrashing", 10, CCache.EXPIREMINUTES_Never);
+		final CCacheAdaptiveSizer sizer = CCacheAdaptiveSizer.builder()
+				.cachesSupplier(() -> Stream.of(cache))
+				.maxTotalEntries(15)
+				.build();
+		sizer.run();
+
+		thrash(cache, 50, 2000);
+		assertThat(sizer.run()).isEqualTo(1);
+		assertThat(cache.getMaxSize()).isEqualTo(15);
+
+		thrash(cache, 50, 2000);
+		assertThat(sizer.run()).isEqualTo(0);
+		assertThat(cache.getMaxSize()).isEqualTo(15);
+	}
+}
@@ -30,6 +30,10 @@ import java.util.function.Supplier;
 import org.junit.Assert;
 import org.junit.Test;
 
+import org.adempiere.test.AdempiereTestHelper;
+import org.adempiere.util.lang.impl.TableRecordReference;
+
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
 import de.metas.cache.CCache;
@@ -228,4 +232,120 @@ public class CCacheTest
 		cache.putAll(Collections.singletonMap("key1", "value1_newValue"));
 		Assert.assertEquals("Value shall exist", "value1_newValue", cache.get("key1"));
 	}
+
+	/**
+	 * @return cache where the values are like "M_Product_ID=1,2,3" and are built from the given products
+	 */
+	private static CCache<String, String> newRecordsIndexedCache()
+	{
+		return CCache.<String, String> builder()
+				.cacheName("M_Product#Test")
+				.additionalTableNameToResetFor("C_UOM")
+				.recordsExtractor(value -> {
+					final String productIds = value.substring(value.indexOf('=') + 1);
+					final ImmutableList.Builder<TableRecordReference> recordRefs = ImmutableList.builder();
+					for (final String productId : productIds.split(","))
+					{
+						recordRefs.add(TableRecordReference.of("M_Product", Integer.parseInt(productId)));
+					}
+					return recordRefs.build();
+				})
+				.build();
+	}
+
+	@Test
+	public void test_resetForRecordId_recordsIndexed()
+	{
+		AdempiereTestHelper.get().init();
+
+		final CCache<String, String> cache = newRecordsIndexedCache();
+		cache.getOrLoad("key1", () -> "M_Product_ID=1");
+		cache.getOrLoad("key2", () -> "M_Product_ID=2,3");
+		cache.put("key3", "M_Product_ID=3");
+		cache.getAllOrLoad(ImmutableList.of("key4"), keys -> ImmutableMap.of("key4", "M_Product_ID=4"));
+		assertSize(cache, 4);
+
+		Assert.assertEquals(2, cache.resetForRecordId(TableRecordReference.of("M_Product", 3)));
+		assertSize(cache, 2);
+		Assert.assertTrue(cache.containsKey("key1"));
+		Assert.assertTrue(cache.containsKey("key4"));
+
+		Assert.assertEquals(0, cache.stats().getResetCount());
+		Assert.assertEquals(1, cache.stats().getResetForRecordCount());
+		Assert.assertEquals(2, cache.stats().getResetForRecordInvalidatedKeysCount());
+	}
+
+	@Test
+	public void test_resetForRecordId_notIndexedRecord()
+	{
+		AdempiereTestHelper.get().init();
+
+		final CCache<String, String> cache = newRecordsIndexedCache();
+		cache.getOrLoad("key1", () -> "M_Product_ID=1");
+		cache.getOrLoad("key2", () -> "M_Product_ID=2");
+
+		// a product which is not part of any cached value might be a new one, which belongs to some cached value now => whole cache is reset
+		Assert.assertEquals(2, cache.resetForRecordId(TableRecordReference.of("M_Product", 999)));
+		assertEmpty(cache);
+		Assert.assertEquals(1, cache.stats().getResetCount());
+	}
+
+	@Test
+	public void test_resetForRecordId_notIndexedTable()
+	{
+		AdempiereTestHelper.get().init();
+
+		final CCache<String, String> cache = newRecordsIndexedCache();
+		cache.getOrLoad("key1", () -> "M_Product_ID=1");
+		cache.getOrLoad("key2", () -> "M_Product_ID=2");
+
+		// C_UOM records are not indexed => whole cache is reset
+		Assert.assertEquals(2, cache.resetForRecordId(TableRecordReference.of("C_UOM", 1)));
+		assertEmpty(cache);
+		Assert.assertEquals(1, cache.stats().getResetCount());
+	}
+
+	@Test
+	public void test_resetForRecordId_notIndexed()
+	{
+		AdempiereTestHelper.get().init();
+
+		final CCache<String, String> cache = new CCache<String, String>("M_Product#Test", 10);
+		cache.put("key1", "value1");
+		cache.put("key2", "value2");
+
+		Assert.assertEquals(2, cache.resetForRecordId(TableRecordReference.of("M_Product", 1)));
+		assertEmpty(cache);
+	}
+
+	@Test
+	public void test_resizeLRU()
+	{
+		final CCache<Integer, String> cache = CCache.newLRUCache("Test", 2, CCache.EXPIREMINUTES_Never);
+		Assert.assertEquals(2, cache.getMaxSize());
+
+		cache.getOrLoad(1, () -> "value1");
+		cache.getOrLoad(2, () -> "value2");
+		cache.getOrLoad(2, () -> "value2");
+
+		Assert.assertTrue(cache.resizeLRU(4));
+		Assert.assertEquals(4, cache.getMaxSize());
+		assertSize(cache, 2);
+
+		cache.put(3, "value3");
+		cache.put(4, "value4");
+		assertSize(cache, 4);
+
+		// statistics of the replaced cache are kept
+		Assert.assertEquals(1, cache.stats().getGuavaStats().hitCount());
+		Assert.assertEquals(2, cache.stats().getGuavaStats().missCount());
+	}
+
+	@Test
+	public void test_resizeLRU_notLRU()
+	{
+		final CCache<Integer, String> cache = new CCache<>("Test", 2);
+		Assert.assertEquals(-1, cache.getMaxSize());
+		Assert.assertFalse(cache.resizeLRU(4));
+	}
 }
@@ -0,0 +1,142 @@
+package de.metas.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.adempiere.test.AdempiereTestHelper;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.metas.cache.model.CacheInvalidateMultiRequest;
+import de.metas.cache.model.CacheInvalidateRequest;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class CacheInvalidationBroadcasterTest
+{
+	private List<CacheInvalidateMultiRequest> sent;
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+		sent = new ArrayList<>();
+	}
+
+	private CacheInvalidationBroadcaster newBroadcaster(final int maxRecordsPerTable)
+	{
+		return CacheInvalidationBroadcaster.builder()
+				.sender(sent::add)
+				.delayMillis(3600 * 1000) // we flush manually
+				.maxRecordsPerTable(maxRecordsPerTable)
+				.build();
+	}
+
+	@Test
+	public void noDelay_sendsRightAway()
+	{
+		final CacheInvalidationBroadcaster broadcaster = CacheInvalidationBroadcaster.builder()
+				.sender(sent::add)
+				.delayMillis(0)
+				.build();
+
+		broadcaster.broadcast(CacheInvalidateMultiRequest.rootRecord("M_Product", 1));
+		broadcaster.broadcast(CacheInvalidateMultiRequest.rootRecord("M_Product", 1));
+
+		assertThat(sent).hasSize(2);
+	}
+
+	@Test
+	public void coalesceAndDeduplicate()
+	{
+		final CacheInvalidationBroadcaster broadcaster = newBroadcaster(100);
+
+		broadcaster.broadcast(CacheInvalidateMultiRequest.rootRecord("M_Product", 1));
+		broadcaster.broadcast(CacheInvalidateMultiRequest.rootRecord("M_Product", 1));
+		broadcaster.broadcast(CacheInvalidateMultiRequest.rootRecord("M_Product", 2));
+		broadcaster.broadcast(CacheInvalidateMultiRequest.rootRecord("C_BPartner", 1));
+		assertThat(sent).isEmpty();
+
+		broadcaster.flush();
+		assertThat(sent).hasSize(1);
+		assertThat(sent.get(0).getRequests()).hasSize(3);
+
+		final CacheInvalidationBroadcaster.Statistics stats = broadcaster.getStatistics();
+		assertThat(stats.getReceivedRequestsCount()).isEqualTo(4);
+		assertThat(stats.getDuplicateRequestsCount()).isEqualTo(1);
+		assertThat(stats.getSentRequestsCount()).isEqualTo(3);
+		assertThat(stats.getSentEventsCount()).isEqualTo(1);
+
+		// nothing pending anymore
+		broadcaster.flush();
+		assertThat(sent).hasSize(1);
+	}
+
+	@Test
+	public void collapseToAllRecords()
+	{
+		final CacheInvalidationBroadcaster broadcaster = newBroadcaster(2);
+
+		broadcaster.broadcast(CacheInvalidateMultiRequest.rootRecord("M_Product", 1));
+		broadcaster.broadcast(CacheInvalidateMultiRequest.rootRecord("M_Product", 2));
+		broadcaster.broadcast(CacheInvalidateMultiRequest.rootRecord("M_Product", 3));
+		broadcaster.broadcast(CacheInvalidateMultiRequest.rootRecord("M_Product", 4));
+		broadcaster.broadcast(CacheInvalidateMultiRequest.allChildRecords("C_Order", 10, "C_OrderLine"));
+		broadcaster.flush();
+
+		assertThat(sent).hasSize(1);
+		final CacheInvalidateMultiRequest multiRequest = sent.get(0);
+		assertThat(multiRequest.getRequests()).hasSize(2);
+		assertThat(multiRequest.getTableNamesEffective()).containsExactlyInAnyOrder("M_Product", "C_OrderLine");
+		assertThat(multiRequest.getRequests()).allMatch(request -> request.getTableNameEffective().equals("C_OrderLine") || request.isAllRecords());
+	}
+
+	@Test
+	public void collapseChildRecords_keepsRootRecord()
+	{
+		final CacheInvalidationBroadcaster broadcaster = newBroadcaster(1);
+
+		broadcaster.broadcast(CacheInvalidateMultiRequest.of(CacheInvalidateRequest.builder().rootRecord("C_Order", 10).childRecord("C_OrderLine", 1).build()));
+		broadcaster.broadcast(CacheInvalidateMultiRequest.of(CacheInvalidateRequest.builder().rootRecord("C_Order", 10).childRecord("C_OrderLine", 2).build()));
+		broadcaster.flush();
+
+		assertThat(sent).hasSize(1);
+		assertThat(sent.get(0).getTableNamesEffective()).containsExactlyInAnyOrder("C_Order", "C_OrderLine");
+		assertThat(sent.get(0).getRootRecords()).hasSize(1);
+	}
+
+	@Test
+	public void resetAll()
+	{
+		final CacheInvalidationBroadcaster broadcaster = newBroadcaster(100);
+
+		broadcaster.broadcast(CacheInvalidateMultiRequest.rootRecord("M_Product", 1));
+		broadcaster.broadcast(CacheInvalidateMultiRequest.all());
+		broadcaster.broadcast(CacheInvalidateMultiRequest.rootRecord("M_Product", 2));
+		broadcaster.flush();
+
+		assertThat(sent).containsExactly(CacheInvalidateMultiRequest.all());
+	}
+}
@@ -23,14 +23,26 @@ package de.metas.cache.interceptor;
  */
 
 
+import static org.adempiere.model.InterfaceWrapperHelper.newInstance;
+import static org.adempiere.model.InterfaceWrapperHelper.saveRecord;
+
 import java.lang.reflect.Method;
+import java.util.List;
 import java.util.Properties;
 
+import org.adempiere.test.AdempiereTestHelper;
+import org.adempiere.util.lang.impl.TableRecordReference;
 import org.adempiere.util.proxy.Cached;
+import org.adempiere.util.proxy.IInvocationContext;
+import org.compiere.model.I_M_Product;
 import org.compiere.util.Env;
+import org.compiere.util.Util.ArrayKey;
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
+
+import de.metas.cache.CCache;
 import de.metas.cache.annotation.CacheCtx;
 import de.metas.cache.annotation.CacheIgnore;
 import de.metas.cache.annotation.CacheTrx;
@@ -64,6 +76,12 @@ public class CachedMethodDescriptorTest
 		{
 			return "testId=" + testId + ", trxName=" + trxName;
 		}
+
+		@Cached(cacheName = I_M_Product.Table_Name + "#Test", resetOnlyForReturnedRecords = true)
+		public List<I_M_Product> getProducts(final int testId)
+		{
+			return ImmutableList.of();
+		}
 	}
 
 	@Test
@@ -134,4 +152,35 @@ public class CachedMethodDescriptorTest
 				"Keys shall be equal because trxName shall not be included (we are using different cache storages)",
 				keyBuilder1.buildKey(), keyBuilder2.buildKey());
 	}
+
+	@Test
+	public void test_resetOnlyForReturnedRecords() throws Exception
+	{
+		AdempiereTestHelper.get().init();
+
+		final Method method = TestClass.class.getMethod("getProducts", int.class);
+		final CCache<ArrayKey, Object> cache = new CachedMethodDescriptor(method).createCCacheCallable().call();
+
+		final I_M_Product product1 = newInstance(I_M_Product.class);
+		saveRecord(product1);
+		final I_M_Product product2 = newInstance(I_M_Product.class);
+		saveRecord(product2);
+
+		final ArrayKey key1 = new ArrayKey(1);
+		final ArrayKey key2 = new ArrayKey(2);
+		final ArrayKey key3 = new ArrayKey(3);
+		cache.getOrLoad(key1, () -> ImmutableList.of(product1));
+		cache.getOrLoad(key2, () -> ImmutableList.of(product1, product2));
+		cache.getOrLoad(key3, () -> IInvocationContext.NullResult);
+
+		Assert.assertEquals(1, cache.resetForRecordId(TableRecordReference.of(product2)));
+		Assert.assertTrue(cache.containsKey(key1));
+		Assert.assertFalse(cache.containsKey(key2));
+		Assert.assertTrue(cache.containsKey(key3));
+
+		// a product which was not returned (e.g. a new one) might belong to any result now
+		Assert.assertEquals(2, cache.resetForRecordId(TableRecordReference.of(I_M_Product.Table_Name, 999)));
+		Assert.assertFalse(cache.containsKey(key1));
+		Assert.assertFalse(cache.containsKey(key3));
+	}
 }
@@ -0,0 +1,212 @@
+package de.metas.event.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.junit.After;
+import org.junit.Test;
+
+import de.metas.event.AsyncDispatchConfig;
+import de.metas.event.AsyncDispatchConfig.OverflowPolicy;
+import de.metas.event.Event;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class OrderedAsyncEventDispatcherTest
+{
+	private static final String PROP_Key = "key";
+	private static final String PROP_SeqNo = "seqNo";
+
+	private OrderedAsyncEventDispatcher dispatcher;
+
+	@After
+	public void stopDispatcher()
+	{
+		if (dispatcher != null)
+		{
+			dispatcher.stop();
+		}
+	}
+
+	private static Event event(final int key, final int seqNo)
+	{
+		return Event.builder()
+				.putProperty(PROP_Key, key)
+				.putProperty(PROP_SeqNo, seqNo)
+				.build();
+	}
+
+	private static int seqNo(final Event event)
+	{
+		return event.getPropertyAsInt(PROP_SeqNo, -1);
+	}
+
+	private OrderedAsyncEventDispatcher createDispatcher(final AsyncDispatchConfig config, final Consumer<Event> eventConsumer)
+	{
+		dispatcher = OrderedAsyncEventDispatcher.builder()
+				.topicName("test")
+				.listenerName("testListener")
+				.config(config)
+				.eventConsumer(eventConsumer)
+				.build();
+		return dispatcher;
+	}
+
+	@Test
+	public void eventsWithSameKey_areDispatchedInOrder() throws Exception
+	{
+		final int eventsCount = 2000;
+		final CountDownLatch allDispatched = new CountDownLatch(eventsCount);
+		final Map<Integer, List<Integer>> seqNosByKey = new ConcurrentHashMap<>();
+
+		createDispatcher(
+				AsyncDispatchConfig.builder()
+						.lanes(4)
+						.queueCapacity(100)
+						.overflowPolicy(OverflowPolicy.BLOCK)
+						.orderingKeyExtractor(event -> event.getPropertyAsInt(PROP_Key, 0))
+						.build(),
+				event -> {
+					final int key = event.getPropertyAsInt(PROP_Key, 0);
+					seqNosByKey.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(seqNo(event));
+					allDispatched.countDown();
+				});
+
+		for (int seqNo = 0; seqNo < eventsCount; seqNo++)
+		{
+			dispatcher.enqueue(event(seqNo % 10, seqNo));
+		}
+
+		assertThat(allDispatched.await(30, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(seqNosByKey).hasSize(10);
+		seqNosByKey.values().forEach(seqNos -> assertThat(seqNos).hasSize(eventsCount / 10).isSorted());
+
+		assertThat(dispatcher.getEnqueuedCount()).isEqualTo(eventsCount);
+		assertThat(dispatcher.getDroppedCount()).isZero();
+		assertThat(dispatcher.getQueueDepth()).isZero();
+	}
+
+	/**
+	 * Creates a one lane dispatcher with capacity 2, whose consumer is blocked while processing the first event.
+	 */
+	private BlockedConsumer createBlockedDispatcher(final OverflowPolicy overflowPolicy) throws InterruptedException
+	{
+		final BlockedConsumer consumer = new BlockedConsumer();
+		createDispatcher(
+				AsyncDispatchConfig.builder()
+						.lanes(1)
+						.queueCapacity(2)
+						.overflowPolicy(overflowPolicy)
+						.build(),
+				consumer);
+
+		dispatcher.enqueue(event(0, 1));
+		assertThat(consumer.started.await(10, TimeUnit.SECONDS)).isTrue();
+
+		dispatcher.enqueue(event(0, 2));
+		dispatcher.enqueue(event(0, 3));
+		assertThat(dispatcher.getQueueDepth()).isEqualTo(2);
+
+		return consumer;
+	}
+
+	private static class BlockedConsumer implements Consumer<Event>
+	{
+		private final CountDownLatch started = new CountDownLatch(1);
+		private final CountDownLatch release = new CountDownLatch(1);
+		private final List<Integer> seqNos = new CopyOnWriteArrayList<>();
+
+		@Override
+		public void accept(final Event event)
+		{
+			started.countDown();
+			try
+			{
+				release.await();
+			}
+			catch (final InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			seqNos.add(seqNo(event));
+		}
+
+		private List<Integer> releaseAndAwait(final OrderedAsyncEventDispatcher dispatcher, final int expectedCount) throws InterruptedException
+		{
+			release.countDown();
+			final long timeout = System.currentTimeMillis() + 10_000;
+			while (dispatcher.getDispatchedCount() < expectedCount && System.currentTimeMillis() < timeout)
+			{
+				Thread.sleep(10);
+			}
+			return new ArrayList<>(seqNos);
+		}
+	}
+
+	@Test
+	public void overflow_DROP_NEWEST() throws Exception
+	{
+		final BlockedConsumer consumer = createBlockedDispatcher(OverflowPolicy.DROP_NEWEST);
+
+		dispatcher.enqueue(event(0, 4));
+		assertThat(dispatcher.getDroppedCount()).isEqualTo(1);
+		assertThat(dispatcher.getOldestQueuedEventAgeMillis()).isGreaterThanOrEqualTo(0);
+
+		assertThat(consumer.releaseAndAwait(dispatcher, 3)).containsExactly(1, 2, 3);
+	}
+
+	@Test
+	public void overflow_DROP_OLDEST() throws Exception
+	{
+		final BlockedConsumer consumer = createBlockedDispatcher(OverflowPolicy.DROP_OLDEST);
+
+		dispatcher.enqueue(event(0, 4));
+		assertThat(dispatcher.getDroppedCount()).isEqualTo(1);
+
+		assertThat(consumer.releaseAndAwait(dispatcher, 3)).containsExactly(1, 3, 4);
+	}
+
+	@Test
+	public void overflow_FAIL() throws Exception
+	{
+		final BlockedConsumer consumer = createBlockedDispatcher(OverflowPolicy.FAIL);
+
+		assertThatThrownBy(() -> dispatcher.enqueue(event(0, 4)))
+				.isInstanceOf(AdempiereException.class);
+		assertThat(dispatcher.getDroppedCount()).isEqualTo(1);
+
+		assertThat(consumer.releaseAndAwait(dispatcher, 3)).containsExactly(1, 2, 3);
+		assertThat(dispatcher.getEnqueuedCount()).isEqualTo(3);
+	}
+}
@@ -0,0 +1,120 @@
+package de.metas.event.jms;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.test.AdempiereTestHelper;
+import org.adempiere.util.lang.impl.TableRecordReference;
+import org.compiere.model.I_C_Invoice;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.metas.event.Event;
+import de.metas.event.EventBusConstants;
+import de.metas.event.remote.EventSerializers;
+import de.metas.event.remote.JacksonJsonEventSerializer;
+import de.metas.event.remote.JacksonSmileEventSerializer;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class JacksonSmileEventSerializerTest
+{
+	private final JacksonSmileEventSerializer smileSerializer = JacksonSmileEventSerializer.instance;
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init(); // needed for ITableRecordReference
+	}
+
+	private static Event createEvent()
+	{
+		return Event.builder()
+				.setSummary("Summary1")
+				.setDetailPlain("Detail1")
+				.setDetailADMessage("Detail_AD_Message", "P1", "P2", "P3")
+				.setUUID(UUID.randomUUID())
+				.setWhen(Instant.now())
+				.addRecipient_User_ID(10)
+				.addRecipient_User_ID(20)
+				.putProperty("Prop_BD", new BigDecimal("3.1415"))
+				.putProperty("Prop_Bool_True", true)
+				.putProperty("Prop_Bool_False", false)
+				.putProperty("Prop_Date", new Date())
+				.putProperty("Prop_TS", new Timestamp(System.currentTimeMillis()))
+				.putProperty("Prop_Int", 13)
+				.putProperty("Prop_Str", "string1")
+				.putProperty("Prop_Ref", TableRecordReference.of(I_C_Invoice.Table_Name, 123456))
+				.build();
+	}
+
+	@Test
+	public void serializeDeserialize_bytes()
+	{
+		final Event event = createEvent();
+
+		final Event eventRestored = smileSerializer.fromBytes(smileSerializer.toBytes(event));
+
+		assertThat(eventRestored).isEqualTo(event);
+		assertThat(eventRestored.getSenderId()).isEqualTo(EventBusConstants.getSenderId());
+	}
+
+	@Test
+	public void serializeDeserialize_string()
+	{
+		final Event event = createEvent();
+
+		final Event eventRestored = smileSerializer.fromString(smileSerializer.toString(event));
+
+		assertThat(eventRestored).isEqualTo(event);
+	}
+
+	@Test
+	public void smileIsSmallerThanJson()
+	{
+		final Event event = createEvent();
+
+		final int jsonSize = JacksonJsonEventSerializer.instance.toBytes(event).length;
+		final int smileSize = smileSerializer.toBytes(event).length;
+
+		assertThat(smileSize).isLessThan(jsonSize);
+	}
+
+	@Test
+	public void getByContentType()
+	{
+		assertThat(EventSerializers.getByContentType(null)).isSameAs(JacksonJsonEventSerializer.instance);
+		assertThat(EventSerializers.getByContentType("application/json; charset=UTF-8")).isSameAs(JacksonJsonEventSerializer.instance);
+		assertThat(EventSerializers.getByContentType(JacksonSmileEventSerializer.CONTENT_TYPE)).isSameAs(smileSerializer);
+
+		assertThatThrownBy(() -> EventSerializers.getByContentType("application/unknown"))
+				.isInstanceOf(AdempiereException.class);
+	}
+}
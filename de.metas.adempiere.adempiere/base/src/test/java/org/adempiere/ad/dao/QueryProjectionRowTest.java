@@ -0,0 +1,87 @@
+package org.adempiere.ad.dao;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.model.InterfaceWrapperHelper;
+import org.adempiere.test.AdempiereTestHelper;
+import org.compiere.model.I_M_Product;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import de.metas.util.Services;
+
+public class QueryProjectionRowTest
+{
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+	}
+
+	@Test
+	public void getters()
+	{
+		final ImmutableMap<String, Integer> columnIndexes = QueryProjectionRow.indexColumnNames(ImmutableList.of("M_Product_ID", "Value", "Weight", "IsStocked"));
+		final QueryProjectionRow row = new QueryProjectionRow(columnIndexes, new Object[] { 10, "P1", null, "Y" });
+
+		assertThat(row.getValueAsInt("M_Product_ID")).isEqualTo(10);
+		assertThat(row.getValueAsString("Value")).isEqualTo("P1");
+		assertThat(row.getValue("Weight")).isNull();
+		assertThat(row.getValueAsBigDecimal("Weight")).isEqualByComparingTo(BigDecimal.ZERO);
+		assertThat(row.getValueAsBoolean("IsStocked")).isTrue();
+	}
+
+	@Test(expected = AdempiereException.class)
+	public void getValue_notSelectedColumn()
+	{
+		final QueryProjectionRow row = new QueryProjectionRow(QueryProjectionRow.indexColumnNames(ImmutableList.of("Value")), new Object[] { "P1" });
+		row.getValue("Name");
+	}
+
+	@Test
+	public void listProjected()
+	{
+		final I_M_Product product = InterfaceWrapperHelper.newInstance(I_M_Product.class);
+		product.setValue("P1");
+		product.setName("Product 1");
+		InterfaceWrapperHelper.save(product);
+
+		final List<String> values = Services.get(IQueryBL.class)
+				.createQueryBuilder(I_M_Product.class)
+				.create()
+				.listProjected(row -> row.getValueAsInt(I_M_Product.COLUMNNAME_M_Product_ID) + "/" + row.getValueAsString(I_M_Product.COLUMNNAME_Value),
+						I_M_Product.COLUMNNAME_M_Product_ID,
+						I_M_Product.COLUMNNAME_Value);
+
+		assertThat(values).containsExactly(product.getM_Product_ID() + "/P1");
+	}
+}
@@ -0,0 +1,227 @@
+package org.adempiere.ad.dao.impl;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import static org.adempiere.model.InterfaceWrapperHelper.newInstanceOutOfTrx;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.ad.trx.api.OnTrxMissingPolicy;
+import org.adempiere.exceptions.DBException;
+import org.adempiere.test.AdempiereTestHelper;
+import org.compiere.db.AdempiereDatabase;
+import org.compiere.model.I_AD_Table;
+import org.compiere.util.CPreparedStatement;
+import org.compiere.util.DB;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.metas.util.Services;
+import mockit.Expectations;
+import mockit.Mocked;
+import mockit.Verifications;
+
+/**
+ * Checks how {@link CursorPOIterator} gets its connection and statement, without database.
+ *
+ * @see CursorPOIterator_DBTest
+ */
+public class CursorPOIteratorTest
+{
+	private static final String SQL = "SELECT * FROM Test_Record WHERE Created <= SYSDATE";
+	private static final String SQL_CONVERTED = "SELECT * FROM Test_Record WHERE Created <= now()";
+
+	@Mocked
+	private TypedSqlQuery<I_AD_Table> query;
+	@Mocked
+	private AdempiereDatabase database;
+	@Mocked
+	private Connection ownConnection;
+	@Mocked
+	private PreparedStatement ownConnectionPstmt;
+	@Mocked
+	private CPreparedStatement trxPstmt;
+	@Mocked
+	private ResultSet rs;
+
+	private I_AD_Table record1;
+	private I_AD_Table record2;
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+
+		record1 = newInstanceOutOfTrx(I_AD_Table.class);
+		record2 = newInstanceOutOfTrx(I_AD_Table.class);
+	}
+
+	private void expectQuery(final String trxName) throws SQLException
+	{
+		new Expectations()
+		{{
+			query.buildSQL(null, null, true);
+			result = SQL;
+
+			query.getTrxName();
+			result = trxName;
+			minTimes = 0;
+
+			query.retrieveNextModel(rs, I_AD_Table.class);
+			returns(record1, record2, null);
+			minTimes = 0;
+		}};
+	}
+
+	private void expectOwnConnection(final Object executeQueryResult) throws SQLException
+	{
+		new Expectations(DB.class)
+		{{
+			DB.createConnection(false, Connection.TRANSACTION_READ_COMMITTED);
+			result = ownConnection;
+
+			DB.getDatabase();
+			result = database;
+
+			database.convertStatement(SQL);
+			result = SQL_CONVERTED;
+
+			ownConnection.prepareStatement(SQL_CONVERTED, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			result = ownConnectionPstmt;
+
+			ownConnectionPstmt.executeQuery();
+			result = executeQueryResult;
+		}};
+	}
+
+	private static List<I_AD_Table> fetchAll(final CursorPOIterator<I_AD_Table, I_AD_Table> cursor)
+	{
+		final List<I_AD_Table> records = new ArrayList<>();
+		cursor.forEachRemaining(records::add);
+		return records;
+	}
+
+	@Test
+	public void outOfTrx_convertsSqlAndUsesOwnConnection() throws Exception
+	{
+		expectQuery(ITrx.TRXNAME_None);
+		expectOwnConnection(rs);
+
+		final CursorPOIterator<I_AD_Table, I_AD_Table> cursor = new CursorPOIterator<>(query, I_AD_Table.class, 10);
+		assertThat(fetchAll(cursor)).containsExactly(record1, record2);
+
+		new Verifications()
+		{{
+			ownConnectionPstmt.setFetchSize(10);
+
+			// exhausted => the cursor's transaction was ended and the connection was closed
+			ownConnection.rollback();
+			times = 1;
+			ownConnection.close();
+			times = 1;
+		}};
+	}
+
+	@Test
+	public void outOfTrx_closeBeforeExhausted_releasesOwnConnection() throws Exception
+	{
+		expectQuery(ITrx.TRXNAME_None);
+		expectOwnConnection(rs);
+
+		final CursorPOIterator<I_AD_Table, I_AD_Table> cursor = new CursorPOIterator<>(query, I_AD_Table.class, 10);
+		assertThat(cursor.next()).isSameAs(record1);
+		cursor.close();
+		cursor.close();
+
+		assertThat(cursor.hasNext()).isFalse();
+		new Verifications()
+		{{
+			ownConnection.rollback();
+			times = 1;
+			ownConnection.close();
+			times = 1;
+		}};
+	}
+
+	@Test
+	public void outOfTrx_failingQuery_releasesOwnConnection() throws Exception
+	{
+		expectQuery(ITrx.TRXNAME_None);
+		expectOwnConnection(new SQLException("test"));
+
+		assertThatThrownBy(() -> new CursorPOIterator<>(query, I_AD_Table.class, 10))
+				.isInstanceOf(DBException.class);
+
+		new Verifications()
+		{{
+			ownConnection.rollback();
+			times = 1;
+			ownConnection.close();
+			times = 1;
+		}};
+	}
+
+	@Test
+	public void inTrx_usesTrxConnectionAndDoesNotConvertItself() throws Exception
+	{
+		final ITrxManager trxManager = Services.get(ITrxManager.class);
+		final ITrx trx = trxManager.get(trxManager.createTrxName("CursorPOIteratorTest"), OnTrxMissingPolicy.CreateNew);
+
+		expectQuery(trx.getTrxName());
+		new Expectations(DB.class)
+		{{
+			// DB.prepareStatement converts the SQL
+			DB.prepareStatement(SQL, trx.getTrxName());
+			result = trxPstmt;
+
+			trxPstmt.executeQuery();
+			result = rs;
+		}};
+
+		final CursorPOIterator<I_AD_Table, I_AD_Table> cursor = new CursorPOIterator<>(query, I_AD_Table.class, 10);
+		assertThat(fetchAll(cursor)).containsExactly(record1, record2);
+
+		new Verifications()
+		{{
+			trxPstmt.setFetchSize(10);
+
+			DB.createConnection(anyBoolean, anyInt);
+			times = 0;
+			database.convertStatement(anyString);
+			times = 0;
+
+			// the transaction's connection is not ours to end
+			ownConnection.rollback();
+			times = 0;
+		}};
+	}
+}
@@ -0,0 +1,120 @@
+package org.adempiere.ad.dao.impl;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.io.File;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.adempiere.ad.dao.IQueryBL;
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.compiere.Adempiere.RunMode;
+import org.compiere.model.IQuery;
+import org.compiere.model.I_AD_Table;
+import org.compiere.util.Env;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import de.metas.util.Check;
+import de.metas.util.Services;
+
+@Ignore
+// requires database connection
+public class CursorPOIterator_DBTest
+{
+	public static void main(final String[] args)
+	{
+		final CursorPOIterator_DBTest test = new CursorPOIterator_DBTest();
+
+		test.setupAdempiere();
+
+		test.streamUsingCursor_outOfTrx();
+		test.streamUsingCursor_inTrx();
+	}
+
+	private void setupAdempiere()
+	{
+		//
+		// Use hardcoded default PropertyFile if none found
+		if (Check.isEmpty(System.getProperty("PropertyFile"), true))
+		{
+			final String propertyFile = new File(".").getAbsolutePath()
+					+ File.separator + ".." + File.separator + ".."
+					+ File.separator + "de.metas.endcustomer."
+					+ File.separator + "Adempiere.properties_" + System.getProperty("user.name");
+			System.out.println("Set default PropertyFile=" + propertyFile);
+			System.setProperty("PropertyFile", propertyFile);
+		}
+
+		Env.getSingleAdempiereInstance(null).startup(RunMode.SWING_CLIENT);
+	}
+
+	/**
+	 * Without a transaction, the cursor is opened on its own connection, so it has to convert the SQL itself.
+	 */
+	@Test
+	public void streamUsingCursor_outOfTrx()
+	{
+		assertStreamUsingCursorSameAsList(ITrx.TRXNAME_None);
+	}
+
+	@Test
+	public void streamUsingCursor_inTrx()
+	{
+		Services.get(ITrxManager.class).run(localTrxName -> assertStreamUsingCursorSameAsList(localTrxName));
+	}
+
+	private void assertStreamUsingCursorSameAsList(final String trxName)
+	{
+		// SYSDATE makes sure that the SQL needs to be converted before it can be executed
+		final IQuery<I_AD_Table> query = Services.get(IQueryBL.class)
+				.createQueryBuilder(I_AD_Table.class, Env.getCtx(), trxName)
+				.addOnlyActiveRecordsFilter()
+				.addEndsWithQueryFilter(I_AD_Table.COLUMNNAME_TableName, "Line")
+				.filter(TypedSqlQueryFilter.of(I_AD_Table.COLUMNNAME_Created + " <= SYSDATE"))
+				.orderBy()
+				.addColumn(I_AD_Table.COLUMN_TableName)
+				.endOrderBy()
+				.create()
+				.setOption(IQuery.OPTION_IteratorBufferSize, 10);
+
+		final List<String> expectedTableNames = query.list()
+				.stream()
+				.map(I_AD_Table::getTableName)
+				.collect(Collectors.toList());
+		Assert.assertFalse("no AD_Table records found for " + query, expectedTableNames.isEmpty());
+
+		final List<String> actualTableNames;
+		try (final Stream<I_AD_Table> stream = query.streamUsingCursor())
+		{
+			actualTableNames = stream
+					.map(I_AD_Table::getTableName)
+					.collect(Collectors.toList());
+		}
+
+		Assert.assertEquals(expectedTableNames, actualTableNames);
+	}
+}
@@ -0,0 +1,221 @@
+package org.adempiere.ad.expression.api.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.adempiere.ad.expression.api.IExpressionEvaluator.OnVariableNotFound;
+import org.adempiere.ad.expression.api.ILogicExpression;
+import org.adempiere.ad.expression.api.IStringExpression;
+import org.adempiere.ad.expression.api.LogicExpressionResult;
+import org.adempiere.ad.expression.exceptions.ExpressionEvaluationException;
+import org.adempiere.service.ISysConfigDAO;
+import org.adempiere.service.impl.PlainSysConfigDAO;
+import org.adempiere.test.AdempiereTestHelper;
+import org.compiere.util.CtxNames;
+import org.compiere.util.MockedEvaluatee;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.google.common.base.Stopwatch;
+
+import de.metas.util.Services;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Makes sure that evaluating a logic expression by its {@link CompiledLogicExpression} gives the same results as walking the expression tree.
+ */
+public class CompiledLogicExpressionTest
+{
+	private static final String[] SAMPLE_VALUES = { "Y", "N", "", "1", "0", "CO", "'DR'", "100", null };
+
+	private LogicExpressionCompiler compiler;
+	private LogicExpressionEvaluator evaluator;
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+		Services.registerService(ISysConfigDAO.class, new PlainSysConfigDAO());
+
+		compiler = LogicExpressionCompiler.instance;
+		compiler.setUseOperatorPrecedence(false);
+		evaluator = LogicExpressionEvaluator.instance;
+	}
+
+	@Test
+	public void compiledEvaluation_sameAsTreeWalking_forAllKnownExpressions()
+	{
+		for (final String expressionStr : LogicExpressionsDatabase.VALID_EXPRESSIONS)
+		{
+			final ILogicExpression expression = compiler.compile(expressionStr);
+			for (int variant = 0; variant < SAMPLE_VALUES.length; variant++)
+			{
+				final MockedEvaluatee params = createParams(expression, variant);
+				assertSameResult(expression, params, OnVariableNotFound.ReturnNoResult);
+				assertSameResult(expression, params, OnVariableNotFound.Fail);
+			}
+		}
+	}
+
+	@Test
+	public void compiledEvaluation_numericComparison()
+	{
+		final ILogicExpression expression = compiler.compile("@Qty@>10 & @DocStatus@='CO'");
+
+		final MockedEvaluatee params = new MockedEvaluatee();
+		params.put("Qty", "100");
+		params.put("DocStatus", "CO");
+		final LogicExpressionResult result = expression.evaluateToResult(params, OnVariableNotFound.Fail);
+
+		assertThat(result.booleanValue()).isTrue();
+		assertThat(result.getUsedParameters()).containsOnlyKeys(CtxNames.parse("Qty"), CtxNames.parse("DocStatus"));
+	}
+
+	@Test
+	public void compiledEvaluation_shortCircuit()
+	{
+		final ILogicExpression expression = compiler.compile("@IsSOTrx@=N & @Qty@>10");
+
+		final MockedEvaluatee params = new MockedEvaluatee();
+		params.put("IsSOTrx", "Y");
+		final LogicExpressionResult result = expression.evaluateToResult(params, OnVariableNotFound.Fail);
+
+		assertThat(result.booleanValue()).isFalse();
+		assertThat(result.getUsedParameters()).containsOnlyKeys(CtxNames.parse("IsSOTrx"));
+	}
+
+	@Test
+	public void compile_sameExpressionString_returnsCachedInstance()
+	{
+		final String expressionStr = "@IsSOTrx@=Y | @DocStatus@='DR'";
+		assertThat(compiler.compile(expressionStr)).isSameAs(compiler.compile(expressionStr));
+	}
+
+	@Test
+	public void compileStringExpression_escapedMarkersAreFolded()
+	{
+		final IStringExpression expression = StringExpressionCompiler.instance.compile("mail@@domain.com @Name@");
+
+		final MockedEvaluatee params = new MockedEvaluatee();
+		params.put("Name", "test");
+		assertThat(expression.evaluate(params, OnVariableNotFound.Fail)).isEqualTo("mail@domain.com test");
+	}
+
+	@Test
+	@Ignore("benchmark; to be run manually")
+	public void benchmark()
+	{
+		final List<ILogicExpression> expressions = new ArrayList<>();
+		final List<MockedEvaluatee> paramsList = new ArrayList<>();
+		for (final String expressionStr : LogicExpressionsDatabase.VALID_EXPRESSIONS)
+		{
+			final ILogicExpression expression = compiler.compile(expressionStr);
+			for (int variant = 0; variant < SAMPLE_VALUES.length; variant++)
+			{
+				expressions.add(expression);
+				paramsList.add(createParams(expression, variant));
+			}
+		}
+
+		final int iterations = 200;
+		for (int run = 1; run <= 3; run++)
+		{
+			final Stopwatch stopwatchTree = Stopwatch.createStarted();
+			for (int i = 0; i < iterations; i++)
+			{
+				for (int j = 0; j < expressions.size(); j++)
+				{
+					evaluator.evaluateToResultByWalkingTree(paramsList.get(j), expressions.get(j), OnVariableNotFound.ReturnNoResult);
+				}
+			}
+			stopwatchTree.stop();
+
+			final Stopwatch stopwatchCompiled = Stopwatch.createStarted();
+			for (int i = 0; i < iterations; i++)
+			{
+				for (int j = 0; j < expressions.size(); j++)
+				{
+					evaluator.evaluateToResult(paramsList.get(j), expressions.get(j), OnVariableNotFound.ReturnNoResult);
+				}
+			}
+			stopwatchCompiled.stop();
+
+			System.out.println("Run " + run + ": " + iterations * expressions.size() + " evaluations"
+					+ "\n\t tree walking: " + stopwatchTree
+					+ "\n\t compiled: " + stopwatchCompiled);
+		}
+	}
+
+	private static MockedEvaluatee createParams(final ILogicExpression expression, final int variant)
+	{
+		final MockedEvaluatee params = new MockedEvaluatee();
+		int index = variant;
+		for (final String parameterName : expression.getParameterNames())
+		{
+			params.put(parameterName, SAMPLE_VALUES[index % SAMPLE_VALUES.length]);
+			index++;
+		}
+		return params;
+	}
+
+	private void assertSameResult(final ILogicExpression expression, final MockedEvaluatee params, final OnVariableNotFound onVariableNotFound)
+	{
+		LogicExpressionResult expected = null;
+		ExpressionEvaluationException expectedException = null;
+		try
+		{
+			expected = evaluator.evaluateToResultByWalkingTree(params, expression, onVariableNotFound);
+		}
+		catch (final ExpressionEvaluationException ex)
+		{
+			expectedException = ex;
+		}
+
+		LogicExpressionResult actual = null;
+		ExpressionEvaluationException actualException = null;
+		try
+		{
+			actual = evaluator.evaluateToResult(params, expression, onVariableNotFound);
+		}
+		catch (final ExpressionEvaluationException ex)
+		{
+			actualException = ex;
+		}
+
+		final String description = "expression=" + expression + ", params=" + params + ", onVariableNotFound=" + onVariableNotFound;
+		if (expectedException != null)
+		{
+			assertThat(actualException).as(description).isNotNull();
+		}
+		else
+		{
+			assertThat(actualException).as(description).isNull();
+			assertThat(actual.booleanValue()).as(description).isEqualTo(expected.booleanValue());
+			assertThat(actual.getUsedParameters()).as(description).isEqualTo(expected.getUsedParameters());
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package org.adempiere.ad.trx.api.impl;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.adempiere.ad.trx.api.IBatchedPersistenceScope;
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.ad.trx.api.ITrxSavepoint;
+import org.adempiere.ad.trx.api.OnTrxMissingPolicy;
+import org.adempiere.test.AdempiereTestHelper;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.metas.util.Services;
+
+public class BatchedPersistenceScopeTest
+{
+	private MockedTrxManager trxManager;
+	private MockedTrx trx;
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+
+		trxManager = new MockedTrxManager();
+		Services.registerService(ITrxManager.class, trxManager);
+
+		trx = (MockedTrx)trxManager.get("TestTrx", OnTrxMissingPolicy.CreateNew);
+		trx.start();
+	}
+
+	@Test
+	public void statementsAreExecutedInOneBatchOnClose()
+	{
+		final IBatchedPersistenceScope scope = trxManager.openBatchedPersistenceScope(trx.getTrxName());
+		assertThat(trxManager.getBatchedPersistenceScopeOrNull(trx.getTrxName())).isSameAs(scope);
+
+		scope.addStatement("INSERT 1");
+		scope.addStatement("INSERT 2");
+		scope.addStatement("UPDATE 3");
+		assertThat(trx.getExecutedBatches()).isEmpty();
+
+		scope.close();
+		assertThat(trx.getExecutedBatches()).containsExactly(ImmutableList.of("INSERT 1", "INSERT 2", "UPDATE 3"));
+		assertThat(scope.getQueuedStatementsCount()).isEqualTo(3);
+		assertThat(scope.getExecutedBatchesCount()).isEqualTo(1);
+		assertThat(scope.getSavedStatementsCount()).isEqualTo(2);
+		assertThat(trxManager.getBatchedPersistenceScopeOrNull(trx.getTrxName())).isNull();
+	}
+
+	@Test
+	public void nestedScopesShareTheQueue()
+	{
+		final IBatchedPersistenceScope outerScope = trxManager.openBatchedPersistenceScope(trx.getTrxName());
+		final IBatchedPersistenceScope innerScope = trxManager.openBatchedPersistenceScope(trx.getTrxName());
+		assertThat(innerScope).isSameAs(outerScope);
+
+		innerScope.addStatement("INSERT 1");
+		innerScope.close();
+		assertThat(trx.getExecutedBatches()).hasSize(1);
+		assertThat(trxManager.getBatchedPersistenceScopeOrNull(trx.getTrxName())).isSameAs(outerScope);
+
+		outerScope.close();
+		assertThat(trxManager.getBatchedPersistenceScopeOrNull(trx.getTrxName())).isNull();
+	}
+
+	@Test
+	public void statementsAreFlushedBeforeSavepointAndCommit()
+	{
+		final IBatchedPersistenceScope scope = trxManager.openBatchedPersistenceScope(trx.getTrxName());
+
+		scope.addStatement("INSERT 1");
+		final ITrxSavepoint savepoint = trx.createTrxSavepoint(null);
+		assertThat(trx.getExecutedBatches()).containsExactly(ImmutableList.of("INSERT 1"));
+
+		scope.addStatement("INSERT 2");
+		trx.releaseSavepoint(savepoint);
+		trx.commit();
+		assertThat(trx.getExecutedBatches()).containsExactly(ImmutableList.of("INSERT 1"), ImmutableList.of("INSERT 2"));
+	}
+
+	@Test
+	public void statementsAreDiscardedOnRollbackToSavepoint()
+	{
+		final IBatchedPersistenceScope scope = trxManager.openBatchedPersistenceScope(trx.getTrxName());
+
+		final ITrxSavepoint savepoint = trx.createTrxSavepoint(null);
+		scope.addStatement("INSERT 1");
+		trx.rollback(savepoint);
+
+		scope.addStatement("INSERT 2");
+		scope.close();
+		assertThat(trx.getExecutedBatches()).containsExactly(ImmutableList.of("INSERT 2"));
+	}
+
+	@Test
+	public void removedStatementIsNotExecuted()
+	{
+		final IBatchedPersistenceScope scope = trxManager.openBatchedPersistenceScope(trx.getTrxName());
+
+		scope.addStatement("INSERT 1");
+		scope.addStatement("INSERT 2");
+		assertThat(scope.isPending("INSERT 2")).isTrue();
+		assertThat(scope.removeStatement("INSERT 2")).isTrue();
+		assertThat(scope.isPending("INSERT 2")).isFalse();
+
+		scope.flush();
+		assertThat(scope.isPending("INSERT 1")).isFalse();
+		assertThat(scope.removeStatement("INSERT 1")).isFalse();
+
+		scope.close();
+		assertThat(trx.getExecutedBatches()).containsExactly(ImmutableList.of("INSERT 1"));
+		assertThat(scope.getQueuedStatementsCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void statementsAreFlushedWhenMaxBatchSizeIsReached()
+	{
+		final IBatchedPersistenceScope scope = trxManager.openBatchedPersistenceScope(trx.getTrxName());
+		for (int i = 1; i <= BatchedPersistenceScope.DEFAULT_MaxBatchSize + 1; i++)
+		{
+			scope.addStatement("INSERT " + i);
+		}
+		assertThat(trx.getExecutedBatches()).hasSize(1);
+		assertThat(trx.getExecutedBatches().get(0)).hasSize(BatchedPersistenceScope.DEFAULT_MaxBatchSize);
+
+		scope.close();
+		assertThat(trx.getExecutedBatches()).hasSize(2);
+		assertThat(scope.getExecutedBatchesCount()).isEqualTo(2);
+	}
+}
@@ -0,0 +1,255 @@
+package org.adempiere.ad.trx.api.impl;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.ad.trx.api.ITrxSavepoint;
+import org.adempiere.ad.trx.api.IWriteBehindScope;
+import org.adempiere.ad.trx.api.OnTrxMissingPolicy;
+import org.adempiere.ad.trx.api.WriteBehindStatistics;
+import org.adempiere.test.AdempiereTestHelper;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.metas.util.Services;
+
+public class WriteBehindScopeTest
+{
+	private MockedTrxManager trxManager;
+	private MockedTrx trx;
+
+	private final List<String> savedModels = new ArrayList<>();
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+
+		trxManager = new MockedTrxManager();
+		Services.registerService(ITrxManager.class, trxManager);
+
+		trx = (MockedTrx)trxManager.get("TestTrx", OnTrxMissingPolicy.CreateNew);
+		trx.start();
+	}
+
+	private static final class TestModel
+	{
+		private final int id;
+
+		private TestModel(final int id)
+		{
+			this.id = id;
+		}
+	}
+
+	private boolean save(final IWriteBehindScope scope, final TestModel model)
+	{
+		return scope.deferSave("TestTable", model.id, model, () -> savedModels.add("TestTable#" + model.id));
+	}
+
+	@Test
+	public void loadedModelsAreDeduplicated()
+	{
+		final IWriteBehindScope scope = trxManager.openWriteBehindScope(trx.getTrxName());
+		assertThat(trxManager.getWriteBehindScopeOrNull(trx.getTrxName())).isSameAs(scope);
+
+		final TestModel model1 = scope.getOrRegisterLoadedModel("TestTable", 1, new TestModel(1));
+		assertThat(scope.getOrRegisterLoadedModel("TestTable", 1, new TestModel(1))).isSameAs(model1);
+		assertThat(scope.getOrRegisterLoadedModel("OtherTable", 1, new TestModel(1))).isNotSameAs(model1);
+		assertThat(scope.getDeduplicatedLoadsCount()).isEqualTo(1);
+
+		scope.close();
+		assertThat(trxManager.getWriteBehindScopeOrNull(trx.getTrxName())).isNull();
+	}
+
+	@Test
+	public void repeatedSavesAreExecutedOnceOnClose()
+	{
+		final IWriteBehindScope scope = trxManager.openWriteBehindScope(trx.getTrxName());
+		final TestModel model1 = scope.getOrRegisterLoadedModel("TestTable", 1, new TestModel(1));
+		final TestModel model2 = scope.getOrRegisterLoadedModel("TestTable", 2, new TestModel(2));
+
+		assertThat(save(scope, model1)).isTrue();
+		assertThat(save(scope, model2)).isTrue();
+		assertThat(save(scope, model1)).isTrue();
+		assertThat(savedModels).isEmpty();
+
+		scope.close();
+		assertThat(savedModels).containsExactly("TestTable#1", "TestTable#2");
+		assertThat(scope.getDeferredSavesCount()).isEqualTo(3);
+		assertThat(scope.getExecutedSavesCount()).isEqualTo(2);
+		assertThat(scope.getElidedUpdatesCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void notRegisteredModelsAreNotDeferred()
+	{
+		final IWriteBehindScope scope = trxManager.openWriteBehindScope(trx.getTrxName());
+		scope.getOrRegisterLoadedModel("TestTable", 1, new TestModel(1));
+
+		assertThat(save(scope, new TestModel(1))).isFalse();
+		assertThat(save(scope, new TestModel(2))).isFalse();
+		scope.close();
+	}
+
+	@Test
+	public void dirtyModelsAreSavedBeforeSavepointAndCommit()
+	{
+		final IWriteBehindScope scope = trxManager.openWriteBehindScope(trx.getTrxName());
+		final TestModel model1 = scope.getOrRegisterLoadedModel("TestTable", 1, new TestModel(1));
+
+		save(scope, model1);
+		final ITrxSavepoint savepoint = trx.createTrxSavepoint(null);
+		assertThat(savedModels).containsExactly("TestTable#1");
+
+		save(scope, model1);
+		trx.releaseSavepoint(savepoint);
+		trx.commit();
+		assertThat(savedModels).containsExactly("TestTable#1", "TestTable#1");
+
+		// identity map is cleared on commit
+		assertThat(scope.getOrRegisterLoadedModel("TestTable", 1, new TestModel(1))).isNotSameAs(model1);
+		scope.close();
+	}
+
+	@Test
+	public void dirtyModelsAreDiscardedOnRollback()
+	{
+		final IWriteBehindScope scope = trxManager.openWriteBehindScope(trx.getTrxName());
+		final TestModel model1 = scope.getOrRegisterLoadedModel("TestTable", 1, new TestModel(1));
+
+		save(scope, model1);
+		trx.rollback();
+
+		scope.close();
+		assertThat(savedModels).isEmpty();
+	}
+
+	@Test
+	public void savesDuringFlushAreNotDeferred()
+	{
+		final IWriteBehindScope scope = trxManager.openWriteBehindScope(trx.getTrxName());
+		final TestModel model1 = scope.getOrRegisterLoadedModel("TestTable", 1, new TestModel(1));
+		final TestModel model2 = scope.getOrRegisterLoadedModel("TestTable", 2, new TestModel(2));
+
+		scope.deferSave("TestTable", 1, model1, () -> {
+			savedModels.add("TestTable#1");
+			assertThat(save(scope, model2)).isFalse();
+		});
+		scope.flush();
+
+		assertThat(savedModels).containsExactly("TestTable#1");
+		scope.close();
+	}
+
+	@Test
+	public void failedFlushDropsTheScope()
+	{
+		final IWriteBehindScope scope = trxManager.openWriteBehindScope(trx.getTrxName());
+		final TestModel model1 = scope.getOrRegisterLoadedModel("TestTable", 1, new TestModel(1));
+		final TestModel model2 = scope.getOrRegisterLoadedModel("TestTable", 2, new TestModel(2));
+		final TestModel model3 = scope.getOrRegisterLoadedModel("TestTable", 3, new TestModel(3));
+
+		save(scope, model1);
+		scope.deferSave("TestTable", 2, model2, () -> {
+			throw new RuntimeException("save failed");
+		});
+		save(scope, model3);
+
+		assertThatThrownBy(trx::flushWriteBehindModels).hasMessage("save failed");
+		assertThat(savedModels).containsExactly("TestTable#1");
+
+		// the failed save is not retried by the next statements
+		assertThat(trxManager.getWriteBehindScopeOrNull(trx.getTrxName())).isNull();
+		trx.flushWriteBehindModels();
+		scope.flush();
+		assertThat(savedModels).containsExactly("TestTable#1");
+
+		// the dropped scope neither defers nor deduplicates anymore
+		assertThat(save(scope, model3)).isFalse();
+		assertThat(scope.getOrRegisterLoadedModel("TestTable", 1, new TestModel(1))).isNotSameAs(model1);
+		scope.close();
+
+		final WriteBehindStatistics statistics = trxManager.getWriteBehindStatistics();
+		assertThat(statistics.getFailedFlushesCount()).isEqualTo(1);
+		assertThat(statistics.getDroppedSavesCount()).isEqualTo(2);
+		assertThat(statistics.getElidedUpdatesCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void statisticsAreAggregatedOverScopes()
+	{
+		for (int i = 0; i < 2; i++)
+		{
+			try (final IWriteBehindScope scope = trxManager.openWriteBehindScope(trx.getTrxName()))
+			{
+				final TestModel model1 = scope.getOrRegisterLoadedModel("TestTable", 1, new TestModel(1));
+				scope.getOrRegisterLoadedModel("TestTable", 1, new TestModel(1));
+				save(scope, model1);
+				save(scope, model1);
+			}
+		}
+
+		final WriteBehindStatistics statistics = trxManager.getWriteBehindStatistics();
+		assertThat(statistics.getScopesCount()).isEqualTo(2);
+		assertThat(statistics.getDeferredSavesCount()).isEqualTo(4);
+		assertThat(statistics.getExecutedSavesCount()).isEqualTo(2);
+		assertThat(statistics.getElidedUpdatesCount()).isEqualTo(2);
+		assertThat(statistics.getDeduplicatedLoadsCount()).isEqualTo(2);
+
+		trxManager.resetWriteBehindStatistics();
+		assertThat(trxManager.getWriteBehindStatistics().getScopesCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void reloadedModelRefreshesTheRegisteredInstance()
+	{
+		final IWriteBehindScope scope = trxManager.openWriteBehindScope(trx.getTrxName());
+		final List<String> refreshes = new ArrayList<>();
+		final BiConsumer<TestModel, TestModel> refresher = (existingModel, loadedModel) -> refreshes.add("TestTable#" + existingModel.id);
+
+		final TestModel model1 = scope.getOrRegisterLoadedModel("TestTable", 1, new TestModel(1), refresher);
+		assertThat(refreshes).isEmpty();
+
+		assertThat(scope.getOrRegisterLoadedModel("TestTable", 1, new TestModel(1), refresher)).isSameAs(model1);
+		assertThat(refreshes).containsExactly("TestTable#1");
+
+		// while flushing, the dirty models are not refreshed
+		scope.deferSave("TestTable", 1, model1, () -> {
+			assertThat(scope.getOrRegisterLoadedModel("TestTable", 1, new TestModel(1), refresher)).isSameAs(model1);
+			savedModels.add("TestTable#1");
+		});
+		scope.flush();
+		assertThat(savedModels).containsExactly("TestTable#1");
+		assertThat(refreshes).containsExactly("TestTable#1");
+		scope.close();
+	}
+}
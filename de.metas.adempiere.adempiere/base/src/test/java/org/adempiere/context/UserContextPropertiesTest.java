@@ -0,0 +1,203 @@
+package org.adempiere.context;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Properties;
+
+import org.compiere.util.Env;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import de.metas.util.AbstractPropertiesProxy;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class UserContextPropertiesTest
+{
+	@Test
+	public void snapshot_is_cached_until_ctx_changes()
+	{
+		final UserContextProperties ctx = new UserContextProperties();
+		Env.setContext(ctx, Env.CTXNAME_AD_Client_ID, 1);
+		Env.setContext(ctx, Env.CTXNAME_AD_Org_ID, 2);
+
+		final UserContext userContext = ctx.getUserContext();
+		assertThat(userContext.getAdClientId()).isEqualTo(1);
+		assertThat(userContext.getAdOrgId()).isEqualTo(2);
+		assertThat(ctx.getUserContext()).isSameAs(userContext);
+
+		Env.setContext(ctx, Env.CTXNAME_AD_Org_ID, 3);
+		assertThat(ctx.getUserContext().getAdOrgId()).isEqualTo(3);
+		assertThat(Env.getAD_Org_ID(ctx)).isEqualTo(3);
+
+		Env.removeContext(ctx, Env.CTXNAME_AD_Org_ID);
+		assertThat(Env.getAD_Org_ID(ctx)).isEqualTo(0);
+	}
+
+	@Test
+	public void setting_same_value_keeps_snapshot()
+	{
+		final UserContextProperties ctx = new UserContextProperties();
+		Env.setContext(ctx, Env.CTXNAME_AD_User_ID, 100);
+		final UserContext userContext = ctx.getUserContext();
+
+		Env.setContext(ctx, Env.CTXNAME_AD_User_ID, 100);
+		assertThat(ctx.getUserContext()).isSameAs(userContext);
+	}
+
+	@Test
+	public void derived_ctx_sees_parent_changes()
+	{
+		final Properties parentCtx = Env.newTemporaryCtx();
+		Env.setContext(parentCtx, Env.CTXNAME_AD_Client_ID, 1);
+		Env.setContext(parentCtx, Env.CTXNAME_AD_Language, "de_DE");
+
+		final Properties childCtx = Env.deriveCtx(parentCtx);
+		assertThat(Env.getAD_Client_ID(childCtx)).isEqualTo(1);
+		assertThat(Env.getAD_Language(childCtx)).isEqualTo("de_DE");
+
+		Env.setContext(parentCtx, Env.CTXNAME_AD_Client_ID, 2);
+		assertThat(Env.getAD_Client_ID(childCtx)).isEqualTo(2);
+
+		Env.setContext(childCtx, Env.CTXNAME_AD_Client_ID, 3);
+		assertThat(Env.getAD_Client_ID(childCtx)).isEqualTo(3);
+		assertThat(Env.getAD_Client_ID(parentCtx)).isEqualTo(2);
+	}
+
+	@Test
+	public void derived_from_plain_properties_is_not_cached_but_correct()
+	{
+		final Properties parentCtx = new Properties();
+		Env.setContext(parentCtx, Env.CTXNAME_AD_Role_ID, 1);
+
+		final Properties childCtx = Env.deriveCtx(parentCtx);
+		assertThat(Env.getAD_Role_ID(childCtx)).isEqualTo(1);
+
+		Env.setContext(parentCtx, Env.CTXNAME_AD_Role_ID, 2);
+		assertThat(Env.getAD_Role_ID(childCtx)).isEqualTo(2);
+	}
+
+	@Test
+	public void derived_from_proxy_is_cached_per_delegate()
+	{
+		final UserContextProperties delegate1 = new UserContextProperties();
+		Env.setContext(delegate1, Env.CTXNAME_AD_Client_ID, 1);
+		final UserContextProperties delegate2 = new UserContextProperties();
+		Env.setContext(delegate2, Env.CTXNAME_AD_Client_ID, 2);
+
+		final SwitchablePropertiesProxy proxy = new SwitchablePropertiesProxy(delegate1);
+		final UserContextProperties childCtx = (UserContextProperties)Env.deriveCtx(proxy);
+
+		final UserContext userContext = childCtx.getUserContext();
+		assertThat(userContext.getAdClientId()).isEqualTo(1);
+		assertThat(childCtx.getUserContext()).isSameAs(userContext);
+
+		// same version, but another delegate => not the cached snapshot
+		proxy.delegate = delegate2;
+		assertThat(Env.getAD_Client_ID(childCtx)).isEqualTo(2);
+
+		Env.setContext(delegate2, Env.CTXNAME_AD_Client_ID, 3);
+		assertThat(Env.getAD_Client_ID(childCtx)).isEqualTo(3);
+	}
+
+	private static class SwitchablePropertiesProxy extends AbstractPropertiesProxy
+	{
+		private static final long serialVersionUID = 1L;
+
+		private Properties delegate;
+
+		private SwitchablePropertiesProxy(final Properties delegate)
+		{
+			this.delegate = delegate;
+		}
+
+		@Override
+		protected Properties getDelegate()
+		{
+			return delegate;
+		}
+	}
+
+	@Test
+	public void newTemporaryCtx_from_userContext()
+	{
+		final UserContext userContext = UserContext.builder()
+				.adClientId(1)
+				.adOrgId(2)
+				.adRoleId(3)
+				.adUserId(4)
+				.adLanguage("en_US")
+				.build();
+
+		final Properties ctx = Env.newTemporaryCtx(userContext);
+		assertThat(Env.getUserContext(ctx)).isEqualTo(userContext);
+
+		final UserContext derivedUserContext = userContext.toBuilder().adOrgId(5).build();
+		assertThat(Env.getUserContext(Env.newTemporaryCtx(derivedUserContext)).getAdOrgId()).isEqualTo(5);
+	}
+
+	/**
+	 * Compares the cost of reading the login values from a plain {@link Properties} context and from an {@link UserContextProperties} one.
+	 */
+	@Test
+	@Ignore("benchmark; to be run manually")
+	public void benchmark()
+	{
+		final Properties plainCtx = new Properties();
+		final Properties userCtx = new UserContextProperties();
+		for (final Properties ctx : new Properties[] { plainCtx, userCtx })
+		{
+			Env.setContext(ctx, Env.CTXNAME_AD_Client_ID, 1000000);
+			Env.setContext(ctx, Env.CTXNAME_AD_Org_ID, 1000000);
+			Env.setContext(ctx, Env.CTXNAME_AD_Role_ID, 1000000);
+			Env.setContext(ctx, Env.CTXNAME_AD_User_ID, 100);
+			Env.setContext(ctx, Env.CTXNAME_AD_Language, "de_DE");
+		}
+		final Properties plainChildCtx = new Properties(plainCtx);
+		final Properties userChildCtx = new UserContextProperties(userCtx);
+
+		final int warmupIterations = 1_000_000;
+		final int iterations = 10_000_000;
+		for (final Properties ctx : new Properties[] { plainCtx, userCtx, plainChildCtx, userChildCtx })
+		{
+			runBenchmark(ctx, warmupIterations);
+			final long nanos = runBenchmark(ctx, iterations);
+			System.out.println(ctx.getClass().getSimpleName() + (ctx == plainChildCtx || ctx == userChildCtx ? " (derived)" : "")
+					+ ": ns/read=" + (double)nanos / (iterations * 4));
+		}
+	}
+
+	private static long runBenchmark(final Properties ctx, final int iterations)
+	{
+		long sum = 0;
+		final long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++)
+		{
+			sum += Env.getAD_Client_ID(ctx) + Env.getAD_Org_ID(ctx) + Env.getAD_Role_ID(ctx) + Env.getAD_User_ID(ctx);
+		}
+		final long nanos = System.nanoTime() - start;
+
+		assertThat(sum).isGreaterThan(0);
+		return nanos;
+	}
+}
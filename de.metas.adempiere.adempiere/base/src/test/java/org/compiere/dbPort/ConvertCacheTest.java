@@ -0,0 +1,90 @@
+package org.compiere.dbPort;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class ConvertCacheTest
+{
+	private static class CountingConvert extends Convert
+	{
+		private int convertCount = 0;
+
+		@Override
+		protected List<String> convertStatement(final String sqlStatement)
+		{
+			convertCount++;
+			return ImmutableList.of(sqlStatement.toUpperCase());
+		}
+	}
+
+	@Test
+	public void sameStatementIsConvertedOnlyOnce()
+	{
+		final CountingConvert convert = new CountingConvert();
+		final ConvertCache cache = ConvertCache.forConverter(CountingConvert.class);
+		cache.reset();
+		final long hitCountBefore = cache.getHitCount();
+
+		assertThat(convert.convert("select 1")).containsExactly("SELECT 1");
+		assertThat(convert.convert("select 1")).containsExactly("SELECT 1");
+		assertThat(convert.convert("select 2")).containsExactly("SELECT 2");
+
+		assertThat(convert.convertCount).isEqualTo(2);
+		assertThat(cache.getHitCount() - hitCountBefore).isEqualTo(1);
+	}
+
+	@Test
+	public void dmlWithLiteralValuesIsNotCached()
+	{
+		final CountingConvert convert = new CountingConvert();
+		final ConvertCache cache = ConvertCache.forConverter(CountingConvert.class);
+		cache.reset();
+
+		assertThat(convert.convert("insert into t (id) values (1)")).containsExactly("INSERT INTO T (ID) VALUES (1)");
+		assertThat(convert.convert("update t set name='x' where id=1")).containsExactly("UPDATE T SET NAME='X' WHERE ID=1");
+		assertThat(convert.convert("delete from t where id=1")).containsExactly("DELETE FROM T WHERE ID=1");
+		assertThat(convert.convert("\n\t Update t set name='x' where id=1")).containsExactly("\n\t UPDATE T SET NAME='X' WHERE ID=1");
+		assertThat(cache.getSize()).isEqualTo(0);
+
+		// not a DML statement, even if it starts like one
+		assertThat(convert.convert("updated_view")).containsExactly("UPDATED_VIEW");
+		assertThat(cache.getSize()).isEqualTo(1);
+
+		assertThat(convert.convert("update t set name=? where id=?")).containsExactly("UPDATE T SET NAME=? WHERE ID=?");
+		assertThat(cache.getSize()).isEqualTo(2);
+	}
+
+	@Test
+	public void nativeConverterIsNotCached()
+	{
+		final Convert_PostgreSQL_Native convert = new Convert_PostgreSQL_Native();
+		assertThat(convert.convert("select 1 from dual")).containsExactly("select 1 from dual");
+	}
+}
@@ -0,0 +1,78 @@
+package org.compiere.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class LatencyHistogramTest
+{
+	@Test
+	public void eachValueIsInsideItsBucket()
+	{
+		final Random random = new Random(1);
+		for (int i = 0; i < 100_000; i++)
+		{
+			final long value = i < 10_000 ? i : random.nextLong() >>> 1;
+			final int index = LatencyHistogram.indexOf(value);
+
+			assertThat(LatencyHistogram.highestValueOf(index)).isGreaterThanOrEqualTo(value);
+			if (index > 0)
+			{
+				assertThat(LatencyHistogram.highestValueOf(index - 1)).isLessThan(value);
+			}
+		}
+	}
+
+	@Test
+	public void percentiles()
+	{
+		final LatencyHistogram histogram = new LatencyHistogram();
+		for (long value = 1; value <= 10_000; value++)
+		{
+			histogram.record(value * 1000);
+		}
+
+		final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertThat(snapshot.getCount()).isEqualTo(10_000);
+		assertThat(snapshot.getMax()).isEqualTo(10_000_000);
+		assertThat(snapshot.getMean()).isEqualTo(5_000_500);
+
+		// max. relative error is 1/32
+		assertThat((double)snapshot.getP50()).isCloseTo(5_000_000, within(5_000_000 / 32.0));
+		assertThat((double)snapshot.getP90()).isCloseTo(9_000_000, within(9_000_000 / 32.0));
+		assertThat((double)snapshot.getP99()).isCloseTo(9_900_000, within(9_900_000 / 32.0));
+	}
+
+	@Test
+	public void emptyHistogram()
+	{
+		final LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+		assertThat(snapshot.getCount()).isZero();
+		assertThat(snapshot.getP99()).isZero();
+	}
+}
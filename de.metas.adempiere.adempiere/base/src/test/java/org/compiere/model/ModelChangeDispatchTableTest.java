@@ -0,0 +1,148 @@
+package org.compiere.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.adempiere.ad.modelvalidator.AnnotatedModelInterceptorFactory;
+import org.adempiere.ad.modelvalidator.DocTimingType;
+import org.adempiere.ad.modelvalidator.IModelInterceptor;
+import org.adempiere.ad.modelvalidator.IModelValidationEngine;
+import org.adempiere.ad.modelvalidator.ModelChangeType;
+import org.adempiere.ad.modelvalidator.ModelInterceptor2ModelValidatorWrapper;
+import org.adempiere.ad.modelvalidator.annotations.Interceptor;
+import org.adempiere.ad.modelvalidator.annotations.ModelChange;
+import org.adempiere.test.AdempiereTestHelper;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class ModelChangeDispatchTableTest
+{
+	private static final int CLIENT_ID = 1;
+	private static final int OTHER_CLIENT_ID = 2;
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+	}
+
+	@AllArgsConstructor
+	private static class TestInterceptor implements IModelInterceptor
+	{
+		@Getter
+		private final int AD_Client_ID;
+
+		@Override
+		public void initialize(final IModelValidationEngine engine, final I_AD_Client client)
+		{
+		}
+
+		@Override
+		public void onUserLogin(final int AD_Org_ID, final int AD_Role_ID, final int AD_User_ID)
+		{
+		}
+
+		@Override
+		public void onModelChange(final Object model, final ModelChangeType changeType)
+		{
+		}
+
+		@Override
+		public void onDocValidate(final Object model, final DocTimingType timing)
+		{
+		}
+	}
+
+	@Interceptor(I_C_Order.class)
+	public static class BeforeNewOrderInterceptor
+	{
+		@ModelChange(timings = ModelValidator.TYPE_BEFORE_NEW)
+		public void beforeNew(final I_C_Order order)
+		{
+		}
+	}
+
+	private static ModelValidator clientValidator(final int adClientId)
+	{
+		return ModelInterceptor2ModelValidatorWrapper.wrapIfNeeded(new TestInterceptor(adClientId));
+	}
+
+	@Test
+	public void systemValidatorsFirst_thenClientValidators()
+	{
+		final ModelValidator systemValidator = ModelInterceptor2ModelValidatorWrapper.wrapIfNeeded(new TestInterceptor(-1));
+		final ModelValidator clientValidator = clientValidator(CLIENT_ID);
+
+		final ModelChangeDispatchTable table = new ModelChangeDispatchTable(
+				ImmutableMap.of(
+						ModelChangeDispatchTable.getPropertyNameClient(I_C_Order.Table_Name, CLIENT_ID), ImmutableList.of(clientValidator),
+						ModelChangeDispatchTable.getPropertyNameSystem(I_C_Order.Table_Name), ImmutableList.of(systemValidator)),
+				ImmutableList.of(systemValidator));
+
+		assertThat(table.getValidators(I_C_Order.Table_Name, ModelValidator.TYPE_BEFORE_NEW, CLIENT_ID))
+				.containsExactly(systemValidator, clientValidator);
+		assertThat(table.getValidators(I_C_Order.Table_Name, ModelValidator.TYPE_BEFORE_NEW, OTHER_CLIENT_ID))
+				.containsExactly(systemValidator);
+		assertThat(table.getValidators(I_C_OrderLine.Table_Name, ModelValidator.TYPE_BEFORE_NEW, CLIENT_ID))
+				.isEmpty();
+
+		assertThat(table.hasValidators(I_C_Order.Table_Name, OTHER_CLIENT_ID)).isTrue();
+		assertThat(table.hasValidators(I_C_OrderLine.Table_Name, CLIENT_ID)).isFalse();
+	}
+
+	@Test
+	public void clientValidatorRegisteredForOtherClient_isNotInvoked()
+	{
+		final ModelValidator clientValidator = clientValidator(CLIENT_ID);
+
+		final ModelChangeDispatchTable table = new ModelChangeDispatchTable(
+				ImmutableMap.of(ModelChangeDispatchTable.getPropertyNameClient(I_C_Order.Table_Name, OTHER_CLIENT_ID), ImmutableList.of(clientValidator)),
+				ImmutableList.of());
+
+		assertThat(table.getValidators(I_C_Order.Table_Name, ModelValidator.TYPE_BEFORE_NEW, OTHER_CLIENT_ID)).isEmpty();
+	}
+
+	@Test
+	public void annotatedInterceptor_onlyForSubscribedChangeTypes()
+	{
+		final ModelValidator annotatedValidator = ModelInterceptor2ModelValidatorWrapper.wrapIfNeeded(
+				AnnotatedModelInterceptorFactory.get().createModelInterceptor(new BeforeNewOrderInterceptor()));
+
+		final ModelChangeDispatchTable table = new ModelChangeDispatchTable(
+				ImmutableMap.of(ModelChangeDispatchTable.getPropertyNameSystem(I_C_Order.Table_Name), ImmutableList.of(annotatedValidator)),
+				ImmutableList.of(annotatedValidator));
+
+		assertThat(table.getValidators(I_C_Order.Table_Name, ModelValidator.TYPE_BEFORE_NEW, CLIENT_ID)).containsExactly(annotatedValidator);
+		assertThat(table.getValidators(I_C_Order.Table_Name, ModelValidator.TYPE_AFTER_CHANGE, CLIENT_ID)).isEmpty();
+
+		// subsequent processing is decided by the engine
+		assertThat(table.getValidators(I_C_Order.Table_Name, ModelValidator.TYPE_SUBSEQUENT, CLIENT_ID)).containsExactly(annotatedValidator);
+	}
+}
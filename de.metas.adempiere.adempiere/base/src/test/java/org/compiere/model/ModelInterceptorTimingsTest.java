@@ -0,0 +1,91 @@
+package org.compiere.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import mockit.Mocked;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class ModelInterceptorTimingsTest
+{
+	@Mocked
+	private ModelValidator cheapValidator;
+	@Mocked
+	private ModelValidator expensiveValidator;
+
+	private ModelInterceptorTimings timings;
+
+	@Before
+	public void init()
+	{
+		timings = new ModelInterceptorTimings();
+	}
+
+	@Test
+	public void disabled_isNeverSampled()
+	{
+		timings.setEnabled(false);
+		timings.setSampleRate(1);
+
+		assertThat(timings.isSampled()).isFalse();
+	}
+
+	@Test
+	public void sampleRate1_isAlwaysSampled()
+	{
+		timings.setEnabled(true);
+		timings.setSampleRate(1);
+
+		for (int i = 0; i < 100; i++)
+		{
+			assertThat(timings.isSampled()).isTrue();
+		}
+	}
+
+	@Test
+	public void toSummaryLines_mostExpensiveFirst()
+	{
+		timings.setEnabled(true);
+		timings.setSampleRate(1);
+
+		for (int i = 0; i < 10; i++)
+		{
+			timings.record(cheapValidator, "C_Order", "BEFORE_NEW", TimeUnit.MICROSECONDS.toNanos(10));
+		}
+		timings.record(expensiveValidator, "C_Order", "AFTER_COMPLETE", TimeUnit.MILLISECONDS.toNanos(5));
+
+		final List<String> lines = timings.toSummaryLines();
+		assertThat(lines).hasSize(2);
+		assertThat(lines.get(0)).contains("(AFTER_COMPLETE)").contains("samples=1");
+		assertThat(lines.get(1)).contains("(BEFORE_NEW)").contains("samples=10");
+
+		timings.reset();
+		assertThat(timings.toSummaryLines()).isEmpty();
+	}
+}
@@ -0,0 +1,226 @@
+package org.compiere.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Proxy;
+import java.util.Properties;
+
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.model.GeneratedModelAccessor;
+import org.adempiere.model.InterfaceWrapperHelper;
+import org.adempiere.model.POWrapper;
+import org.adempiere.test.AdempiereTestHelper;
+import org.compiere.util.Env;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Makes sure that the model accessors which are generated by {@link POWrapper} behave exactly like the proxies it creates otherwise.
+ */
+public class POWrapper_GeneratedModelAccessorTest
+{
+	public interface I_Test_Record
+	{
+		String Table_Name = RecordPOForTesting.TABLENAME;
+
+		int getTest_Record_ID();
+
+		int getAD_Org_ID();
+
+		void setAD_Org_ID(int AD_Org_ID);
+
+		String getName();
+
+		void setName(String Name);
+	}
+
+	private static class OtherRecordPO extends RecordPOForTesting
+	{
+		private static final long serialVersionUID = 1L;
+
+		public OtherRecordPO(final Properties ctx, final String trxName)
+		{
+			super(ctx, trxName);
+		}
+
+		@Override
+		protected int getTestTableId()
+		{
+			return 2;
+		}
+
+		@Override
+		protected String getTestTableName()
+		{
+			return "Test_Other_Record";
+		}
+	}
+
+	private boolean useGeneratedModelAccessorsOld;
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+		useGeneratedModelAccessorsOld = POWrapper.isUseGeneratedModelAccessors();
+	}
+
+	@After
+	public void restoreUseGeneratedModelAccessors()
+	{
+		POWrapper.setUseGeneratedModelAccessors(useGeneratedModelAccessorsOld);
+	}
+
+	private static RecordPOForTesting newRecordPO(final int id, final String name)
+	{
+		final RecordPOForTesting po = new RecordPOForTesting(Env.getCtx(), ITrx.TRXNAME_None);
+		po.setIdAndName(id, name);
+		return po;
+	}
+
+	private static I_Test_Record wrapUsingGeneratedModelAccessor(final PO po)
+	{
+		POWrapper.setUseGeneratedModelAccessors(true);
+		final I_Test_Record model = POWrapper.create(po, I_Test_Record.class);
+		assertThat(model).isInstanceOf(GeneratedModelAccessor.class);
+		return model;
+	}
+
+	private static I_Test_Record wrapUsingProxy(final PO po)
+	{
+		POWrapper.setUseGeneratedModelAccessors(false);
+		final I_Test_Record model = POWrapper.create(po, I_Test_Record.class);
+		assertThat(Proxy.isProxyClass(model.getClass())).isTrue();
+		return model;
+	}
+
+	@Test
+	public void getters()
+	{
+		final RecordPOForTesting po = newRecordPO(10, "name1");
+		final I_Test_Record generated = wrapUsingGeneratedModelAccessor(po);
+		final I_Test_Record proxy = wrapUsingProxy(po);
+
+		assertThat(generated.getTest_Record_ID()).isEqualTo(10).isEqualTo(proxy.getTest_Record_ID());
+		assertThat(generated.getAD_Org_ID()).isEqualTo(0).isEqualTo(proxy.getAD_Org_ID());
+		assertThat(generated.getName()).isEqualTo("name1").isEqualTo(proxy.getName());
+	}
+
+	@Test
+	public void primitiveGetterOfUnsetValue()
+	{
+		final RecordPOForTesting po = new RecordPOForTesting(Env.getCtx(), ITrx.TRXNAME_None);
+		final I_Test_Record generated = wrapUsingGeneratedModelAccessor(po);
+		final I_Test_Record proxy = wrapUsingProxy(po);
+
+		assertThat(generated.getTest_Record_ID()).isEqualTo(proxy.getTest_Record_ID());
+		assertThat(generated.getName()).isNull();
+		assertThat(proxy.getName()).isNull();
+	}
+
+	@Test
+	public void gettersOfPOsOfDifferentTables()
+	{
+		final RecordPOForTesting po = newRecordPO(10, "name1");
+		final OtherRecordPO otherPO = new OtherRecordPO(Env.getCtx(), ITrx.TRXNAME_None);
+		otherPO.setIdAndName(20, "name2");
+
+		for (int i = 0; i < 2; i++)
+		{
+			final I_Test_Record generated = wrapUsingGeneratedModelAccessor(po);
+			assertThat(generated.getTest_Record_ID()).isEqualTo(10);
+			assertThat(generated.getName()).isEqualTo("name1");
+
+			// the other table has no Test_Record_ID column
+			final I_Test_Record otherGenerated = wrapUsingGeneratedModelAccessor(otherPO);
+			assertThat(otherGenerated.getTest_Record_ID()).isEqualTo(wrapUsingProxy(otherPO).getTest_Record_ID());
+			assertThat(otherGenerated.getName()).isEqualTo("name2");
+		}
+	}
+
+	@Test
+	public void setters()
+	{
+		final RecordPOForTesting po = newRecordPO(10, "name1");
+		final I_Test_Record generated = wrapUsingGeneratedModelAccessor(po);
+		final I_Test_Record proxy = wrapUsingProxy(po);
+
+		generated.setName("name2");
+		generated.setAD_Org_ID(1);
+		assertThat(po.getName()).isEqualTo("name2");
+		assertThat(proxy.getName()).isEqualTo("name2");
+		assertThat(proxy.getAD_Org_ID()).isEqualTo(1);
+
+		proxy.setName("name3");
+		assertThat(generated.getName()).isEqualTo("name3");
+	}
+
+	@Test
+	public void equalsAndHashCode()
+	{
+		final RecordPOForTesting po = newRecordPO(10, "name1");
+		final I_Test_Record generated = wrapUsingGeneratedModelAccessor(po);
+		final I_Test_Record proxy = wrapUsingProxy(po);
+
+		assertThat(generated.equals(proxy)).isTrue();
+		assertThat(proxy.equals(generated)).isTrue();
+		assertThat(generated.equals(wrapUsingGeneratedModelAccessor(po))).isTrue();
+		assertThat(generated.hashCode()).isEqualTo(proxy.hashCode());
+
+		final I_Test_Record otherGenerated = wrapUsingGeneratedModelAccessor(newRecordPO(20, "name2"));
+		assertThat(generated.equals(otherGenerated)).isFalse();
+		assertThat(proxy.equals(otherGenerated)).isFalse();
+	}
+
+	@Test
+	public void getPO()
+	{
+		final RecordPOForTesting po = newRecordPO(10, "name1");
+		final I_Test_Record generated = wrapUsingGeneratedModelAccessor(po);
+		final I_Test_Record proxy = wrapUsingProxy(po);
+
+		assertThat(POWrapper.isHandled(generated)).isTrue();
+		final PO generatedPO = InterfaceWrapperHelper.getPO(generated);
+		final PO proxyPO = InterfaceWrapperHelper.getPO(proxy);
+		assertThat(generatedPO).isSameAs(po);
+		assertThat(proxyPO).isSameAs(po);
+
+		// re-wrapping a generated accessor shall wrap the same PO
+		final I_Test_Record rewrapped = POWrapper.create(generated, I_Test_Record.class, true);
+		final PO rewrappedPO = InterfaceWrapperHelper.getPO(rewrapped);
+		assertThat(rewrappedPO).isSameAs(po);
+	}
+
+	@Test
+	public void toStringOfPO()
+	{
+		final RecordPOForTesting po = newRecordPO(10, "name1");
+		final I_Test_Record generated = wrapUsingGeneratedModelAccessor(po);
+		final I_Test_Record proxy = wrapUsingProxy(po);
+
+		assertThat(generated.toString()).isEqualTo(proxy.toString());
+	}
+}
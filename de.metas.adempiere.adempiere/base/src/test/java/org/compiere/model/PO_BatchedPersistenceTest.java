@@ -0,0 +1,209 @@
+package org.compiere.model;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Properties;
+
+import org.adempiere.ad.modelvalidator.AbstractModelInterceptor;
+import org.adempiere.ad.modelvalidator.IModelValidationEngine;
+import org.adempiere.ad.trx.api.IBatchedPersistenceScope;
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.ad.trx.api.OnTrxMissingPolicy;
+import org.adempiere.ad.trx.api.impl.MockedTrx;
+import org.adempiere.ad.trx.api.impl.MockedTrxManager;
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.test.AdempiereTestHelper;
+import org.compiere.util.DB;
+import org.compiere.util.DB.OnFail;
+import org.compiere.util.Env;
+import org.compiere.util.ISqlUpdateReturnProcessor;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.metas.util.Services;
+import mockit.Expectations;
+import mockit.Verifications;
+
+/**
+ * Checks that {@link PO#saveEx()} queues its SQL into the {@link IBatchedPersistenceScope} only for eligible tables.
+ */
+public class PO_BatchedPersistenceTest
+{
+	private static final String TABLENAME_Batched = RecordPOForTesting.TABLENAME;
+	private static final String TABLENAME_Intercepted = "Test_Intercepted";
+
+	private MockedTrx trx;
+	private MockedTrxManager trxManager;
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+		ModelValidationEngine.setFailOnMissingModelInteceptors(false);
+
+		trxManager = new MockedTrxManager();
+		Services.registerService(ITrxManager.class, trxManager);
+
+		trx = (MockedTrx)trxManager.get("TestTrx", OnTrxMissingPolicy.CreateNew);
+		trx.start();
+
+		// avoid hitting the database
+		new Expectations(DB.class, MTree.class, MWorkflow.class)
+		{{
+			MTree.hasTree(anyInt);
+			result = false;
+			minTimes = 0;
+
+			MWorkflow.getDocValue((Properties)any, anyInt, anyInt, anyString);
+			result = null;
+			minTimes = 0;
+
+			DB.executeUpdate(anyString, (Object[])any, (OnFail)any, anyString, anyInt, (ISqlUpdateReturnProcessor)any);
+			result = 1;
+			minTimes = 0;
+		}};
+	}
+
+	@Test
+	public void saveEx_eligibleTable_isQueued()
+	{
+		try (final IBatchedPersistenceScope scope = trxManager.openBatchedPersistenceScope(trx.getTrxName()))
+		{
+			final RecordPOForTesting record1 = new RecordPOForTesting(Env.getCtx(), trx.getTrxName());
+			record1.setIdAndName(10, "name1");
+			record1.saveEx();
+
+			final RecordPOForTesting record2 = new RecordPOForTesting(Env.getCtx(), trx.getTrxName());
+			record2.setIdAndName(11, "name2");
+			record2.saveEx();
+
+			assertThat(scope.getQueuedStatementsCount()).isEqualTo(2);
+			assertThat(trx.getExecutedBatches()).isEmpty();
+		}
+
+		assertThat(trx.getExecutedBatches()).hasSize(1);
+		final List<String> batch = trx.getExecutedBatches().get(0);
+		assertThat(batch).hasSize(2);
+		assertThat(batch.get(0)).startsWith("INSERT INTO " + TABLENAME_Batched + " ").contains("'name1'");
+		assertThat(batch.get(1)).startsWith("INSERT INTO " + TABLENAME_Batched + " ").contains("'name2'");
+
+		new Verifications()
+		{{
+			DB.executeUpdate(anyString, (Object[])any, (OnFail)any, anyString, anyInt, (ISqlUpdateReturnProcessor)any);
+			times = 0;
+		}};
+	}
+
+	@Test
+	public void saveEx_failingAfterQueuing_removesStatement()
+	{
+		new Expectations(MTree_Base.class)
+		{{
+			MTree_Base.insertTreeNode((PO)any);
+			result = new AdempiereException("test");
+		}};
+
+		try (final IBatchedPersistenceScope scope = trxManager.openBatchedPersistenceScope(trx.getTrxName()))
+		{
+			final RecordPOForTesting record1 = new RecordPOForTesting(Env.getCtx(), trx.getTrxName());
+			record1.setIdAndName(10, "name1");
+			assertThatThrownBy(record1::saveEx).hasMessageContaining("test");
+
+			assertThat(scope.getQueuedStatementsCount()).isZero();
+		}
+
+		assertThat(trx.getExecutedBatches()).isEmpty();
+	}
+
+	@Test
+	public void saveEx_tableWithModelInterceptor_isExecutedRightAway()
+	{
+		ModelValidationEngine.get().addModelChange(TABLENAME_Intercepted, new AbstractModelInterceptor()
+		{
+			@Override
+			protected void onInit(final IModelValidationEngine engine, final I_AD_Client client)
+			{
+				// nothing
+			}
+		});
+
+		try (final IBatchedPersistenceScope scope = trxManager.openBatchedPersistenceScope(trx.getTrxName()))
+		{
+			final InterceptedTestRecord record = new InterceptedTestRecord(Env.getCtx(), trx.getTrxName());
+			record.setIdAndName(20, "name1");
+			record.saveEx();
+
+			assertThat(scope.getQueuedStatementsCount()).isZero();
+		}
+
+		assertThat(trx.getExecutedBatches()).isEmpty();
+
+		new Verifications()
+		{{
+			DB.executeUpdate(withPrefix("INSERT INTO " + TABLENAME_Intercepted + " "), (Object[])any, (OnFail)any, anyString, anyInt, (ISqlUpdateReturnProcessor)any);
+			times = 1;
+		}};
+	}
+
+	@Test
+	public void saveEx_withoutScope_isExecutedRightAway()
+	{
+		final RecordPOForTesting record = new RecordPOForTesting(Env.getCtx(), trx.getTrxName());
+		record.setIdAndName(30, "name1");
+		record.saveEx();
+
+		assertThat(trx.getExecutedBatches()).isEmpty();
+
+		new Verifications()
+		{{
+			DB.executeUpdate(withPrefix("INSERT INTO " + TABLENAME_Batched + " "), (Object[])any, (OnFail)any, anyString, anyInt, (ISqlUpdateReturnProcessor)any);
+			times = 1;
+		}};
+	}
+
+	private static class InterceptedTestRecord extends RecordPOForTesting
+	{
+		private static final long serialVersionUID = 1L;
+
+		public InterceptedTestRecord(final Properties ctx, final String trxName)
+		{
+			super(ctx, trxName);
+		}
+
+		@Override
+		protected int getTestTableId()
+		{
+			return 2;
+		}
+
+		@Override
+		protected String getTestTableName()
+		{
+			return TABLENAME_Intercepted;
+		}
+	}
+}
@@ -0,0 +1,175 @@
+package org.compiere.model;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Properties;
+
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.ad.trx.api.IWriteBehindScope;
+import org.adempiere.ad.trx.api.OnTrxMissingPolicy;
+import org.adempiere.ad.trx.api.impl.MockedTrx;
+import org.adempiere.ad.trx.api.impl.MockedTrxManager;
+import org.adempiere.test.AdempiereTestHelper;
+import org.compiere.util.DB;
+import org.compiere.util.DB.OnFail;
+import org.compiere.util.Env;
+import org.compiere.util.ISqlUpdateReturnProcessor;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.metas.util.Services;
+import mockit.Expectations;
+import mockit.Verifications;
+
+/**
+ * Checks that {@link PO#saveEx()} defers the save of records which were loaded in an {@link IWriteBehindScope}.
+ */
+public class PO_WriteBehindTest
+{
+	private static final String TABLENAME = RecordPOForTesting.TABLENAME;
+
+	private MockedTrx trx;
+	private MockedTrxManager trxManager;
+	private IWriteBehindScope scope;
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+		ModelValidationEngine.setFailOnMissingModelInteceptors(false);
+
+		trxManager = new MockedTrxManager();
+		Services.registerService(ITrxManager.class, trxManager);
+
+		trx = (MockedTrx)trxManager.get("TestTrx", OnTrxMissingPolicy.CreateNew);
+		trx.start();
+
+		// avoid hitting the database
+		new Expectations(DB.class, MTree.class, MWorkflow.class)
+		{{
+			MTree.hasTree(anyInt);
+			result = false;
+			minTimes = 0;
+
+			MWorkflow.getDocValue((Properties)any, anyInt, anyInt, anyString);
+			result = null;
+			minTimes = 0;
+
+			DB.executeUpdate(anyString, (Object[])any, (OnFail)any, anyString, anyInt, (ISqlUpdateReturnProcessor)any);
+			result = 1;
+			minTimes = 0;
+
+			DB.executeUpdateEx(anyString, anyString);
+			result = 1;
+			minTimes = 0;
+		}};
+
+		scope = trxManager.openWriteBehindScope(trx.getTrxName());
+	}
+
+	/**
+	 * @return a record which is not new anymore and which is registered in the write-behind scope, as if it was loaded by a query
+	 */
+	private RecordPOForTesting loadRecord(final int id, final String name)
+	{
+		final RecordPOForTesting record = new RecordPOForTesting(Env.getCtx(), trx.getTrxName());
+		record.setIdAndName(id, name);
+		record.saveEx();
+
+		return scope.getOrRegisterLoadedModel(TABLENAME, id, record, PO::refreshLoadedValuesFrom);
+	}
+
+	private void assertUpdatesExecuted(final String sqlPrefix, final int expectedTimes)
+	{
+		new Verifications()
+		{{
+			DB.executeUpdateEx(withPrefix(sqlPrefix), anyString);
+			times = expectedTimes;
+		}};
+	}
+
+	@Test
+	public void repeatedSavesAreExecutedOnceBeforeNextStatement()
+	{
+		final RecordPOForTesting record = loadRecord(10, "name1");
+
+		record.setName("name2");
+		record.saveEx();
+		record.setName("name3");
+		record.saveEx();
+
+		assertThat(scope.getDeferredSavesCount()).isEqualTo(2);
+		assertUpdatesExecuted("UPDATE " + TABLENAME + " ", 0);
+
+		// that's what each SQL statement executed in this transaction (e.g. a query) does first, see AbstractCStatementProxy
+		trx.flushWriteBehindModels();
+
+		assertUpdatesExecuted("UPDATE " + TABLENAME + " SET Name='name3'", 1);
+		assertUpdatesExecuted("UPDATE " + TABLENAME + " ", 1);
+		assertThat(scope.getExecutedSavesCount()).isEqualTo(1);
+		assertThat(record.is_Changed()).isFalse();
+	}
+
+	@Test
+	public void dirtyRecordIsSavedBeforeSavepoint()
+	{
+		final RecordPOForTesting record = loadRecord(10, "name1");
+		record.setName("name2");
+		record.saveEx();
+		assertUpdatesExecuted("UPDATE " + TABLENAME + " ", 0);
+
+		trx.createTrxSavepoint(null);
+
+		assertUpdatesExecuted("UPDATE " + TABLENAME + " SET Name='name2'", 1);
+	}
+
+	@Test
+	public void dirtyRecordIsSavedOnCommit()
+	{
+		final RecordPOForTesting record = loadRecord(10, "name1");
+		record.setName("name2");
+		record.saveEx();
+		assertUpdatesExecuted("UPDATE " + TABLENAME + " ", 0);
+
+		trx.commit();
+
+		assertUpdatesExecuted("UPDATE " + TABLENAME + " SET Name='name2'", 1);
+	}
+
+	@Test
+	public void reloadingRecordRefreshesTheRegisteredInstance()
+	{
+		final RecordPOForTesting record = loadRecord(10, "name1");
+
+		// the record was changed in database meanwhile, and is loaded again
+		final RecordPOForTesting reloadedRecord = new RecordPOForTesting(Env.getCtx(), trx.getTrxName());
+		reloadedRecord.setIdAndName(10, "changed in database");
+		reloadedRecord.saveEx();
+
+		assertThat(scope.getOrRegisterLoadedModel(TABLENAME, 10, reloadedRecord, PO::refreshLoadedValuesFrom)).isSameAs(record);
+		assertThat(record.getName()).isEqualTo("changed in database");
+		assertThat(record.is_Changed()).isFalse();
+	}
+}
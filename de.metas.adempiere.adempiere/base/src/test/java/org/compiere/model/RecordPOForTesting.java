@@ -0,0 +1,115 @@
+package org.compiere.model;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.util.Properties;
+
+import org.adempiere.ad.security.TableAccessLevel;
+import org.compiere.util.DisplayType;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A PO whose {@link POInfo} is built in memory, so it can be created, wrapped and saved in tests without database (as long as the actual SQL execution is mocked).
+ * <p>
+ * It has no tree, no change log, no afterSave and no staleable columns.
+ */
+/* package */ class RecordPOForTesting extends PO
+{
+	private static final long serialVersionUID = 1L;
+
+	public static final String TABLENAME = "Test_Record";
+
+	public RecordPOForTesting(final Properties ctx, final String trxName)
+	{
+		super(ctx, 0, trxName);
+	}
+
+	/** NOTE: called from {@link #initPO(Properties)}, i.e. before the fields of this instance are initialized, so it shall return a constant */
+	protected int getTestTableId()
+	{
+		return 1;
+	}
+
+	/** NOTE: called from {@link #initPO(Properties)}, i.e. before the fields of this instance are initialized, so it shall return a constant */
+	protected String getTestTableName()
+	{
+		return TABLENAME;
+	}
+
+	@Override
+	protected POInfo initPO(final Properties ctx)
+	{
+		return createPOInfo(getTestTableId(), getTestTableName());
+	}
+
+	public void setIdAndName(final int id, final String name)
+	{
+		setIsAssignedID(true);
+		set_ValueNoCheck(getTestTableName() + "_ID", id);
+		set_ValueNoCheck("AD_Org_ID", 0);
+		setName(name);
+	}
+
+	public void setName(final String name)
+	{
+		set_ValueNoCheck("Name", name);
+	}
+
+	public String getName()
+	{
+		return (String)get_Value("Name");
+	}
+
+	private static POInfo createPOInfo(final int adTableId, final String tableName)
+	{
+		return new POInfo(adTableId, tableName, TableAccessLevel.All, ImmutableList.of(
+				createPOInfoColumn(1, tableName, tableName + "_ID", DisplayType.ID, true),
+				createPOInfoColumn(2, tableName, "AD_Client_ID", DisplayType.TableDir, false),
+				createPOInfoColumn(3, tableName, "AD_Org_ID", DisplayType.TableDir, false),
+				createPOInfoColumn(4, tableName, "Name", DisplayType.String, false)));
+	}
+
+	private static POInfoColumn createPOInfoColumn(final int adColumnId, final String tableName, final String columnName, final int displayType, final boolean isKey)
+	{
+		return new POInfoColumn(
+				adColumnId, tableName, columnName,
+				null, // columnSQL
+				displayType,
+				true, // isMandatory
+				!isKey, // isUpdateable
+				null, // defaultLogic
+				columnName, // columnLabel
+				null, // columnDescription
+				isKey,
+				false, // isParent
+				0, // AD_Reference_Value_ID
+				0, // AD_Val_Rule_ID
+				60, // fieldLength
+				null, // valueMin
+				null, // valueMax
+				false, // isTranslated
+				false, // isEncrypted
+				true); // isAllowLogging
+	}
+}
@@ -0,0 +1,148 @@
+package org.compiere.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.compiere.model.TableIDBlockAllocator.IDBlock;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+
+/*
+ * #%L
+ * de.metas.adempiere.adempiere.base
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class TableIDBlockAllocatorTest
+{
+	/** Simulates <code>AD_Sequence.CurrentNext</code> */
+	private int currentNext;
+	private int incrementNo;
+	private int retrieveCount;
+
+	@Before
+	public void init()
+	{
+		currentNext = 1000000;
+		incrementNo = 1;
+		retrieveCount = 0;
+	}
+
+	private synchronized IDBlock retrieveIDBlock(final String tableName, final int blockSize)
+	{
+		final IDBlock block = new IDBlock(currentNext, incrementNo, blockSize);
+		currentNext += incrementNo * blockSize;
+		retrieveCount++;
+		return block;
+	}
+
+	@Test
+	public void consecutiveIDs()
+	{
+		final TableIDBlockAllocator allocator = new TableIDBlockAllocator(this::retrieveIDBlock, Runnable::run);
+
+		for (int i = 0; i < 26; i++)
+		{
+			assertThat(allocator.getNextID("MyTable", 10)).isEqualTo(1000000 + i);
+		}
+
+		// 3 blocks used and the fourth was prefetched when the third one got half used
+		assertThat(retrieveCount).isEqualTo(4);
+		assertThat(currentNext).isEqualTo(1000040);
+	}
+
+	@Test
+	public void incrementNo()
+	{
+		incrementNo = 5;
+		final TableIDBlockAllocator allocator = new TableIDBlockAllocator(this::retrieveIDBlock, Runnable::run);
+
+		assertThat(allocator.getNextID("MyTable", 3)).isEqualTo(1000000);
+		assertThat(allocator.getNextID("MyTable", 3)).isEqualTo(1000005);
+		assertThat(allocator.getNextID("MyTable", 3)).isEqualTo(1000010);
+		assertThat(allocator.getNextID("MyTable", 3)).isEqualTo(1000015);
+	}
+
+	@Test
+	public void tablesAreIndependent()
+	{
+		final TableIDBlockAllocator allocator = new TableIDBlockAllocator(this::retrieveIDBlock, Runnable::run);
+
+		assertThat(allocator.getNextID("Table1", 100)).isEqualTo(1000000);
+		assertThat(allocator.getNextID("Table2", 100)).isEqualTo(1000100);
+		assertThat(allocator.getNextID("Table1", 100)).isEqualTo(1000001);
+	}
+
+	@Test
+	public void reset()
+	{
+		final TableIDBlockAllocator allocator = new TableIDBlockAllocator(this::retrieveIDBlock, Runnable::run);
+		assertThat(allocator.getNextID("MyTable", 100)).isEqualTo(1000000);
+
+		assertThat(allocator.reset()).isEqualTo(1);
+		currentNext = 2000000;
+
+		assertThat(allocator.getNextID("MyTable", 100)).isEqualTo(2000000);
+	}
+
+	@Test
+	public void concurrentCallers_noDuplicates() throws Exception
+	{
+		final TableIDBlockAllocator allocator = new TableIDBlockAllocator(this::retrieveIDBlock);
+
+		final int threads = 8;
+		final int idsPerThread = 5000;
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			final List<Future<List<Integer>>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++)
+			{
+				futures.add(executor.submit(() -> {
+					final List<Integer> ids = new ArrayList<>(idsPerThread);
+					for (int i = 0; i < idsPerThread; i++)
+					{
+						ids.add(allocator.getNextID("MyTable", 64));
+					}
+					return ids;
+				}));
+			}
+
+			final ImmutableSet.Builder<Integer> allIds = ImmutableSet.builder();
+			for (final Future<List<Integer>> future : futures)
+			{
+				allIds.addAll(future.get(30, TimeUnit.SECONDS));
+			}
+
+			assertThat(allIds.build()).hasSize(threads * idsPerThread);
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+}
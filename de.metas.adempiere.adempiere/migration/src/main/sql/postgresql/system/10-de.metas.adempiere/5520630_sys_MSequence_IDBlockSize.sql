@@ -0,0 +1,4 @@
+-- 2019-04-29T09:12:41.204
+-- URL zum Konzept
+INSERT INTO AD_SysConfig (AD_Client_ID,AD_Org_ID,AD_SysConfig_ID,ConfigurationLevel,Created,CreatedBy,Description,EntityType,IsActive,Name,Updated,UpdatedBy,Value) VALUES (0,0,541279,'S',TO_TIMESTAMP('2019-04-29 09:12:41','YYYY-MM-DD HH24:MI:SS'),100,'How many table IDs shall be reserved from AD_Sequence in one go and handed out from memory. 1 means that each ID is fetched from AD_Sequence. Bigger values mean less contention on AD_Sequence but bigger gaps in the IDs, because reserved but unused IDs are lost on shutdown. Can be overridden per table by appending .<TableName> to the name. Does not apply to dictionary IDs.','D','Y','org.compiere.model.MSequence.IDBlockSize',TO_TIMESTAMP('2019-04-29 09:12:41','YYYY-MM-DD HH24:MI:SS'),100,'1')
+;
@@ -131,6 +131,46 @@ public interface IQueueDAO extends ISingletonService
 
 	IQuery<I_C_Queue_WorkPackage> createQuery(Properties ctx, IWorkPackageQuery packageQuery);
 
+	/**
+	 * Claims up to <code>limit</code> workpackages which are matched by the given query, using one single statement.
+	 * <p>
+	 * The claim is stored on the workpackage record itself (<code>C_Queue_WorkPackage.ClaimedBy</code>) and not in <code>T_Lock</code>. Workpackages which are locked in <code>T_Lock</code> are not
+	 * claimed; that's checked again after claiming, so a workpackage which was locked meanwhile is released and not returned. Together with {@link #isClaimed(int)} this ensures that a workpackage is
+	 * never both claimed and locked. Rows which are concurrently claimed by someone else are skipped (<code>SELECT ... FOR UPDATE SKIP LOCKED</code>), so concurrent claimers don't wait for each other.
+	 *
+	 * @param claimedBy claim owner; shall start with this JVM's owner prefix, see {@link #renewClaims(String)}
+	 * @return IDs of the claimed workpackages, in queue order
+	 */
+	List<Integer> claimWorkpackageIds(Properties ctx, IWorkPackageQuery packageQuery, String claimedBy, int limit);
+
+	/**
+	 * Checks the claim out of transaction, i.e. also sees claims which were committed after the given workpackage was loaded.
+	 * <p>
+	 * Shall be called after a workpackage was locked in <code>T_Lock</code>, because it might have been claimed between being selected and being locked.
+	 *
+	 * @return true if the given workpackage is currently claimed
+	 */
+	boolean isClaimed(int workpackageId);
+
+	/**
+	 * @return true if the workpackage was claimed and its claim was released now
+	 */
+	boolean releaseClaim(int workpackageId);
+
+	/**
+	 * Sets <code>ClaimedAt</code> of all claims whose owner starts with the given prefix to now, so that they don't expire.
+	 *
+	 * @return how many claims were renewed
+	 */
+	int renewClaims(String claimedByPrefix);
+
+	/**
+	 * Releases all claims, no matter by whom, which were made or renewed more than the given number of minutes ago.
+	 *
+	 * @return how many claims were released
+	 */
+	int releaseExpiredClaims(int timeoutMinutes);
+
 	/**
 	 * Return the ordering used when the next work package is retrieved from the queue. Can be used where it is required to have the same ordering as the queue.
 	 *
@@ -58,4 +58,10 @@ public interface IWorkPackageQuery
 	 */
 	public abstract String getPriorityFrom();
 
+	/**
+	 * @return <code>false</code> if only workpackages which are not claimed shall be matched; <code>null</code> if the claim state does not matter
+	 * @see IQueueDAO#claimWorkpackageIds(java.util.Properties, IWorkPackageQuery, String, int)
+	 */
+	public abstract Boolean getClaimed();
+
 }
@@ -87,6 +87,18 @@ public interface IWorkPackageQueue
 	 */
 	I_C_Queue_WorkPackage pollAndLock(long timeoutMillis);
 
+	/**
+	 * Same as {@link #pollAndLock(long)}, but retrieves up to <code>maxWorkPackages</code> workpackages in one go.
+	 * <p>
+	 * The workpackages are not locked in <code>T_Lock</code>, but claimed using one single <code>SELECT ... FOR UPDATE SKIP LOCKED</code> statement which flags the workpackage records themselves.
+	 * This avoids the lock table churn and the round-trip per workpackage when there are a lot of small workpackages.
+	 * To release the claim, use {@link #unlock(I_C_Queue_WorkPackage)} as usual.
+	 *
+	 * @return claimed workpackages, each one with its own context; empty list if nothing was found within the given timeout
+	 * @see IQueueDAO#claimWorkpackageIds(Properties, IWorkPackageQuery, String, int)
+	 */
+	List<I_C_Queue_WorkPackage> pollAndClaim(int maxWorkPackages, long timeoutMillis);
+
 	/**
 	 * Unlocks given package
 	 * 
@@ -105,6 +117,11 @@ public interface IWorkPackageQueue
 	 */
 	boolean unlockNoFail(I_C_Queue_WorkPackage workPackage);
 
+	/**
+	 * @return how this queue was woken up by "workpackage ready" database notifications while waiting in {@link #pollAndLock(long)}
+	 */
+	WorkPackageQueueWakeUpStatistics getWakeUpStatistics();
+
 	/**
 	 * Retrieve the global queue size (i.e. number of unprocessed workpackages). This includes a DB query.
 	 * 
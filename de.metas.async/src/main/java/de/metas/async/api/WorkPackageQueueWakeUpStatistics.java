@@ -0,0 +1,52 @@
+package de.metas.async.api;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Snapshot of how a workpackage queue was woken up by database notifications.
+ *
+ * @see IWorkPackageQueue#getWakeUpStatistics()
+ */
+@Value
+@Builder
+public class WorkPackageQueueWakeUpStatistics
+{
+	/** How many "workpackage ready" notifications were received for this queue's package processors */
+	long countNotifications;
+
+	/** How many workpackages were acquired right after the queue was woken up by a notification */
+	long countWakeUpsWithWorkpackage;
+
+	/** How many workpackages were acquired by the periodic (safety net) polling, without a notification */
+	long countSafetyNetPollsWithWorkpackage;
+
+	/** Average time between receiving a notification and having acquired the workpackage; -1 if not available */
+	long avgWakeUpToStartMillis;
+
+	long maxWakeUpToStartMillis;
+
+	long lastWakeUpToStartMillis;
+}
@@ -24,10 +24,13 @@ package de.metas.async.api.impl;
 
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.adempiere.ad.dao.IQueryFilter;
 import org.adempiere.ad.dao.impl.POJOQuery;
@@ -44,9 +47,11 @@ import de.metas.async.model.I_C_Queue_PackageProcessor;
 import de.metas.async.model.I_C_Queue_Processor;
 import de.metas.async.model.I_C_Queue_Processor_Assign;
 import de.metas.async.model.I_C_Queue_WorkPackage;
+import de.metas.lock.api.ILockManager;
 import de.metas.logging.LogManager;
 import de.metas.util.Services;
 import de.metas.util.time.SystemTime;
+import lombok.Value;
 
 public class PlainQueueDAO extends AbstractQueueDAO
 {
@@ -54,6 +59,9 @@ public class PlainQueueDAO extends AbstractQueueDAO
 
 	private POJOLookupMap db = POJOLookupMap.get();
 
+	/** Workpackage claims; in the SQL implementation they are stored in C_Queue_WorkPackage.ClaimedBy/ClaimedAt */
+	private final Map<Integer, WorkpackageClaim> claimedByWorkpackageId = new ConcurrentHashMap<>();
+
 	public PlainQueueDAO()
 	{
 		super();
@@ -196,17 +204,96 @@ public class PlainQueueDAO extends AbstractQueueDAO
 				I_C_Queue_WorkPackage.class,
 				null,  // tableName=null => get it from the given model class
 				ITrx.TRXNAME_None)
-				.addFilter(new QueueFilter(packageQuery))
+				.addFilter(new QueueFilter(packageQuery, claimedByWorkpackageId))
 				.setOrderBy(queueOrderByComparator);
 	}
 
+	@Override
+	public synchronized List<Integer> claimWorkpackageIds(final Properties ctx, final IWorkPackageQuery packageQuery, final String claimedBy, final int limit)
+	{
+		final ILockManager lockManager = Services.get(ILockManager.class);
+
+		final List<Integer> claimedIds = new ArrayList<>();
+		for (final I_C_Queue_WorkPackage workpackage : createQuery(ctx, packageQuery).list(I_C_Queue_WorkPackage.class))
+		{
+			if (claimedIds.size() >= limit)
+			{
+				break;
+			}
+			if (lockManager.isLocked(workpackage))
+			{
+				continue;
+			}
+
+			final int workpackageId = workpackage.getC_Queue_WorkPackage_ID();
+			claimedByWorkpackageId.put(workpackageId, new WorkpackageClaim(claimedBy, SystemTime.millis()));
+
+			// same as QueueDAO: release the claim if the workpackage was locked meanwhile
+			if (lockManager.isLocked(workpackage))
+			{
+				claimedByWorkpackageId.remove(workpackageId);
+				continue;
+			}
+			claimedIds.add(workpackageId);
+		}
+		return claimedIds;
+	}
+
+	@Override
+	public boolean isClaimed(final int workpackageId)
+	{
+		return claimedByWorkpackageId.containsKey(workpackageId);
+	}
+
+	@Override
+	public boolean releaseClaim(final int workpackageId)
+	{
+		return claimedByWorkpackageId.remove(workpackageId) != null;
+	}
+
+	@Override
+	public int renewClaims(final String claimedByPrefix)
+	{
+		final long now = SystemTime.millis();
+		int countRenewed = 0;
+		for (final Map.Entry<Integer, WorkpackageClaim> entry : claimedByWorkpackageId.entrySet())
+		{
+			final String claimedBy = entry.getValue().getClaimedBy();
+			if (claimedBy.startsWith(claimedByPrefix))
+			{
+				entry.setValue(new WorkpackageClaim(claimedBy, now));
+				countRenewed++;
+			}
+		}
+		return countRenewed;
+	}
+
+	@Override
+	public int releaseExpiredClaims(final int timeoutMinutes)
+	{
+		final long expiredBefore = SystemTime.millis() - TimeUnit.MINUTES.toMillis(timeoutMinutes);
+
+		final int countBefore = claimedByWorkpackageId.size();
+		claimedByWorkpackageId.values().removeIf(claim -> claim.getClaimedAtMillis() < expiredBefore);
+		return countBefore - claimedByWorkpackageId.size();
+	}
+
+	@Value
+	private static class WorkpackageClaim
+	{
+		String claimedBy;
+		long claimedAtMillis;
+	}
+
 	private static class QueueFilter implements IQueryFilter<I_C_Queue_WorkPackage>
 	{
 		private final IWorkPackageQuery packageQuery;
+		private final Map<Integer, WorkpackageClaim> claimedByWorkpackageId;
 
-		public QueueFilter(final IWorkPackageQuery packageQuery)
+		public QueueFilter(final IWorkPackageQuery packageQuery, final Map<Integer, WorkpackageClaim> claimedByWorkpackageId)
 		{
 			this.packageQuery = packageQuery;
+			this.claimedByWorkpackageId = claimedByWorkpackageId;
 		}
 
 		@Override
@@ -260,6 +347,12 @@ public class PlainQueueDAO extends AbstractQueueDAO
 				return false;
 			}
 
+			final Boolean claimed = packageQuery.getClaimed();
+			if (claimed != null && claimed != claimedByWorkpackageId.containsKey(workpackage.getC_Queue_WorkPackage_ID()))
+			{
+				return false;
+			}
+
 			return true;
 		}
 
@@ -23,17 +23,25 @@ package de.metas.async.api.impl;
  */
 
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
+import org.adempiere.ad.dao.ISqlQueryFilter;
 import org.adempiere.ad.dao.impl.TypedSqlQuery;
 import org.adempiere.ad.dao.impl.TypedSqlQueryFilter;
 import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.exceptions.DBException;
 import org.adempiere.model.InterfaceWrapperHelper;
 import org.adempiere.model.PlainContextAware;
 import org.adempiere.util.lang.IContextAware;
@@ -44,6 +52,9 @@ import org.compiere.model.Query;
 import org.compiere.util.DB;
 import org.compiere.util.Env;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
 import de.metas.async.api.IWorkPackageQuery;
 import de.metas.async.exceptions.PackageItemNotAvailableException;
 import de.metas.async.model.I_C_Queue_Block;
@@ -54,9 +65,22 @@ import de.metas.async.model.I_C_Queue_Processor_Assign;
 import de.metas.async.model.I_C_Queue_WorkPackage;
 import de.metas.cache.annotation.CacheCtx;
 import de.metas.cache.annotation.CacheTrx;
+import de.metas.lock.api.ILockManager;
+import de.metas.util.Check;
+import de.metas.util.Services;
+import lombok.NonNull;
+import lombok.Value;
 
 public class QueueDAO extends AbstractQueueDAO
 {
+	/**
+	 * Technical columns which hold the claim of a workpackage; they are not part of the application dictionary.
+	 *
+	 * @see #claimWorkpackageIds(Properties, IWorkPackageQuery, String, int)
+	 */
+	private static final String COLUMNNAME_ClaimedBy = "ClaimedBy";
+	private static final String COLUMNNAME_ClaimedAt = "ClaimedAt";
+
 	public QueueDAO()
 	{
 		super();
@@ -158,6 +182,18 @@ public class QueueDAO extends AbstractQueueDAO
 	public IQuery<I_C_Queue_WorkPackage> createQuery(final Properties ctx, final IWorkPackageQuery packageQuery)
 	{
 		final List<Object> params = new ArrayList<>();
+		final String wc = buildWhereClause(packageQuery, params);
+
+		// NOTE: don't filter by AD_Client_ID because it might be that it's not available
+		return new TypedSqlQuery<>(ctx, I_C_Queue_WorkPackage.class, wc, ITrx.TRXNAME_None)
+				.setParameters(params)
+				.setOnlyActiveRecords(true)
+				.setOrderBy(queueOrderByComparator.getSql());
+
+	}
+
+	private String buildWhereClause(final IWorkPackageQuery packageQuery, final List<Object> params)
+	{
 		final StringBuilder wc = new StringBuilder("1=1");
 
 		// Only not processed packages
@@ -218,11 +254,168 @@ public class QueueDAO extends AbstractQueueDAO
 			params.add(packageQuery.getPriorityFrom());
 		}
 
-		// NOTE: don't filter by AD_Client_ID because it might be that it's not available
-		return new TypedSqlQuery<>(ctx, I_C_Queue_WorkPackage.class, wc.toString(), ITrx.TRXNAME_None)
-				.setParameters(params)
-				.setOnlyActiveRecords(true)
-				.setOrderBy(queueOrderByComparator.getSql());
+		// Only packages which are (not) claimed
+		if (packageQuery.getClaimed() != null)
+		{
+			wc.append(" AND ").append(COLUMNNAME_ClaimedBy).append(packageQuery.getClaimed() ? " IS NOT NULL" : " IS NULL");
+		}
 
+		return wc.toString();
+	}
+
+	@Override
+	public List<Integer> claimWorkpackageIds(
+			final Properties ctx,
+			@NonNull final IWorkPackageQuery packageQuery,
+			@NonNull final String claimedBy,
+			final int limit)
+	{
+		Check.assume(limit > 0, "limit > 0");
+		Check.assume(Boolean.FALSE.equals(packageQuery.getClaimed()), "Only not claimed workpackages shall be claimed: {}", packageQuery);
+
+		final List<Object> params = new ArrayList<>();
+		params.add(claimedBy);
+
+		final String notLockedWhereClause = ISqlQueryFilter.cast(Services.get(ILockManager.class).getNotLockedFilter(I_C_Queue_WorkPackage.class)).getSql();
+		final String sql = "UPDATE " + I_C_Queue_WorkPackage.Table_Name
+				+ " SET " + COLUMNNAME_ClaimedBy + "=?, " + COLUMNNAME_ClaimedAt + "=now()"
+				+ " WHERE " + I_C_Queue_WorkPackage.COLUMNNAME_C_Queue_WorkPackage_ID + " IN ("
+				+ " SELECT " + I_C_Queue_WorkPackage.COLUMNNAME_C_Queue_WorkPackage_ID
+				+ " FROM " + I_C_Queue_WorkPackage.Table_Name
+				+ " WHERE " + buildWhereClause(packageQuery, params)
+				+ " AND " + I_C_Queue_WorkPackage.COLUMNNAME_IsActive + "='Y'"
+				+ " AND " + notLockedWhereClause
+				+ " ORDER BY " + queueOrderByComparator.getSql()
+				+ " LIMIT " + limit
+				+ " FOR UPDATE SKIP LOCKED"
+				+ ")"
+				+ " RETURNING " + I_C_Queue_WorkPackage.COLUMNNAME_C_Queue_WorkPackage_ID + ", " + I_C_Queue_WorkPackage.COLUMNNAME_Priority;
+
+		final List<ClaimedWorkpackage> claimedWorkpackages = new ArrayList<>();
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try
+		{
+			pstmt = DB.prepareStatement(sql, ITrx.TRXNAME_None);
+			DB.setParameters(pstmt, params);
+			rs = pstmt.executeQuery();
+			while (rs.next())
+			{
+				claimedWorkpackages.add(new ClaimedWorkpackage(rs.getInt(1), rs.getString(2)));
+			}
+		}
+		catch (final SQLException e)
+		{
+			throw new DBException(e, sql, params);
+		}
+		finally
+		{
+			DB.close(rs, pstmt);
+		}
+
+		if (claimedWorkpackages.isEmpty())
+		{
+			return ImmutableList.of();
+		}
+
+		// A workpackage might have been locked in T_Lock after our sub-select evaluated the not-locked filter, but before our claim was committed.
+		// Now that our claim is committed, release it for each workpackage which is locked meanwhile. The lock owner does the same check the other way round (see isClaimed()),
+		// so in the worst case both back off, but never both process the same workpackage.
+		final Set<Integer> releasedWorkpackageIds = releaseClaimsOfLockedWorkpackages(
+				claimedBy,
+				claimedWorkpackages.stream().map(ClaimedWorkpackage::getWorkpackageId).collect(ImmutableSet.toImmutableSet()),
+				notLockedWhereClause);
+
+		// RETURNING does not preserve the ORDER BY of the sub-select, so restore the queue order
+		return claimedWorkpackages.stream()
+				.filter(claimedWorkpackage -> !releasedWorkpackageIds.contains(claimedWorkpackage.getWorkpackageId()))
+				.sorted(Comparator.comparing(ClaimedWorkpackage::getPriority).thenComparing(ClaimedWorkpackage::getWorkpackageId))
+				.map(ClaimedWorkpackage::getWorkpackageId)
+				.collect(ImmutableList.toImmutableList());
+	}
+
+	private Set<Integer> releaseClaimsOfLockedWorkpackages(
+			final String claimedBy,
+			final Set<Integer> workpackageIds,
+			final String notLockedWhereClause)
+	{
+		final List<Object> params = new ArrayList<>();
+		params.add(claimedBy);
+		final String sql = "UPDATE " + I_C_Queue_WorkPackage.Table_Name
+				+ " SET " + COLUMNNAME_ClaimedBy + "=NULL, " + COLUMNNAME_ClaimedAt + "=NULL"
+				+ " WHERE " + COLUMNNAME_ClaimedBy + "=?"
+				+ " AND " + DB.buildSqlList(I_C_Queue_WorkPackage.COLUMNNAME_C_Queue_WorkPackage_ID, workpackageIds, params)
+				+ " AND NOT (" + notLockedWhereClause + ")"
+				+ " RETURNING " + I_C_Queue_WorkPackage.COLUMNNAME_C_Queue_WorkPackage_ID;
+
+		final Set<Integer> releasedWorkpackageIds = new HashSet<>();
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try
+		{
+			pstmt = DB.prepareStatement(sql, ITrx.TRXNAME_None);
+			DB.setParameters(pstmt, params);
+			rs = pstmt.executeQuery();
+			while (rs.next())
+			{
+				releasedWorkpackageIds.add(rs.getInt(1));
+			}
+		}
+		catch (final SQLException e)
+		{
+			throw new DBException(e, sql, params);
+		}
+		finally
+		{
+			DB.close(rs, pstmt);
+		}
+
+		return releasedWorkpackageIds;
+	}
+
+	@Value
+	private static final class ClaimedWorkpackage
+	{
+		int workpackageId;
+		String priority;
+	}
+
+	@Override
+	public boolean isClaimed(final int workpackageId)
+	{
+		final String sql = "SELECT COUNT(1) FROM " + I_C_Queue_WorkPackage.Table_Name
+				+ " WHERE " + I_C_Queue_WorkPackage.COLUMNNAME_C_Queue_WorkPackage_ID + "=?"
+				+ " AND " + COLUMNNAME_ClaimedBy + " IS NOT NULL";
+		return DB.getSQLValueEx(ITrx.TRXNAME_None, sql, workpackageId) > 0;
+	}
+
+	@Override
+	public boolean releaseClaim(final int workpackageId)
+	{
+		final String sql = "UPDATE " + I_C_Queue_WorkPackage.Table_Name
+				+ " SET " + COLUMNNAME_ClaimedBy + "=NULL, " + COLUMNNAME_ClaimedAt + "=NULL"
+				+ " WHERE " + I_C_Queue_WorkPackage.COLUMNNAME_C_Queue_WorkPackage_ID + "=?"
+				+ " AND " + COLUMNNAME_ClaimedBy + " IS NOT NULL";
+		final int countReleased = DB.executeUpdateEx(sql, new Object[] { workpackageId }, ITrx.TRXNAME_None);
+		return countReleased > 0;
+	}
+
+	@Override
+	public int renewClaims(@NonNull final String claimedByPrefix)
+	{
+		final String sql = "UPDATE " + I_C_Queue_WorkPackage.Table_Name
+				+ " SET " + COLUMNNAME_ClaimedAt + "=now()"
+				+ " WHERE " + COLUMNNAME_ClaimedBy + " LIKE ?";
+		return DB.executeUpdateEx(sql, new Object[] { claimedByPrefix + "%" }, ITrx.TRXNAME_None);
+	}
+
+	@Override
+	public int releaseExpiredClaims(final int timeoutMinutes)
+	{
+		final String sql = "UPDATE " + I_C_Queue_WorkPackage.Table_Name
+				+ " SET " + COLUMNNAME_ClaimedBy + "=NULL, " + COLUMNNAME_ClaimedAt + "=NULL"
+				+ " WHERE " + COLUMNNAME_ClaimedBy + " IS NOT NULL"
+				+ " AND " + COLUMNNAME_ClaimedAt + " < now() - ? * interval '1 minute'";
+		return DB.executeUpdateEx(sql, new Object[] { timeoutMinutes }, ITrx.TRXNAME_None);
 	}
 }
@@ -0,0 +1,126 @@
+package de.metas.async.api.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.adempiere.service.ISysConfigBL;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.adempiere.util.net.NetUtils;
+import org.compiere.Adempiere;
+import org.slf4j.Logger;
+
+import de.metas.async.api.IQueueDAO;
+import de.metas.logging.LogManager;
+import de.metas.util.Services;
+
+/**
+ * Owner of the workpackage claims which are made by this JVM (see {@link de.metas.async.api.IWorkPackageQueue#pollAndClaim(int, long)}).
+ * <p>
+ * Each JVM has its own owner ID, so it never releases the claims of another JVM, not even of one on the same host.
+ * While the JVM is running, it periodically renews the <code>ClaimedAt</code> of its claims.
+ * A claim which was not renewed within the timeout (SysConfig {@value #SYSCONFIG_TimeoutMinutes}) belongs to a JVM which crashed or was stopped, so it is released by whichever JVM notices it first.
+ * <p>
+ * The renewing thread is started lazily, when this JVM claims workpackages for the first time.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+public final class WorkPackageClaimsOwner
+{
+	public static final WorkPackageClaimsOwner instance = new WorkPackageClaimsOwner();
+
+	private static final String SYSCONFIG_TimeoutMinutes = "de.metas.async.WorkPackageClaims.TimeoutMinutes";
+	private static final int DEFAULT_TimeoutMinutes = 15;
+
+	private static final transient Logger logger = LogManager.getLogger(WorkPackageClaimsOwner.class);
+
+	private final String claimedByPrefix = NetUtils.getLocalHost().getHostName() + "/" + UUID.randomUUID() + "/";
+
+	private ScheduledExecutorService renewer;
+
+	private WorkPackageClaimsOwner()
+	{
+	}
+
+	/**
+	 * @return prefix of the owner which is stored in <code>C_Queue_WorkPackage.ClaimedBy</code>; it is the host name plus an ID which is unique per JVM
+	 */
+	public String getClaimedByPrefix()
+	{
+		return claimedByPrefix;
+	}
+
+	/**
+	 * @return how many minutes a claim is valid without being renewed
+	 */
+	public int getTimeoutMinutes()
+	{
+		return Math.max(Services.get(ISysConfigBL.class).getIntValue(SYSCONFIG_TimeoutMinutes, DEFAULT_TimeoutMinutes), 1);
+	}
+
+	/**
+	 * Releases the claims of all JVMs which were not renewed within {@link #getTimeoutMinutes()}.
+	 *
+	 * @return how many claims were released
+	 */
+	public int releaseExpiredClaims()
+	{
+		return Services.get(IQueueDAO.class).releaseExpiredClaims(getTimeoutMinutes());
+	}
+
+	/* package */ synchronized void startRenewingIfNeeded()
+	{
+		if (renewer != null || Adempiere.isUnitTestMode())
+		{
+			return;
+		}
+
+		// renew well before the timeout, so that a late renewal doesn't let our claims expire
+		final long renewIntervalSeconds = Math.max(TimeUnit.MINUTES.toSeconds(getTimeoutMinutes()) / 3, 1);
+
+		renewer = Executors.newSingleThreadScheduledExecutor(CustomizableThreadFactory.builder()
+				.setThreadNamePrefix(WorkPackageClaimsOwner.class.getSimpleName())
+				.setDaemon(true)
+				.build());
+		renewer.scheduleWithFixedDelay(this::renewNoFail, renewIntervalSeconds, renewIntervalSeconds, TimeUnit.SECONDS);
+		logger.info("Renewing the workpackage claims of {} every {}s", claimedByPrefix, renewIntervalSeconds);
+	}
+
+	private void renewNoFail()
+	{
+		try
+		{
+			final int countRenewed = Services.get(IQueueDAO.class).renewClaims(claimedByPrefix);
+			final int countReleased = releaseExpiredClaims();
+			logger.debug("Renewed {} claims of {}; released {} expired claims", countRenewed, claimedByPrefix, countReleased);
+		}
+		catch (final Exception ex)
+		{
+			logger.warn("Failed renewing the workpackage claims of {}. Ignored.", claimedByPrefix, ex);
+		}
+	}
+}
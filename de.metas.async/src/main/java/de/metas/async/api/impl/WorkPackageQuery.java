@@ -37,6 +37,7 @@ public class WorkPackageQuery implements IWorkPackageQuery
 	private long skippedTimeoutMillis = 0;
 	private List<Integer> packageProcessorIds;
 	private String priorityFrom;
+	private Boolean claimed;
 
 	/*
 	 * (non-Javadoc)
@@ -162,6 +163,20 @@ public class WorkPackageQuery implements IWorkPackageQuery
 		this.priorityFrom = priorityFrom;
 	}
 
+	@Override
+	public Boolean getClaimed()
+	{
+		return claimed;
+	}
+
+	/**
+	 * @param claimed <code>false</code> to match only workpackages which are not claimed
+	 */
+	public void setClaimed(Boolean claimed)
+	{
+		this.claimed = claimed;
+	}
+
 	@Override
 	public String toString()
 	{
@@ -172,6 +187,7 @@ public class WorkPackageQuery implements IWorkPackageQuery
 				+ ", skippedTimeoutMillis=" + skippedTimeoutMillis
 				+ ", packageProcessorIds=" + packageProcessorIds
 				+ ", priorityFrom=" + priorityFrom
+				+ ", claimed=" + claimed
 				+ "]";
 	}
 
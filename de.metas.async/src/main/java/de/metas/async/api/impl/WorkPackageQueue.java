@@ -27,8 +27,11 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 import org.adempiere.ad.security.IUserRolePermissions;
 import org.adempiere.ad.security.IUserRolePermissionsDAO;
@@ -40,11 +43,14 @@ import org.adempiere.ad.trx.api.OnTrxMissingPolicy;
 import org.adempiere.exceptions.AdempiereException;
 import org.adempiere.model.InterfaceWrapperHelper;
 import org.adempiere.service.ISysConfigBL;
+import org.adempiere.util.lang.IAutoCloseable;
 import org.compiere.model.IQuery;
 import org.compiere.model.I_AD_User;
 import org.compiere.util.Env;
 import org.slf4j.Logger;
 
+import com.google.common.collect.ImmutableList;
+
 import de.metas.async.Async_Constants;
 import de.metas.async.api.IAsyncBatchBL;
 import de.metas.async.api.IQueueDAO;
@@ -52,6 +58,7 @@ import de.metas.async.api.IWorkPackageBL;
 import de.metas.async.api.IWorkPackageBlockBuilder;
 import de.metas.async.api.IWorkPackageQueue;
 import de.metas.async.api.IWorkpackageProcessorContextFactory;
+import de.metas.async.api.WorkPackageQueueWakeUpStatistics;
 import de.metas.async.model.I_C_Async_Batch;
 import de.metas.async.model.I_C_Queue_Block;
 import de.metas.async.model.I_C_Queue_Element;
@@ -78,6 +85,13 @@ public class WorkPackageQueue implements IWorkPackageQueue
 {
 	private final static String SYSCONFIG_POLLINTERVAL = "de.metas.async.PollIntervallMillis";
 
+	/**
+	 * Poll interval used while we are listening for "workpackage ready" database notifications.
+	 *
+	 * @see WorkPackageReadyNotificationListener
+	 */
+	private final static String SYSCONFIG_POLLINTERVAL_WHEN_NOTIFIED = "de.metas.async.PollIntervallMillisWhenNotified";
+
 	private static final transient Logger logger = LogManager.getLogger(WorkPackageQueue.class);
 
 	private final transient IQueueDAO dao;
@@ -109,6 +123,11 @@ public class WorkPackageQueue implements IWorkPackageQueue
 
 	private final ReentrantLock mainLock = new ReentrantLock();
 
+	private final WorkPackageReadySignal readySignal = new WorkPackageReadySignal();
+
+	/** IDs of the workpackages which were claimed by {@link #pollAndClaim(int, long)} and not yet unlocked */
+	private final Set<Integer> claimedWorkPackageIds = ConcurrentHashMap.newKeySet();
+
 	private WorkPackageQueue(final Properties ctx,
 			final List<Integer> packageProcessorIds,
 			final String enquingPackageProcessorInternalName,
@@ -208,51 +227,18 @@ public class WorkPackageQueue implements IWorkPackageQueue
 	{
 		final Properties workPackageCtx = Env.newTemporaryCtx();
 
-		final IQuery<I_C_Queue_WorkPackage> query = createQuery(workPackageCtx);
+		final IQuery<I_C_Queue_WorkPackage> query = dao.createQuery(workPackageCtx, createWorkPackageQueryForPolling());
 
-		final long startTS = SystemTime.millis();
-		I_C_Queue_WorkPackage workPackage = retrieveAndLock(query);
-		if (timeoutMillis == TIMEOUT_OneTimeOnly && workPackage == null)
+		final List<I_C_Queue_WorkPackage> workPackages = poll(timeoutMillis, () -> {
+			final I_C_Queue_WorkPackage workPackage = retrieveAndLock(query);
+			return workPackage != null ? ImmutableList.of(workPackage) : ImmutableList.of();
+		});
+		if (workPackages.isEmpty())
 		{
-			// We are running in one time only mode (synchronous mode) and we did not get the package from the first time
-			// No point to go further
 			return null;
 		}
 
-		while (workPackage == null)
-		{
-			// If we have a timeout specified, make sure we are not waiting more then that timeout
-			if (timeoutMillis != TIMEOUT_Infinite)
-			{
-				Check.assume(timeoutMillis > 0, "timeoutMillis > 0");
-
-				final long elapsedMillis = SystemTime.millis() - startTS;
-				if (elapsedMillis >= timeoutMillis)
-				{
-					logger.debug("Poll waiting time exceeded. Returning null");
-					return null;
-				}
-			}
-
-			// No workpackages were found. Sleep 1sec and then try again
-			try
-			{
-				// note: we always get the new service, because things might have changed since this method started
-				final int pollIntervalMs = Services.get(ISysConfigBL.class).getIntValue(SYSCONFIG_POLLINTERVAL, 1000);
-				Thread.sleep(pollIntervalMs);
-			}
-			catch (final InterruptedException e)
-			{
-				logger.debug("Got interrupted signal. Returning null", e);
-				return null;
-			}
-
-			// Try fetching the workpackage again
-			logger.trace("Retry retrieving next workpackage");
-			workPackage = retrieveAndLock(query);
-		}
-
-		Check.assumeNotNull(workPackage, "workPackage not null");
+		final I_C_Queue_WorkPackage workPackage = workPackages.get(0);
 
 		// Successfully acquired our lock :-)
 
@@ -269,6 +255,154 @@ public class WorkPackageQueue implements IWorkPackageQueue
 		return workPackage;
 	}
 
+	@Override
+	public List<I_C_Queue_WorkPackage> pollAndClaim(final int maxWorkPackages, final long timeoutMillis)
+	{
+		Check.assume(maxWorkPackages > 0, "maxWorkPackages > 0");
+
+		mainLock.lock();
+		try
+		{
+			final WorkPackageQuery workPackageQuery = createWorkPackageQueryForPolling();
+			return poll(timeoutMillis, () -> claim(workPackageQuery, maxWorkPackages));
+		}
+		finally
+		{
+			mainLock.unlock();
+		}
+	}
+
+	private List<I_C_Queue_WorkPackage> claim(final WorkPackageQuery workPackageQuery, final int maxWorkPackages)
+	{
+		final WorkPackageClaimsOwner claimsOwner = WorkPackageClaimsOwner.instance;
+		claimsOwner.startRenewingIfNeeded();
+
+		final String claimedBy = claimsOwner.getClaimedByPrefix() + packageProcessorIds;
+		final List<Integer> workPackageIds = dao.claimWorkpackageIds(ctx, workPackageQuery, claimedBy, maxWorkPackages);
+		if (workPackageIds.isEmpty())
+		{
+			return ImmutableList.of();
+		}
+
+		final List<I_C_Queue_WorkPackage> workPackages = new ArrayList<>(workPackageIds.size());
+		for (final int workPackageId : workPackageIds)
+		{
+			// NOTE: each workpackage gets its own context, because that's the context its processor will work with
+			final Properties workPackageCtx = Env.newTemporaryCtx();
+			final I_C_Queue_WorkPackage workPackage = InterfaceWrapperHelper.create(workPackageCtx, workPackageId, I_C_Queue_WorkPackage.class, ITrx.TRXNAME_None);
+			if (!isValid(workPackage))
+			{
+				logger.warn("Claimed {} but is not valid. Releasing the claim.", workPackage);
+				dao.releaseClaim(workPackageId);
+				continue;
+			}
+
+			claimedWorkPackageIds.add(workPackageId);
+			setupWorkpackageContext(workPackageCtx, workPackage);
+			workPackages.add(workPackage);
+		}
+		return workPackages;
+	}
+
+	/**
+	 * Retrieves workpackages using the given retriever until it returns something or the timeout passed.
+	 *
+	 * @return retrieved workpackages or empty list if the timeout passed or we got interrupted
+	 */
+	private List<I_C_Queue_WorkPackage> poll(final long timeoutMillis, final Supplier<List<I_C_Queue_WorkPackage>> retriever)
+	{
+		final long startTS = SystemTime.millis();
+
+		//
+		// Register for "workpackage ready" notifications *before* querying, so that we don't miss what is enqueued in the meantime
+		final WorkPackageReadyNotificationListener readyNotificationListener = WorkPackageReadyNotificationListener.instance;
+		final boolean notificationsEnabled = timeoutMillis != TIMEOUT_OneTimeOnly && readyNotificationListener.isEnabled();
+		final IAutoCloseable readyNotificationRegistration = notificationsEnabled ? readyNotificationListener.register(packageProcessorIds, readySignal) : null;
+
+		try
+		{
+			List<I_C_Queue_WorkPackage> workPackages = retriever.get();
+			if (timeoutMillis == TIMEOUT_OneTimeOnly && workPackages.isEmpty())
+			{
+				// We are running in one time only mode (synchronous mode) and we did not get the package from the first time
+				// No point to go further
+				return ImmutableList.of();
+			}
+
+			boolean waited = false;
+			long notificationNanos = 0;
+			while (workPackages.isEmpty())
+			{
+				// If we have a timeout specified, make sure we are not waiting more then that timeout
+				long waitMillis = getWaitMillisUntilNextPoll(notificationsEnabled && readyNotificationListener.isListening());
+				if (timeoutMillis != TIMEOUT_Infinite)
+				{
+					Check.assume(timeoutMillis > 0, "timeoutMillis > 0");
+
+					final long remainingMillis = timeoutMillis - (SystemTime.millis() - startTS);
+					if (remainingMillis <= 0)
+					{
+						logger.debug("Poll waiting time exceeded. Returning nothing");
+						return ImmutableList.of();
+					}
+					waitMillis = Math.min(waitMillis, remainingMillis);
+				}
+
+				// No workpackages were found. Wait until we are notified (or the poll interval passed) and then try again
+				try
+				{
+					if (notificationsEnabled)
+					{
+						notificationNanos = readySignal.await(waitMillis);
+					}
+					else
+					{
+						Thread.sleep(waitMillis);
+					}
+				}
+				catch (final InterruptedException e)
+				{
+					logger.debug("Got interrupted signal. Returning nothing", e);
+					return ImmutableList.of();
+				}
+
+				waited = true;
+
+				// Try fetching the workpackages again
+				logger.trace("Retry retrieving next workpackages (notified={})", notificationNanos != 0);
+				workPackages = retriever.get();
+			}
+
+			if (notificationsEnabled && waited)
+			{
+				readySignal.recordWorkpackageAcquired(notificationNanos);
+			}
+
+			return workPackages;
+		}
+		finally
+		{
+			if (readyNotificationRegistration != null)
+			{
+				readyNotificationRegistration.close();
+			}
+		}
+	}
+
+	/**
+	 * @param listeningForNotifications true if we will be woken up as soon as a new workpackage is ready. In that case we poll just as a safety net, in case a notification got lost.
+	 */
+	private static long getWaitMillisUntilNextPoll(final boolean listeningForNotifications)
+	{
+		// note: we always get the new service, because things might have changed since this method started
+		final ISysConfigBL sysConfigBL = Services.get(ISysConfigBL.class);
+		if (listeningForNotifications)
+		{
+			return sysConfigBL.getIntValue(SYSCONFIG_POLLINTERVAL_WHEN_NOTIFIED, 60000);
+		}
+		return sysConfigBL.getIntValue(SYSCONFIG_POLLINTERVAL, 1000);
+	}
+
 	/**
 	 * Update context from work package (AD_Client_ID, AD_Org_ID, AD_User_ID, AD_Role_ID etc).
 	 *
@@ -336,9 +470,24 @@ public class WorkPackageQueue implements IWorkPackageQueue
 			logger.warn("Aquired {} on thread {} but is not valid. Unlocking and returning null.", new Object[] { workpackageToUnlock, threadName });
 
 		}
+		else if (workPackage != null && dao.isClaimed(workPackage.getC_Queue_WorkPackage_ID()))
+		{
+			// the workpackage was claimed by pollAndClaim() after it was selected, but before our T_Lock was committed
+			final I_C_Queue_WorkPackage workpackageToUnlock = workPackage;
+			unlockNoFail(workpackageToUnlock);
+			workPackage = null;
+
+			logger.info("Aquired {} but it was claimed meanwhile. Unlocking and returning null.", workpackageToUnlock);
+		}
 		return workPackage;
 	}
 
+	@Override
+	public WorkPackageQueueWakeUpStatistics getWakeUpStatistics()
+	{
+		return readySignal.getStatistics();
+	}
+
 	@Override
 	public int size()
 	{
@@ -375,7 +524,15 @@ public class WorkPackageQueue implements IWorkPackageQueue
 
 		try
 		{
-			final boolean success = Services.get(ILockManager.class).unlock(workPackage);
+			final boolean success;
+			if (claimedWorkPackageIds.remove(workPackage.getC_Queue_WorkPackage_ID()))
+			{
+				success = dao.releaseClaim(workPackage.getC_Queue_WorkPackage_ID());
+			}
+			else
+			{
+				success = Services.get(ILockManager.class).unlock(workPackage);
+			}
 			if (!success)
 			{
 				throw new UnlockFailedException("Cannot unlock");
@@ -768,6 +925,21 @@ public class WorkPackageQueue implements IWorkPackageQueue
 	}
 
 	private IQuery<I_C_Queue_WorkPackage> createQuery(final Properties workPackageCtx)
+	{
+		return dao.createQuery(workPackageCtx, createWorkPackageQuery());
+	}
+
+	/**
+	 * @return query for the workpackages which can be locked or claimed right now
+	 */
+	private WorkPackageQuery createWorkPackageQueryForPolling()
+	{
+		final WorkPackageQuery workPackageQuery = createWorkPackageQuery();
+		workPackageQuery.setClaimed(false);
+		return workPackageQuery;
+	}
+
+	private WorkPackageQuery createWorkPackageQuery()
 	{
 		//
 		// Filter out processors which were temporary blacklisted
@@ -790,7 +962,7 @@ public class WorkPackageQueue implements IWorkPackageQueue
 		workPackageQuery.setPackageProcessorIds(availablePackageProcessorIds);
 		workPackageQuery.setPriorityFrom(priorityFrom);
 
-		return dao.createQuery(workPackageCtx, workPackageQuery);
+		return workPackageQuery;
 	}
 
 	private boolean isValid(final I_C_Queue_WorkPackage workPackage)
@@ -0,0 +1,305 @@
+package de.metas.async.api.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.adempiere.service.ISysConfigBL;
+import org.adempiere.util.lang.IAutoCloseable;
+import org.compiere.Adempiere;
+import org.compiere.util.DB;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+
+import com.google.common.collect.ImmutableSet;
+
+import de.metas.logging.LogManager;
+import de.metas.util.Services;
+import lombok.NonNull;
+
+/**
+ * Listens on the {@value #CHANNEL} PostgreSQL channel and wakes up the {@link WorkPackageQueue}s which are registered for the notified <code>C_Queue_PackageProcessor_ID</code>.
+ * <p>
+ * The notifications are sent by the <code>"de.metas.async".C_Queue_WorkPackage_NotifyReady_tgfn()</code> trigger function whenever a workpackage becomes ready for processing. PostgreSQL delivers
+ * them when the enqueuing transaction is committed, so a woken up queue will actually see the new workpackage.
+ * <p>
+ * Note that there is just one listener thread with one dedicated database connection per JVM. It is started lazily, when the first queue registers.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+public final class WorkPackageReadyNotificationListener
+{
+	public static final WorkPackageReadyNotificationListener instance = new WorkPackageReadyNotificationListener();
+
+	/** Keep in sync with the <code>"de.metas.async".C_Queue_WorkPackage_NotifyReady_tgfn()</code> trigger function */
+	public static final String CHANNEL = "c_queue_workpackage_ready";
+
+	private static final String SYSCONFIG_Enabled = "de.metas.async.WorkPackageReadyNotification.Enabled";
+	private static final String SYSCONFIG_ReconnectDelayMillis = "de.metas.async.WorkPackageReadyNotification.ReconnectDelayMillis";
+	private static final int DEFAULT_ReconnectDelayMillis = 10000;
+
+	/** How long we block in {@link PGConnection#getNotifications(int)} before checking if we shall stop */
+	private static final int GET_NOTIFICATIONS_TIMEOUT_MILLIS = 5000;
+
+	private static final transient Logger logger = LogManager.getLogger(WorkPackageReadyNotificationListener.class);
+
+	private final ConcurrentHashMap<Integer, Set<WorkPackageReadySignal>> signalsByPackageProcessorId = new ConcurrentHashMap<>();
+
+	private final ReentrantLock threadLock = new ReentrantLock();
+	private Thread listenerThread;
+	private volatile boolean listening = false;
+
+	private WorkPackageReadyNotificationListener()
+	{
+	}
+
+	/**
+	 * @return true if the queues shall wait for database notifications instead of polling in short intervals
+	 */
+	public boolean isEnabled()
+	{
+		if (Adempiere.isUnitTestMode())
+		{
+			return false;
+		}
+		return Services.get(ISysConfigBL.class).getBooleanValue(SYSCONFIG_Enabled, true);
+	}
+
+	/**
+	 * @return true if the listener is currently connected and listening. If not, notifications might get lost and the queues shall fall back to polling.
+	 */
+	public boolean isListening()
+	{
+		return listening;
+	}
+
+	/**
+	 * Registers the given signal to be fired when a workpackage for one of the given package processors becomes ready.
+	 *
+	 * @return registration; when closed the signal is unregistered
+	 */
+	IAutoCloseable register(@NonNull final Collection<Integer> packageProcessorIds, @NonNull final WorkPackageReadySignal signal)
+	{
+		final ImmutableSet<Integer> packageProcessorIdsCopy = ImmutableSet.copyOf(packageProcessorIds);
+		for (final Integer packageProcessorId : packageProcessorIdsCopy)
+		{
+			signalsByPackageProcessorId
+					.computeIfAbsent(packageProcessorId, k -> ConcurrentHashMap.newKeySet())
+					.add(signal);
+		}
+
+		startIfNeeded();
+
+		return () -> {
+			for (final Integer packageProcessorId : packageProcessorIdsCopy)
+			{
+				final Set<WorkPackageReadySignal> signals = signalsByPackageProcessorId.get(packageProcessorId);
+				if (signals != null)
+				{
+					signals.remove(signal);
+				}
+			}
+		};
+	}
+
+	private void startIfNeeded()
+	{
+		threadLock.lock();
+		try
+		{
+			if (listenerThread != null && listenerThread.isAlive())
+			{
+				return;
+			}
+
+			listenerThread = new Thread(this::runListenLoop, WorkPackageReadyNotificationListener.class.getSimpleName());
+			listenerThread.setDaemon(true);
+			listenerThread.start();
+		}
+		finally
+		{
+			threadLock.unlock();
+		}
+	}
+
+	/**
+	 * Stops the listener thread. It will be started again when the next queue registers.
+	 */
+	public void shutdown()
+	{
+		threadLock.lock();
+		try
+		{
+			if (listenerThread != null)
+			{
+				listenerThread.interrupt();
+				listenerThread = null;
+			}
+		}
+		finally
+		{
+			threadLock.unlock();
+		}
+	}
+
+	private void runListenLoop()
+	{
+		final Thread currentThread = Thread.currentThread();
+		while (!currentThread.isInterrupted())
+		{
+			try
+			{
+				listenAndDispatch(currentThread);
+			}
+			catch (final Exception e)
+			{
+				logger.warn("Failed listening on {}. Queues will fall back to polling until we are reconnected.", CHANNEL, e);
+			}
+
+			if (currentThread.isInterrupted())
+			{
+				break;
+			}
+
+			try
+			{
+				final int reconnectDelayMillis = Services.get(ISysConfigBL.class).getIntValue(SYSCONFIG_ReconnectDelayMillis, DEFAULT_ReconnectDelayMillis);
+				Thread.sleep(reconnectDelayMillis);
+			}
+			catch (final InterruptedException e)
+			{
+				logger.debug("Got interrupted while waiting to reconnect. Quit.", e);
+				break;
+			}
+		}
+
+		logger.info("Listener thread stopped");
+	}
+
+	private void listenAndDispatch(final Thread currentThread) throws SQLException
+	{
+		Connection connection = null;
+		try
+		{
+			connection = DB.createConnection(true, Connection.TRANSACTION_READ_COMMITTED);
+			final PGConnection pgConnection = connection.unwrap(PGConnection.class);
+
+			executeStatement(connection, "LISTEN " + CHANNEL);
+			listening = true;
+			logger.info("Listening on {}", CHANNEL);
+
+			// We might have lost notifications while we were not listening, so wake up everybody to check
+			fireAll();
+
+			while (!currentThread.isInterrupted())
+			{
+				final PGNotification[] notifications = pgConnection.getNotifications(GET_NOTIFICATIONS_TIMEOUT_MILLIS);
+				if (notifications == null)
+				{
+					continue;
+				}
+
+				for (final PGNotification notification : notifications)
+				{
+					fireForNotification(notification);
+				}
+			}
+		}
+		finally
+		{
+			listening = false;
+			if (connection != null)
+			{
+				unlistenNoFail(connection);
+				DB.close(connection);
+			}
+		}
+	}
+
+	private void fireForNotification(final PGNotification notification)
+	{
+		final int packageProcessorId;
+		try
+		{
+			packageProcessorId = Integer.parseInt(notification.getParameter());
+		}
+		catch (final NumberFormatException e)
+		{
+			logger.warn("Ignoring notification with invalid C_Queue_PackageProcessor_ID: {}", notification.getParameter(), e);
+			return;
+		}
+
+		final Set<WorkPackageReadySignal> signals = signalsByPackageProcessorId.get(packageProcessorId);
+		if (signals == null || signals.isEmpty())
+		{
+			logger.trace("No queue registered for C_Queue_PackageProcessor_ID={}", packageProcessorId);
+			return;
+		}
+
+		signals.forEach(WorkPackageReadySignal::fire);
+	}
+
+	private void fireAll()
+	{
+		signalsByPackageProcessorId.values()
+				.stream()
+				.flatMap(Set::stream)
+				.distinct()
+				.forEach(WorkPackageReadySignal::fire);
+	}
+
+	private static void unlistenNoFail(final Connection connection)
+	{
+		// the connection goes back to the pool, so make sure it's not listening anymore
+		try
+		{
+			executeStatement(connection, "UNLISTEN " + CHANNEL);
+		}
+		catch (final Exception e)
+		{
+			logger.debug("Failed unlistening {}. Ignored.", CHANNEL, e);
+		}
+	}
+
+	private static void executeStatement(final Connection connection, final String sql) throws SQLException
+	{
+		Statement stmt = null;
+		try
+		{
+			stmt = connection.createStatement();
+			stmt.execute(sql);
+		}
+		finally
+		{
+			DB.close(stmt);
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package de.metas.async.api.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import de.metas.async.api.WorkPackageQueueWakeUpStatistics;
+
+/**
+ * Wake-up signal of one {@link WorkPackageQueue}. It is fired by the {@link WorkPackageReadyNotificationListener} when one of the queue's package processors got a new ready workpackage.
+ * <p>
+ * A notification which arrives while nobody is waiting is remembered, so that the next {@link #await(long)} returns immediately. That way we don't lose notifications which arrive while the queue
+ * is still querying the database.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+final class WorkPackageReadySignal
+{
+	private static final long NO_PENDING_NOTIFICATION = 0;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition readyCondition = lock.newCondition();
+
+	/** {@link System#nanoTime()} of the first notification which was not yet consumed; {@link #NO_PENDING_NOTIFICATION} if none */
+	private long pendingNotificationNanos = NO_PENDING_NOTIFICATION;
+
+	//
+	// Statistics
+	private final AtomicLong countNotifications = new AtomicLong();
+	private final AtomicLong countWakeUpsWithWorkpackage = new AtomicLong();
+	private final AtomicLong countSafetyNetPollsWithWorkpackage = new AtomicLong();
+	private final AtomicLong sumWakeUpToStartMillis = new AtomicLong();
+	private final AtomicLong maxWakeUpToStartMillis = new AtomicLong();
+	private volatile long lastWakeUpToStartMillis = -1;
+
+	void fire()
+	{
+		countNotifications.incrementAndGet();
+
+		lock.lock();
+		try
+		{
+			if (pendingNotificationNanos == NO_PENDING_NOTIFICATION)
+			{
+				pendingNotificationNanos = System.nanoTime();
+			}
+			readyCondition.signalAll();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Waits until this signal is fired or the given timeout passed.
+	 *
+	 * @return the {@link System#nanoTime()} when the notification which woke us up was received or <code>0</code> if the timeout passed
+	 */
+	long await(final long timeoutMillis) throws InterruptedException
+	{
+		lock.lock();
+		try
+		{
+			long remainingNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+			while (pendingNotificationNanos == NO_PENDING_NOTIFICATION)
+			{
+				if (remainingNanos <= 0)
+				{
+					return NO_PENDING_NOTIFICATION;
+				}
+				remainingNanos = readyCondition.awaitNanos(remainingNanos);
+			}
+
+			final long notificationNanos = pendingNotificationNanos;
+			pendingNotificationNanos = NO_PENDING_NOTIFICATION;
+			return notificationNanos;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Called when a workpackage was acquired.
+	 *
+	 * @param notificationNanos the value returned by the {@link #await(long)} call which preceded the acquiring; <code>0</code> if the workpackage was found without being notified
+	 */
+	void recordWorkpackageAcquired(final long notificationNanos)
+	{
+		if (notificationNanos == NO_PENDING_NOTIFICATION)
+		{
+			countSafetyNetPollsWithWorkpackage.incrementAndGet();
+			return;
+		}
+
+		final long wakeUpToStartMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - notificationNanos);
+		countWakeUpsWithWorkpackage.incrementAndGet();
+		sumWakeUpToStartMillis.addAndGet(wakeUpToStartMillis);
+		maxWakeUpToStartMillis.accumulateAndGet(wakeUpToStartMillis, Math::max);
+		lastWakeUpToStartMillis = wakeUpToStartMillis;
+	}
+
+	WorkPackageQueueWakeUpStatistics getStatistics()
+	{
+		final long countWakeUps = countWakeUpsWithWorkpackage.get();
+		return WorkPackageQueueWakeUpStatistics.builder()
+				.countNotifications(countNotifications.get())
+				.countWakeUpsWithWorkpackage(countWakeUps)
+				.countSafetyNetPollsWithWorkpackage(countSafetyNetPollsWithWorkpackage.get())
+				.avgWakeUpToStartMillis(countWakeUps > 0 ? sumWakeUpToStartMillis.get() / countWakeUps : -1)
+				.maxWakeUpToStartMillis(countWakeUps > 0 ? maxWakeUpToStartMillis.get() : -1)
+				.lastWakeUpToStartMillis(lastWakeUpToStartMillis)
+				.build();
+	}
+}
@@ -0,0 +1,46 @@
+package de.metas.async.housekeeping.spi.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import org.adempiere.ad.housekeeping.spi.IStartupHouseKeepingTask;
+
+import de.metas.async.api.impl.WorkPackageClaimsOwner;
+import de.metas.util.Loggables;
+
+/**
+ * Releases the workpackage claims which were not renewed in time, because the JVM which made them crashed or was stopped.
+ * <p>
+ * Claims of running JVMs are left alone, also if they run on the same host. While running, each JVM releases expired claims periodically, too.
+ *
+ * @see WorkPackageClaimsOwner
+ */
+public class ReleaseStaleWorkpackageClaims implements IStartupHouseKeepingTask
+{
+	@Override
+	public void executeTask()
+	{
+		final WorkPackageClaimsOwner claimsOwner = WorkPackageClaimsOwner.instance;
+		final int countClaimsReleased = claimsOwner.releaseExpiredClaims();
+		Loggables.get().addLog("Released " + countClaimsReleased + " workpackage claims which were not renewed within " + claimsOwner.getTimeoutMinutes() + " minutes");
+	}
+}
@@ -23,6 +23,7 @@ package de.metas.async.jmx;
  */
 
 
+import de.metas.async.api.WorkPackageQueueWakeUpStatistics;
 import de.metas.async.processor.IQueueProcessor;
 
 public class JMXQueueProcessor implements JMXQueueProcessorMBean
@@ -72,9 +73,56 @@ public class JMXQueueProcessor implements JMXQueueProcessorMBean
 		return processor.getStatisticsSnapshot().getCountSkipped();
 	}
 
+	@Override
+	public long getCountInFlight()
+	{
+		return processor.getStatisticsSnapshot().getCountInFlight();
+	}
+
 	@Override
 	public String getQueueInfo()
 	{
 		return processor.getQueue().toString();
 	}
+
+	@Override
+	public long getCountWakeUpNotifications()
+	{
+		return getWakeUpStatistics().getCountNotifications();
+	}
+
+	@Override
+	public long getCountWakeUpsWithWorkpackage()
+	{
+		return getWakeUpStatistics().getCountWakeUpsWithWorkpackage();
+	}
+
+	@Override
+	public long getCountSafetyNetPollsWithWorkpackage()
+	{
+		return getWakeUpStatistics().getCountSafetyNetPollsWithWorkpackage();
+	}
+
+	@Override
+	public long getAvgWakeUpToStartMillis()
+	{
+		return getWakeUpStatistics().getAvgWakeUpToStartMillis();
+	}
+
+	@Override
+	public long getMaxWakeUpToStartMillis()
+	{
+		return getWakeUpStatistics().getMaxWakeUpToStartMillis();
+	}
+
+	@Override
+	public long getLastWakeUpToStartMillis()
+	{
+		return getWakeUpStatistics().getLastWakeUpToStartMillis();
+	}
+
+	private WorkPackageQueueWakeUpStatistics getWakeUpStatistics()
+	{
+		return processor.getQueue().getWakeUpStatistics();
+	}
 }
@@ -37,5 +37,19 @@ public interface JMXQueueProcessorMBean
 
 	long getCountSkipped();
 
+	long getCountInFlight();
+
 	String getQueueInfo();
+
+	long getCountWakeUpNotifications();
+
+	long getCountWakeUpsWithWorkpackage();
+
+	long getCountSafetyNetPollsWithWorkpackage();
+
+	long getAvgWakeUpToStartMillis();
+
+	long getMaxWakeUpToStartMillis();
+
+	long getLastWakeUpToStartMillis();
 }
@@ -24,6 +24,7 @@ import java.util.List;
  * #L%
  */
 
+import org.adempiere.ad.housekeeping.IHouseKeepingBL;
 import org.adempiere.ad.migration.logger.IMigrationLogger;
 import org.adempiere.ad.modelvalidator.AbstractModuleInterceptor;
 import org.adempiere.ad.modelvalidator.IModelValidationEngine;
@@ -42,6 +43,7 @@ import de.metas.Profiles;
 import de.metas.async.Async_Constants;
 import de.metas.async.api.IAsyncBatchListeners;
 import de.metas.async.api.impl.AsyncBatchDAO;
+import de.metas.async.housekeeping.spi.impl.ReleaseStaleWorkpackageClaims;
 import de.metas.async.model.I_C_Queue_WorkPackage;
 import de.metas.async.model.I_C_Queue_WorkPackage_Log;
 import de.metas.async.model.I_C_Queue_WorkPackage_Param;
@@ -85,6 +87,8 @@ public class Main extends AbstractModuleInterceptor
 			Services.get(IQueueProcessorExecutorService.class).init(initDelayMillis);
 		}
 
+		Services.get(IHouseKeepingBL.class).registerStartupHouseKeepingTask(new ReleaseStaleWorkpackageClaims());
+
 		final IMigrationLogger migrationLogger = Services.get(IMigrationLogger.class);
 		migrationLogger.addTableToIgnoreList(I_C_Queue_WorkPackage.Table_Name);
 		migrationLogger.addTableToIgnoreList(I_C_Queue_WorkPackage_Log.Table_Name);
@@ -60,4 +60,11 @@ public interface IMutableQueueProcessorStatistics extends IQueueProcessorStatist
 
 	void decrementQueueSize();
 
+	@Override
+	long getCountInFlight();
+
+	void incrementCountInFlight();
+
+	void decrementCountInFlight();
+
 }
@@ -40,4 +40,9 @@ public interface IQueueProcessorStatistics
 	long getQueueSize();
 
 	long getCountSkipped();
+
+	/**
+	 * @return how many workpackages were submitted for processing and are not yet finished
+	 */
+	long getCountInFlight();
 }
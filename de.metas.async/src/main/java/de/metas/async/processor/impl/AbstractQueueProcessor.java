@@ -23,6 +23,7 @@ package de.metas.async.processor.impl;
  */
 
 
+import java.util.List;
 import java.util.Properties;
 
 import org.adempiere.exceptions.AdempiereException;
@@ -174,8 +175,22 @@ public abstract class AbstractQueueProcessor implements IQueueProcessor
 		}
 	}
 
+	/**
+	 * @return how many workpackages shall be claimed in one go using {@link IWorkPackageQueue#pollAndClaim(int, long)}; if zero, the workpackages are polled and locked one by one.
+	 */
+	protected int getClaimBatchSize()
+	{
+		return 0;
+	}
+
 	private boolean pollAndSubmitNextWorkPackageTask()
 	{
+		final int claimBatchSize = getClaimBatchSize();
+		if (claimBatchSize > 0)
+		{
+			return pollAndSubmitClaimedWorkPackageTasks(claimBatchSize);
+		}
+
 		final IWorkPackageQueue queue = getQueue();
 
 		final I_C_Queue_WorkPackage workPackage = queue.pollAndLock(queuePollingTimeout);
@@ -184,11 +199,51 @@ public abstract class AbstractQueueProcessor implements IQueueProcessor
 			return false;
 		}
 
+		submitWorkPackageTask(workPackage);
+		return true;
+	}
+
+	private boolean pollAndSubmitClaimedWorkPackageTasks(final int claimBatchSize)
+	{
+		final IWorkPackageQueue queue = getQueue();
+
+		final List<I_C_Queue_WorkPackage> workPackages = queue.pollAndClaim(claimBatchSize, queuePollingTimeout);
+		if (workPackages.isEmpty())
+		{
+			return false;
+		}
+
+		int submittedCount = 0;
+		try
+		{
+			for (final I_C_Queue_WorkPackage workPackage : workPackages)
+			{
+				submittedCount++; // NOTE: the current one is unlocked by submitWorkPackageTask if it fails
+				submitWorkPackageTask(workPackage);
+			}
+		}
+		finally
+		{
+			// Release the claims of the workpackages we did not get to submit
+			for (final I_C_Queue_WorkPackage workPackage : workPackages.subList(submittedCount, workPackages.size()))
+			{
+				queue.unlockNoFail(workPackage);
+			}
+		}
+		return true;
+	}
+
+	private void submitWorkPackageTask(final I_C_Queue_WorkPackage workPackage)
+	{
+		IWorkpackageProcessor workPackageProcessor = null;
 		boolean success = false;
 		try
 		{
-			final IWorkpackageProcessor workPackageProcessor = getWorkpackageProcessor(workPackage);
+			workPackageProcessor = getWorkpackageProcessor(workPackage);
 			final WorkpackageProcessorTask task = new WorkpackageProcessorTask(this, workPackageProcessor, workPackage);
+
+			// NOTE: we count it before submitting, because the task might finish before executeTask returns
+			updateCountInFlight(workPackageProcessor, +1);
 			executeTask(task);
 			success = true;
 		}
@@ -196,13 +251,36 @@ public abstract class AbstractQueueProcessor implements IQueueProcessor
 		{
 			if (!success)
 			{
+				if (workPackageProcessor != null)
+				{
+					updateCountInFlight(workPackageProcessor, -1);
+				}
+
 				logger.info("Submiting for processing next workpackage failed. Trying to unlock {}.", workPackage);
-				queue.unlockNoFail(workPackage);
+				getQueue().unlockNoFail(workPackage);
 
 				getEventDispatcher().unregisterListeners(workPackage.getC_Queue_WorkPackage_ID());
 			}
 		}
-		return success;
+	}
+
+	private void updateCountInFlight(final IWorkpackageProcessor workPackageProcessor, final int delta)
+	{
+		synchronized (statistics)
+		{
+			final IMutableQueueProcessorStatistics workpackageProcessorStatistics = //
+					getActualWorkpackageProcessorFactory().getWorkpackageProcessorStatistics(workPackageProcessor);
+			if (delta > 0)
+			{
+				statistics.incrementCountInFlight();
+				workpackageProcessorStatistics.incrementCountInFlight();
+			}
+			else
+			{
+				statistics.decrementCountInFlight();
+				workpackageProcessorStatistics.decrementCountInFlight();
+			}
+		}
 	}
 
 	@Override
@@ -225,6 +303,9 @@ public abstract class AbstractQueueProcessor implements IQueueProcessor
 			final IMutableQueueProcessorStatistics workpackageProcessorStatistics = //
 					getActualWorkpackageProcessorFactory().getWorkpackageProcessorStatistics(workPackageProcessor);
 
+			statistics.decrementCountInFlight();
+			workpackageProcessorStatistics.decrementCountInFlight();
+
 			statistics.incrementCountAll();
 			workpackageProcessorStatistics.incrementCountAll();
 
@@ -20,6 +20,7 @@ public class MonitorableQueueProcessorStatistics implements IMutableQueueProcess
 	private static final String METERNAME_Processed = "Processed";
 	private static final String METERNAME_Error = "Error";
 	private static final String METERNAME_Skipped = "Skipped";
+	private static final String METERNAME_InFlight = "InFlight";
 
 	private final String workpackageProcessorName;
 
@@ -113,4 +114,22 @@ public class MonitorableQueueProcessorStatistics implements IMutableQueueProcess
 	{
 		getMeter(METERNAME_Skipped).plusOne();
 	}
+
+	@Override
+	public long getCountInFlight()
+	{
+		return getMeter(METERNAME_InFlight).getGauge();
+	}
+
+	@Override
+	public void incrementCountInFlight()
+	{
+		getMeter(METERNAME_InFlight).plusOne();
+	}
+
+	@Override
+	public void decrementCountInFlight()
+	{
+		getMeter(METERNAME_InFlight).minusOne();
+	}
 }
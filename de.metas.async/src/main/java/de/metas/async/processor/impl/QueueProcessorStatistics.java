@@ -32,6 +32,7 @@ public class QueueProcessorStatistics implements IMutableQueueProcessorStatistic
 	private long countErrors = 0;
 	private long countSkipped = 0;
 	private long queueSize = 0;
+	private long countInFlight = 0;
 
 	@Override
 	public QueueProcessorStatistics clone()
@@ -42,6 +43,7 @@ public class QueueProcessorStatistics implements IMutableQueueProcessorStatistic
 		statisticsNew.countProcessed = countProcessed;
 		statisticsNew.countSkipped = countSkipped;
 		statisticsNew.queueSize = queueSize;
+		statisticsNew.countInFlight = countInFlight;
 		return statisticsNew;
 	}
 
@@ -54,6 +56,7 @@ public class QueueProcessorStatistics implements IMutableQueueProcessorStatistic
 				+ ", countErrors=" + countErrors
 				+ ", countSkipped=" + countSkipped
 				+ ", queueSize=" + queueSize
+				+ ", countInFlight=" + countInFlight
 				+ "]";
 	}
 
@@ -123,4 +126,21 @@ public class QueueProcessorStatistics implements IMutableQueueProcessorStatistic
 		countSkipped++;
 	}
 
+	@Override
+	public long getCountInFlight()
+	{
+		return countInFlight;
+	}
+
+	@Override
+	public void incrementCountInFlight()
+	{
+		countInFlight++;
+	}
+
+	@Override
+	public void decrementCountInFlight()
+	{
+		countInFlight--;
+	}
 }
@@ -49,6 +49,7 @@ import org.slf4j.Logger;
 import com.google.common.annotations.VisibleForTesting;
 
 import de.metas.async.api.IWorkPackageQueue;
+import de.metas.async.api.impl.WorkPackageReadyNotificationListener;
 import de.metas.async.jmx.JMXQueueProcessor;
 import de.metas.async.model.I_C_Queue_Processor;
 import de.metas.async.processor.IQueueProcessor;
@@ -267,6 +268,7 @@ public class QueueProcessorsExecutor implements IQueueProcessorsExecutor
 			}
 
 			threadExecutor.shutdownNow();
+			WorkPackageReadyNotificationListener.instance.shutdown();
 			logger.info("Shutdown finished");
 		}
 		finally
@@ -0,0 +1,217 @@
+package de.metas.async.processor.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+
+import com.google.common.base.MoreObjects;
+
+import de.metas.logging.LogManager;
+import de.metas.util.Check;
+
+/**
+ * Executor which starts a new thread for each task and bounds the number of concurrently running tasks by a {@link Semaphore} instead of by the size of a thread pool.
+ * <p>
+ * If the JVM supports virtual threads, they are used. Else we fall back to an unbounded pool of daemon threads which are created on demand and discarded after one minute of idleness.
+ * <p>
+ * Like {@link org.adempiere.util.concurrent.BlockingThreadPoolExecutor}, {@link #execute(Runnable)} blocks the caller until a permit is available.
+ *
+ * @author metas-dev <dev@metasfresh.com>
+ *
+ */
+final class SemaphoreBoundedExecutor extends AbstractExecutorService
+{
+	private static final transient Logger logger = LogManager.getLogger(SemaphoreBoundedExecutor.class);
+
+	private final ExecutorService delegate;
+	private final boolean virtualThreads;
+	private final int maxConcurrency;
+	private final Semaphore permits;
+	private final AtomicInteger countInFlight = new AtomicInteger();
+
+	public SemaphoreBoundedExecutor(final int maxConcurrency, final ThreadFactory fallbackThreadFactory)
+	{
+		Check.assume(maxConcurrency > 0, "maxConcurrency > 0 but it was {}", maxConcurrency);
+		Check.assumeNotNull(fallbackThreadFactory, "fallbackThreadFactory not null");
+
+		this.maxConcurrency = maxConcurrency;
+		this.permits = new Semaphore(maxConcurrency, true);
+
+		final ExecutorService virtualThreadsExecutor = createVirtualThreadPerTaskExecutorOrNull();
+		if (virtualThreadsExecutor != null)
+		{
+			this.delegate = virtualThreadsExecutor;
+			this.virtualThreads = true;
+		}
+		else
+		{
+			this.delegate = Executors.newCachedThreadPool(fallbackThreadFactory);
+			this.virtualThreads = false;
+		}
+	}
+
+	/**
+	 * @return <code>Executors.newVirtualThreadPerTaskExecutor()</code> or <code>null</code> if the JVM we are running in does not support virtual threads.
+	 */
+	private static ExecutorService createVirtualThreadPerTaskExecutorOrNull()
+	{
+		final Method factoryMethod;
+		try
+		{
+			factoryMethod = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		}
+		catch (final NoSuchMethodException e)
+		{
+			return null;
+		}
+
+		try
+		{
+			return (ExecutorService)factoryMethod.invoke(null);
+		}
+		catch (final Exception e)
+		{
+			logger.warn("Failed creating a virtual thread executor. Falling back to platform threads.", e);
+			return null;
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("virtualThreads", virtualThreads)
+				.add("maxConcurrency", maxConcurrency)
+				.add("inFlight", countInFlight.get())
+				.toString();
+	}
+
+	@Override
+	public void execute(final Runnable command)
+	{
+		Check.assumeNotNull(command, "command not null");
+		if (delegate.isShutdown())
+		{
+			throw new RejectedExecutionException("Executor was shut down: " + this);
+		}
+
+		try
+		{
+			permits.acquire();
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new RejectedExecutionException("Interrupted while waiting for a free slot: " + this, e);
+		}
+
+		countInFlight.incrementAndGet();
+		boolean submitted = false;
+		try
+		{
+			delegate.execute(() -> {
+				try
+				{
+					command.run();
+				}
+				finally
+				{
+					countInFlight.decrementAndGet();
+					permits.release();
+				}
+			});
+			submitted = true;
+		}
+		finally
+		{
+			if (!submitted)
+			{
+				countInFlight.decrementAndGet();
+				permits.release();
+			}
+		}
+	}
+
+	public boolean isVirtualThreads()
+	{
+		return virtualThreads;
+	}
+
+	public int getMaxConcurrency()
+	{
+		return maxConcurrency;
+	}
+
+	/** @return how many tasks are currently running */
+	public int getCountInFlight()
+	{
+		return countInFlight.get();
+	}
+
+	/** @return how many tasks could be started right away without blocking */
+	public int getAvailableSlots()
+	{
+		return permits.availablePermits();
+	}
+
+	@Override
+	public void shutdown()
+	{
+		delegate.shutdown();
+	}
+
+	@Override
+	public List<Runnable> shutdownNow()
+	{
+		return delegate.shutdownNow();
+	}
+
+	@Override
+	public boolean isShutdown()
+	{
+		return delegate.isShutdown();
+	}
+
+	@Override
+	public boolean isTerminated()
+	{
+		return delegate.isTerminated();
+	}
+
+	@Override
+	public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException
+	{
+		return delegate.awaitTermination(timeout, unit);
+	}
+}
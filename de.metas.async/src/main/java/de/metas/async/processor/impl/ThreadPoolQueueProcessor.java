@@ -23,11 +23,13 @@ package de.metas.async.processor.impl;
  */
 
 
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
 
+import org.adempiere.service.ISysConfigBL;
 import org.adempiere.util.concurrent.BlockingThreadPoolExecutor;
 import org.adempiere.util.concurrent.CustomizableThreadFactory;
 
@@ -35,17 +37,39 @@ import com.google.common.base.MoreObjects;
 
 import de.metas.async.api.IWorkPackageQueue;
 import de.metas.async.model.I_C_Queue_Processor;
+import de.metas.util.Services;
 
 class ThreadPoolQueueProcessor extends AbstractQueueProcessor
 {
+	/**
+	 * If Y, the workpackages are claimed in batches (see {@link IWorkPackageQueue#pollAndClaim(int, long)}) instead of being locked one by one in T_Lock.
+	 * Can be overridden per processor by appending <code>.C_Queue_Processor_ID_&lt;ID&gt;</code> to the name.
+	 */
+	private static final String SYSCONFIG_ClaimWorkPackages = "de.metas.async.ClaimWorkPackages";
+
+	/**
+	 * If Y, each workpackage is processed in a thread of its own (a virtual thread, if the JVM supports them) and the number of concurrently processed workpackages is bounded by a semaphore
+	 * (see {@link SemaphoreBoundedExecutor}) instead of by a fixed thread pool.
+	 * Can be overridden per processor by appending <code>.C_Queue_Processor_ID_&lt;ID&gt;</code> to the name.
+	 */
+	private static final String SYSCONFIG_UseVirtualThreads = "de.metas.async.UseVirtualThreads";
+
+	/**
+	 * Max number of concurrently processed workpackages if {@link #SYSCONFIG_UseVirtualThreads} is active. If not set, the processor's {@link I_C_Queue_Processor#getPoolSize()} is used.
+	 * Can be overridden per processor by appending <code>.C_Queue_Processor_ID_&lt;ID&gt;</code> to the name.
+	 */
+	private static final String SYSCONFIG_VirtualThreadsMaxConcurrency = "de.metas.async.UseVirtualThreads.MaxConcurrency";
+
+	private final int queueProcessorId;
 	private String name;
-	private final ThreadPoolExecutor executor;
+	private final ExecutorService executor;
 	private final AtomicBoolean running;
 
 	public ThreadPoolQueueProcessor(final I_C_Queue_Processor config, final IWorkPackageQueue queue)
 	{
 		super(queue);
 
+		this.queueProcessorId = config.getC_Queue_Processor_ID();
 		this.name = config.getName();
 
 		//
@@ -56,12 +80,20 @@ class ThreadPoolQueueProcessor extends AbstractQueueProcessor
 					.setDaemon(true)
 					.build();
 
-			executor = new BlockingThreadPoolExecutor(
-					config.getPoolSize(),
-					threadFactory
-			);
-			// If we have a KeepAliveTimeMillis in processor definition, then we apply the timeout for core threads too
-			executor.allowCoreThreadTimeOut(config.getKeepAliveTimeMillis() > 0);
+			if (getBooleanValue(SYSCONFIG_UseVirtualThreads, false))
+			{
+				final int maxConcurrency = getIntValue(SYSCONFIG_VirtualThreadsMaxConcurrency, config.getPoolSize());
+				executor = new SemaphoreBoundedExecutor(maxConcurrency, threadFactory);
+			}
+			else
+			{
+				final ThreadPoolExecutor threadPoolExecutor = new BlockingThreadPoolExecutor(
+						config.getPoolSize(),
+						threadFactory);
+				// If we have a KeepAliveTimeMillis in processor definition, then we apply the timeout for core threads too
+				threadPoolExecutor.allowCoreThreadTimeOut(config.getKeepAliveTimeMillis() > 0);
+				executor = threadPoolExecutor;
+			}
 		}
 
 		this.running = new AtomicBoolean(true);
@@ -89,10 +121,6 @@ class ThreadPoolQueueProcessor extends AbstractQueueProcessor
 		{
 			return false;
 		}
-		if (executor.isTerminating())
-		{
-			return false;
-		}
 		if (executor.isTerminated())
 		{
 			return false;
@@ -105,6 +133,54 @@ class ThreadPoolQueueProcessor extends AbstractQueueProcessor
 		return true;
 	}
 
+	@Override
+	protected int getClaimBatchSize()
+	{
+		if (!isClaimWorkPackages())
+		{
+			return 0;
+		}
+
+		// Claim only as many workpackages as we can start right away, to not keep them from other nodes
+		return Math.max(getFreeSlots(), 1);
+	}
+
+	private int getFreeSlots()
+	{
+		if (executor instanceof SemaphoreBoundedExecutor)
+		{
+			return ((SemaphoreBoundedExecutor)executor).getAvailableSlots();
+		}
+
+		final ThreadPoolExecutor threadPoolExecutor = (ThreadPoolExecutor)executor;
+		return threadPoolExecutor.getMaximumPoolSize() - threadPoolExecutor.getActiveCount();
+	}
+
+	private boolean isClaimWorkPackages()
+	{
+		return getBooleanValue(SYSCONFIG_ClaimWorkPackages, false);
+	}
+
+	/**
+	 * @return the sysconfig value for this processor (i.e. <code>name.C_Queue_Processor_ID_&lt;ID&gt;</code>), falling back to the global value (i.e. <code>name</code>)
+	 */
+	private boolean getBooleanValue(final String sysConfigName, final boolean defaultValue)
+	{
+		final ISysConfigBL sysConfigBL = Services.get(ISysConfigBL.class);
+		final boolean globalValue = sysConfigBL.getBooleanValue(sysConfigName, defaultValue);
+		return sysConfigBL.getBooleanValue(sysConfigName + ".C_Queue_Processor_ID_" + queueProcessorId, globalValue);
+	}
+
+	/**
+	 * @see #getBooleanValue(String, boolean)
+	 */
+	private int getIntValue(final String sysConfigName, final int defaultValue)
+	{
+		final ISysConfigBL sysConfigBL = Services.get(ISysConfigBL.class);
+		final int globalValue = sysConfigBL.getIntValue(sysConfigName, defaultValue);
+		return sysConfigBL.getIntValue(sysConfigName + ".C_Queue_Processor_ID_" + queueProcessorId, globalValue);
+	}
+
 	@Override
 	protected void executeTask(WorkpackageProcessorTask task)
 	{
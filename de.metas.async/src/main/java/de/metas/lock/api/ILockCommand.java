@@ -120,6 +120,10 @@ public interface ILockCommand
 
 	boolean isAutoCleanup();
 
+	/**
+	 * If <code>false</code>, then records which are already locked are silently skipped (i.e. <code>ON CONFLICT DO NOTHING</code>) and {@link ILock#getCountLocked()} tells how many records were actually locked.
+	 * If <code>true</code> (default), then the whole command fails if one of the records is already locked.
+	 */
 	ILockCommand setFailIfAlreadyLocked(boolean failIfAlreadyLocked);
 
 	boolean isFailIfAlreadyLocked();
@@ -27,6 +27,7 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.concurrent.Future;
 
+import org.adempiere.ad.dao.IQueryFilter;
 import org.adempiere.util.lang.ITableRecordReference;
 
 import de.metas.process.PInstanceId;
@@ -73,5 +74,13 @@ public interface IUnlockCommand
 
 	PInstanceId getSelectionToUnlock_AD_PInstance_ID();
 
+	/**
+	 * Unlock all records of given model class which are matching given filter, using one SQL statement.
+	 * <p>
+	 * NOTE: the SQL implementation supports only {@link org.adempiere.ad.dao.ISqlQueryFilter}s.
+	 */
+	<T> IUnlockCommand setRecordsByFilter(Class<T> modelClass, IQueryFilter<T> filters);
+
+	IQueryFilter<?> getSelectionToUnlock_Filters();
 
 }
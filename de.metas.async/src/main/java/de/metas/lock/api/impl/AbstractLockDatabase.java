@@ -22,7 +22,9 @@ package de.metas.lock.api.impl;
  * #L%
  */
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import org.adempiere.ad.dao.IQueryBL;
 import org.adempiere.ad.dao.IQueryBuilder;
@@ -55,6 +57,9 @@ public abstract class AbstractLockDatabase implements ILockDatabase
 {
 	protected final transient Logger logger = LogManager.getLogger(getClass());
 
+	/** How many records are locked/unlocked in one go when the records were given one by one (e.g. {@link ILockCommand#addRecordsByModel(java.util.Collection)}) */
+	protected static final int RECORDS_BATCH_SIZE = 1000;
+
 	/** Asserts given lock owner is a valid owner to be used on for Locks */
 	protected static final void assertValidLockOwner(final LockOwner lockOwner)
 	{
@@ -145,24 +150,32 @@ public abstract class AbstractLockDatabase implements ILockDatabase
 		final Iterator<ITableRecordReference> records = lockCommand.getRecordsToLockIterator();
 		Check.assumeNotNull(records, "records not null");
 
-		final boolean failIfAlreadyLocked = lockCommand.isFailIfAlreadyLocked();
 		final boolean changeLock = lockCommand.getParentLock() != null;
+		if (!changeLock)
+		{
+			int countLocked = 0;
+			final List<ITableRecordReference> batch = new ArrayList<>(RECORDS_BATCH_SIZE);
+			while (records.hasNext())
+			{
+				batch.add(records.next());
+				if (batch.size() >= RECORDS_BATCH_SIZE || !records.hasNext())
+				{
+					countLocked += lockRecords(lockCommand, batch);
+					batch.clear();
+				}
+			}
+			return countLocked;
+		}
+
+		final boolean failIfAlreadyLocked = lockCommand.isFailIfAlreadyLocked();
 		int countLocked = 0;
 		while (records.hasNext())
 		{
 			final ITableRecordReference record = records.next();
 
 			//
-			// Acquire/Change the lock
-			final boolean locked;
-			if (changeLock)
-			{
-				locked = changeLockRecord(lockCommand, record);
-			}
-			else
-			{
-				locked = lockRecord(lockCommand, record);
-			}
+			// Change the lock
+			final boolean locked = changeLockRecord(lockCommand, record);
 
 			// Increment the locked counter
 			if (locked)
@@ -184,6 +197,37 @@ public abstract class AbstractLockDatabase implements ILockDatabase
 		return countLocked;
 	}
 
+	/**
+	 * Locks given records.
+	 * <p>
+	 * This implementation locks them one by one. Database implementations are advised to override it and lock all of them in one go.
+	 *
+	 * @return how many records were locked
+	 * @throws LockFailedException if a record was already locked and {@link LockCommand#isFailIfAlreadyLocked()} is true
+	 */
+	protected int lockRecords(final ILockCommand lockCommand, final List<ITableRecordReference> records)
+	{
+		final boolean failIfAlreadyLocked = lockCommand.isFailIfAlreadyLocked();
+
+		int countLocked = 0;
+		for (final ITableRecordReference record : records)
+		{
+			final boolean locked = lockRecord(lockCommand, record);
+			if (locked)
+			{
+				countLocked++;
+			}
+			else if (failIfAlreadyLocked)
+			{
+				// NOTE: we are checking this just to me sure, but basically, the "lockRecord" method is already throwing an exception in this case
+				throw new LockFailedException("Record was already locked: " + record)
+						.setLockCommand(lockCommand)
+						.setRecordToLock(record);
+			}
+		}
+		return countLocked;
+	}
+
 	/**
 	 * Locks a single record.
 	 *
@@ -212,9 +256,13 @@ public abstract class AbstractLockDatabase implements ILockDatabase
 	{
 		final int countUnlocked;
 
+		if (unlockCommand.getSelectionToUnlock_Filters() != null)
+		{
+			countUnlocked = unlockByFilters(unlockCommand);
+		}
 		//
 		// Unlock by selection
-		if (unlockCommand.getSelectionToUnlock_AD_PInstance_ID() != null)
+		else if (unlockCommand.getSelectionToUnlock_AD_PInstance_ID() != null)
 		{
 			countUnlocked = unlockBySelection(unlockCommand);
 		}
@@ -245,22 +293,51 @@ public abstract class AbstractLockDatabase implements ILockDatabase
 
 	protected abstract int unlockByOwner(final IUnlockCommand unlockCommand);
 
+	/**
+	 * Unlock all records matched by {@link IUnlockCommand#getSelectionToUnlock_Filters()}.
+	 *
+	 * @return how many records were unlocked
+	 */
+	protected abstract int unlockByFilters(final IUnlockCommand unlockCommand);
+
 	private final int unlockByIterator(IUnlockCommand unlockCommand)
 	{
 		final Iterator<ITableRecordReference> records = unlockCommand.getRecordsToUnlockIterator();
 		Check.assumeNotNull(records, "records not null");
 
 		int countUnlocked = 0;
+		final List<ITableRecordReference> batch = new ArrayList<>(RECORDS_BATCH_SIZE);
 		while (records.hasNext())
 		{
-			final ITableRecordReference record = records.next();
+			batch.add(records.next());
+			if (batch.size() >= RECORDS_BATCH_SIZE || !records.hasNext())
+			{
+				countUnlocked += unlockRecords(unlockCommand, batch);
+				batch.clear();
+			}
+		}
+
+		return countUnlocked;
+	}
+
+	/**
+	 * Unlocks given records.
+	 * <p>
+	 * This implementation unlocks them one by one. Database implementations are advised to override it and unlock all of them in one go.
+	 *
+	 * @return how many records were unlocked
+	 */
+	protected int unlockRecords(final IUnlockCommand unlockCommand, final List<ITableRecordReference> records)
+	{
+		int countUnlocked = 0;
+		for (final ITableRecordReference record : records)
+		{
 			final boolean unlocked = unlockRecord(unlockCommand, record);
 			if (unlocked)
 			{
 				countUnlocked++;
 			}
 		}
-
 		return countUnlocked;
 	}
 
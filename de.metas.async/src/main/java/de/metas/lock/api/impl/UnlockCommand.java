@@ -26,6 +26,7 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.concurrent.Future;
 
+import org.adempiere.ad.dao.IQueryFilter;
 import org.adempiere.ad.trx.api.ITrxListenerManager.TrxEventTiming;
 import org.adempiere.ad.trx.api.ITrxManager;
 import org.adempiere.util.concurrent.FutureValue;
@@ -155,6 +156,19 @@ public class UnlockCommand implements IUnlockCommand
 		return _recordsToUnlock.getSelection_PInstanceId();
 	}
 
+	@Override
+	public <T> IUnlockCommand setRecordsByFilter(final Class<T> modelClass, final IQueryFilter<T> filters)
+	{
+		_recordsToUnlock.setSetRecordsByFilter(modelClass, filters);
+		return this;
+	}
+
+	@Override
+	public IQueryFilter<?> getSelectionToUnlock_Filters()
+	{
+		return _recordsToUnlock.getSelection_Filters();
+	}
+
 	@Override
 	public final Iterator<ITableRecordReference> getRecordsToUnlockIterator()
 	{
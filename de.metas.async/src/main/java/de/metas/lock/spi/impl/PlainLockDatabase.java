@@ -156,7 +156,7 @@ public class PlainLockDatabase extends AbstractLockDatabase
 		{
 			final ITableRecordReference recordToLockRef = TableRecordReference.of(recordToLock);
 			final boolean locked = lockRecord(lockCommand, recordToLockRef);
-			if (!locked)
+			if (!locked && lockCommand.isFailIfAlreadyLocked())
 			{
 				throw new LockFailedException("Record already locked: " + recordToLock)
 						.setLockCommand(lockCommand);
@@ -301,6 +301,30 @@ public class PlainLockDatabase extends AbstractLockDatabase
 		return countUnlocked;
 	}
 
+	@Override
+	protected int unlockByFilters(final IUnlockCommand unlockCommand)
+	{
+		@SuppressWarnings("unchecked")
+		final IQueryFilter<Object> selectionToUnlockFilters = (IQueryFilter<Object>)unlockCommand.getSelectionToUnlock_Filters();
+
+		final int adTableId = unlockCommand.getSelectionToUnlock_AD_Table_ID();
+		final String tableName = Services.get(IADTableDAO.class).retrieveTableName(adTableId);
+		final Comparator<Object> orderByComparator = null; // don't care
+		final List<Object> recordsToUnlock = POJOLookupMap.get().getRecords(tableName, Object.class, selectionToUnlockFilters, orderByComparator);
+
+		int countUnlocked = 0;
+		for (final Object recordToUnlock : recordsToUnlock)
+		{
+			final boolean unlocked = unlockRecord(unlockCommand, TableRecordReference.of(recordToUnlock));
+			if (unlocked)
+			{
+				countUnlocked++;
+			}
+		}
+
+		return countUnlocked;
+	}
+
 	private List<ITableRecordReference> retrieveSelection(final int adTableId, final PInstanceId pinstanceId)
 	{
 		// NOTE: below comes a fucked up, not optimum implementation shit which shall do the work for testing
@@ -466,8 +490,9 @@ public class PlainLockDatabase extends AbstractLockDatabase
 
 			if (existingLockInfo == null && !isAllowMultipleOwners() && !locksByLockOwner.isEmpty())
 			{
-				// development error
-				throw new LockFailedException("Cannot create lock " + lockInfo + " because we found a lockInfo which has allowMultipleOwners set: " + this);
+				// already locked by another owner; same as the unique index violation of SqlLockDatabase
+				logger.debug("Cannot create lock {} because the record is already locked by another owner: {}", lockInfo, this);
+				return false;
 			}
 
 			if (existingLockInfo != null)
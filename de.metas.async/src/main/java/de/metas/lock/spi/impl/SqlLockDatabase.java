@@ -5,7 +5,10 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.adempiere.ad.dao.IQueryFilter;
 import org.adempiere.ad.dao.ISqlQueryFilter;
@@ -47,6 +50,17 @@ public class SqlLockDatabase extends AbstractLockDatabase
 {
 	private static final String SQL_DeleteLock = "DELETE FROM " + I_T_Lock.Table_Name + " WHERE 1=1 ";
 
+	private static final String SQL_InsertLock_Columns = "INSERT INTO " + I_T_Lock.Table_Name + " ("
+			+ I_T_Lock.COLUMNNAME_AD_Table_ID
+			+ ", " + I_T_Lock.COLUMNNAME_Record_ID
+			+ ", " + I_T_Lock.COLUMNNAME_Owner
+			+ ", " + I_T_Lock.COLUMNNAME_IsAutoCleanup
+			+ ", " + I_T_Lock.COLUMNNAME_IsAllowMultipleOwners
+			+ ")";
+
+	/** Appended to lock INSERTs if {@link ILockCommand#isFailIfAlreadyLocked()} is false, so that the already locked records are skipped instead of failing the whole statement */
+	private static final String SQL_OnConflictDoNothing = " ON CONFLICT DO NOTHING";
+
 	/**
 	 * @param lockOwner
 	 * @param sql
@@ -157,13 +171,7 @@ public class SqlLockDatabase extends AbstractLockDatabase
 			final List<Object> sqlParams = new ArrayList<>();
 			final ISqlQueryFilter sqlFilter = ISqlQueryFilter.cast(selectionToLockFilters);
 			final String tableName = adTableDAO.retrieveTableName(adTableId);
-			final String sql = "INSERT INTO " + I_T_Lock.Table_Name + " ("
-					+ I_T_Lock.COLUMNNAME_AD_Table_ID
-					+ ", " + I_T_Lock.COLUMNNAME_Record_ID
-					+ ", " + I_T_Lock.COLUMNNAME_Owner
-					+ ", " + I_T_Lock.COLUMNNAME_IsAutoCleanup
-					+ ", " + I_T_Lock.COLUMNNAME_IsAllowMultipleOwners
-					+ ")"
+			final String sql = SQL_InsertLock_Columns
 					//
 					+ " SELECT "
 					+ toSqlParam(adTableId, sqlParams) // AD_Table_ID
@@ -195,13 +203,7 @@ public class SqlLockDatabase extends AbstractLockDatabase
 		assertValidLockOwner(lockOwner);
 
 		final List<Object> sqlParams = new ArrayList<>();
-		final String sql = "INSERT INTO " + I_T_Lock.Table_Name + " ("
-				+ I_T_Lock.COLUMNNAME_AD_Table_ID
-				+ ", " + I_T_Lock.COLUMNNAME_Record_ID
-				+ ", " + I_T_Lock.COLUMNNAME_Owner
-				+ ", " + I_T_Lock.COLUMNNAME_IsAutoCleanup
-				+ ", " + I_T_Lock.COLUMNNAME_IsAllowMultipleOwners
-				+ ")"
+		final String sql = SQL_InsertLock_Columns
 				//
 				+ " SELECT "
 				+ toSqlParam(adTableId, sqlParams) // AD_Table_ID
@@ -216,8 +218,9 @@ public class SqlLockDatabase extends AbstractLockDatabase
 		return performLockSQLInsert(lockCommand, sqlParams, sql);
 	}
 
-	protected int performLockSQLInsert(final ILockCommand lockCommand, final List<Object> sqlParams, final String sql)
+	protected int performLockSQLInsert(final ILockCommand lockCommand, final List<Object> sqlParams, final String sqlInsert)
 	{
+		final String sql = lockCommand.isFailIfAlreadyLocked() ? sqlInsert : sqlInsert + SQL_OnConflictDoNothing;
 		try
 		{
 			final int countLocked = DB.executeUpdateEx(sql, sqlParams.toArray(), ITrx.TRXNAME_None);
@@ -230,8 +233,6 @@ public class SqlLockDatabase extends AbstractLockDatabase
 		}
 		catch (final DBUniqueConstraintException e)
 		{
-			// TODO: implement for lockCommand.isFailIfAlreadyLocked() == false to allow partial locking
-
 			throw new LockFailedException("Some of the records were already locked", e)
 					.setLockCommand(lockCommand)
 					.setSql(sql, sqlParams.toArray());
@@ -245,6 +246,77 @@ public class SqlLockDatabase extends AbstractLockDatabase
 		}
 	}
 
+	/**
+	 * Locks given records using one <code>INSERT INTO T_Lock ... SELECT</code> per table.
+	 * <p>
+	 * If {@link ILockCommand#isFailIfAlreadyLocked()}, then the records of a table are locked all or nothing. Else the already locked records are skipped.
+	 */
+	@Override
+	protected int lockRecords(final ILockCommand lockCommand, final List<ITableRecordReference> records)
+	{
+		final LockOwner lockOwner = lockCommand.getOwner();
+		assertValidLockOwner(lockOwner);
+
+		int countLocked = 0;
+		for (final Map.Entry<Integer, List<Integer>> e : groupRecordIdsByTableId(records).entrySet())
+		{
+			final int adTableId = e.getKey();
+			Check.assume(adTableId > 0, "adTableId > 0");
+			final List<Integer> recordIds = e.getValue();
+
+			final List<Object> sqlParams = new ArrayList<>();
+			final StringBuilder sql = new StringBuilder(SQL_InsertLock_Columns)
+					.append(" SELECT ")
+					.append(toSqlParam(adTableId, sqlParams)) // AD_Table_ID
+					.append(", r.Record_ID") // Record_ID
+					.append(", ").append(toSqlParam(lockOwner.getOwnerName(), sqlParams)) // Owner
+					.append(", ").append(toSqlParam(lockCommand.isAutoCleanup(), sqlParams)) // IsAutoCleanup
+					.append(", ").append(toSqlParam(isAllowMultipleOwners(lockCommand.getAllowAdditionalLocks()), sqlParams)) // IsAllowMultipleOwners
+					.append(" FROM (VALUES ");
+			for (int i = 0; i < recordIds.size(); i++)
+			{
+				sql.append(i > 0 ? ",(" : "(").append(toSqlParam(recordIds.get(i), sqlParams)).append(")");
+			}
+			sql.append(") r(Record_ID)");
+			if (!lockCommand.isFailIfAlreadyLocked())
+			{
+				sql.append(SQL_OnConflictDoNothing);
+			}
+
+			try
+			{
+				countLocked += DB.executeUpdateEx(sql.toString(), sqlParams.toArray(), ITrx.TRXNAME_None);
+			}
+			catch (final DBUniqueConstraintException ex)
+			{
+				throw new LockFailedException("Some of the records were already locked", ex)
+						.setLockCommand(lockCommand)
+						.setSql(sql.toString(), sqlParams.toArray());
+			}
+			catch (final Exception ex)
+			{
+				throw LockFailedException.wrapIfNeeded(ex)
+						.setLockCommand(lockCommand)
+						.setSql(sql.toString(), sqlParams.toArray());
+			}
+		}
+
+		return countLocked;
+	}
+
+	/**
+	 * @return Record_IDs (only the valid ones) indexed by AD_Table_ID
+	 */
+	private static Map<Integer, List<Integer>> groupRecordIdsByTableId(final List<ITableRecordReference> records)
+	{
+		return records.stream()
+				.filter(record -> record.getRecord_ID() >= 0)
+				.collect(Collectors.groupingBy(
+						ITableRecordReference::getAD_Table_ID,
+						LinkedHashMap::new,
+						Collectors.mapping(ITableRecordReference::getRecord_ID, Collectors.toList())));
+	}
+
 	@Override
 	protected boolean lockRecord(final ILockCommand lockCommand, final ITableRecordReference record)
 	{
@@ -387,6 +459,74 @@ public class SqlLockDatabase extends AbstractLockDatabase
 		return countUnlocked;
 	}
 
+	@Override
+	protected int unlockByFilters(final IUnlockCommand unlockCommand)
+	{
+		final IQueryFilter<?> selectionToUnlockFilters = unlockCommand.getSelectionToUnlock_Filters();
+		Check.errorUnless(selectionToUnlockFilters instanceof ISqlQueryFilter, "Currently we just support ISqlQueryFilters. This filter is not supported: {}", selectionToUnlockFilters);
+
+		final int adTableId = unlockCommand.getSelectionToUnlock_AD_Table_ID();
+		final String tableName = Services.get(IADTableDAO.class).retrieveTableName(adTableId);
+		final ISqlQueryFilter sqlFilter = ISqlQueryFilter.cast(selectionToUnlockFilters);
+
+		final List<Object> sqlParams = new ArrayList<>();
+		final StringBuilder sql = new StringBuilder(SQL_DeleteLock);
+
+		// For AD_Table_ID / Record_ID matching the filter
+		sql.append(" AND ").append(I_T_Lock.COLUMNNAME_AD_Table_ID).append("=").append(toSqlParam(adTableId, sqlParams));
+		sql.append(" AND ").append(I_T_Lock.COLUMNNAME_Record_ID)
+				.append(" IN (SELECT ").append(tableName).append("_ID FROM ").append(tableName).append(" WHERE (").append(sqlFilter.getSql()).append("))");
+		sqlParams.addAll(sqlFilter.getSqlParams(null));
+
+		// For Owner
+		appendLockOwnerWhereClause(unlockCommand.getOwner(), sql, sqlParams);
+
+		try
+		{
+			return DB.executeUpdateEx(sql.toString(), sqlParams.toArray(), ITrx.TRXNAME_None);
+		}
+		catch (final Exception e)
+		{
+			throw new UnlockFailedException("Failed unlocking by filter", e)
+					.setUnlockCommand(unlockCommand)
+					.setSql(sql.toString(), sqlParams.toArray());
+		}
+	}
+
+	/**
+	 * Unlocks given records using one <code>DELETE</code> per table.
+	 */
+	@Override
+	protected int unlockRecords(final IUnlockCommand unlockCommand, final List<ITableRecordReference> records)
+	{
+		int countUnlocked = 0;
+		for (final Map.Entry<Integer, List<Integer>> e : groupRecordIdsByTableId(records).entrySet())
+		{
+			final List<Object> sqlParams = new ArrayList<>();
+			final StringBuilder sql = new StringBuilder(SQL_DeleteLock);
+
+			// For AD_Table_ID/Record_IDs
+			sql.append(" AND ").append(I_T_Lock.COLUMNNAME_AD_Table_ID).append("=").append(toSqlParam(e.getKey(), sqlParams));
+			sql.append(" AND ").append(I_T_Lock.COLUMNNAME_Record_ID).append(" IN ").append(DB.buildSqlList(e.getValue(), sqlParams));
+
+			// For Owner
+			appendLockOwnerWhereClause(unlockCommand.getOwner(), sql, sqlParams);
+
+			try
+			{
+				countUnlocked += DB.executeUpdateEx(sql.toString(), sqlParams.toArray(), ITrx.TRXNAME_None);
+			}
+			catch (final Exception ex)
+			{
+				throw new UnlockFailedException("Failed unlocking records: " + records, ex)
+						.setUnlockCommand(unlockCommand)
+						.setSql(sql.toString(), sqlParams.toArray());
+			}
+		}
+
+		return countUnlocked;
+	}
+
 	@Override
 	protected boolean unlockRecord(final IUnlockCommand unlockCommand, final ITableRecordReference record)
 	{
@@ -0,0 +1,38 @@
+--
+-- Notify the queue processors (see de.metas.async.api.impl.WorkPackageReadyNotificationListener) when a workpackage becomes ready for processing.
+-- The payload is the C_Queue_PackageProcessor_ID, so only the processors which are registered for it are woken up.
+-- NOTE: postgres delivers the notification when the transaction is committed and collapses identical notifications within one transaction.
+--
+CREATE OR REPLACE FUNCTION "de.metas.async".C_Queue_WorkPackage_NotifyReady_tgfn()
+RETURNS trigger
+AS
+$BODY$
+BEGIN
+	IF NEW.IsReadyForProcessing='Y' AND NEW.Processed='N' AND NEW.IsError='N'
+		AND (TG_OP='INSERT' OR OLD.IsReadyForProcessing<>NEW.IsReadyForProcessing)
+	THEN
+		PERFORM pg_notify('c_queue_workpackage_ready', b.C_Queue_PackageProcessor_ID::text)
+		FROM C_Queue_Block b
+		WHERE b.C_Queue_Block_ID=NEW.C_Queue_Block_ID;
+	END IF;
+
+	RETURN NULL;
+END;
+$BODY$
+LANGUAGE plpgsql VOLATILE;
+
+DROP TRIGGER IF EXISTS C_Queue_WorkPackage_NotifyReady_tg ON C_Queue_WorkPackage
+;
+
+CREATE TRIGGER C_Queue_WorkPackage_NotifyReady_tg AFTER INSERT OR UPDATE OF IsReadyForProcessing ON C_Queue_WorkPackage FOR EACH ROW EXECUTE PROCEDURE "de.metas.async".C_Queue_WorkPackage_NotifyReady_tgfn()
+;
+
+-- 2019-04-26T10:12:31.112
+-- URL zum Konzept
+INSERT INTO AD_SysConfig (AD_Client_ID,AD_Org_ID,AD_SysConfig_ID,ConfigurationLevel,Created,CreatedBy,Description,EntityType,IsActive,Name,Updated,UpdatedBy,Value) VALUES (0,0,541275,'S',TO_TIMESTAMP('2019-04-26 10:12:31','YYYY-MM-DD HH24:MI:SS'),100,'If Y, then the queue processors wait for database notifications about new workpackages and poll just every de.metas.async.PollIntervallMillisWhenNotified milliseconds as a safety net. If N, they poll every de.metas.async.PollIntervallMillis milliseconds.','de.metas.async','Y','de.metas.async.WorkPackageReadyNotification.Enabled',TO_TIMESTAMP('2019-04-26 10:12:31','YYYY-MM-DD HH24:MI:SS'),100,'Y')
+;
+
+-- 2019-04-26T10:13:05.447
+-- URL zum Konzept
+INSERT INTO AD_SysConfig (AD_Client_ID,AD_Org_ID,AD_SysConfig_ID,ConfigurationLevel,Created,CreatedBy,Description,EntityType,IsActive,Name,Updated,UpdatedBy,Value) VALUES (0,0,541276,'S',TO_TIMESTAMP('2019-04-26 10:13:05','YYYY-MM-DD HH24:MI:SS'),100,'Safety net poll interval of the queue processors while they are listening for database notifications about new workpackages.','de.metas.async','Y','de.metas.async.PollIntervallMillisWhenNotified',TO_TIMESTAMP('2019-04-26 10:13:05','YYYY-MM-DD HH24:MI:SS'),100,'60000')
+;
@@ -0,0 +1,19 @@
+--
+-- Technical columns to claim workpackages in batches without T_Lock (see de.metas.async.api.IQueueDAO.claimWorkpackageIds).
+-- They are intentionally not in the application dictionary: they are only written and read by plain SQL.
+--
+ALTER TABLE C_Queue_WorkPackage ADD COLUMN IF NOT EXISTS ClaimedBy VARCHAR(255)
+;
+
+ALTER TABLE C_Queue_WorkPackage ADD COLUMN IF NOT EXISTS ClaimedAt TIMESTAMP WITH TIME ZONE
+;
+
+-- supports the claim statement's sub-select, which looks for the ready, unclaimed workpackages in queue order
+CREATE INDEX IF NOT EXISTS C_Queue_WorkPackage_ReadyNotClaimed ON C_Queue_WorkPackage (Priority, C_Queue_WorkPackage_ID)
+WHERE Processed='N' AND IsReadyForProcessing='Y' AND IsError='N' AND IsActive='Y' AND ClaimedBy IS NULL
+;
+
+-- 2019-04-26T11:02:47.305
+-- URL zum Konzept
+INSERT INTO AD_SysConfig (AD_Client_ID,AD_Org_ID,AD_SysConfig_ID,ConfigurationLevel,Created,CreatedBy,Description,EntityType,IsActive,Name,Updated,UpdatedBy,Value) VALUES (0,0,541277,'S',TO_TIMESTAMP('2019-04-26 11:02:47','YYYY-MM-DD HH24:MI:SS'),100,'If Y, then the queue processors claim as many workpackages as they have free threads in one statement, instead of locking them one by one in T_Lock. Can be overridden per queue processor by appending .C_Queue_Processor_ID_<ID> to the name.','de.metas.async','Y','de.metas.async.ClaimWorkPackages',TO_TIMESTAMP('2019-04-26 11:02:47','YYYY-MM-DD HH24:MI:SS'),100,'N')
+;
@@ -0,0 +1,4 @@
+-- 2019-04-26T14:21:09.518
+-- URL zum Konzept
+INSERT INTO AD_SysConfig (AD_Client_ID,AD_Org_ID,AD_SysConfig_ID,ConfigurationLevel,Created,CreatedBy,Description,EntityType,IsActive,Name,Updated,UpdatedBy,Value) VALUES (0,0,541278,'S',TO_TIMESTAMP('2019-04-26 14:21:09','YYYY-MM-DD HH24:MI:SS'),100,'If Y, then the queue processors start one (virtual, if supported by the JVM) thread per workpackage and bound the number of concurrently processed workpackages by a semaphore, instead of using a fixed thread pool. Needs a restart of the queue processor. Can be overridden per queue processor by appending .C_Queue_Processor_ID_<ID> to the name.','de.metas.async','Y','de.metas.async.UseVirtualThreads',TO_TIMESTAMP('2019-04-26 14:21:09','YYYY-MM-DD HH24:MI:SS'),100,'N')
+;
@@ -0,0 +1,196 @@
+package de.metas.async.api.impl;
+
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.adempiere.ad.dao.impl.POJOQuery;
+import org.compiere.model.IQuery;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.metas.async.QueueProcessorTestBase;
+import de.metas.async.api.IQueueDAO;
+import de.metas.async.api.IWorkPackageQuery;
+import de.metas.async.api.IWorkPackageQueue;
+import de.metas.async.model.I_C_Queue_Processor;
+import de.metas.async.model.I_C_Queue_WorkPackage;
+import de.metas.async.processor.IWorkPackageQueueFactory;
+import de.metas.async.processor.impl.StaticMockedWorkpackageProcessor;
+import de.metas.util.Services;
+import de.metas.util.time.SystemTime;
+
+/**
+ * Tests {@link IWorkPackageQueue#pollAndClaim(int, long)}.
+ */
+public class TestQueue_PollAndClaim extends QueueProcessorTestBase
+{
+	private I_C_Queue_Processor processorDef;
+	private IWorkPackageQueue queueForEnqueuing;
+	private IWorkPackageQueue queueForProcessing;
+
+	@Override
+	protected void beforeTestCustomized()
+	{
+		processorDef = helper.createQueueProcessor("test", 10, 10, 0);
+		helper.assignPackageProcessor(processorDef, StaticMockedWorkpackageProcessor.class);
+
+		final IWorkPackageQueueFactory workPackageQueueFactory = Services.get(IWorkPackageQueueFactory.class);
+		queueForEnqueuing = workPackageQueueFactory.getQueueForEnqueuing(ctx, StaticMockedWorkpackageProcessor.class);
+		queueForProcessing = workPackageQueueFactory.getQueueForPackageProcessing(processorDef);
+	}
+
+	@Test
+	public void claimsAtMostTheRequestedNumberOfWorkpackages()
+	{
+		helper.createAndEnqueueWorkpackages(queueForEnqueuing, 5, true); // markReadyForProcessing=true
+
+		final List<I_C_Queue_WorkPackage> claimed = queueForProcessing.pollAndClaim(3, IWorkPackageQueue.TIMEOUT_OneTimeOnly);
+		assertThat(claimed).hasSize(3);
+
+		final List<I_C_Queue_WorkPackage> claimedRest = queueForProcessing.pollAndClaim(3, IWorkPackageQueue.TIMEOUT_OneTimeOnly);
+		assertThat(claimedRest).hasSize(2);
+
+		assertThat(queueForProcessing.pollAndClaim(3, IWorkPackageQueue.TIMEOUT_OneTimeOnly)).isEmpty();
+		assertThat(queueForProcessing.pollAndLock(IWorkPackageQueue.TIMEOUT_OneTimeOnly)).isNull();
+	}
+
+	@Test
+	public void unlockReleasesTheClaim()
+	{
+		helper.createAndEnqueueWorkpackages(queueForEnqueuing, 1, true); // markReadyForProcessing=true
+
+		final List<I_C_Queue_WorkPackage> claimed = queueForProcessing.pollAndClaim(10, IWorkPackageQueue.TIMEOUT_OneTimeOnly);
+		assertThat(claimed).hasSize(1);
+
+		queueForProcessing.unlock(claimed.get(0));
+
+		final I_C_Queue_WorkPackage lockedWorkpackage = queueForProcessing.pollAndLock(IWorkPackageQueue.TIMEOUT_OneTimeOnly);
+		assertThat(lockedWorkpackage).isNotNull();
+		assertThat(lockedWorkpackage.getC_Queue_WorkPackage_ID()).isEqualTo(claimed.get(0).getC_Queue_WorkPackage_ID());
+		queueForProcessing.unlock(lockedWorkpackage);
+
+		helper.assertNothingLocked();
+	}
+
+	@Test
+	public void lockedWorkpackagesAreNotClaimed()
+	{
+		helper.createAndEnqueueWorkpackages(queueForEnqueuing, 2, true); // markReadyForProcessing=true
+
+		final I_C_Queue_WorkPackage lockedWorkpackage = queueForProcessing.pollAndLock(IWorkPackageQueue.TIMEOUT_OneTimeOnly);
+		assertThat(lockedWorkpackage).isNotNull();
+
+		final List<I_C_Queue_WorkPackage> claimed = queueForProcessing.pollAndClaim(10, IWorkPackageQueue.TIMEOUT_OneTimeOnly);
+		assertThat(claimed).hasSize(1);
+		assertThat(claimed.get(0).getC_Queue_WorkPackage_ID()).isNotEqualTo(lockedWorkpackage.getC_Queue_WorkPackage_ID());
+
+		queueForProcessing.unlock(lockedWorkpackage);
+		queueForProcessing.unlock(claimed.get(0));
+	}
+
+	@Test
+	public void workpackageClaimedBetweenSelectAndLockIsNotLocked()
+	{
+		final ClaimOnSelectQueueDAO queueDAO = new ClaimOnSelectQueueDAO();
+		Services.registerService(IQueueDAO.class, queueDAO);
+		final IWorkPackageQueue queueForLocking = Services.get(IWorkPackageQueueFactory.class).getQueueForPackageProcessing(processorDef);
+
+		helper.createAndEnqueueWorkpackages(queueForEnqueuing, 1, true); // markReadyForProcessing=true
+
+		assertThat(queueForLocking.pollAndLock(IWorkPackageQueue.TIMEOUT_OneTimeOnly)).isNull();
+		assertThat(queueDAO.claimedOnSelectIds).hasSize(1);
+		assertThat(queueDAO.isClaimed(queueDAO.claimedOnSelectIds.get(0))).isTrue();
+		helper.assertNothingLocked();
+	}
+
+	@Test
+	public void claimsWhichAreNotRenewedExpire()
+	{
+		final IQueueDAO queueDAO = Services.get(IQueueDAO.class);
+		final String ownClaimedByPrefix = WorkPackageClaimsOwner.instance.getClaimedByPrefix();
+		final int timeoutMinutes = 10;
+
+		helper.createAndEnqueueWorkpackages(queueForEnqueuing, 1, true); // markReadyForProcessing=true
+		final List<I_C_Queue_WorkPackage> claimed = queueForProcessing.pollAndClaim(10, IWorkPackageQueue.TIMEOUT_OneTimeOnly);
+		assertThat(claimed).hasSize(1);
+		final int workpackageId = claimed.get(0).getC_Queue_WorkPackage_ID();
+
+		final long claimedAtMillis = SystemTime.millis();
+		try
+		{
+			// renewed by us after 8 minutes => not expired after 16 minutes
+			SystemTime.setTimeSource(() -> claimedAtMillis + TimeUnit.MINUTES.toMillis(8));
+			assertThat(queueDAO.renewClaims("otherNode/")).isEqualTo(0);
+			assertThat(queueDAO.renewClaims(ownClaimedByPrefix)).isEqualTo(1);
+
+			SystemTime.setTimeSource(() -> claimedAtMillis + TimeUnit.MINUTES.toMillis(16));
+			assertThat(queueDAO.releaseExpiredClaims(timeoutMinutes)).isEqualTo(0);
+			assertThat(queueDAO.isClaimed(workpackageId)).isTrue();
+
+			// not renewed anymore, e.g. because our JVM crashed
+			SystemTime.setTimeSource(() -> claimedAtMillis + TimeUnit.MINUTES.toMillis(19));
+			assertThat(queueDAO.releaseExpiredClaims(timeoutMinutes)).isEqualTo(1);
+			assertThat(queueDAO.isClaimed(workpackageId)).isFalse();
+		}
+		finally
+		{
+			SystemTime.resetTimeSource();
+		}
+	}
+
+	/**
+	 * Simulates another node which claims the workpackage right after it was selected by pollAndLock, but before it was locked.
+	 */
+	private static class ClaimOnSelectQueueDAO extends PlainQueueDAO
+	{
+		private boolean claimOnSelect = true;
+		private List<Integer> claimedOnSelectIds = ImmutableList.of();
+
+		@Override
+		public IQuery<I_C_Queue_WorkPackage> createQuery(final Properties ctx, final IWorkPackageQuery packageQuery)
+		{
+			final POJOQuery<I_C_Queue_WorkPackage> query = (POJOQuery<I_C_Queue_WorkPackage>)super.createQuery(ctx, packageQuery);
+			if (!claimOnSelect)
+			{
+				return query;
+			}
+
+			return query.addFilter(workpackage -> {
+				if (claimOnSelect)
+				{
+					claimOnSelect = false;
+					claimedOnSelectIds = claimWorkpackageIds(ctx, packageQuery, "otherNode", 1);
+				}
+				return true;
+			});
+		}
+	}
+}
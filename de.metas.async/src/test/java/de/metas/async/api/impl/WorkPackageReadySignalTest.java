@@ -0,0 +1,135 @@
+package de.metas.async.api.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.metas.async.api.WorkPackageQueueWakeUpStatistics;
+
+public class WorkPackageReadySignalTest
+{
+	private WorkPackageReadySignal signal;
+	private ExecutorService executor;
+
+	@Before
+	public void init()
+	{
+		signal = new WorkPackageReadySignal();
+		executor = Executors.newSingleThreadExecutor();
+	}
+
+	@After
+	public void shutdownExecutor()
+	{
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void await_withoutNotification_timesOut() throws Exception
+	{
+		final long startNanos = System.nanoTime();
+
+		assertThat(signal.await(50)).isEqualTo(0);
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)).isGreaterThanOrEqualTo(50);
+	}
+
+	@Test
+	public void fire_withoutWaitingThread_isRemembered() throws Exception
+	{
+		final long beforeFireNanos = System.nanoTime();
+		signal.fire();
+
+		final long notificationNanos = signal.await(0);
+		assertThat(notificationNanos).isGreaterThanOrEqualTo(beforeFireNanos);
+
+		// the notification was consumed
+		assertThat(signal.await(0)).isEqualTo(0);
+	}
+
+	@Test
+	public void fire_multipleTimes_isConsumedOnce() throws Exception
+	{
+		signal.fire();
+		final long afterFirstFireNanos = System.nanoTime();
+		signal.fire();
+		signal.fire();
+
+		// we get the time of the first notification which was not yet consumed
+		assertThat(signal.await(0)).isLessThanOrEqualTo(afterFirstFireNanos);
+		assertThat(signal.await(0)).isEqualTo(0);
+	}
+
+	@Test
+	public void fire_wakesUpWaitingThread() throws Exception
+	{
+		final CountDownLatch awaitStarted = new CountDownLatch(1);
+		final Future<Long> notificationNanos = executor.submit(() -> {
+			awaitStarted.countDown();
+			return signal.await(TimeUnit.MINUTES.toMillis(1));
+		});
+		assertThat(awaitStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+		signal.fire();
+
+		// way below the await timeout
+		assertThat(notificationNanos.get(10, TimeUnit.SECONDS)).isNotEqualTo(0);
+	}
+
+	@Test
+	public void getStatistics()
+	{
+		signal.fire();
+		signal.fire();
+		signal.recordWorkpackageAcquired(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(100));
+		signal.recordWorkpackageAcquired(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(300));
+		signal.recordWorkpackageAcquired(0);
+
+		final WorkPackageQueueWakeUpStatistics statistics = signal.getStatistics();
+		assertThat(statistics.getCountNotifications()).isEqualTo(2);
+		assertThat(statistics.getCountWakeUpsWithWorkpackage()).isEqualTo(2);
+		assertThat(statistics.getCountSafetyNetPollsWithWorkpackage()).isEqualTo(1);
+		assertThat(statistics.getAvgWakeUpToStartMillis()).isGreaterThanOrEqualTo(200);
+		assertThat(statistics.getMaxWakeUpToStartMillis()).isGreaterThanOrEqualTo(300);
+		assertThat(statistics.getLastWakeUpToStartMillis()).isGreaterThanOrEqualTo(300);
+	}
+
+	@Test
+	public void getStatistics_withoutWakeUps()
+	{
+		final WorkPackageQueueWakeUpStatistics statistics = signal.getStatistics();
+		assertThat(statistics.getCountNotifications()).isEqualTo(0);
+		assertThat(statistics.getAvgWakeUpToStartMillis()).isEqualTo(-1);
+		assertThat(statistics.getMaxWakeUpToStartMillis()).isEqualTo(-1);
+		assertThat(statistics.getLastWakeUpToStartMillis()).isEqualTo(-1);
+	}
+}
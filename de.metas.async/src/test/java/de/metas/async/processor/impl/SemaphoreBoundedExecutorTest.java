@@ -0,0 +1,105 @@
+package de.metas.async.processor.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SemaphoreBoundedExecutorTest
+{
+	private SemaphoreBoundedExecutor executor;
+
+	@Before
+	public void init()
+	{
+		final CustomizableThreadFactory threadFactory = CustomizableThreadFactory.builder()
+				.setThreadNamePrefix(getClass().getSimpleName())
+				.setDaemon(true)
+				.build();
+		executor = new SemaphoreBoundedExecutor(2, threadFactory);
+	}
+
+	@After
+	public void shutdown()
+	{
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void test_maxConcurrencyAndInFlight() throws Exception
+	{
+		final CountDownLatch started = new CountDownLatch(2);
+		final CountDownLatch release = new CountDownLatch(1);
+		final Runnable blockingTask = () -> {
+			started.countDown();
+			awaitNoFail(release);
+		};
+
+		final Future<?> future1 = executor.submit(blockingTask);
+		final Future<?> future2 = executor.submit(blockingTask);
+		assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(executor.getCountInFlight()).isEqualTo(2);
+		assertThat(executor.getAvailableSlots()).isEqualTo(0);
+
+		//
+		// The third task shall wait until one of the first two is finished
+		final CountDownLatch thirdSubmitted = new CountDownLatch(1);
+		final Thread submitter = new Thread(() -> {
+			executor.submit(() -> {});
+			thirdSubmitted.countDown();
+		});
+		submitter.start();
+		assertThat(thirdSubmitted.await(200, TimeUnit.MILLISECONDS)).isFalse();
+
+		release.countDown();
+		future1.get(10, TimeUnit.SECONDS);
+		future2.get(10, TimeUnit.SECONDS);
+		assertThat(thirdSubmitted.await(10, TimeUnit.SECONDS)).isTrue();
+
+		executor.shutdown();
+		assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(executor.getCountInFlight()).isEqualTo(0);
+		assertThat(executor.getAvailableSlots()).isEqualTo(2);
+	}
+
+	private static void awaitNoFail(final CountDownLatch latch)
+	{
+		try
+		{
+			latch.await(10, TimeUnit.SECONDS);
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
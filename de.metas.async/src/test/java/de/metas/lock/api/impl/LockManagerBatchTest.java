@@ -0,0 +1,121 @@
+package de.metas.lock.api.impl;
+
+/*
+ * #%L
+ * de.metas.async
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.adempiere.ad.wrapper.POJOWrapper;
+import org.adempiere.model.InterfaceWrapperHelper;
+import org.adempiere.test.AdempiereTestHelper;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.metas.async.model.I_C_Queue_Block;
+import de.metas.lock.api.ILock;
+import de.metas.lock.api.ILockManager;
+import de.metas.lock.api.LockOwner;
+import de.metas.lock.exceptions.LockFailedException;
+import de.metas.util.Services;
+
+public class LockManagerBatchTest
+{
+	private ILockManager lockManager;
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+		POJOWrapper.setDefaultStrictValues(false);
+
+		lockManager = Services.get(ILockManager.class);
+	}
+
+	private List<I_C_Queue_Block> createRecords(final int count)
+	{
+		final List<I_C_Queue_Block> records = new ArrayList<>();
+		for (int i = 0; i < count; i++)
+		{
+			final I_C_Queue_Block record = InterfaceWrapperHelper.newInstance(I_C_Queue_Block.class);
+			InterfaceWrapperHelper.save(record);
+			records.add(record);
+		}
+		return records;
+	}
+
+	@Test
+	public void lockManyRecords_moreThanOneBatch()
+	{
+		final List<I_C_Queue_Block> records = createRecords(AbstractLockDatabase.RECORDS_BATCH_SIZE + 10);
+
+		final ILock lock = lockManager.lock()
+				.setOwner(LockOwner.newOwner("test"))
+				.addRecordsByModel(records)
+				.acquire();
+
+		assertThat(lock.getCountLocked()).isEqualTo(records.size());
+		assertThat(records).allMatch(lockManager::isLocked);
+
+		final int countUnlocked = lockManager.unlock()
+				.setOwner(lock.getOwner())
+				.setRecordsByModels(records)
+				.release();
+		assertThat(countUnlocked).isEqualTo(records.size());
+		assertThat(records).noneMatch(lockManager::isLocked);
+	}
+
+	@Test
+	public void lockRecords_skipAlreadyLocked()
+	{
+		final List<I_C_Queue_Block> records = createRecords(5);
+		lockManager.lock()
+				.setOwner(LockOwner.newOwner("other"))
+				.addRecordsByModel(records.subList(0, 2))
+				.acquire();
+
+		final ILock lock = lockManager.lock()
+				.setOwner(LockOwner.newOwner("test"))
+				.setFailIfAlreadyLocked(false)
+				.addRecordsByModel(records)
+				.acquire();
+
+		assertThat(lock.getCountLocked()).isEqualTo(3);
+	}
+
+	@Test(expected = LockFailedException.class)
+	public void lockRecords_failIfAlreadyLocked()
+	{
+		final List<I_C_Queue_Block> records = createRecords(5);
+		lockManager.lock()
+				.setOwner(LockOwner.newOwner("other"))
+				.addRecordsByModel(records.subList(0, 2))
+				.acquire();
+
+		lockManager.lock()
+				.setOwner(LockOwner.newOwner("test"))
+				.addRecordsByModel(records)
+				.acquire();
+	}
+}
@@ -163,7 +163,7 @@ public class ProductDAO implements IProductDAO
 	}
 
 	@Override
-	@Cached(cacheName = I_M_Product_Category.Table_Name + "#Default")
+	@Cached(cacheName = I_M_Product_Category.Table_Name + "#Default", resetOnlyForReturnedRecords = true)
 	public I_M_Product_Category retrieveDefaultProductCategory(@CacheCtx final Properties ctx)
 	{
 		final I_M_Product_Category pc = Services.get(IQueryBL.class)
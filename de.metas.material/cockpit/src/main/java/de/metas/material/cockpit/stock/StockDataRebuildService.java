@@ -0,0 +1,372 @@
+package de.metas.material.cockpit.stock;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import java.util.stream.Collectors;
+
+import org.adempiere.ad.dao.IQueryBL;
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.exceptions.AdempiereException;
+import org.adempiere.exceptions.DBException;
+import org.adempiere.service.ISysConfigBL;
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.adempiere.util.lang.IAutoCloseable;
+import org.compiere.util.DB;
+import org.compiere.util.Env;
+import org.slf4j.Logger;
+import org.springframework.stereotype.Service;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+import de.metas.logging.LogManager;
+import de.metas.material.cockpit.model.I_MD_Stock;
+import de.metas.util.Services;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * metasfresh-material-cockpit
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Rebuilds {@link I_MD_Stock} from the physical HUs, set-based.
+ * <p>
+ * The products are split into partitions of consecutive product IDs.
+ * Each partition is computed and applied by one SQL statement, in its own transaction, and several partitions are processed in parallel.
+ * So each partition's records are replaced atomically, while concurrent per-event updates (see {@link StockDataUpdateRequestHandler}) keep adding their deltas on top.
+ * Only records whose quantity actually changed are written, and for each of them a {@code StockChangedEvent} is posted, like {@link StockDataUpdateRequestHandler} does.
+ */
+@Service
+public class StockDataRebuildService
+{
+	private static final Logger logger = LogManager.getLogger(StockDataRebuildService.class);
+
+	private static final String SYSCONFIG_Parallelism = "de.metas.material.cockpit.stock.StockDataRebuildService.Parallelism";
+	private static final int DEFAULT_Parallelism = 4;
+
+	private static final String SYSCONFIG_ProductsPerPartition = "de.metas.material.cockpit.stock.StockDataRebuildService.ProductsPerPartition";
+	private static final int DEFAULT_ProductsPerPartition = 100;
+
+	private static final String SQL_SelectProductIds = "SELECT M_Product_ID FROM M_HU_Storage"
+			+ "\n UNION SELECT M_Product_ID FROM MD_Stock"
+			+ "\n ORDER BY M_Product_ID";
+
+	/**
+	 * Computes the MD_Stock records whose QtyOnHand differs from the HUs. Parameters: from and to M_Product_ID (for the HUs), from and to M_Product_ID (for MD_Stock).
+	 * <p>
+	 * The HU part needs to be kept in sync with the view {@code MD_Stock_From_HUs_V}, but converts the quantities to the product's UOM.
+	 */
+	private static final String SQL_Diff = "WITH target AS ("
+			+ "\n   SELECT hu.AD_Client_ID, hu.AD_Org_ID, l.M_Warehouse_ID, hus.M_Product_ID, GenerateHUAttributesKey(hu.M_HU_ID) AS AttributesKey,"
+			+ "\n     SUM(uomConvert(hus.M_Product_ID, hus.C_UOM_ID, p.C_UOM_ID, hus.Qty)) AS QtyOnHand"
+			+ "\n   FROM M_HU hu"
+			+ "\n     JOIN M_HU_Storage hus ON hus.M_HU_ID = hu.M_HU_ID"
+			+ "\n     JOIN M_Locator l ON l.M_Locator_ID = hu.M_Locator_ID"
+			+ "\n     JOIN M_Product p ON p.M_Product_ID = hus.M_Product_ID"
+			+ "\n   WHERE hu.IsActive = 'Y'"
+			+ "\n     AND hu.M_HU_Item_Parent_ID IS NULL"
+			+ "\n     AND hu.HUStatus NOT IN ('P'/*Planning*/, 'D'/*Destroyed*/, 'E'/*Shipped*/)" // please keep in sync with de.metas.handlingunits.IHUStatusBL.isPhysicalHU(I_M_HU)
+			+ "\n     AND hus.M_Product_ID BETWEEN ? AND ?"
+			+ "\n   GROUP BY hu.AD_Client_ID, hu.AD_Org_ID, l.M_Warehouse_ID, hus.M_Product_ID, GenerateHUAttributesKey(hu.M_HU_ID)"
+			+ "\n ),"
+			+ "\n existing AS ("
+			+ "\n   SELECT s.MD_Stock_ID, s.AD_Client_ID, s.AD_Org_ID, s.M_Warehouse_ID, s.M_Product_ID, s.AttributesKey, s.QtyOnHand"
+			+ "\n   FROM MD_Stock s"
+			+ "\n   WHERE s.IsActive = 'Y' AND s.M_Product_ID BETWEEN ? AND ?"
+			+ "\n   FOR UPDATE"
+			+ "\n ),"
+			+ "\n diff AS ("
+			+ "\n   SELECT c.MD_Stock_ID,"
+			+ "\n     COALESCE(t.AD_Client_ID, c.AD_Client_ID) AS AD_Client_ID, COALESCE(t.AD_Org_ID, c.AD_Org_ID) AS AD_Org_ID,"
+			+ "\n     COALESCE(t.M_Warehouse_ID, c.M_Warehouse_ID) AS M_Warehouse_ID, COALESCE(t.M_Product_ID, c.M_Product_ID) AS M_Product_ID,"
+			+ "\n     COALESCE(t.AttributesKey, c.AttributesKey) AS AttributesKey,"
+			+ "\n     COALESCE(c.QtyOnHand, 0) AS QtyOnHandOld, COALESCE(t.QtyOnHand, 0) AS QtyOnHandNew"
+			+ "\n   FROM target t"
+			+ "\n     FULL OUTER JOIN existing c ON c.AD_Client_ID = t.AD_Client_ID AND c.AD_Org_ID = t.AD_Org_ID"
+			+ "\n       AND c.M_Warehouse_ID = t.M_Warehouse_ID AND c.M_Product_ID = t.M_Product_ID AND c.AttributesKey = t.AttributesKey"
+			+ "\n   WHERE COALESCE(c.QtyOnHand, 0) <> COALESCE(t.QtyOnHand, 0)"
+			+ "\n )";
+
+	/** Parameters: like {@link #SQL_Diff}. */
+	private static final String SQL_CountNewRecords = SQL_Diff
+			+ "\n SELECT COUNT(1) FROM diff WHERE MD_Stock_ID IS NULL";
+
+	/**
+	 * Parameters: like {@link #SQL_Diff}, then AD_User_ID for UpdatedBy, CreatedBy and UpdatedBy.
+	 * <p>
+	 * The first placeholder is the SQL for a new record's MD_Stock_ID, which may use the record's 1-based {@code RowNo}; the second one is the maximum number of records to insert.
+	 */
+	private static final String SQL_RebuildPartition = SQL_Diff + ","
+			+ "\n updated AS ("
+			+ "\n   UPDATE MD_Stock s SET QtyOnHand = d.QtyOnHandNew, Updated = now(), UpdatedBy = ?"
+			+ "\n   FROM diff d WHERE s.MD_Stock_ID = d.MD_Stock_ID"
+			+ "\n   RETURNING s.MD_Stock_ID"
+			+ "\n ),"
+			+ "\n inserted AS ("
+			+ "\n   INSERT INTO MD_Stock (MD_Stock_ID, AD_Client_ID, AD_Org_ID, IsActive, Created, CreatedBy, Updated, UpdatedBy, M_Warehouse_ID, M_Product_ID, AttributesKey, QtyOnHand)"
+			+ "\n   SELECT %s, d.AD_Client_ID, d.AD_Org_ID, 'Y', now(), ?, now(), ?, d.M_Warehouse_ID, d.M_Product_ID, d.AttributesKey, d.QtyOnHandNew"
+			+ "\n   FROM (SELECT diff.*, row_number() OVER (ORDER BY diff.AD_Client_ID, diff.AD_Org_ID, diff.M_Warehouse_ID, diff.M_Product_ID, diff.AttributesKey) AS RowNo FROM diff WHERE diff.MD_Stock_ID IS NULL) d"
+			+ "\n   WHERE d.RowNo <= %d"
+			+ "\n   RETURNING MD_Stock_ID"
+			+ "\n )"
+			+ "\n SELECT u.MD_Stock_ID, d.QtyOnHandOld FROM updated u JOIN diff d ON d.MD_Stock_ID = u.MD_Stock_ID"
+			+ "\n UNION ALL SELECT i.MD_Stock_ID, 0 FROM inserted i";
+
+	private final StockDataUpdateRequestHandler dataUpdateRequestHandler;
+
+	public StockDataRebuildService(@NonNull final StockDataUpdateRequestHandler dataUpdateRequestHandler)
+	{
+		this.dataUpdateRequestHandler = dataUpdateRequestHandler;
+	}
+
+	/**
+	 * @return the number of {@link I_MD_Stock} records that were created or changed
+	 */
+	public int rebuildAll(@NonNull final StockChangeSourceInfo sourceInfo)
+	{
+		final ISysConfigBL sysConfigBL = Services.get(ISysConfigBL.class);
+		final int parallelism = Math.max(sysConfigBL.getIntValue(SYSCONFIG_Parallelism, DEFAULT_Parallelism), 1);
+		final int productsPerPartition = Math.max(sysConfigBL.getIntValue(SYSCONFIG_ProductsPerPartition, DEFAULT_ProductsPerPartition), 1);
+
+		final List<ProductIdRange> partitions = retrievePartitions(productsPerPartition);
+		if (partitions.isEmpty())
+		{
+			return 0;
+		}
+		logger.info("Rebuilding MD_Stock in {} partitions, {} in parallel", partitions.size(), parallelism);
+
+		final Properties ctx = Env.copyCtx(Env.getCtx());
+		final ExecutorService executor = Executors.newFixedThreadPool(
+				Math.min(parallelism, partitions.size()),
+				CustomizableThreadFactory.builder()
+						.setThreadNamePrefix(StockDataRebuildService.class.getSimpleName())
+						.setDaemon(true)
+						.build());
+		try
+		{
+			final List<Future<Integer>> futures = new ArrayList<>(partitions.size());
+			for (final ProductIdRange partition : partitions)
+			{
+				futures.add(executor.submit(() -> rebuildPartition(partition, sourceInfo, ctx)));
+			}
+
+			int changedRecordsCount = 0;
+			for (final Future<Integer> future : futures)
+			{
+				changedRecordsCount += future.get();
+			}
+			return changedRecordsCount;
+		}
+		catch (final ExecutionException ex)
+		{
+			throw AdempiereException.wrapIfNeeded(ex.getCause());
+		}
+		catch (final InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw AdempiereException.wrapIfNeeded(ex);
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	private static List<ProductIdRange> retrievePartitions(final int productsPerPartition)
+	{
+		final List<Integer> productIds = DB.retrieveRowsOutOfTrx(SQL_SelectProductIds, ImmutableList.of(), rs -> rs.getInt(1));
+		return partition(productIds, productsPerPartition);
+	}
+
+	/**
+	 * @param productIds ordered product IDs
+	 */
+	@VisibleForTesting
+	static List<ProductIdRange> partition(@NonNull final List<Integer> productIds, final int productsPerPartition)
+	{
+		return Lists.partition(productIds, productsPerPartition)
+				.stream()
+				.map(partitionProductIds -> new ProductIdRange(partitionProductIds.get(0), partitionProductIds.get(partitionProductIds.size() - 1)))
+				.collect(ImmutableList.toImmutableList());
+	}
+
+	private int rebuildPartition(
+			@NonNull final ProductIdRange partition,
+			@NonNull final StockChangeSourceInfo sourceInfo,
+			@NonNull final Properties ctx)
+	{
+		try (final IAutoCloseable c = Env.switchContext(ctx))
+		{
+			final Map<Integer, BigDecimal> qtyOnHandOldByStockId = new HashMap<>();
+			Services.get(ITrxManager.class).runInNewTrx(localTrxName -> {
+				qtyOnHandOldByStockId.putAll(applyPartition(partition, localTrxName));
+			});
+
+			fireStockChangedEvents(qtyOnHandOldByStockId, sourceInfo);
+
+			logger.debug("Rebuilt MD_Stock for {}; changed records: {}", partition, qtyOnHandOldByStockId.size());
+			return qtyOnHandOldByStockId.size();
+		}
+	}
+
+	/**
+	 * @return the changed records' previous QtyOnHand (zero for new records), by MD_Stock_ID
+	 */
+	private static Map<Integer, BigDecimal> applyPartition(
+			@NonNull final ProductIdRange partition,
+			@NonNull final String trxName)
+	{
+		final Object[] diffSqlParams = new Object[] {
+				partition.getFirstProductId(), partition.getLastProductId(),
+				partition.getFirstProductId(), partition.getLastProductId() };
+
+		final int adClientId = Env.getAD_Client_ID();
+		if (DB.isUseNativeSequences(adClientId, I_MD_Stock.Table_Name))
+		{
+			return executeRebuildPartitionSql(createRebuildPartitionSql(DB.TO_TABLESEQUENCE_NEXTVAL(I_MD_Stock.Table_Name), Integer.MAX_VALUE), diffSqlParams, trxName);
+		}
+
+		// Reserve the IDs in advance. If more records need to be inserted when the actual statement runs (because of HUs that were changed in the meantime),
+		// then the surplus ones are not inserted by that statement, so we repeat it until there are no more records to insert.
+		final Map<Integer, BigDecimal> qtyOnHandOldByStockId = new HashMap<>();
+		int newRecordsCount = DB.getSQLValueEx(trxName, SQL_CountNewRecords, diffSqlParams);
+		do
+		{
+			final List<Integer> newIds = new ArrayList<>(newRecordsCount);
+			for (int i = 0; i < newRecordsCount; i++)
+			{
+				newIds.add(DB.getNextID(adClientId, I_MD_Stock.Table_Name, ITrx.TRXNAME_None));
+			}
+
+			// a record that is changed again keeps its QtyOnHand from before the first change
+			executeRebuildPartitionSql(createRebuildPartitionSql(newIds), diffSqlParams, trxName)
+					.forEach(qtyOnHandOldByStockId::putIfAbsent);
+
+			newRecordsCount = DB.getSQLValueEx(trxName, SQL_CountNewRecords, diffSqlParams);
+		}
+		while (newRecordsCount > 0);
+
+		return qtyOnHandOldByStockId;
+	}
+
+	private static ImmutableMap<Integer, BigDecimal> executeRebuildPartitionSql(
+			@NonNull final String sql,
+			@NonNull final Object[] diffSqlParams,
+			@NonNull final String trxName)
+	{
+		final int userId = Env.getAD_User_ID();
+		final Object[] sqlParams = new Object[] {
+				diffSqlParams[0], diffSqlParams[1],
+				diffSqlParams[2], diffSqlParams[3],
+				userId,
+				userId, userId };
+
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try
+		{
+			pstmt = DB.prepareStatement(sql, trxName);
+			DB.setParameters(pstmt, sqlParams);
+			rs = pstmt.executeQuery();
+
+			final ImmutableMap.Builder<Integer, BigDecimal> result = ImmutableMap.builder();
+			while (rs.next())
+			{
+				result.put(rs.getInt(1), rs.getBigDecimal(2));
+			}
+			return result.build();
+		}
+		catch (final SQLException ex)
+		{
+			throw new DBException(ex, sql, sqlParams);
+		}
+		finally
+		{
+			DB.close(rs, pstmt);
+		}
+	}
+
+	/**
+	 * @return the rebuild SQL which inserts at most {@code newIds.size()} records, using the given IDs
+	 */
+	@VisibleForTesting
+	static String createRebuildPartitionSql(@NonNull final List<Integer> newIds)
+	{
+		if (newIds.isEmpty())
+		{
+			return createRebuildPartitionSql("NULL", 0);
+		}
+
+		final String newIdSql = newIds.stream()
+				.map(String::valueOf)
+				.collect(Collectors.joining(",", "(ARRAY[", "])[d.RowNo]"));
+		return createRebuildPartitionSql(newIdSql, newIds.size());
+	}
+
+	private static String createRebuildPartitionSql(@NonNull final String newIdSql, final int maxNewRecords)
+	{
+		return String.format(SQL_RebuildPartition, newIdSql, maxNewRecords);
+	}
+
+	private void fireStockChangedEvents(
+			@NonNull final Map<Integer, BigDecimal> qtyOnHandOldByStockId,
+			@NonNull final StockChangeSourceInfo sourceInfo)
+	{
+		if (qtyOnHandOldByStockId.isEmpty())
+		{
+			return;
+		}
+
+		Services.get(IQueryBL.class)
+				.createQueryBuilderOutOfTrx(I_MD_Stock.class)
+				.addInArrayFilter(I_MD_Stock.COLUMN_MD_Stock_ID, qtyOnHandOldByStockId.keySet())
+				.create()
+				.list(I_MD_Stock.class)
+				.forEach(dataRecord -> dataUpdateRequestHandler.fireStockChangedEvent(
+						dataRecord,
+						qtyOnHandOldByStockId.get(dataRecord.getMD_Stock_ID()),
+						sourceInfo));
+	}
+
+	@Value
+	@VisibleForTesting
+	static class ProductIdRange
+	{
+		int firstProductId;
+		int lastProductId;
+	}
+}
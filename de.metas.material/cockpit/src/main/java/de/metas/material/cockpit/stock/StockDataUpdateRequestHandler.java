@@ -112,7 +112,7 @@ public class StockDataUpdateRequestHandler
 		return queryBuilder.create();
 	}
 
-	private void fireStockChangedEvent(
+	/* package */ void fireStockChangedEvent(
 			@NonNull final I_MD_Stock dataRecord,
 			@NonNull final BigDecimal qtyOnHandOld,
 			@NonNull final StockChangeSourceInfo stockChangeSourceInfo)
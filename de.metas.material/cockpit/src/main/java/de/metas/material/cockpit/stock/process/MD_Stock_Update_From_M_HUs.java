@@ -1,28 +1,12 @@
 package de.metas.material.cockpit.stock.process;
 
-import static java.math.BigDecimal.ZERO;
-
-import lombok.NonNull;
-
-import java.util.List;
-
-import org.adempiere.ad.dao.IQueryBL;
 import org.compiere.Adempiere;
 
 import de.metas.material.cockpit.model.I_MD_Stock;
-import de.metas.material.cockpit.model.I_MD_Stock_From_HUs_V;
 import de.metas.material.cockpit.stock.StockChangeSourceInfo;
-import de.metas.material.cockpit.stock.StockDataRecordIdentifier;
-import de.metas.material.cockpit.stock.StockDataUpdateRequest;
-import de.metas.material.cockpit.stock.StockDataUpdateRequestHandler;
-import de.metas.material.event.commons.AttributesKey;
-import de.metas.material.event.commons.ProductDescriptor;
+import de.metas.material.cockpit.stock.StockDataRebuildService;
 import de.metas.process.JavaProcess;
 import de.metas.process.RunOutOfTrx;
-import de.metas.product.ProductId;
-import de.metas.quantity.Quantity;
-import de.metas.uom.IUOMConversionBL;
-import de.metas.util.Services;
 
 /*
  * #%L
@@ -55,83 +39,17 @@ import de.metas.util.Services;
  */
 public class MD_Stock_Update_From_M_HUs extends JavaProcess
 {
-	private final IUOMConversionBL uomConversionBL = Services.get(IUOMConversionBL.class);
-
-	private final StockDataUpdateRequestHandler dataUpdateRequestHandler = Adempiere.getBean(StockDataUpdateRequestHandler.class);
+	private final StockDataRebuildService stockDataRebuildService = Adempiere.getBean(StockDataRebuildService.class);
 
 	@Override
 	@RunOutOfTrx
 	protected String doIt() throws Exception
-	{
-		final List<I_MD_Stock_From_HUs_V> huBasedDataRecords = retrieveHuData();
-
-		addLog("Retrieved {} MD_Stock_From_HUs_V records", huBasedDataRecords.size());
-
-		createAndHandleDataUpdateRequests(huBasedDataRecords);
-		addLog("Created and handled DataUpdateRequests for all MD_Stock_From_HUs_V records");
-
-		return MSG_OK;
-	}
-
-	private List<I_MD_Stock_From_HUs_V> retrieveHuData()
-	{
-		addLog("Performing a select for Records to correct on MD_Stock_From_HUs_V");
-		final List<I_MD_Stock_From_HUs_V> huBasedDataRecords = Services.get(IQueryBL.class)
-				.createQueryBuilder(I_MD_Stock_From_HUs_V.class)
-				.addNotEqualsFilter(I_MD_Stock_From_HUs_V.COLUMNNAME_QtyOnHandChange, ZERO)
-				.create()
-				.list();
-		return huBasedDataRecords;
-	}
-
-	private void createAndHandleDataUpdateRequests(
-			@NonNull final List<I_MD_Stock_From_HUs_V> huBasedDataRecords)
 	{
 		final StockChangeSourceInfo info = StockChangeSourceInfo.ofResetStockAdPinstanceId(getProcessInfo().getPinstanceId().getRepoId());
 
-		for (final I_MD_Stock_From_HUs_V huBasedDataRecord : huBasedDataRecords)
-		{
-			final StockDataUpdateRequest dataUpdateRequest = createDataUpdatedRequest(
-					huBasedDataRecord,
-					info);
-			addLog("Handling corrective dataUpdateRequest={}", dataUpdateRequest);
-			dataUpdateRequestHandler.handleDataUpdateRequest(dataUpdateRequest);
-		}
-	}
-
-	private StockDataUpdateRequest createDataUpdatedRequest(
-			@NonNull final I_MD_Stock_From_HUs_V huBasedDataRecord,
-			@NonNull final StockChangeSourceInfo stockDataUpdateRequestSourceInfo)
-	{
-		final StockDataRecordIdentifier recordIdentifier = createDataRecordIdentifier(huBasedDataRecord);
-
-		final ProductId productId = ProductId.ofRepoId(huBasedDataRecord.getM_Product_ID());
-		final Quantity qtyInStorageUOM = Quantity.of(huBasedDataRecord.getQtyOnHandChange(), huBasedDataRecord.getC_UOM());
-		final Quantity qtyInProductUOM = uomConversionBL.convertToProductUOM(qtyInStorageUOM, productId);
+		final int changedRecordsCount = stockDataRebuildService.rebuildAll(info);
+		addLog("Rebuilt MD_Stock from the HUs; created or changed {} records", changedRecordsCount);
 
-		final StockDataUpdateRequest dataUpdateRequest = StockDataUpdateRequest.builder()
-				.identifier(recordIdentifier)
-				.onHandQtyChange(qtyInProductUOM.getAsBigDecimal())
-				.sourceInfo(stockDataUpdateRequestSourceInfo)
-				.build();
-		return dataUpdateRequest;
-	}
-
-	private static StockDataRecordIdentifier createDataRecordIdentifier(
-			@NonNull final I_MD_Stock_From_HUs_V huBasedDataRecord)
-	{
-		final ProductDescriptor productDescriptor = ProductDescriptor
-				.forProductAndAttributes(
-						huBasedDataRecord.getM_Product_ID(),
-						AttributesKey.ofString(huBasedDataRecord.getAttributesKey()));
-
-		final StockDataRecordIdentifier recordIdentifier = StockDataRecordIdentifier
-				.builder()
-				.clientId(huBasedDataRecord.getAD_Client_ID())
-				.orgId(huBasedDataRecord.getAD_Org_ID())
-				.productDescriptor(productDescriptor)
-				.warehouseId(huBasedDataRecord.getM_Warehouse_ID())
-				.build();
-		return recordIdentifier;
+		return MSG_OK;
 	}
 }
@@ -4,16 +4,43 @@ import static de.metas.util.NumberUtils.stripTrailingDecimalZeros;
 import static org.adempiere.model.InterfaceWrapperHelper.newInstance;
 import static org.adempiere.model.InterfaceWrapperHelper.save;
 
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import javax.annotation.Nullable;
+
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.ad.trx.api.OnTrxMissingPolicy;
+import org.adempiere.exceptions.DBException;
+import org.adempiere.util.lang.IAutoCloseable;
+import org.compiere.Adempiere;
 import org.compiere.model.IQuery;
+import org.compiere.util.DB;
+import org.compiere.util.Env;
 import org.compiere.util.TimeUtil;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 
 import de.metas.Profiles;
+import de.metas.cache.CacheMgt;
+import de.metas.cache.model.CacheInvalidateMultiRequest;
 import de.metas.material.cockpit.model.I_MD_Cockpit;
 import de.metas.material.cockpit.view.MainDataRecordIdentifier;
+import de.metas.material.cockpit.view.mainrecord.MainDataUpdatesCollector.PendingUpdate;
+import de.metas.material.event.commons.ProductDescriptor;
+import de.metas.util.Check;
+import de.metas.util.Services;
 import lombok.NonNull;
 
 /*
@@ -42,16 +69,309 @@ import lombok.NonNull;
 @Profile(Profiles.PROFILE_App) // the event handler is also just on this profile
 public class MainDataRequestHandler
 {
+	/** Rows per {@code INSERT ... ON CONFLICT} statement; each row has {@value #SQL_PARAMS_PER_ROW} parameters and JDBC allows at most 32767 per statement. */
+	private static final int SQL_MAX_ROWS_PER_STATEMENT = 500;
+	private static final int SQL_PARAMS_PER_ROW = 18;
+
+	/**
+	 * If the current thread has a transaction, the given request's quantities are just added to that transaction's pending updates;
+	 * the {@code MD_Cockpit} record is updated once for all of them, right before the transaction is committed.
+	 */
 	public void handleDataUpdateRequest(@NonNull final UpdateMainDataRequest dataUpdateRequest)
 	{
+		final ITrxManager trxManager = Services.get(ITrxManager.class);
+		final ITrx trx = trxManager.getThreadInheritedTrx(OnTrxMissingPolicy.ReturnTrxNone);
+		if (trxManager.isNull(trx))
+		{
+			writePendingUpdates(ImmutableList.of(PendingUpdate.ofRequestAndCurrentContext(dataUpdateRequest)), ITrx.TRXNAME_None);
+			return;
+		}
+
+		MainDataUpdatesCollector
+				.getOrCreate(trx, pendingUpdates -> writePendingUpdates(pendingUpdates, trx.getTrxName()))
+				.add(dataUpdateRequest);
+	}
+
+	/**
+	 * Writes the current transaction's pending updates of the given identifier's {@code MD_Cockpit} record, if there are any.
+	 * Invoke this before you rely on that record, e.g. to reference it.
+	 */
+	public static void flushPendingUpdates(@NonNull final MainDataRecordIdentifier identifier)
+	{
+		final ITrxManager trxManager = Services.get(ITrxManager.class);
+		final ITrx trx = trxManager.getThreadInheritedTrx(OnTrxMissingPolicy.ReturnTrxNone);
+		if (trxManager.isNull(trx))
+		{
+			return;
+		}
+
+		final MainDataUpdatesCollector collector = MainDataUpdatesCollector.getOrNull(trx);
+		final PendingUpdate pendingUpdate = collector != null ? collector.remove(identifier) : null;
+		if (pendingUpdate != null)
+		{
+			writePendingUpdates(ImmutableList.of(pendingUpdate), trx.getTrxName());
+		}
+	}
+
+	private static void writePendingUpdates(@NonNull final List<PendingUpdate> pendingUpdates, @Nullable final String trxName)
+	{
+		if (pendingUpdates.isEmpty())
+		{
+			return;
+		}
+
+		if (isUseSqlUpsert())
+		{
+			for (final List<PendingUpdate> chunk : Lists.partition(pendingUpdates, SQL_MAX_ROWS_PER_STATEMENT))
+			{
+				upsertDataRecords(chunk, trxName);
+			}
+			CacheMgt.get().resetLocalNowAndBroadcastOnTrxCommit(trxName, CacheInvalidateMultiRequest.allRecordsForTable(I_MD_Cockpit.Table_Name));
+			return;
+		}
+
 		synchronized (MainDataRequestHandler.class)
 		{
-			final I_MD_Cockpit dataRecord = retrieveOrCreateDataRecord(dataUpdateRequest.getIdentifier());
-			updateDataRecordWithRequestQtys(dataRecord, dataUpdateRequest);
-			save(dataRecord);
+			for (final PendingUpdate pendingUpdate : pendingUpdates)
+			{
+				try (final IAutoCloseable c = switchToClientAndOrg(pendingUpdate))
+				{
+					final UpdateMainDataRequest dataUpdateRequest = pendingUpdate.getRequest();
+					final I_MD_Cockpit dataRecord = retrieveOrCreateDataRecord(dataUpdateRequest.getIdentifier());
+					updateDataRecordWithRequestQtys(dataRecord, dataUpdateRequest);
+					save(dataRecord);
+				}
+			}
 		}
 	}
 
+	/**
+	 * The single-statement upsert relies on the {@code md_cockpit_uc} unique index.
+	 * In unit tests, there is no database, so we fall back to retrieving and saving each record.
+	 */
+	private static boolean isUseSqlUpsert()
+	{
+		return !Adempiere.isUnitTestMode();
+	}
+
+	private static IAutoCloseable switchToClientAndOrg(@NonNull final PendingUpdate pendingUpdate)
+	{
+		final Properties ctx = Env.copyCtx(Env.getCtx());
+		Env.setContext(ctx, Env.CTXNAME_AD_Client_ID, pendingUpdate.getAdClientId());
+		Env.setContext(ctx, Env.CTXNAME_AD_Org_ID, pendingUpdate.getAdOrgId());
+		return Env.switchContext(ctx);
+	}
+
+	/**
+	 * Inserts or updates the given records' quantities with one {@code INSERT ... ON CONFLICT DO UPDATE} statement.
+	 * <p>
+	 * Rows whose record already exists are inserted with that record's ID, so they don't use up a new one.
+	 * For the other rows, without native DB sequences, one {@code MD_Cockpit_ID} is reserved up front, like {@link org.compiere.model.PO} does it.
+	 * If such a record is inserted concurrently, its reserved ID is not used.
+	 */
+	private static void upsertDataRecords(@NonNull final List<PendingUpdate> pendingUpdates, @Nullable final String trxName)
+	{
+		final boolean useNativeSequences = DB.isUseNativeSequences(Env.getAD_Client_ID(), I_MD_Cockpit.Table_Name);
+
+		final List<Integer> ids = retrieveExistingIds(pendingUpdates, trxName);
+		for (int i = 0; i < ids.size(); i++)
+		{
+			if (ids.get(i) == null && !useNativeSequences)
+			{
+				ids.set(i, DB.getNextID(pendingUpdates.get(i).getAdClientId(), I_MD_Cockpit.Table_Name, ITrx.TRXNAME_None));
+			}
+		}
+
+		final List<Object> sqlParams = new ArrayList<>(pendingUpdates.size() * SQL_PARAMS_PER_ROW);
+		final String sql = createUpsertSql(pendingUpdates, ids, Env.getAD_User_ID(), sqlParams);
+		DB.executeUpdateEx(sql, sqlParams.toArray(), trxName);
+	}
+
+	/**
+	 * @return the {@code MD_Cockpit_ID} of each pending update's existing record, or {@code null} where there is no record yet
+	 */
+	private static List<Integer> retrieveExistingIds(@NonNull final List<PendingUpdate> pendingUpdates, @Nullable final String trxName)
+	{
+		final List<Object> sqlParams = new ArrayList<>(pendingUpdates.size() * 5);
+		final String sql = createSelectExistingIdsSql(pendingUpdates, sqlParams);
+
+		final List<Integer> ids = new ArrayList<>(Collections.nCopies(pendingUpdates.size(), (Integer)null));
+
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try
+		{
+			pstmt = DB.prepareStatement(sql, trxName);
+			DB.setParameters(pstmt, sqlParams);
+			rs = pstmt.executeQuery();
+			while (rs.next())
+			{
+				ids.set(rs.getInt(1), rs.getInt(2));
+			}
+			return ids;
+		}
+		catch (final SQLException ex)
+		{
+			throw new DBException(ex, sql, sqlParams);
+		}
+		finally
+		{
+			DB.close(rs, pstmt);
+		}
+	}
+
+	/**
+	 * @return SQL which selects the index of each pending update that has an existing record, along with that record's ID
+	 */
+	@VisibleForTesting
+	static String createSelectExistingIdsSql(@NonNull final List<PendingUpdate> pendingUpdates, @NonNull final List<Object> sqlParams)
+	{
+		final StringBuilder sql = new StringBuilder("SELECT v.Idx, c.").append(I_MD_Cockpit.COLUMNNAME_MD_Cockpit_ID)
+				.append(" FROM (VALUES ");
+		for (int i = 0; i < pendingUpdates.size(); i++)
+		{
+			final MainDataRecordIdentifier identifier = pendingUpdates.get(i).getRequest().getIdentifier();
+			final ProductDescriptor productDescriptor = identifier.getProductDescriptor();
+
+			sql.append(i > 0 ? ", " : "").append("(?, ?::timestamp, ?, ?, ?)");
+			sqlParams.add(i);
+			sqlParams.add(TimeUtil.asTimestamp(identifier.getDate()));
+			sqlParams.add(productDescriptor.getProductId());
+			sqlParams.add(productDescriptor.getStorageAttributesKey().getAsString());
+			sqlParams.add(Math.max(identifier.getPlantId(), 0));
+		}
+
+		// the join matches the md_cockpit_uc unique index, so it can use that index
+		sql.append(") v (Idx, DateGeneral, M_Product_ID, AttributesKey, PP_Plant_ID)")
+				.append("\n INNER JOIN ").append(I_MD_Cockpit.Table_Name).append(" c ON")
+				.append(" c.").append(I_MD_Cockpit.COLUMNNAME_DateGeneral).append(" = v.DateGeneral")
+				.append(" AND c.").append(I_MD_Cockpit.COLUMNNAME_M_Product_ID).append(" = v.M_Product_ID")
+				.append(" AND c.").append(I_MD_Cockpit.COLUMNNAME_AttributesKey).append(" = v.AttributesKey")
+				.append(" AND COALESCE(c.").append(I_MD_Cockpit.COLUMNNAME_PP_Plant_ID).append(", 0) = v.PP_Plant_ID");
+		return sql.toString();
+	}
+
+	/**
+	 * The estimate columns are computed the same way as in {@link #updateDataRecordWithRequestQtys(I_MD_Cockpit, UpdateMainDataRequest)}.
+	 *
+	 * @param ids the ID to insert each pending update's record with; where an ID is {@code null}, the native DB sequence is used.
+	 *            If a row updates an existing record, its ID is not used.
+	 * @param sqlParams the statement's parameters are added to this list
+	 */
+	@VisibleForTesting
+	static String createUpsertSql(
+			@NonNull final List<PendingUpdate> pendingUpdates,
+			@NonNull final List<Integer> ids,
+			final int userId,
+			@NonNull final List<Object> sqlParams)
+	{
+		Check.assume(ids.size() == pendingUpdates.size(), "There shall be one ID per pending update; ids={}, pendingUpdates={}", ids, pendingUpdates);
+
+		final StringBuilder sql = new StringBuilder()
+				.append("INSERT INTO ").append(I_MD_Cockpit.Table_Name).append(" AS c (")
+				.append(I_MD_Cockpit.COLUMNNAME_MD_Cockpit_ID)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_AD_Client_ID)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_AD_Org_ID)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_IsActive)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_Created)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_CreatedBy)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_Updated)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_UpdatedBy)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_M_Product_ID)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_AttributesKey)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_DateGeneral)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_PP_Plant_ID)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_QtyMaterialentnahme)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_QtyOnHandCount)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_PMM_QtyPromised_OnDate)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_QtyStockChange)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_QtyReserved_Purchase)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_QtyReserved_Sale)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_QtyRequiredForProduction)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_QtyOnHandEstimate)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_QtyAvailableToPromiseEstimate)
+				.append(") VALUES ");
+
+		for (int i = 0; i < pendingUpdates.size(); i++)
+		{
+			final PendingUpdate pendingUpdate = pendingUpdates.get(i);
+			final UpdateMainDataRequest request = pendingUpdate.getRequest();
+			final MainDataRecordIdentifier identifier = request.getIdentifier();
+			final ProductDescriptor productDescriptor = identifier.getProductDescriptor();
+
+			final BigDecimal qtyOnHandEstimate = request.getCountedQty()
+					.add(request.getOnHandQtyChange())
+					.subtract(request.getDirectMovementQty());
+			final BigDecimal qtyAvailableToPromiseEstimate = qtyOnHandEstimate
+					.add(request.getReservedPurchaseQty())
+					.subtract(request.getReservedSalesQty());
+
+			final Integer id = ids.get(i);
+			sql.append(i > 0 ? ", " : "")
+					.append("(").append(id != null ? "?" : DB.TO_TABLESEQUENCE_NEXTVAL(I_MD_Cockpit.Table_Name))
+					.append(", ?, ?, 'Y', now(), ?, now(), ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+
+			if (id != null)
+			{
+				sqlParams.add(id);
+			}
+			sqlParams.add(pendingUpdate.getAdClientId());
+			sqlParams.add(pendingUpdate.getAdOrgId());
+			sqlParams.add(userId); // CreatedBy
+			sqlParams.add(userId); // UpdatedBy
+			sqlParams.add(productDescriptor.getProductId());
+			sqlParams.add(productDescriptor.getStorageAttributesKey().getAsString());
+			sqlParams.add(TimeUtil.asTimestamp(identifier.getDate()));
+			sqlParams.add(identifier.getPlantId() > 0 ? identifier.getPlantId() : null);
+			sqlParams.add(stripTrailingDecimalZeros(request.getDirectMovementQty()));
+			sqlParams.add(stripTrailingDecimalZeros(request.getCountedQty()));
+			sqlParams.add(stripTrailingDecimalZeros(request.getOfferedQty()));
+			sqlParams.add(stripTrailingDecimalZeros(request.getOnHandQtyChange()));
+			sqlParams.add(stripTrailingDecimalZeros(request.getReservedPurchaseQty()));
+			sqlParams.add(stripTrailingDecimalZeros(request.getReservedSalesQty()));
+			sqlParams.add(stripTrailingDecimalZeros(request.getRequiredForProductionQty()));
+			sqlParams.add(stripTrailingDecimalZeros(qtyOnHandEstimate));
+			sqlParams.add(stripTrailingDecimalZeros(qtyAvailableToPromiseEstimate));
+		}
+
+		final String qtyOnHandEstimateSum = "(" + sqlSum(I_MD_Cockpit.COLUMNNAME_QtyOnHandCount)
+				+ " + " + sqlSum(I_MD_Cockpit.COLUMNNAME_QtyStockChange)
+				+ " - " + sqlSum(I_MD_Cockpit.COLUMNNAME_QtyMaterialentnahme) + ")";
+
+		sql.append("\n ON CONFLICT (")
+				.append(I_MD_Cockpit.COLUMNNAME_DateGeneral)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_M_Product_ID)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_AttributesKey)
+				.append(", COALESCE(").append(I_MD_Cockpit.COLUMNNAME_PP_Plant_ID).append(", 0))")
+				.append("\n DO UPDATE SET ")
+				.append(I_MD_Cockpit.COLUMNNAME_Updated).append(" = EXCLUDED.").append(I_MD_Cockpit.COLUMNNAME_Updated)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_UpdatedBy).append(" = EXCLUDED.").append(I_MD_Cockpit.COLUMNNAME_UpdatedBy);
+		appendSqlSumAssignment(sql, I_MD_Cockpit.COLUMNNAME_QtyMaterialentnahme);
+		appendSqlSumAssignment(sql, I_MD_Cockpit.COLUMNNAME_QtyOnHandCount);
+		appendSqlSumAssignment(sql, I_MD_Cockpit.COLUMNNAME_PMM_QtyPromised_OnDate);
+		appendSqlSumAssignment(sql, I_MD_Cockpit.COLUMNNAME_QtyStockChange);
+		appendSqlSumAssignment(sql, I_MD_Cockpit.COLUMNNAME_QtyReserved_Purchase);
+		appendSqlSumAssignment(sql, I_MD_Cockpit.COLUMNNAME_QtyReserved_Sale);
+		appendSqlSumAssignment(sql, I_MD_Cockpit.COLUMNNAME_QtyRequiredForProduction);
+		sql.append(", ").append(I_MD_Cockpit.COLUMNNAME_QtyOnHandEstimate).append(" = ").append(qtyOnHandEstimateSum)
+				.append(", ").append(I_MD_Cockpit.COLUMNNAME_QtyAvailableToPromiseEstimate).append(" = ").append(qtyOnHandEstimateSum)
+				.append(" + ").append(sqlSum(I_MD_Cockpit.COLUMNNAME_QtyReserved_Purchase))
+				.append(" - ").append(sqlSum(I_MD_Cockpit.COLUMNNAME_QtyReserved_Sale));
+
+		return sql.toString();
+	}
+
+	/** @return SQL for the existing record's value (if any) plus the value of the row that was attempted to insert */
+	private static String sqlSum(@NonNull final String columnName)
+	{
+		return "(COALESCE(c." + columnName + ", 0) + EXCLUDED." + columnName + ")";
+	}
+
+	private static void appendSqlSumAssignment(@NonNull final StringBuilder sql, @NonNull final String columnName)
+	{
+		sql.append(", ").append(columnName).append(" = ").append(sqlSum(columnName));
+	}
+
 	@VisibleForTesting
 	static I_MD_Cockpit retrieveOrCreateDataRecord(@NonNull final MainDataRecordIdentifier identifier)
 	{
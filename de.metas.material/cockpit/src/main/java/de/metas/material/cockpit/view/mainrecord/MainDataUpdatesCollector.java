@@ -0,0 +1,181 @@
+package de.metas.material.cockpit.view.mainrecord;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.ad.trx.api.ITrxListenerManager.TrxEventTiming;
+import org.compiere.util.Env;
+
+import com.google.common.collect.ImmutableList;
+
+import de.metas.material.cockpit.view.MainDataRecordIdentifier;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * metasfresh-material-cockpit
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Sums up the {@link UpdateMainDataRequest}s of one transaction per {@code MD_Cockpit} record,
+ * so that each record is written just once, right before the transaction is committed.
+ * <p>
+ * Because the sums are written within the very transaction that also contains the changes which caused them, they can't get lost or be applied twice.
+ */
+final class MainDataUpdatesCollector
+{
+	private static final String TRX_PROPERTY_NAME = MainDataUpdatesCollector.class.getName();
+
+	private static final Comparator<RecordKey> RECORD_KEY_COMPARATOR = Comparator
+			.comparing(RecordKey::getProductId)
+			.thenComparing(RecordKey::getAttributesKey)
+			.thenComparing(RecordKey::getDate)
+			.thenComparing(RecordKey::getPlantId);
+
+	/**
+	 * @param flusher invoked with the collected updates right before the given transaction is committed
+	 */
+	public static MainDataUpdatesCollector getOrCreate(
+			@NonNull final ITrx trx,
+			@NonNull final Consumer<List<PendingUpdate>> flusher)
+	{
+		return trx.getProperty(TRX_PROPERTY_NAME, () -> {
+
+			trx.getTrxListenerManager()
+					.newEventListener(TrxEventTiming.BEFORE_COMMIT)
+					.invokeMethodJustOnce(true)
+					.registerHandlingMethod(innerTrx -> {
+						final MainDataUpdatesCollector collector = innerTrx.setProperty(TRX_PROPERTY_NAME, null);
+						if (collector != null)
+						{
+							flusher.accept(collector.removeAll());
+						}
+					});
+
+			trx.getTrxListenerManager()
+					.newEventListener(TrxEventTiming.AFTER_ROLLBACK)
+					.invokeMethodJustOnce(true)
+					.registerHandlingMethod(innerTrx -> innerTrx.setProperty(TRX_PROPERTY_NAME, null));
+
+			return new MainDataUpdatesCollector();
+		});
+	}
+
+	@Nullable
+	public static MainDataUpdatesCollector getOrNull(@NonNull final ITrx trx)
+	{
+		return trx.getProperty(TRX_PROPERTY_NAME);
+	}
+
+	private final Map<RecordKey, PendingUpdate> pendingUpdates = new HashMap<>();
+
+	private MainDataUpdatesCollector()
+	{
+	}
+
+	public void add(@NonNull final UpdateMainDataRequest request)
+	{
+		pendingUpdates.merge(
+				RecordKey.of(request.getIdentifier()),
+				PendingUpdate.ofRequestAndCurrentContext(request),
+				PendingUpdate::add);
+	}
+
+	@Nullable
+	public PendingUpdate remove(@NonNull final MainDataRecordIdentifier identifier)
+	{
+		return pendingUpdates.remove(RecordKey.of(identifier));
+	}
+
+	/**
+	 * @return all pending updates, ordered by their record's unique key, so concurrent transactions lock their records in the same order.
+	 */
+	public List<PendingUpdate> removeAll()
+	{
+		final ImmutableList<PendingUpdate> result = pendingUpdates.entrySet()
+				.stream()
+				.sorted(Map.Entry.comparingByKey(RECORD_KEY_COMPARATOR))
+				.map(Map.Entry::getValue)
+				.collect(ImmutableList.toImmutableList());
+		pendingUpdates.clear();
+		return result;
+	}
+
+	/** The columns of the {@code MD_Cockpit} unique index. */
+	@Value
+	private static class RecordKey
+	{
+		static RecordKey of(@NonNull final MainDataRecordIdentifier identifier)
+		{
+			return new RecordKey(
+					identifier.getProductDescriptor().getProductId(),
+					identifier.getProductDescriptor().getStorageAttributesKey().getAsString(),
+					identifier.getDate(),
+					Math.max(identifier.getPlantId(), 0));
+		}
+
+		int productId;
+		String attributesKey;
+		Instant date;
+		int plantId;
+	}
+
+	@Value
+	static class PendingUpdate
+	{
+		static PendingUpdate ofRequestAndCurrentContext(@NonNull final UpdateMainDataRequest request)
+		{
+			return new PendingUpdate(request, Env.getAD_Client_ID(), Env.getAD_Org_ID(Env.getCtx()));
+		}
+
+		/** the sum of all requests so far; its identifier is the one of the first request */
+		UpdateMainDataRequest request;
+
+		/** client and org of the context in which the first request was added; used if the record needs to be created */
+		int adClientId;
+		int adOrgId;
+
+		PendingUpdate add(@NonNull final PendingUpdate other)
+		{
+			final UpdateMainDataRequest otherRequest = other.getRequest();
+			final UpdateMainDataRequest sum = UpdateMainDataRequest.builder()
+					.identifier(request.getIdentifier())
+					.countedQty(request.getCountedQty().add(otherRequest.getCountedQty()))
+					.onHandQtyChange(request.getOnHandQtyChange().add(otherRequest.getOnHandQtyChange()))
+					.directMovementQty(request.getDirectMovementQty().add(otherRequest.getDirectMovementQty()))
+					.orderedSalesQty(request.getOrderedSalesQty().add(otherRequest.getOrderedSalesQty()))
+					.reservedSalesQty(request.getReservedSalesQty().add(otherRequest.getReservedSalesQty()))
+					.orderedPurchaseQty(request.getOrderedPurchaseQty().add(otherRequest.getOrderedPurchaseQty()))
+					.reservedPurchaseQty(request.getReservedPurchaseQty().add(otherRequest.getReservedPurchaseQty()))
+					.offeredQty(request.getOfferedQty().add(otherRequest.getOfferedQty()))
+					.requiredForProductionQty(request.getRequiredForProductionQty().add(otherRequest.getRequiredForProductionQty()))
+					.build();
+			return new PendingUpdate(sum, adClientId, adOrgId);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package de.metas.material.cockpit.stock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.metas.material.cockpit.stock.StockDataRebuildService.ProductIdRange;
+
+/*
+ * #%L
+ * metasfresh-material-cockpit
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class StockDataRebuildServiceTest
+{
+	@Test
+	public void partition()
+	{
+		final List<ProductIdRange> partitions = StockDataRebuildService.partition(ImmutableList.of(1, 2, 3, 5, 8), 2);
+
+		assertThat(partitions).containsExactly(
+				new ProductIdRange(1, 2),
+				new ProductIdRange(3, 5),
+				new ProductIdRange(8, 8));
+	}
+
+	@Test
+	public void partition_noProducts()
+	{
+		assertThat(StockDataRebuildService.partition(ImmutableList.of(), 2)).isEmpty();
+	}
+
+	@Test
+	public void createRebuildPartitionSql_withReservedIds()
+	{
+		final String sql = StockDataRebuildService.createRebuildPartitionSql(ImmutableList.of(100, 101, 105));
+
+		assertThat(sql)
+				.contains("SELECT (ARRAY[100,101,105])[d.RowNo], d.AD_Client_ID")
+				.contains("WHERE d.RowNo <= 3")
+				// the reserved IDs are assigned in the order of the MD_Stock keys, so each run of the statement assigns them the same way
+				.contains("row_number() OVER (ORDER BY diff.AD_Client_ID, diff.AD_Org_ID, diff.M_Warehouse_ID, diff.M_Product_ID, diff.AttributesKey)")
+				.doesNotContain("%");
+
+		// from and to M_Product_ID twice, then AD_User_ID three times
+		assertThat(sql.chars().filter(ch -> ch == '?').count()).isEqualTo(7);
+	}
+
+	@Test
+	public void createRebuildPartitionSql_withoutReservedIds_insertsNothing()
+	{
+		final String sql = StockDataRebuildService.createRebuildPartitionSql(ImmutableList.of());
+
+		assertThat(sql)
+				.contains("SELECT NULL, d.AD_Client_ID")
+				.contains("WHERE d.RowNo <= 0");
+	}
+}
@@ -4,15 +4,24 @@ import static org.adempiere.model.InterfaceWrapperHelper.isNew;
 import static org.adempiere.model.InterfaceWrapperHelper.saveRecord;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.adempiere.ad.dao.IQueryBL;
+import org.adempiere.ad.trx.api.ITrxManager;
 import org.adempiere.test.AdempiereTestHelper;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
+
 import de.metas.material.cockpit.model.I_MD_Cockpit;
 import de.metas.material.cockpit.view.MainDataRecordIdentifier;
+import de.metas.material.cockpit.view.mainrecord.MainDataUpdatesCollector.PendingUpdate;
 import de.metas.material.event.commons.ProductDescriptor;
+import de.metas.util.Services;
 
 /*
  * #%L
@@ -63,4 +72,143 @@ public class MainDataRequestHandlerTest
 		assertThat(isNew(result2)).isFalse();
 		assertThat(result2.getMD_Cockpit_ID()).isEqualTo(result.getMD_Cockpit_ID());
 	}
+
+	@Test
+	public void handleDataUpdateRequest_withinTrx_writesSumOnCommit()
+	{
+		final MainDataRecordIdentifier identifier = MainDataRecordIdentifier.builder()
+				.date(NOW)
+				.productDescriptor(ProductDescriptor.completeForProductIdAndEmptyAttribute(30)).build();
+		final UpdateMainDataRequest request = UpdateMainDataRequest.builder()
+				.identifier(identifier)
+				.countedQty(BigDecimal.TEN)
+				.reservedSalesQty(BigDecimal.ONE)
+				.build();
+
+		final MainDataRequestHandler handler = new MainDataRequestHandler();
+		Services.get(ITrxManager.class).run(() -> {
+			handler.handleDataUpdateRequest(request);
+			handler.handleDataUpdateRequest(request);
+
+			assertThat(countDataRecords()).isZero();
+		});
+
+		assertThat(countDataRecords()).isEqualTo(1);
+
+		final I_MD_Cockpit dataRecord = MainDataRequestHandler.retrieveOrCreateDataRecord(identifier);
+		assertThat(dataRecord.getQtyOnHandCount()).isEqualByComparingTo("20");
+		assertThat(dataRecord.getQtyReserved_Sale()).isEqualByComparingTo("2");
+		assertThat(dataRecord.getQtyOnHandEstimate()).isEqualByComparingTo("20");
+		assertThat(dataRecord.getQtyAvailableToPromiseEstimate()).isEqualByComparingTo("18");
+	}
+
+	@Test
+	public void flushPendingUpdates()
+	{
+		final MainDataRecordIdentifier identifier = MainDataRecordIdentifier.builder()
+				.date(NOW)
+				.productDescriptor(ProductDescriptor.completeForProductIdAndEmptyAttribute(30)).build();
+
+		final MainDataRequestHandler handler = new MainDataRequestHandler();
+		Services.get(ITrxManager.class).run(() -> {
+			handler.handleDataUpdateRequest(UpdateMainDataRequest.builder()
+					.identifier(identifier)
+					.countedQty(BigDecimal.TEN)
+					.build());
+
+			MainDataRequestHandler.flushPendingUpdates(identifier);
+			assertThat(countDataRecords()).isEqualTo(1);
+		});
+
+		// make sure the flushed update was not written a second time on commit
+		final I_MD_Cockpit dataRecord = MainDataRequestHandler.retrieveOrCreateDataRecord(identifier);
+		assertThat(dataRecord.getQtyOnHandCount()).isEqualByComparingTo("10");
+	}
+
+	@Test
+	public void createUpsertSql_withReservedIds()
+	{
+		final PendingUpdate pendingUpdate1 = new PendingUpdate(
+				UpdateMainDataRequest.builder()
+						.identifier(MainDataRecordIdentifier.builder()
+								.date(NOW)
+								.productDescriptor(ProductDescriptor.completeForProductIdAndEmptyAttribute(30)).build())
+						.countedQty(BigDecimal.TEN)
+						.build(),
+				1, // adClientId
+				2); // adOrgId
+		final PendingUpdate pendingUpdate2 = new PendingUpdate(
+				UpdateMainDataRequest.builder()
+						.identifier(MainDataRecordIdentifier.builder()
+								.date(NOW)
+								.productDescriptor(ProductDescriptor.completeForProductIdAndEmptyAttribute(31)).build())
+						.reservedSalesQty(BigDecimal.ONE)
+						.build(),
+				1, // adClientId
+				2); // adOrgId
+
+		final List<Object> sqlParams = new ArrayList<>();
+		final String sql = MainDataRequestHandler.createUpsertSql(ImmutableList.of(pendingUpdate1, pendingUpdate2), ImmutableList.of(1000001, 1000002), 100, sqlParams);
+
+		assertThat(sql)
+				.startsWith("INSERT INTO MD_Cockpit AS c (MD_Cockpit_ID, AD_Client_ID, AD_Org_ID, ")
+				.contains(") VALUES (?, ?, ?, 'Y', now(), ?, now(), ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?), (?, ?, ?, 'Y', now(), ")
+				.contains("ON CONFLICT (DateGeneral, M_Product_ID, AttributesKey, COALESCE(PP_Plant_ID, 0))")
+				.contains("QtyOnHandCount = (COALESCE(c.QtyOnHandCount, 0) + EXCLUDED.QtyOnHandCount)")
+				.doesNotContain("nextval");
+		assertThat(sql.chars().filter(ch -> ch == '?').count()).isEqualTo(sqlParams.size());
+		assertThat(sqlParams).hasSize(36);
+
+		// MD_Cockpit_ID, AD_Client_ID, AD_Org_ID, CreatedBy, UpdatedBy, M_Product_ID of each row
+		assertThat(sqlParams.subList(0, 6)).containsExactly(1000001, 1, 2, 100, 100, 30);
+		assertThat(sqlParams.subList(18, 24)).containsExactly(1000002, 1, 2, 100, 100, 31);
+	}
+
+	@Test
+	public void createSelectExistingIdsSql()
+	{
+		final PendingUpdate pendingUpdate1 = new PendingUpdate(
+				UpdateMainDataRequest.builder()
+						.identifier(MainDataRecordIdentifier.builder()
+								.date(NOW)
+								.productDescriptor(ProductDescriptor.completeForProductIdAndEmptyAttribute(30)).build())
+						.countedQty(BigDecimal.TEN)
+						.build(),
+				1, // adClientId
+				2); // adOrgId
+		final PendingUpdate pendingUpdate2 = new PendingUpdate(
+				UpdateMainDataRequest.builder()
+						.identifier(MainDataRecordIdentifier.builder()
+								.date(NOW)
+								.plantId(40)
+								.productDescriptor(ProductDescriptor.completeForProductIdAndEmptyAttribute(31)).build())
+						.reservedSalesQty(BigDecimal.ONE)
+						.build(),
+				1, // adClientId
+				2); // adOrgId
+
+		final List<Object> sqlParams = new ArrayList<>();
+		final String sql = MainDataRequestHandler.createSelectExistingIdsSql(ImmutableList.of(pendingUpdate1, pendingUpdate2), sqlParams);
+
+		assertThat(sql)
+				.startsWith("SELECT v.Idx, c.MD_Cockpit_ID FROM (VALUES (?, ?::timestamp, ?, ?, ?), (?, ?::timestamp, ?, ?, ?)) v ")
+				.contains("AND COALESCE(c.PP_Plant_ID, 0) = v.PP_Plant_ID");
+		assertThat(sql.chars().filter(ch -> ch == '?').count()).isEqualTo(sqlParams.size());
+
+		// Idx, M_Product_ID and PP_Plant_ID of each row; no plant is matched as 0, like in the md_cockpit_uc unique index
+		assertThat(sqlParams.get(0)).isEqualTo(0);
+		assertThat(sqlParams.get(2)).isEqualTo(30);
+		assertThat(sqlParams.get(4)).isEqualTo(0);
+		assertThat(sqlParams.get(5)).isEqualTo(1);
+		assertThat(sqlParams.get(7)).isEqualTo(31);
+		assertThat(sqlParams.get(9)).isEqualTo(40);
+	}
+
+	private static int countDataRecords()
+	{
+		return Services.get(IQueryBL.class)
+				.createQueryBuilder(I_MD_Cockpit.class)
+				.create()
+				.count();
+	}
 }
@@ -0,0 +1,145 @@
+package de.metas.material.cockpit.view.mainrecord;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import org.adempiere.ad.dao.IQueryBL;
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.ad.trx.api.ITrxRunConfig;
+import org.adempiere.ad.trx.api.ITrxRunConfig.OnRunnableSuccess;
+import org.adempiere.ad.trx.api.ITrxRunConfig.TrxPropagation;
+import org.adempiere.ad.trx.api.OnTrxMissingPolicy;
+import org.compiere.Adempiere.RunMode;
+import org.compiere.model.I_M_Product;
+import org.compiere.util.Env;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import de.metas.material.cockpit.model.I_MD_Cockpit;
+import de.metas.material.cockpit.view.MainDataRecordIdentifier;
+import de.metas.material.event.commons.ProductDescriptor;
+import de.metas.util.Check;
+import de.metas.util.Services;
+
+/*
+ * #%L
+ * metasfresh-material-cockpit
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Runs the {@code INSERT ... ON CONFLICT} upsert of {@link MainDataRequestHandler} against a database.
+ * Everything is done in a transaction which is rolled back in the end.
+ */
+@Ignore
+// requires database connection
+public class MainDataRequestHandler_DBTest
+{
+	public static void main(final String[] args)
+	{
+		final MainDataRequestHandler_DBTest test = new MainDataRequestHandler_DBTest();
+
+		test.setupAdempiere();
+
+		test.upsert_insertsOnceAndThenSumsUp();
+	}
+
+	private void setupAdempiere()
+	{
+		//
+		// Use hardcoded default PropertyFile if none found
+		if (Check.isEmpty(System.getProperty("PropertyFile"), true))
+		{
+			final String propertyFile = new File(".").getAbsolutePath()
+					+ File.separator + ".." + File.separator + ".."
+					+ File.separator + "de.metas.endcustomer."
+					+ File.separator + "Adempiere.properties_" + System.getProperty("user.name");
+			System.out.println("Set default PropertyFile=" + propertyFile);
+			System.setProperty("PropertyFile", propertyFile);
+		}
+
+		Env.getSingleAdempiereInstance(null).startup(RunMode.SWING_CLIENT);
+	}
+
+	@Test
+	public void upsert_insertsOnceAndThenSumsUp()
+	{
+		final ITrxManager trxManager = Services.get(ITrxManager.class);
+		final ITrx trx = trxManager.get(trxManager.createTrxName("MainDataRequestHandler_DBTest"), OnTrxMissingPolicy.CreateNew);
+		final ITrxRunConfig trxRunConfig = trxManager.newTrxRunConfigBuilder()
+				.setTrxPropagation(TrxPropagation.NESTED)
+				.setOnRunnableSuccess(OnRunnableSuccess.DONT_COMMIT)
+				.build();
+		try
+		{
+			trxManager.run(trx.getTrxName(), trxRunConfig, localTrxName -> assertUpsertInsertsOnceAndThenSumsUp());
+		}
+		finally
+		{
+			trx.rollback();
+			trx.close();
+		}
+	}
+
+	private void assertUpsertInsertsOnceAndThenSumsUp()
+	{
+		final int productId = Services.get(IQueryBL.class)
+				.createQueryBuilder(I_M_Product.class)
+				.addOnlyActiveRecordsFilter()
+				.create()
+				.firstId();
+		assertThat(productId).as("no active M_Product found").isGreaterThan(0);
+
+		// a day far ahead, so there is no MD_Cockpit record yet
+		final MainDataRecordIdentifier identifier = MainDataRecordIdentifier.builder()
+				.date(Instant.parse("2099-01-01T00:00:00Z"))
+				.productDescriptor(ProductDescriptor.completeForProductIdAndEmptyAttribute(productId)).build();
+
+		final MainDataRequestHandler handler = new MainDataRequestHandler();
+
+		handler.handleDataUpdateRequest(UpdateMainDataRequest.builder()
+				.identifier(identifier)
+				.countedQty(BigDecimal.TEN)
+				.build());
+		MainDataRequestHandler.flushPendingUpdates(identifier);
+
+		final I_MD_Cockpit insertedRecord = MainDataRequestHandler.retrieveOrCreateDataRecord(identifier);
+		assertThat(insertedRecord.getMD_Cockpit_ID()).isGreaterThan(0);
+		assertThat(insertedRecord.getQtyOnHandCount()).isEqualByComparingTo("10");
+		assertThat(insertedRecord.getQtyAvailableToPromiseEstimate()).isEqualByComparingTo("10");
+
+		handler.handleDataUpdateRequest(UpdateMainDataRequest.builder()
+				.identifier(identifier)
+				.countedQty(new BigDecimal("5"))
+				.reservedSalesQty(BigDecimal.ONE)
+				.build());
+		MainDataRequestHandler.flushPendingUpdates(identifier);
+
+		final I_MD_Cockpit updatedRecord = MainDataRequestHandler.retrieveOrCreateDataRecord(identifier);
+		assertThat(updatedRecord.getMD_Cockpit_ID()).isEqualTo(insertedRecord.getMD_Cockpit_ID());
+		assertThat(updatedRecord.getQtyOnHandCount()).isEqualByComparingTo("15");
+		assertThat(updatedRecord.getQtyReserved_Sale()).isEqualByComparingTo("1");
+		assertThat(updatedRecord.getQtyOnHandEstimate()).isEqualByComparingTo("15");
+		assertThat(updatedRecord.getQtyAvailableToPromiseEstimate()).isEqualByComparingTo("14");
+	}
+}
@@ -16,7 +16,10 @@ import java.util.Objects;
 import javax.annotation.Nullable;
 
 import org.adempiere.ad.dao.ICompositeQueryFilter;
+import org.adempiere.ad.dao.ICompositeQueryUpdaterExecutor;
 import org.adempiere.ad.dao.IQueryBL;
+import org.adempiere.ad.dao.impl.CompareQueryFilter.Operator;
+import org.adempiere.ad.dao.impl.ModelColumnNameValue;
 import org.compiere.util.TimeUtil;
 import org.springframework.stereotype.Service;
 
@@ -26,6 +29,7 @@ import com.google.common.base.Preconditions;
 import de.metas.bpartner.BPartnerId;
 import de.metas.material.dispo.commons.candidate.Candidate;
 import de.metas.material.dispo.commons.candidate.CandidateId;
+import de.metas.material.dispo.commons.candidate.CandidateType;
 import de.metas.material.dispo.commons.candidate.IdConstants;
 import de.metas.material.dispo.commons.candidate.TransactionDetail;
 import de.metas.material.dispo.commons.candidate.businesscase.DemandDetail;
@@ -33,8 +37,10 @@ import de.metas.material.dispo.commons.candidate.businesscase.DistributionDetail
 import de.metas.material.dispo.commons.candidate.businesscase.ProductionDetail;
 import de.metas.material.dispo.commons.candidate.businesscase.PurchaseDetail;
 import de.metas.material.dispo.commons.repository.query.CandidatesQuery;
+import de.metas.material.dispo.commons.repository.query.MaterialDescriptorQuery;
 import de.metas.material.dispo.commons.repository.repohelpers.PurchaseDetailRepoHelper;
 import de.metas.material.dispo.commons.repository.repohelpers.RepositoryCommons;
+import de.metas.material.dispo.commons.stockprojection.StockProjectionService;
 import de.metas.material.dispo.model.I_MD_Candidate;
 import de.metas.material.dispo.model.I_MD_Candidate_Demand_Detail;
 import de.metas.material.dispo.model.I_MD_Candidate_Dist_Detail;
@@ -75,6 +81,13 @@ import lombok.Value;
 @Service
 public class CandidateRepositoryWriteService
 {
+	private final StockProjectionService stockProjectionService;
+
+	public CandidateRepositoryWriteService(@NonNull final StockProjectionService stockProjectionService)
+	{
+		this.stockProjectionService = stockProjectionService;
+	}
+
 	/**
 	 * Stores the given {@code candidate}.
 	 * If there is already an existing candidate in the store, it is loaded, its fields are updated and the result is saved.<br>
@@ -114,6 +127,74 @@ public class CandidateRepositoryWriteService
 		return addOrUpdate(query, candidate, false);
 	}
 
+	/**
+	 * Adds the given {@code qtyDelta} to the quantity of all stock candidates that are matched by the given {@code materialDescriptorQuery}.
+	 * Unlike updating them one by one via {@link #updateCandidateById(Candidate)}, this is done with a constant number of SQL statements, independent of how many stock candidates are matched.
+	 *
+	 * @param groupId if greater than zero, then the matched stock candidates also get this groupId
+	 * @return the number of updated stock candidates
+	 */
+	public int addQtyToStockCandidates(
+			@NonNull final MaterialDescriptorQuery materialDescriptorQuery,
+			@NonNull final BigDecimal qtyDelta,
+			final int groupId)
+	{
+		final CandidatesQuery query = CandidatesQuery.builder()
+				.materialDescriptorQuery(materialDescriptorQuery)
+				.type(CandidateType.STOCK)
+				.matchExactStorageAttributesKey(true)
+				.parentId(CandidateId.UNSPECIFIED)
+				.build();
+
+		final ICompositeQueryUpdaterExecutor<I_MD_Candidate> updater = RepositoryCommons
+				.mkQueryBuilder(query)
+				.create()
+				.updateDirectly()
+				.addAddValueToColumn(I_MD_Candidate.COLUMNNAME_Qty, qtyDelta);
+		if (groupId > 0)
+		{
+			updater.addSetColumnValue(I_MD_Candidate.COLUMNNAME_MD_Candidate_GroupId, groupId);
+		}
+		final int updatedCount = updater.execute();
+
+		// same as in updateCandidateRecordFromCandidate: the status depends on the quantity
+		updateStockCandidatesStatus(query, Operator.LESS_OR_EQUAL, X_MD_Candidate.MD_CANDIDATE_STATUS_Processed);
+		updateStockCandidatesStatus(query, Operator.GREATER, X_MD_Candidate.MD_CANDIDATE_STATUS_Planned);
+
+		stockProjectionService.onQtyAddedToStockCandidates(materialDescriptorQuery, qtyDelta);
+
+		Loggables.get().addLog(
+				"addQtyToStockCandidates - added qtyDelta={} to {} stock candidates; groupId={}; materialDescriptorQuery={}",
+				qtyDelta, updatedCount, groupId, materialDescriptorQuery);
+
+		return updatedCount;
+	}
+
+	/**
+	 * Sets the given {@code status} to the stock candidates whose quantity compares to their fulfilled quantity as given by {@code qtyToQtyFulfilled}.
+	 * Only the candidates which don't already have that status are updated, so the others are not rewritten.
+	 */
+	private static void updateStockCandidatesStatus(
+			@NonNull final CandidatesQuery query,
+			@NonNull final Operator qtyToQtyFulfilled,
+			@NonNull final String status)
+	{
+		final ICompositeQueryFilter<I_MD_Candidate> statusIsDifferent = Services.get(IQueryBL.class)
+				.createCompositeQueryFilter(I_MD_Candidate.class)
+				.setJoinOr()
+				.addNotEqualsFilter(I_MD_Candidate.COLUMNNAME_MD_Candidate_Status, status)
+				.addEqualsFilter(I_MD_Candidate.COLUMNNAME_MD_Candidate_Status, null);
+
+		RepositoryCommons
+				.mkQueryBuilder(query)
+				.addCompareFilter(I_MD_Candidate.COLUMN_Qty, qtyToQtyFulfilled, ModelColumnNameValue.forColumn(I_MD_Candidate.COLUMN_QtyFulfilled))
+				.filter(statusIsDifferent)
+				.create()
+				.updateDirectly()
+				.addSetColumnValue(I_MD_Candidate.COLUMNNAME_MD_Candidate_Status, status)
+				.execute();
+	}
+
 	@Value
 	@Builder
 	public static class SaveResult
@@ -256,6 +337,7 @@ public class CandidateRepositoryWriteService
 		save(synchedRecord); // save now, because we need to have MD_Candidate_ID > 0
 
 		setFallBackSeqNoAndGroupIdIfNeeded(synchedRecord);
+		stockProjectionService.onCandidateSaved(synchedRecord);
 
 		addOrReplaceProductionDetail(candidate, synchedRecord);
 
@@ -659,6 +741,7 @@ public class CandidateRepositoryWriteService
 				.build(),
 				candidateRecord.getQty());
 
+		stockProjectionService.onCandidateDeleted(candidateRecord);
 		deleteRecord(candidateRecord);
 		return deleteResult;
 	}
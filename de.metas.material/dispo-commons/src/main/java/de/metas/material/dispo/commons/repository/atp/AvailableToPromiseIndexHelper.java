@@ -0,0 +1,138 @@
+package de.metas.material.dispo.commons.repository.atp;
+
+import java.util.List;
+import java.util.Objects;
+
+import de.metas.material.dispo.commons.stockprojection.StockSegmentKey;
+import de.metas.material.event.commons.AttributesKey;
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+/*
+ * #%L
+ * metasfresh-material-dispo-commons
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * In-memory counterpart of {@link AvailableToPromiseSqlHelper}. Please keep the two in sync.
+ */
+@UtilityClass
+/* package */ final class AvailableToPromiseIndexHelper
+{
+	/**
+	 * @return {@code true} if the ATP records of the given segment would be selected by the given query's SQL, disregarding the date.
+	 */
+	public boolean isMatching(
+			@NonNull final AvailableToPromiseQuery query,
+			@NonNull final StockSegmentKey segmentKey)
+	{
+		if (!query.getProductIds().contains(segmentKey.getProductId()))
+		{
+			return false;
+		}
+
+		if (!query.getWarehouseIds().isEmpty() && !query.getWarehouseIds().contains(segmentKey.getWarehouseId()))
+		{
+			return false;
+		}
+
+		final BPartnerClassifier bpartner = query.getBpartner();
+		final int customerId = segmentKey.getCustomerId();
+		if (bpartner.isNone() && customerId > 0)
+		{
+			return false;
+		}
+		else if (bpartner.isSpecificBPartner() && customerId > 0 && customerId != bpartner.getBpartnerId().getRepoId())
+		{
+			return false;
+		}
+
+		return isMatchingAnyStorageAttributesKey(query.getStorageAttributesKeys(), segmentKey.getStorageAttributesKey());
+	}
+
+	/**
+	 * Analog to {@code AttributesKeyQueryHelper#createORFilterForStorageAttributesKeys(List)}.
+	 */
+	private boolean isMatchingAnyStorageAttributesKey(
+			@NonNull final List<AttributesKey> attributesKeys,
+			@NonNull final String storageAttributesKey)
+	{
+		if (attributesKeys.isEmpty())
+		{
+			return true; // an empty OR-filter accepts everything
+		}
+
+		for (final AttributesKey attributesKey : attributesKeys)
+		{
+			if (isMatchingStorageAttributesKey(attributesKeys, attributesKey, storageAttributesKey))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isMatchingStorageAttributesKey(
+			@NonNull final List<AttributesKey> allAttributesKeys,
+			@NonNull final AttributesKey attributesKey,
+			@NonNull final String storageAttributesKey)
+	{
+		if (Objects.equals(attributesKey, AttributesKey.OTHER))
+		{
+			for (final AttributesKey otherAttributesKey : allAttributesKeys)
+			{
+				if (!Objects.equals(otherAttributesKey, AttributesKey.OTHER)
+						&& isLike(storageAttributesKey, otherAttributesKey.getSqlLikeString()))
+				{
+					return false;
+				}
+			}
+			return true;
+		}
+		else if (Objects.equals(attributesKey, AttributesKey.ALL))
+		{
+			return true;
+		}
+		else
+		{
+			return isLike(storageAttributesKey, attributesKey.getSqlLikeString());
+		}
+	}
+
+	/**
+	 * @return {@code true} if the given {@code value} is matched by the SQL expression {@code LIKE '%<sqlLikeString>%'}.
+	 */
+	private boolean isLike(
+			@NonNull final String value,
+			@NonNull final String sqlLikeString)
+	{
+		int position = 0;
+		for (final String part : sqlLikeString.split("%"))
+		{
+			final int partPosition = value.indexOf(part, position);
+			if (partPosition < 0)
+			{
+				return false;
+			}
+			position = partPosition + part.length();
+		}
+		return true;
+	}
+}
@@ -1,15 +1,19 @@
 package de.metas.material.dispo.commons.repository.atp;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 import org.adempiere.service.ISysConfigBL;
 import org.compiere.model.IQuery;
 import org.compiere.util.Env;
 import org.compiere.util.TimeUtil;
+import org.slf4j.Logger;
 import org.springframework.stereotype.Service;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -19,6 +23,10 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
 import de.metas.bpartner.BPartnerId;
+import de.metas.logging.LogManager;
+import de.metas.material.dispo.commons.stockprojection.StockCheckpoint;
+import de.metas.material.dispo.commons.stockprojection.StockProjectionService;
+import de.metas.material.dispo.commons.stockprojection.StockSegmentKey;
 import de.metas.material.dispo.model.I_MD_Candidate_ATP_QueryResult;
 import de.metas.material.event.commons.AttributesKey;
 import de.metas.util.Services;
@@ -50,8 +58,29 @@ import lombok.Value;
 @Service
 public class AvailableToPromiseRepository
 {
+	private static final Logger logger = LogManager.getLogger(AvailableToPromiseRepository.class);
+
 	private static final String SYSCONFIG_ATP_ATTRIBUTES_KEYS = "de.metas.ui.web.window.descriptor.sql.ProductLookupDescriptor.ATP.AttributesKeys";
 
+	/**
+	 * If {@code Y}, then ATP records are not selected from the database, but taken from the in-memory stock segments of {@link StockProjectionService}.
+	 */
+	@VisibleForTesting
+	static final String SYSCONFIG_USE_IN_MEMORY_INDEX = "de.metas.material.dispo.commons.repository.atp.AvailableToPromiseRepository.UseInMemoryIndex";
+
+	/**
+	 * If {@code Y} (and the in-memory index is used), then each lookup is also done in the database and both results are compared. Intended for troubleshooting.
+	 */
+	@VisibleForTesting
+	static final String SYSCONFIG_CHECK_IN_MEMORY_INDEX = "de.metas.material.dispo.commons.repository.atp.AvailableToPromiseRepository.CheckInMemoryIndex";
+
+	private final StockProjectionService stockProjectionService;
+
+	public AvailableToPromiseRepository(@NonNull final StockProjectionService stockProjectionService)
+	{
+		this.stockProjectionService = stockProjectionService;
+	}
+
 	@NonNull
 	public BigDecimal retrieveAvailableStockQtySum(@NonNull final AvailableToPromiseMultiQuery multiQuery)
 	{
@@ -73,32 +102,19 @@ public class AvailableToPromiseRepository
 				? AvailableToPromiseResult.createEmptyWithPredefinedBuckets(multiQuery)
 				: AvailableToPromiseResult.createEmpty();
 
-		final IQuery<I_MD_Candidate_ATP_QueryResult> dbQuery = createDBQueryForMaterialQueryOrNull(multiQuery);
-		if (dbQuery == null)
-		{
-			return result;
-		}
-
-		final Function<I_MD_Candidate_ATP_QueryResult, Boolean> compareByWhetherRecordHasBPartnerId = record -> record.getC_BPartner_Customer_ID() > 0;
-
-		final List<I_MD_Candidate_ATP_QueryResult> atpRecords = dbQuery.list()
+		// note: this is a dedicated step in order to ease debugging (i.e. have a chance to take a look at the requests)
+		final ImmutableList<AddToResultGroupRequest> requests = retrieveAddToResultGroupRequests(multiQuery)
 				.stream()
 				// records with dedicated bPartnerId first
 				// latest date first
 				// biggest seqNo first
 				.sorted(Comparator
-						.comparing(compareByWhetherRecordHasBPartnerId)
-						.thenComparing(I_MD_Candidate_ATP_QueryResult::getDateProjected)
-						.thenComparing(I_MD_Candidate_ATP_QueryResult::getSeqNo) // if dateProjected is equal, then SeqNo makes the difference
+						.comparing((AddToResultGroupRequest request) -> request.getBpartner().isSpecificBPartner())
+						.thenComparing(AddToResultGroupRequest::getDate)
+						.thenComparing(AddToResultGroupRequest::getSeqNo) // if date is equal, then SeqNo makes the difference
 						.reversed())
 				.collect(ImmutableList.toImmutableList());
 
-		// note: this is a dedicated step in order to ease debugging (i.e. have a chance to take a look at the atpRecords)
-		final ImmutableList<AddToResultGroupRequest> requests = atpRecords
-				.stream()
-				.map(AvailableToPromiseRepository::createAddToResultGroupRequest)
-				.collect(ImmutableList.toImmutableList());
-
 		for (final AddToResultGroupRequest request : requests)
 		{
 			if (multiQuery.isAddToPredefinedBuckets())
@@ -118,6 +134,115 @@ public class AvailableToPromiseRepository
 		return retrieveAvailableStock(AvailableToPromiseMultiQuery.of(query));
 	}
 
+	private List<AddToResultGroupRequest> retrieveAddToResultGroupRequests(@NonNull final AvailableToPromiseMultiQuery multiQuery)
+	{
+		final ISysConfigBL sysConfigBL = Services.get(ISysConfigBL.class);
+		if (!sysConfigBL.getBooleanValue(SYSCONFIG_USE_IN_MEMORY_INDEX, false))
+		{
+			return retrieveAddToResultGroupRequestsFromDB(multiQuery);
+		}
+		if (stockProjectionService.hasUncommittedChanges(extractProductIds(multiQuery)))
+		{
+			// the index doesn't know about the stock candidates which our own transaction changed
+			return retrieveAddToResultGroupRequestsFromDB(multiQuery);
+		}
+		if (!sysConfigBL.getBooleanValue(SYSCONFIG_CHECK_IN_MEMORY_INDEX, false))
+		{
+			return retrieveAddToResultGroupRequestsFromIndex(multiQuery);
+		}
+
+		final ImmutableList<AddToResultGroupRequest> requestsFromDB = retrieveAddToResultGroupRequestsFromDB(multiQuery);
+		checkIndexConsistency(multiQuery, requestsFromDB);
+		return requestsFromDB;
+	}
+
+	/**
+	 * Compares the ATP records that the in-memory index returns for the given query with the ones that the database returns.
+	 * If they differ, then the involved products are discarded from the index, so they will be loaded again next time.
+	 *
+	 * @return {@code true} if the index is consistent with the database.
+	 */
+	public boolean checkIndexConsistency(@NonNull final AvailableToPromiseMultiQuery multiQuery)
+	{
+		return checkIndexConsistency(multiQuery, retrieveAddToResultGroupRequestsFromDB(multiQuery));
+	}
+
+	private boolean checkIndexConsistency(
+			@NonNull final AvailableToPromiseMultiQuery multiQuery,
+			@NonNull final List<AddToResultGroupRequest> requestsFromDB)
+	{
+		final List<AddToResultGroupRequest> requestsFromIndex = retrieveAddToResultGroupRequestsFromIndex(multiQuery);
+		if (normalizeQtys(requestsFromIndex).equals(normalizeQtys(requestsFromDB)))
+		{
+			return true;
+		}
+
+		logger.warn("The in-memory ATP index is not consistent with the database; will discard the involved products; multiQuery={}, requestsFromIndex={}, requestsFromDB={}",
+				multiQuery, requestsFromIndex, requestsFromDB);
+		extractProductIds(multiQuery).forEach(stockProjectionService::invalidate);
+		return false;
+	}
+
+	private static ImmutableSet<Integer> extractProductIds(@NonNull final AvailableToPromiseMultiQuery multiQuery)
+	{
+		return multiQuery.getQueries()
+				.stream()
+				.flatMap(query -> query.getProductIds().stream())
+				.collect(ImmutableSet.toImmutableSet());
+	}
+
+	private static ImmutableSet<AddToResultGroupRequest> normalizeQtys(@NonNull final List<AddToResultGroupRequest> requests)
+	{
+		// e.g. 10 and 10.00 shall be considered equal
+		return requests.stream()
+				.map(request -> AddToResultGroupRequest.builder()
+						.productId(request.getProductId())
+						.bpartner(request.getBpartner())
+						.warehouseId(request.getWarehouseId())
+						.storageAttributesKey(request.getStorageAttributesKey())
+						.qty(request.getQty().stripTrailingZeros())
+						.date(request.getDate())
+						.seqNo(request.getSeqNo())
+						.build())
+				.collect(ImmutableSet.toImmutableSet());
+	}
+
+	private ImmutableList<AddToResultGroupRequest> retrieveAddToResultGroupRequestsFromDB(@NonNull final AvailableToPromiseMultiQuery multiQuery)
+	{
+		final IQuery<I_MD_Candidate_ATP_QueryResult> dbQuery = createDBQueryForMaterialQueryOrNull(multiQuery);
+		if (dbQuery == null)
+		{
+			return ImmutableList.of();
+		}
+
+		return dbQuery.list()
+				.stream()
+				.map(AvailableToPromiseRepository::createAddToResultGroupRequest)
+				.collect(ImmutableList.toImmutableList());
+	}
+
+	/**
+	 * Analog to {@link #retrieveAddToResultGroupRequestsFromDB(AvailableToPromiseMultiQuery)}, but looks up the latest stock candidates in memory, via {@link StockProjectionService}.
+	 */
+	private ImmutableList<AddToResultGroupRequest> retrieveAddToResultGroupRequestsFromIndex(@NonNull final AvailableToPromiseMultiQuery multiQuery)
+	{
+		final Set<AddToResultGroupRequest> requests = new LinkedHashSet<>(); // like the SQL's "UNION DISTINCT"
+		for (final AvailableToPromiseQuery query : multiQuery.getQueries())
+		{
+			// same conversion as for the SQL function's parameter
+			final Instant date = TimeUtil.asInstant(TimeUtil.asTimestamp(query.getDate()));
+			final Predicate<StockSegmentKey> segmentFilter = segmentKey -> AvailableToPromiseIndexHelper.isMatching(query, segmentKey);
+
+			for (final int productId : ImmutableSet.copyOf(query.getProductIds()))
+			{
+				stockProjectionService
+						.getLatestCheckpoints(productId, segmentFilter, date)
+						.forEach((segmentKey, checkpoint) -> requests.add(createAddToResultGroupRequest(segmentKey, checkpoint)));
+			}
+		}
+		return ImmutableList.copyOf(requests);
+	}
+
 	private IQuery<I_MD_Candidate_ATP_QueryResult> createDBQueryForMaterialQueryOrNull(
 			@NonNull final AvailableToPromiseMultiQuery multiQuery)
 	{
@@ -149,6 +274,23 @@ public class AvailableToPromiseRepository
 				.build();
 	}
 
+	private static AddToResultGroupRequest createAddToResultGroupRequest(
+			@NonNull final StockSegmentKey segmentKey,
+			@NonNull final StockCheckpoint checkpoint)
+	{
+		final BPartnerId customerId = BPartnerId.ofRepoIdOrNull(segmentKey.getCustomerId());
+
+		return AddToResultGroupRequest.builder()
+				.productId(segmentKey.getProductId())
+				.bpartner(BPartnerClassifier.specificOrAny(customerId)) // records that have no bPartner-ID are applicable to any bpartner
+				.warehouseId(segmentKey.getWarehouseId())
+				.storageAttributesKey(AttributesKey.ofString(segmentKey.getStorageAttributesKey()))
+				.qty(checkpoint.getQty())
+				.date(checkpoint.getDate())
+				.seqNo(checkpoint.getSeqNo())
+				.build();
+	}
+
 	public Set<AttributesKey> getPredefinedStorageAttributeKeys()
 	{
 		final ISysConfigBL sysConfigBL = Services.get(ISysConfigBL.class);
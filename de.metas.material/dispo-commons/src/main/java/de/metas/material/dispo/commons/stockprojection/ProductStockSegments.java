@@ -0,0 +1,159 @@
+package de.metas.material.dispo.commons.stockprojection;
+
+import static java.math.BigDecimal.ZERO;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import de.metas.material.dispo.commons.repository.DateAndSeqNo;
+import de.metas.material.dispo.commons.repository.query.MaterialDescriptorQuery;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-material-dispo-commons
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * The {@link StockDeltaIndex}es of all stock segments of one product.
+ * <p>
+ * Note: this class is not thread safe.
+ */
+final class ProductStockSegments
+{
+	private final Map<StockSegmentKey, StockDeltaIndex> segments = new HashMap<>();
+	private final Map<Integer, StockSegmentKey> segmentKeysByCandidateId = new HashMap<>();
+
+	public BigDecimal getQty(
+			@NonNull final StockSegmentKey segmentKey,
+			@NonNull final DateAndSeqNo time)
+	{
+		final StockDeltaIndex index = segments.get(segmentKey);
+		return index == null ? ZERO : index.getQty(time);
+	}
+
+	/**
+	 * @return for each segment that is matched by the given filter, the latest stock candidate at or before the given {@code date}.
+	 *         Segments without such a candidate are not included.
+	 */
+	public ImmutableMap<StockSegmentKey, StockCheckpoint> getLatestCheckpoints(
+			@NonNull final Predicate<StockSegmentKey> segmentFilter,
+			@NonNull final Instant date)
+	{
+		final ImmutableMap.Builder<StockSegmentKey, StockCheckpoint> result = ImmutableMap.builder();
+		for (final Map.Entry<StockSegmentKey, StockDeltaIndex> entry : segments.entrySet())
+		{
+			if (!segmentFilter.test(entry.getKey()))
+			{
+				continue;
+			}
+
+			final StockCheckpoint checkpoint = entry.getValue().getLatestCheckpoint(date);
+			if (checkpoint != null)
+			{
+				result.put(entry.getKey(), checkpoint);
+			}
+		}
+		return result.build();
+	}
+
+	public ImmutableSet<StockSegmentKey> getSegmentKeys(@NonNull final Predicate<StockSegmentKey> segmentFilter)
+	{
+		return segments.keySet()
+				.stream()
+				.filter(segmentFilter)
+				.collect(ImmutableSet.toImmutableSet());
+	}
+
+	@Nullable
+	public StockSegmentKey getSegmentKeyOfCandidate(final int candidateId)
+	{
+		return segmentKeysByCandidateId.get(candidateId);
+	}
+
+	/**
+	 * Adds or updates the given stock candidate. If it was previously indexed within another segment, it's removed from there.
+	 */
+	public void putCandidate(
+			@NonNull final StockSegmentKey segmentKey,
+			@NonNull final StockCheckpoint checkpoint)
+	{
+		final int candidateId = checkpoint.getCandidateId();
+		if (!segmentKey.equals(segmentKeysByCandidateId.get(candidateId)))
+		{
+			removeCandidate(candidateId);
+		}
+
+		segments.computeIfAbsent(segmentKey, key -> new StockDeltaIndex())
+				.putCandidate(candidateId, checkpoint.getDate(), checkpoint.getSeqNo(), checkpoint.getQty());
+		segmentKeysByCandidateId.put(candidateId, segmentKey);
+	}
+
+	public void removeCandidate(final int candidateId)
+	{
+		final StockSegmentKey segmentKey = segmentKeysByCandidateId.remove(candidateId);
+		if (segmentKey == null)
+		{
+			return;
+		}
+
+		final StockDeltaIndex index = segments.get(segmentKey);
+		index.removeCandidate(candidateId);
+		if (index.size() == 0)
+		{
+			segments.remove(segmentKey);
+		}
+	}
+
+	/**
+	 * Removes all stock candidates of the given segment.
+	 */
+	public void clearSegment(@NonNull final StockSegmentKey segmentKey)
+	{
+		if (segments.remove(segmentKey) != null)
+		{
+			segmentKeysByCandidateId.values().removeIf(segmentKey::equals);
+		}
+	}
+
+	/**
+	 * Adds the given {@code qty} to all stock candidates that are matched by the given {@code query}; the query's {@code atTime} is not supported.
+	 */
+	public void addQty(
+			@NonNull final MaterialDescriptorQuery query,
+			@NonNull final BigDecimal qty)
+	{
+		for (final Map.Entry<StockSegmentKey, StockDeltaIndex> entry : segments.entrySet())
+		{
+			if (entry.getKey().isMatching(query))
+			{
+				entry.getValue().addQty(query.getTimeRangeStart(), query.getTimeRangeEnd(), qty);
+			}
+		}
+	}
+}
@@ -0,0 +1,452 @@
+package de.metas.material.dispo.commons.stockprojection;
+
+import static java.math.BigDecimal.ZERO;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import de.metas.material.dispo.commons.repository.DateAndSeqNo;
+import de.metas.material.dispo.commons.repository.DateAndSeqNo.Operator;
+import de.metas.util.Check;
+import lombok.NonNull;
+import lombok.ToString;
+
+/*
+ * #%L
+ * metasfresh-material-dispo-commons
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Indexes the stock candidates of one {@link StockSegmentKey}, ordered by date, seqNo and ID (same as the stock candidates are ordered on the database).
+ * <p>
+ * Each node stores the difference between the quantity of its stock candidate and the quantity of the previous stock candidate,
+ * and each subtree stores the sum of its differences.
+ * So the quantity of a stock candidate is the prefix sum until that candidate,
+ * and adding a quantity to all stock candidates of a time range only changes the nodes at the two ends of that range.
+ * <p>
+ * The nodes are kept in a treap, so all operations take O(log n) (expected).
+ * <p>
+ * Note: this class is not thread safe.
+ */
+final class StockDeltaIndex
+{
+	private final Map<Integer, Node> nodesByCandidateId = new HashMap<>();
+	private Node root = null;
+	private int nextPriority = 0x2545F491;
+
+	public int size()
+	{
+		return nodesByCandidateId.size();
+	}
+
+	/**
+	 * @return the quantity of the latest stock candidate at or before the given {@code time}, or zero if there is no such candidate.
+	 *         If the given {@code time}'s seqNo is not specified, then all stock candidates with the given date are considered.
+	 */
+	public BigDecimal getQty(@NonNull final DateAndSeqNo time)
+	{
+		final Key key = time.getSeqNo() > 0
+				? Key.afterAllIds(time.getDate(), time.getSeqNo())
+				: Key.afterAllSeqNos(time.getDate());
+		return sumUntil(key);
+	}
+
+	/**
+	 * @return the latest stock candidate at or before the given {@code date} (considering all seqNos of that date), or {@code null} if there is no such candidate.
+	 */
+	@Nullable
+	public StockCheckpoint getLatestCheckpoint(@NonNull final Instant date)
+	{
+		final Key key = Key.afterAllSeqNos(date);
+
+		Node latestNode = null;
+		BigDecimal sum = ZERO;
+		Node node = root;
+		while (node != null)
+		{
+			if (node.key.compareTo(key) <= 0)
+			{
+				latestNode = node;
+				sum = sum.add(sumOf(node.left)).add(node.delta);
+				node = node.right;
+			}
+			else
+			{
+				node = node.left;
+			}
+		}
+
+		if (latestNode == null)
+		{
+			return null;
+		}
+		return StockCheckpoint.builder()
+				.candidateId(latestNode.key.candidateId)
+				.date(latestNode.key.date)
+				.seqNo(latestNode.key.seqNo)
+				.qty(sum)
+				.build();
+	}
+
+	/**
+	 * @return the quantity of the given stock candidate or {@code null} if it's not indexed.
+	 */
+	@Nullable
+	public BigDecimal getQtyOfCandidate(final int candidateId)
+	{
+		final Node node = nodesByCandidateId.get(candidateId);
+		return node == null ? null : sumUntil(node.key);
+	}
+
+	/**
+	 * Adds or updates the given stock candidate, such that it has the given (absolute) {@code qty}.
+	 * The quantities of the other stock candidates are not changed.
+	 */
+	public void putCandidate(
+			final int candidateId,
+			@NonNull final Instant date,
+			final int seqNo,
+			@NonNull final BigDecimal qty)
+	{
+		removeCandidate(candidateId);
+
+		final Key key = new Key(date, seqNo, candidateId);
+		final BigDecimal delta = qty.subtract(sumUntil(key));
+
+		final Node node = new Node(key, delta, nextPriority());
+		final Node[] split = split(root, key);
+		root = merge(merge(split[0], node), split[1]);
+		nodesByCandidateId.put(candidateId, node);
+
+		// the following candidates shall keep their quantities
+		addToFirstAfter(root, key, delta.negate());
+	}
+
+	/**
+	 * Removes the given stock candidate. The quantities of the other stock candidates are not changed.
+	 *
+	 * @return {@code false} if the given candidate was not indexed.
+	 */
+	public boolean removeCandidate(final int candidateId)
+	{
+		final Node node = nodesByCandidateId.remove(candidateId);
+		if (node == null)
+		{
+			return false;
+		}
+
+		root = remove(root, node.key);
+
+		// the following candidates shall keep their quantities
+		addToFirstAfter(root, node.key, node.delta);
+		return true;
+	}
+
+	/**
+	 * Adds the given {@code qty} to all stock candidates within the given time range.
+	 * The range's bounds are interpreted like {@code RepositoryCommons} does when it selects the stock candidates from the database.
+	 *
+	 * @param rangeStart if {@code null}, then the range has no start
+	 * @param rangeEnd if {@code null}, then the range has no end
+	 */
+	public void addQty(
+			@Nullable final DateAndSeqNo rangeStart,
+			@Nullable final DateAndSeqNo rangeEnd,
+			@NonNull final BigDecimal qty)
+	{
+		if (qty.signum() == 0)
+		{
+			return;
+		}
+
+		final Key lastKeyBeforeRange = rangeStart == null ? Key.MIN : lastKeyBeforeRange(rangeStart);
+		final Key lastKeyWithinRange = rangeEnd == null ? null : lastKeyWithinRange(rangeEnd);
+		if (lastKeyWithinRange != null && lastKeyWithinRange.compareTo(lastKeyBeforeRange) <= 0)
+		{
+			return; // empty range
+		}
+
+		addToFirstAfter(root, lastKeyBeforeRange, qty);
+		if (lastKeyWithinRange != null)
+		{
+			addToFirstAfter(root, lastKeyWithinRange, qty.negate());
+		}
+	}
+
+	private static Key lastKeyBeforeRange(@NonNull final DateAndSeqNo rangeStart)
+	{
+		final Operator operator = rangeStart.getOperator();
+		Check.assumeNotNull(operator, "rangeStart has an operator; rangeStart={}", rangeStart);
+
+		switch (operator)
+		{
+			case INCLUSIVE:
+				// i.e. "date >= rangeStart.date", also if a seqNo is given
+				return Key.beforeAllSeqNos(rangeStart.getDate());
+			case EXCLUSIVE:
+				return rangeStart.getSeqNo() > 0
+						? Key.afterAllIds(rangeStart.getDate(), rangeStart.getSeqNo())
+						: Key.afterAllSeqNos(rangeStart.getDate());
+			default:
+				throw Check.fail("rangeStart has an unexpected operator; rangeStart={}", rangeStart);
+		}
+	}
+
+	private static Key lastKeyWithinRange(@NonNull final DateAndSeqNo rangeEnd)
+	{
+		final Operator operator = rangeEnd.getOperator();
+		Check.assumeNotNull(operator, "rangeEnd has an operator; rangeEnd={}", rangeEnd);
+
+		switch (operator)
+		{
+			case INCLUSIVE:
+				// i.e. "date <= rangeEnd.date", also if a seqNo is given
+				return Key.afterAllSeqNos(rangeEnd.getDate());
+			case EXCLUSIVE:
+				return rangeEnd.getSeqNo() > 0
+						? Key.beforeAllIds(rangeEnd.getDate(), rangeEnd.getSeqNo())
+						: Key.beforeAllSeqNos(rangeEnd.getDate());
+			default:
+				throw Check.fail("rangeEnd has an unexpected operator; rangeEnd={}", rangeEnd);
+		}
+	}
+
+	private int nextPriority()
+	{
+		// xorshift; we just need the priorities to be randomly distributed
+		int x = nextPriority;
+		x ^= x << 13;
+		x ^= x >>> 17;
+		x ^= x << 5;
+		nextPriority = x;
+		return x;
+	}
+
+	/** @return sum of the deltas of all nodes whose keys are less or equal to the given {@code key} */
+	private BigDecimal sumUntil(@NonNull final Key key)
+	{
+		BigDecimal sum = ZERO;
+		Node node = root;
+		while (node != null)
+		{
+			if (node.key.compareTo(key) <= 0)
+			{
+				sum = sum.add(sumOf(node.left)).add(node.delta);
+				node = node.right;
+			}
+			else
+			{
+				node = node.left;
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Adds the given {@code delta} to the first node whose key is greater than the given {@code key}.
+	 *
+	 * @return {@code false} if there is no such node.
+	 */
+	private static boolean addToFirstAfter(@Nullable final Node node, @NonNull final Key key, @NonNull final BigDecimal delta)
+	{
+		if (node == null || delta.signum() == 0)
+		{
+			return false;
+		}
+
+		if (node.key.compareTo(key) > 0)
+		{
+			if (!addToFirstAfter(node.left, key, delta))
+			{
+				node.delta = node.delta.add(delta);
+			}
+			node.sum = node.sum.add(delta);
+			return true;
+		}
+		else if (addToFirstAfter(node.right, key, delta))
+		{
+			node.sum = node.sum.add(delta);
+			return true;
+		}
+		return false;
+	}
+
+	/** @return the nodes whose keys are less or equal to the given key and the nodes whose keys are greater than the given key */
+	private static Node[] split(@Nullable final Node node, @NonNull final Key key)
+	{
+		if (node == null)
+		{
+			return new Node[] { null, null };
+		}
+
+		if (node.key.compareTo(key) <= 0)
+		{
+			final Node[] split = split(node.right, key);
+			node.right = split[0];
+			node.updateSum();
+			split[0] = node;
+			return split;
+		}
+		else
+		{
+			final Node[] split = split(node.left, key);
+			node.left = split[1];
+			node.updateSum();
+			split[1] = node;
+			return split;
+		}
+	}
+
+	/** Merges the given subtrees. All keys of {@code left} need to be less than the keys of {@code right}. */
+	private static Node merge(@Nullable final Node left, @Nullable final Node right)
+	{
+		if (left == null)
+		{
+			return right;
+		}
+		if (right == null)
+		{
+			return left;
+		}
+
+		if (left.priority > right.priority)
+		{
+			left.right = merge(left.right, right);
+			left.updateSum();
+			return left;
+		}
+		else
+		{
+			right.left = merge(left, right.left);
+			right.updateSum();
+			return right;
+		}
+	}
+
+	private static Node remove(@Nullable final Node node, @NonNull final Key key)
+	{
+		if (node == null)
+		{
+			return null;
+		}
+
+		final int cmp = key.compareTo(node.key);
+		if (cmp == 0)
+		{
+			return merge(node.left, node.right);
+		}
+
+		if (cmp < 0)
+		{
+			node.left = remove(node.left, key);
+		}
+		else
+		{
+			node.right = remove(node.right, key);
+		}
+		node.updateSum();
+		return node;
+	}
+
+	private static BigDecimal sumOf(@Nullable final Node node)
+	{
+		return node == null ? ZERO : node.sum;
+	}
+
+	@ToString(of = { "key", "delta", "sum" })
+	private static final class Node
+	{
+		private final Key key;
+		private final int priority;
+		private BigDecimal delta;
+		private BigDecimal sum;
+		private Node left;
+		private Node right;
+
+		private Node(final Key key, final BigDecimal delta, final int priority)
+		{
+			this.key = key;
+			this.priority = priority;
+			this.delta = delta;
+			this.sum = delta;
+		}
+
+		private void updateSum()
+		{
+			sum = sumOf(left).add(delta).add(sumOf(right));
+		}
+	}
+
+	@ToString
+	private static final class Key implements Comparable<Key>
+	{
+		private static final Key MIN = new Key(Instant.MIN, Integer.MIN_VALUE, Integer.MIN_VALUE);
+
+		private static Key beforeAllSeqNos(final Instant date)
+		{
+			return new Key(date, Integer.MIN_VALUE, Integer.MIN_VALUE);
+		}
+
+		private static Key afterAllSeqNos(final Instant date)
+		{
+			return new Key(date, Integer.MAX_VALUE, Integer.MAX_VALUE);
+		}
+
+		private static Key beforeAllIds(final Instant date, final int seqNo)
+		{
+			return new Key(date, seqNo, Integer.MIN_VALUE);
+		}
+
+		private static Key afterAllIds(final Instant date, final int seqNo)
+		{
+			return new Key(date, seqNo, Integer.MAX_VALUE);
+		}
+
+		private final Instant date;
+		private final int seqNo;
+		private final int candidateId;
+
+		private Key(@NonNull final Instant date, final int seqNo, final int candidateId)
+		{
+			this.date = date;
+			this.seqNo = seqNo;
+			this.candidateId = candidateId;
+		}
+
+		@Override
+		public int compareTo(final Key other)
+		{
+			final int cmp = date.compareTo(other.date);
+			if (cmp != 0)
+			{
+				return cmp;
+			}
+			if (seqNo != other.seqNo)
+			{
+				return seqNo < other.seqNo ? -1 : 1;
+			}
+			return Integer.compare(candidateId, other.candidateId);
+		}
+	}
+}
@@ -0,0 +1,582 @@
+package de.metas.material.dispo.commons.stockprojection;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import javax.annotation.PostConstruct;
+
+import org.adempiere.ad.dao.IQueryBL;
+import org.adempiere.ad.dao.IQueryBuilder;
+import org.adempiere.ad.trx.api.ITrx;
+import org.adempiere.ad.trx.api.ITrxListenerManager.TrxEventTiming;
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.ad.trx.api.OnTrxMissingPolicy;
+import org.compiere.util.TimeUtil;
+import org.slf4j.Logger;
+import org.springframework.stereotype.Service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ListMultimap;
+
+import de.metas.event.Event;
+import de.metas.event.IEventBus;
+import de.metas.event.IEventBusFactory;
+import de.metas.event.IEventListener;
+import de.metas.event.Topic;
+import de.metas.logging.LogManager;
+import de.metas.material.dispo.commons.candidate.CandidateType;
+import de.metas.material.dispo.commons.repository.DateAndSeqNo;
+import de.metas.material.dispo.commons.repository.query.MaterialDescriptorQuery;
+import de.metas.material.dispo.model.I_MD_Candidate;
+import de.metas.util.Services;
+import lombok.NonNull;
+
+/*
+ * #%L
+ * metasfresh-material-dispo-commons
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Answers "what is the projected stock at time T" from in-memory {@link StockDeltaIndex}es, one per {@link StockSegmentKey}.
+ * <p>
+ * The segments of a product are loaded as one snapshot from their persisted stock candidates (which act as checkpoints), when the product is needed the first time.
+ * Changes that are committed while the snapshot is loaded are replayed by reloading the affected segments, before the snapshot is cached.
+ * Afterwards, changes of the stock candidates are applied to the cached segments in O(log n), instead of reloading them.
+ * The changes are applied after the current transaction was committed, so the segments always reflect committed data.
+ * If that's not possible in a consistent way, the product's segments are just discarded and will be loaded again next time.
+ * <p>
+ * Other processes (e.g. the app server, if this is the material-dispo service) also change stock candidates, or have their own instance of this service.
+ * That's why the IDs of the products whose stock candidates were changed are broadcasted after commit; other processes discard those products' segments when they receive them.
+ * As a last resort against changes that are not broadcasted at all (e.g. by SQL migration scripts), the cached segments also expire one hour after they were loaded.
+ */
+@Service
+public class StockProjectionService implements IEventListener
+{
+	private static final Logger logger = LogManager.getLogger(StockProjectionService.class);
+
+	private static final int MAX_REPLAY_ROUNDS = 3;
+
+	/** Used with {@link #broadcastAfterCommit(int)} if the changed products are not known. */
+	private static final int ANY_PRODUCT_ID = 0;
+
+	/** The IDs of the products whose stock candidates were changed are broadcasted on this topic. */
+	public static final Topic TOPIC_StockCandidatesChanged = Topic.remote("de.metas.material.dispo.commons.stockprojection.StockCandidatesChanged");
+	private static final String EVENT_PROPERTY_ProductIds = "ProductIds";
+	private static final String EVENT_PROPERTY_AllProducts = "AllProducts";
+	private static final String TRX_PROPERTY_ChangedProductIds = StockProjectionService.class.getName() + ".ChangedProductIds";
+
+	private final Cache<Integer, ProductStockSegments> products = CacheBuilder.newBuilder()
+			.maximumSize(1000)
+			.expireAfterWrite(1, TimeUnit.HOURS)
+			.build();
+
+	/** Guards {@link #pendingLoads} and the adding of loaded products to {@link #products}. */
+	private final Object lock = new Object();
+
+	/** The snapshots that are currently loaded, by productId; each one collects the changes that are committed meanwhile. */
+	private final ListMultimap<Integer, PendingLoad> pendingLoads = ArrayListMultimap.create();
+
+	@PostConstruct
+	public void registerListener()
+	{
+		Services.get(IEventBusFactory.class).registerGlobalEventListener(TOPIC_StockCandidatesChanged, this);
+	}
+
+	/**
+	 * Discards the segments of the products whose stock candidates were changed by another process.
+	 */
+	@Override
+	public void onEvent(final IEventBus eventBus, @NonNull final Event event)
+	{
+		if (event.isLocalEvent())
+		{
+			// we already applied our own changes
+			return;
+		}
+
+		if (event.getPropertyAsBoolean(EVENT_PROPERTY_AllProducts))
+		{
+			invalidateAll();
+			return;
+		}
+
+		final List<?> productIds = event.getProperty(EVENT_PROPERTY_ProductIds);
+		if (productIds == null)
+		{
+			logger.warn("Ignoring event without {}: {}", EVENT_PROPERTY_ProductIds, event);
+			return;
+		}
+		productIds.forEach(productId -> invalidate(((Number)productId).intValue()));
+	}
+
+	private static Event createStockCandidatesChangedEvent(@NonNull final Set<Integer> productIds)
+	{
+		final Event.Builder eventBuilder = Event.builder();
+		if (productIds.contains(ANY_PRODUCT_ID))
+		{
+			eventBuilder.putProperty(EVENT_PROPERTY_AllProducts, true);
+		}
+		else
+		{
+			eventBuilder.putProperty(EVENT_PROPERTY_ProductIds, ImmutableList.copyOf(productIds));
+		}
+		return eventBuilder.build();
+	}
+
+	/**
+	 * @return the quantity of the latest stock candidate of the given segment, at or before the given {@code time}; zero if there is no such candidate.
+	 */
+	public BigDecimal getProjectedQty(
+			@NonNull final StockSegmentKey segmentKey,
+			@NonNull final DateAndSeqNo time)
+	{
+		final ProductStockSegments productSegments = getOrLoad(segmentKey.getProductId());
+		synchronized (productSegments)
+		{
+			return productSegments.getQty(segmentKey, time);
+		}
+	}
+
+	/**
+	 * @return for each of the given product's segments that is matched by the given filter, the latest stock candidate at or before the given {@code date}.
+	 *         Segments without such a candidate are not included.
+	 */
+	public ImmutableMap<StockSegmentKey, StockCheckpoint> getLatestCheckpoints(
+			final int productId,
+			@NonNull final Predicate<StockSegmentKey> segmentFilter,
+			@NonNull final Instant date)
+	{
+		final ProductStockSegments productSegments = getOrLoad(productId);
+		synchronized (productSegments)
+		{
+			return productSegments.getLatestCheckpoints(segmentFilter, date);
+		}
+	}
+
+	/**
+	 * The segments contain only committed changes. Callers which need to see the changes of their own transaction shall check this method first and use the database instead.
+	 *
+	 * @return {@code true} if the current thread-inherited transaction changed the stock candidates of any of the given products, but was not yet committed.
+	 */
+	public boolean hasUncommittedChanges(@NonNull final Collection<Integer> productIds)
+	{
+		final ITrxManager trxManager = Services.get(ITrxManager.class);
+		final ITrx trx = trxManager.getThreadInheritedTrx(OnTrxMissingPolicy.ReturnTrxNone);
+		if (trxManager.isNull(trx))
+		{
+			return false;
+		}
+
+		final Set<Integer> changedProductIds = trx.getProperty(TRX_PROPERTY_ChangedProductIds);
+		if (changedProductIds == null || changedProductIds.isEmpty())
+		{
+			return false;
+		}
+		return changedProductIds.contains(ANY_PRODUCT_ID) || productIds.stream().anyMatch(changedProductIds::contains);
+	}
+
+	/**
+	 * Discards the given product's segments, so they will be loaded again next time.
+	 */
+	public void invalidate(final int productId)
+	{
+		synchronized (lock)
+		{
+			pendingLoads.get(productId).forEach(PendingLoad::touchAll);
+			products.invalidate(productId);
+		}
+	}
+
+	/**
+	 * Shall be called after the given candidate record was saved. Does nothing if the record is not a stock candidate.
+	 */
+	public void onCandidateSaved(@NonNull final I_MD_Candidate candidateRecord)
+	{
+		if (!isStockCandidate(candidateRecord))
+		{
+			return;
+		}
+
+		final StockSegmentKey segmentKey = StockSegmentKey.ofRecord(candidateRecord);
+		final int candidateId = candidateRecord.getMD_Candidate_ID();
+		final Consumer<PendingLoad> touch = pendingLoad -> pendingLoad.touchCandidate(segmentKey, candidateId);
+
+		if (!candidateRecord.isActive())
+		{
+			applyAfterCommit(segmentKey.getProductId(), productSegments -> productSegments.removeCandidate(candidateId), touch);
+			return;
+		}
+
+		final StockCheckpoint checkpoint = toCheckpoint(candidateRecord);
+		applyAfterCommit(segmentKey.getProductId(), productSegments -> productSegments.putCandidate(segmentKey, checkpoint), touch);
+	}
+
+	/**
+	 * Shall be called before the given candidate record is deleted. Does nothing if the record is not a stock candidate.
+	 */
+	public void onCandidateDeleted(@NonNull final I_MD_Candidate candidateRecord)
+	{
+		if (!isStockCandidate(candidateRecord))
+		{
+			return;
+		}
+
+		final StockSegmentKey segmentKey = StockSegmentKey.ofRecord(candidateRecord);
+		final int candidateId = candidateRecord.getMD_Candidate_ID();
+		applyAfterCommit(
+				segmentKey.getProductId(),
+				productSegments -> productSegments.removeCandidate(candidateId),
+				pendingLoad -> pendingLoad.touchCandidate(segmentKey, candidateId));
+	}
+
+	/**
+	 * Shall be called after the given {@code qty} was added to all stock candidates that are matched by the given {@code query}.
+	 */
+	public void onQtyAddedToStockCandidates(
+			@NonNull final MaterialDescriptorQuery query,
+			@NonNull final BigDecimal qty)
+	{
+		if (qty.signum() == 0)
+		{
+			return;
+		}
+
+		if (query.getProductId() <= 0 || query.getAtTime() != null)
+		{
+			// we can't apply this to an index; just discard the affected products
+			Services.get(ITrxManager.class).runAfterCommit(() -> invalidateMatchingProducts(query));
+			broadcastAfterCommit(query.getProductId() > 0 ? query.getProductId() : ANY_PRODUCT_ID);
+			return;
+		}
+
+		applyAfterCommit(
+				query.getProductId(),
+				productSegments -> productSegments.addQty(query, qty),
+				pendingLoad -> pendingLoad.touchQuery(query));
+	}
+
+	/**
+	 * Discards the segments of all products.
+	 */
+	private void invalidateAll()
+	{
+		synchronized (lock)
+		{
+			pendingLoads.values().forEach(PendingLoad::touchAll);
+			products.invalidateAll();
+		}
+	}
+
+	private void invalidateMatchingProducts(@NonNull final MaterialDescriptorQuery query)
+	{
+		if (query.getProductId() > 0)
+		{
+			invalidate(query.getProductId());
+		}
+		else
+		{
+			invalidateAll();
+		}
+	}
+
+	private void applyAfterCommit(
+			final int productId,
+			@NonNull final Consumer<ProductStockSegments> change,
+			@NonNull final Consumer<PendingLoad> touch)
+	{
+		broadcastAfterCommit(productId);
+
+		final ProductStockSegments productSegmentsBeforeCommit = products.getIfPresent(productId);
+		Services.get(ITrxManager.class).runAfterCommit(() -> {
+			synchronized (lock)
+			{
+				pendingLoads.get(productId).forEach(touch);
+
+				final ProductStockSegments productSegments = products.getIfPresent(productId);
+				if (productSegments == null)
+				{
+					return;
+				}
+				if (productSegments == productSegmentsBeforeCommit)
+				{
+					synchronized (productSegments)
+					{
+						change.accept(productSegments);
+					}
+				}
+				else
+				{
+					// the product was loaded in the meantime, so we don't know if it already contains the change or not
+					products.asMap().remove(productId, productSegments);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Tells the other processes that the stock candidates of the given product were changed, after the current transaction was committed.
+	 * All products of one transaction are sent in one event.
+	 *
+	 * @param productId the product's ID or {@link #ANY_PRODUCT_ID}
+	 */
+	private void broadcastAfterCommit(final int productId)
+	{
+		final ITrxManager trxManager = Services.get(ITrxManager.class);
+		final ITrx trx = trxManager.getThreadInheritedTrx(OnTrxMissingPolicy.ReturnTrxNone);
+		if (trxManager.isNull(trx))
+		{
+			broadcastNow(ImmutableSet.of(productId));
+			return;
+		}
+
+		final Set<Integer> changedProductIds = trx.getProperty(TRX_PROPERTY_ChangedProductIds, () -> {
+			trx.getTrxListenerManager()
+					.newEventListener(TrxEventTiming.AFTER_COMMIT)
+					.invokeMethodJustOnce(false) // the transaction might be committed more than once
+					.registerHandlingMethod(this::broadcastAndClear);
+			return ConcurrentHashMap.newKeySet();
+		});
+		changedProductIds.add(productId);
+	}
+
+	private void broadcastAndClear(@NonNull final ITrx committedTrx)
+	{
+		final Set<Integer> changedProductIds = committedTrx.getProperty(TRX_PROPERTY_ChangedProductIds);
+		if (changedProductIds == null || changedProductIds.isEmpty())
+		{
+			return;
+		}
+
+		final ImmutableSet<Integer> productIdsToBroadcast = ImmutableSet.copyOf(changedProductIds);
+		changedProductIds.removeAll(productIdsToBroadcast);
+		broadcastNow(productIdsToBroadcast);
+	}
+
+	private void broadcastNow(@NonNull final Set<Integer> productIds)
+	{
+		Services.get(IEventBusFactory.class)
+				.getEventBus(TOPIC_StockCandidatesChanged)
+				.postEvent(createStockCandidatesChangedEvent(productIds));
+	}
+
+	private ProductStockSegments getOrLoad(final int productId)
+	{
+		final ProductStockSegments existingProductSegments = products.getIfPresent(productId);
+		if (existingProductSegments != null)
+		{
+			return existingProductSegments;
+		}
+
+		final PendingLoad pendingLoad = new PendingLoad();
+		synchronized (lock)
+		{
+			pendingLoads.put(productId, pendingLoad);
+		}
+
+		try
+		{
+			final ProductStockSegments snapshot = loadSnapshot(productId);
+			for (int replayRound = 0;; replayRound++)
+			{
+				final PendingLoad touchedChanges;
+				synchronized (lock)
+				{
+					touchedChanges = pendingLoad.drain();
+					if (touchedChanges.isEmpty())
+					{
+						final ProductStockSegments concurrentlyLoadedProductSegments = products.asMap().putIfAbsent(productId, snapshot);
+						return concurrentlyLoadedProductSegments != null ? concurrentlyLoadedProductSegments : snapshot;
+					}
+				}
+
+				replay(productId, snapshot, touchedChanges);
+				if (replayRound >= MAX_REPLAY_ROUNDS)
+				{
+					// the product is changed too often to ever catch up; use the snapshot this one time, but don't cache it
+					return snapshot;
+				}
+			}
+		}
+		finally
+		{
+			synchronized (lock)
+			{
+				pendingLoads.remove(productId, pendingLoad);
+			}
+		}
+	}
+
+	private ProductStockSegments loadSnapshot(final int productId)
+	{
+		final ProductStockSegments snapshot = new ProductStockSegments();
+		putAllStockRecords(productId, snapshot);
+		return snapshot;
+	}
+
+	private static void putAllStockRecords(final int productId, @NonNull final ProductStockSegments productSegments)
+	{
+		for (final I_MD_Candidate stockRecord : createStockRecordsQuery(productId).create().list())
+		{
+			productSegments.putCandidate(StockSegmentKey.ofRecord(stockRecord), toCheckpoint(stockRecord));
+		}
+	}
+
+	/**
+	 * Reloads the segments that were touched by the given changes, so the snapshot includes those changes, no matter if it already did or not.
+	 */
+	private void replay(
+			final int productId,
+			@NonNull final ProductStockSegments snapshot,
+			@NonNull final PendingLoad touchedChanges)
+	{
+		if (touchedChanges.touchedAll)
+		{
+			snapshot.getSegmentKeys(segmentKey -> true).forEach(snapshot::clearSegment);
+			putAllStockRecords(productId, snapshot);
+			return;
+		}
+
+		final Set<StockSegmentKey> segmentKeysToReload = new HashSet<>(touchedChanges.touchedSegmentKeys);
+		for (final int candidateId : touchedChanges.touchedCandidateIds)
+		{
+			final StockSegmentKey previousSegmentKey = snapshot.getSegmentKeyOfCandidate(candidateId);
+			if (previousSegmentKey != null)
+			{
+				segmentKeysToReload.add(previousSegmentKey);
+			}
+		}
+		for (final MaterialDescriptorQuery query : touchedChanges.touchedQueries)
+		{
+			segmentKeysToReload.addAll(snapshot.getSegmentKeys(segmentKey -> segmentKey.isMatching(query)));
+		}
+
+		for (final StockSegmentKey segmentKey : segmentKeysToReload)
+		{
+			if (segmentKey.getProductId() != productId)
+			{
+				continue;
+			}
+
+			final List<I_MD_Candidate> stockRecords = createStockRecordsQuery(productId)
+					.addEqualsFilter(I_MD_Candidate.COLUMN_M_Warehouse_ID, segmentKey.getWarehouseId())
+					.addEqualsFilter(I_MD_Candidate.COLUMN_StorageAttributesKey, segmentKey.getStorageAttributesKey())
+					.addEqualsFilter(I_MD_Candidate.COLUMN_C_BPartner_Customer_ID, segmentKey.getCustomerId() > 0 ? segmentKey.getCustomerId() : null)
+					.create()
+					.list();
+
+			snapshot.clearSegment(segmentKey);
+			for (final I_MD_Candidate stockRecord : stockRecords)
+			{
+				snapshot.putCandidate(segmentKey, toCheckpoint(stockRecord));
+			}
+		}
+	}
+
+	private static IQueryBuilder<I_MD_Candidate> createStockRecordsQuery(final int productId)
+	{
+		// load out of transaction, because we want to cache only committed data
+		return Services.get(IQueryBL.class)
+				.createQueryBuilderOutOfTrx(I_MD_Candidate.class)
+				.addOnlyActiveRecordsFilter()
+				.addEqualsFilter(I_MD_Candidate.COLUMN_MD_Candidate_Type, CandidateType.STOCK.toString())
+				.addEqualsFilter(I_MD_Candidate.COLUMN_M_Product_ID, productId)
+				.orderBy(I_MD_Candidate.COLUMN_DateProjected)
+				.orderBy(I_MD_Candidate.COLUMN_SeqNo)
+				.orderBy(I_MD_Candidate.COLUMN_MD_Candidate_ID);
+	}
+
+	private static StockCheckpoint toCheckpoint(@NonNull final I_MD_Candidate stockRecord)
+	{
+		return StockCheckpoint.builder()
+				.candidateId(stockRecord.getMD_Candidate_ID())
+				.date(TimeUtil.asInstant(stockRecord.getDateProjected()))
+				.seqNo(stockRecord.getSeqNo())
+				.qty(stockRecord.getQty())
+				.build();
+	}
+
+	private static boolean isStockCandidate(@NonNull final I_MD_Candidate candidateRecord)
+	{
+		return CandidateType.STOCK.toString().equals(candidateRecord.getMD_Candidate_Type());
+	}
+
+	/**
+	 * Collects the changes that were committed while a product's snapshot is loaded.
+	 * Guarded by {@link StockProjectionService#lock}.
+	 */
+	private static final class PendingLoad
+	{
+		private boolean touchedAll = false;
+		private final Set<StockSegmentKey> touchedSegmentKeys = new HashSet<>();
+		private final Set<Integer> touchedCandidateIds = new HashSet<>();
+		private final List<MaterialDescriptorQuery> touchedQueries = new ArrayList<>();
+
+		private void touchAll()
+		{
+			touchedAll = true;
+		}
+
+		private void touchCandidate(@NonNull final StockSegmentKey segmentKey, final int candidateId)
+		{
+			touchedSegmentKeys.add(segmentKey);
+			touchedCandidateIds.add(candidateId);
+		}
+
+		private void touchQuery(@NonNull final MaterialDescriptorQuery query)
+		{
+			touchedQueries.add(query);
+		}
+
+		private boolean isEmpty()
+		{
+			return !touchedAll && touchedSegmentKeys.isEmpty() && touchedCandidateIds.isEmpty() && touchedQueries.isEmpty();
+		}
+
+		/** @return a copy of the changes collected so far; this instance is cleared. */
+		private PendingLoad drain()
+		{
+			final PendingLoad copy = new PendingLoad();
+			copy.touchedAll = touchedAll;
+			copy.touchedSegmentKeys.addAll(touchedSegmentKeys);
+			copy.touchedCandidateIds.addAll(touchedCandidateIds);
+			copy.touchedQueries.addAll(touchedQueries);
+
+			touchedAll = false;
+			touchedSegmentKeys.clear();
+			touchedCandidateIds.clear();
+			touchedQueries.clear();
+			return copy;
+		}
+	}
+}
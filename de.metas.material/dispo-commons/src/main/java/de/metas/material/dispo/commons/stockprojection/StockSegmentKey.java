@@ -0,0 +1,141 @@
+package de.metas.material.dispo.commons.stockprojection;
+
+import java.util.Objects;
+
+import de.metas.bpartner.BPartnerId;
+import de.metas.material.dispo.commons.repository.atp.BPartnerClassifier;
+import de.metas.material.dispo.commons.repository.query.MaterialDescriptorQuery;
+import de.metas.material.dispo.commons.repository.query.MaterialDescriptorQuery.CustomerIdOperator;
+import de.metas.material.dispo.model.I_MD_Candidate;
+import de.metas.material.event.commons.AttributesKey;
+import de.metas.material.event.commons.MaterialDescriptor;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * metasfresh-material-dispo-commons
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Identifies the stock candidates which belong to one projected stock "line", i.e. which are cumulating each others quantities.
+ */
+@Value
+public class StockSegmentKey
+{
+	public static StockSegmentKey ofMaterialDescriptor(@NonNull final MaterialDescriptor materialDescriptor)
+	{
+		return builder()
+				.productId(materialDescriptor.getProductId())
+				.warehouseId(materialDescriptor.getWarehouseId())
+				.storageAttributesKey(toStorageAttributesKeyToStore(materialDescriptor.getStorageAttributesKey()))
+				.customerId(BPartnerId.toRepoId(materialDescriptor.getCustomerId()))
+				.build();
+	}
+
+	public static StockSegmentKey ofRecord(@NonNull final I_MD_Candidate stockRecord)
+	{
+		return builder()
+				.productId(stockRecord.getM_Product_ID())
+				.warehouseId(stockRecord.getM_Warehouse_ID())
+				.storageAttributesKey(stockRecord.getStorageAttributesKey())
+				.customerId(stockRecord.getC_BPartner_Customer_ID())
+				.build();
+	}
+
+	int productId;
+	int warehouseId;
+
+	/** The storage attributes key as it is stored in {@link I_MD_Candidate#COLUMNNAME_StorageAttributesKey}. */
+	String storageAttributesKey;
+
+	/** Less or equal to zero means "no customer". */
+	int customerId;
+
+	@Builder
+	private StockSegmentKey(
+			final int productId,
+			final int warehouseId,
+			@NonNull final String storageAttributesKey,
+			final int customerId)
+	{
+		this.productId = productId;
+		this.warehouseId = warehouseId;
+		this.storageAttributesKey = storageAttributesKey;
+		this.customerId = customerId > 0 ? customerId : 0;
+	}
+
+	/**
+	 * Analog to {@code RepositoryCommons#addMaterialDescriptorToQueryBuilderIfNotNull(MaterialDescriptorQuery, boolean, IQueryBuilder)} with {@code matchExactStorageAttributesKey=true}.
+	 * Time related restrictions of the given query are ignored.
+	 *
+	 * @return {@code true} if the stock candidates of this segment would be selected by the given query.
+	 */
+	public boolean isMatching(@NonNull final MaterialDescriptorQuery query)
+	{
+		if (query.getWarehouseId() > 0 && query.getWarehouseId() != warehouseId)
+		{
+			return false;
+		}
+		if (query.getProductId() > 0 && query.getProductId() != productId)
+		{
+			return false;
+		}
+
+		final BPartnerClassifier customer = query.getCustomer();
+		if (customer.isSpecificBPartner())
+		{
+			final int queryCustomerId = customer.getBpartnerId().getRepoId();
+			final CustomerIdOperator customerIdOperator = query.getCustomerIdOperator();
+			if (CustomerIdOperator.GIVEN_ID_ONLY.equals(customerIdOperator) && queryCustomerId != customerId)
+			{
+				return false;
+			}
+			else if (CustomerIdOperator.GIVEN_ID_OR_NULL.equals(customerIdOperator) && queryCustomerId != customerId && customerId > 0)
+			{
+				return false;
+			}
+		}
+		else if (customer.isNone() && customerId > 0)
+		{
+			return false;
+		}
+
+		final AttributesKey queryAttributesKey = query.getStorageAttributesKey();
+		if (!Objects.equals(queryAttributesKey, AttributesKey.ALL)
+				&& !Objects.equals(queryAttributesKey.getAsString(), storageAttributesKey))
+		{
+			return false;
+		}
+
+		return true;
+	}
+
+	private static String toStorageAttributesKeyToStore(@NonNull final AttributesKey attributesKey)
+	{
+		// same as in CandidateRepositoryWriteService
+		if (Objects.equals(attributesKey, AttributesKey.ALL))
+		{
+			return AttributesKey.NONE.getAsString();
+		}
+		return attributesKey.getAsString();
+	}
+}
@@ -43,6 +43,7 @@ import de.metas.material.dispo.commons.repository.query.DemandDetailsQuery;
 import de.metas.material.dispo.commons.repository.query.DistributionDetailsQuery;
 import de.metas.material.dispo.commons.repository.query.MaterialDescriptorQuery;
 import de.metas.material.dispo.commons.repository.query.ProductionDetailsQuery;
+import de.metas.material.dispo.commons.stockprojection.StockProjectionService;
 import de.metas.material.dispo.model.I_MD_Candidate;
 import de.metas.material.dispo.model.I_MD_Candidate_Demand_Detail;
 import de.metas.material.dispo.model.I_MD_Candidate_Dist_Detail;
@@ -92,7 +93,7 @@ public class CandiateRepositoryRetrievalTests
 
 		candidateRepositoryRetrieval = new CandidateRepositoryRetrieval();
 
-		repositoryTestHelper = new RepositoryTestHelper(new CandidateRepositoryWriteService());
+		repositoryTestHelper = new RepositoryTestHelper(new CandidateRepositoryWriteService(new StockProjectionService()));
 	}
 
 	@Test
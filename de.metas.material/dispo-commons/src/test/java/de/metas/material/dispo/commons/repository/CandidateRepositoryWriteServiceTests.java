@@ -39,7 +39,11 @@ import de.metas.material.dispo.commons.candidate.businesscase.DemandDetail;
 import de.metas.material.dispo.commons.candidate.businesscase.DistributionDetail;
 import de.metas.material.dispo.commons.candidate.businesscase.Flag;
 import de.metas.material.dispo.commons.candidate.businesscase.ProductionDetail;
+import de.metas.material.dispo.commons.repository.DateAndSeqNo.Operator;
 import de.metas.material.dispo.commons.repository.query.CandidatesQuery;
+import de.metas.material.dispo.commons.repository.query.MaterialDescriptorQuery;
+import de.metas.material.dispo.commons.stockprojection.StockProjectionService;
+import de.metas.material.dispo.commons.stockprojection.StockSegmentKey;
 import de.metas.material.dispo.model.I_MD_Candidate;
 import de.metas.material.dispo.model.I_MD_Candidate_Demand_Detail;
 import de.metas.material.dispo.model.I_MD_Candidate_Dist_Detail;
@@ -77,6 +81,8 @@ public class CandidateRepositoryWriteServiceTests
 	@Rule
 	public final AdempiereTestWatcher testWatcher = new AdempiereTestWatcher();
 
+	private StockProjectionService stockProjectionService;
+
 	private CandidateRepositoryWriteService candidateRepositoryWriteService;
 
 	private RepositoryTestHelper repositoryTestHelper;
@@ -86,7 +92,8 @@ public class CandidateRepositoryWriteServiceTests
 	{
 		AdempiereTestHelper.get().init();
 
-		candidateRepositoryWriteService = new CandidateRepositoryWriteService();
+		stockProjectionService = new StockProjectionService();
+		candidateRepositoryWriteService = new CandidateRepositoryWriteService(stockProjectionService);
 
 		repositoryTestHelper = new RepositoryTestHelper(candidateRepositoryWriteService);
 	}
@@ -321,6 +328,30 @@ public class CandidateRepositoryWriteServiceTests
 		assertThat(result1Record.getMD_Candidate_GroupId()).isEqualTo(result1.getGroupId());
 	}
 
+	@Test
+	public void addQtyToStockCandidates()
+	{
+		final MaterialDescriptor materialDescriptor = repositoryTestHelper.materialDescriptorOfStockCandidate;
+		final StockSegmentKey segmentKey = StockSegmentKey.ofMaterialDescriptor(materialDescriptor);
+		assertThat(stockProjectionService.getProjectedQty(segmentKey, DateAndSeqNo.atTimeNoSeqNo(AFTER_NOW))).isEqualByComparingTo("10");
+
+		final MaterialDescriptorQuery query = MaterialDescriptorQuery.forDescriptor(
+				materialDescriptor,
+				DateAndSeqNo.ofCandidate(repositoryTestHelper.stockCandidate).withOperator(Operator.EXCLUSIVE),
+				null);
+
+		// invoke the method under test
+		final int updatedCount = candidateRepositoryWriteService.addQtyToStockCandidates(query, new BigDecimal("-3"), 0);
+
+		assertThat(updatedCount).isEqualTo(1);
+		assertThat(load(repositoryTestHelper.stockCandidate.getId().getRepoId(), I_MD_Candidate.class).getQty()).isEqualByComparingTo("11");
+		assertThat(load(repositoryTestHelper.laterStockCandidate.getId().getRepoId(), I_MD_Candidate.class).getQty()).isEqualByComparingTo("7");
+		assertThat(load(repositoryTestHelper.laterStockCandidate.getId().getRepoId(), I_MD_Candidate.class).getMD_Candidate_Status()).isEqualTo(X_MD_Candidate.MD_CANDIDATE_STATUS_Planned);
+
+		assertThat(stockProjectionService.getProjectedQty(segmentKey, DateAndSeqNo.atTimeNoSeqNo(NOW))).isEqualByComparingTo("11");
+		assertThat(stockProjectionService.getProjectedQty(segmentKey, DateAndSeqNo.atTimeNoSeqNo(AFTER_NOW))).isEqualByComparingTo("7");
+	}
+
 	/**
 	 * Verifies that {@link DistributionDetail} data is also persisted
 	 */
@@ -0,0 +1,168 @@
+package de.metas.material.dispo.commons.repository.atp;
+
+import static de.metas.material.event.EventTestHelper.NOW;
+import static org.adempiere.model.InterfaceWrapperHelper.newInstance;
+import static org.adempiere.model.InterfaceWrapperHelper.save;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.adempiere.test.AdempiereTestHelper;
+import org.compiere.util.TimeUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import de.metas.bpartner.BPartnerId;
+import de.metas.material.dispo.commons.stockprojection.StockSegmentKey;
+import de.metas.material.dispo.model.I_MD_Candidate_ATP_QueryResult;
+import de.metas.material.event.commons.AttributesKey;
+
+/*
+ * #%L
+ * metasfresh-material-dispo-commons
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class AvailableToPromiseIndexHelperTest
+{
+	private static final BPartnerId BPARTNER_ID_1 = BPartnerId.ofRepoId(10);
+	private static final BPartnerId BPARTNER_ID_2 = BPartnerId.ofRepoId(20);
+
+	private List<StockSegmentKey> segmentKeys;
+
+	@Before
+	public void init()
+	{
+		AdempiereTestHelper.get().init();
+
+		final ImmutableList.Builder<StockSegmentKey> segmentKeys = ImmutableList.builder();
+		for (final int productId : ImmutableList.of(1, 2))
+		{
+			for (final int warehouseId : ImmutableList.of(3, 4))
+			{
+				for (final AttributesKey attributesKey : ImmutableList.of(AttributesKey.NONE, AttributesKey.ofAttributeValueIds(1, 2), AttributesKey.ofAttributeValueIds(12), AttributesKey.ofAttributeValueIds(2, 3)))
+				{
+					for (final int customerId : ImmutableList.of(0, BPARTNER_ID_1.getRepoId(), BPARTNER_ID_2.getRepoId()))
+					{
+						segmentKeys.add(StockSegmentKey.builder()
+								.productId(productId)
+								.warehouseId(warehouseId)
+								.storageAttributesKey(attributesKey.getAsString())
+								.customerId(customerId)
+								.build());
+					}
+				}
+			}
+		}
+		this.segmentKeys = segmentKeys.build();
+
+		int seqNo = 1;
+		for (final StockSegmentKey segmentKey : this.segmentKeys)
+		{
+			final I_MD_Candidate_ATP_QueryResult viewRecord = newInstance(I_MD_Candidate_ATP_QueryResult.class);
+			viewRecord.setM_Product_ID(segmentKey.getProductId());
+			viewRecord.setM_Warehouse_ID(segmentKey.getWarehouseId());
+			viewRecord.setC_BPartner_Customer_ID(BPartnerId.toRepoId(BPartnerId.ofRepoIdOrNull(segmentKey.getCustomerId())));
+			viewRecord.setStorageAttributesKey(segmentKey.getStorageAttributesKey());
+			viewRecord.setDateProjected(TimeUtil.asTimestamp(NOW));
+			viewRecord.setQty(BigDecimal.TEN);
+			viewRecord.setSeqNo(seqNo++);
+			save(viewRecord);
+		}
+	}
+
+	@Test
+	public void isMatching_specificBPartner()
+	{
+		assertSameAsSqlHelper(AvailableToPromiseQuery.builder()
+				.productId(1)
+				.warehouseId(3)
+				.storageAttributesKey(AttributesKey.ofAttributeValueIds(1, 2))
+				.bpartner(BPartnerClassifier.specific(BPARTNER_ID_1))
+				.build());
+	}
+
+	@Test
+	public void isMatching_noBPartner()
+	{
+		assertSameAsSqlHelper(AvailableToPromiseQuery.builder()
+				.productId(1)
+				.productId(2)
+				.storageAttributesKey(AttributesKey.ofAttributeValueIds(2))
+				.bpartner(BPartnerClassifier.none())
+				.build());
+	}
+
+	@Test
+	public void isMatching_anyBPartner_allStorageAttributesKeys()
+	{
+		assertSameAsSqlHelper(AvailableToPromiseQuery.builder()
+				.productId(2)
+				.storageAttributesKey(AttributesKey.ALL)
+				.bpartner(BPartnerClassifier.any())
+				.build());
+	}
+
+	@Test
+	public void isMatching_otherStorageAttributesKeys()
+	{
+		assertSameAsSqlHelper(AvailableToPromiseQuery.builder()
+				.productId(1)
+				.warehouseId(4)
+				.storageAttributesKey(AttributesKey.ofAttributeValueIds(1))
+				.storageAttributesKey(AttributesKey.OTHER)
+				.bpartner(BPartnerClassifier.any())
+				.build());
+	}
+
+	@Test
+	public void isMatching_noStorageAttributesKeys()
+	{
+		assertSameAsSqlHelper(AvailableToPromiseQuery.builder()
+				.productId(1)
+				.bpartner(BPartnerClassifier.specific(BPARTNER_ID_2))
+				.build());
+	}
+
+	private void assertSameAsSqlHelper(final AvailableToPromiseQuery query)
+	{
+		final ImmutableSet<StockSegmentKey> segmentKeysFromSqlHelper = AvailableToPromiseSqlHelper.createDBQueryForStockQueryBuilder(query)
+				.create()
+				.list()
+				.stream()
+				.map(viewRecord -> StockSegmentKey.builder()
+						.productId(viewRecord.getM_Product_ID())
+						.warehouseId(viewRecord.getM_Warehouse_ID())
+						.storageAttributesKey(viewRecord.getStorageAttributesKey())
+						.customerId(viewRecord.getC_BPartner_Customer_ID())
+						.build())
+				.collect(ImmutableSet.toImmutableSet());
+		assertThat(segmentKeysFromSqlHelper).isNotEmpty(); // guard
+
+		final ImmutableSet<StockSegmentKey> segmentKeysFromIndexHelper = segmentKeys.stream()
+				.filter(segmentKey -> AvailableToPromiseIndexHelper.isMatching(query, segmentKey))
+				.collect(ImmutableSet.toImmutableSet());
+
+		assertThat(segmentKeysFromIndexHelper).isEqualTo(segmentKeysFromSqlHelper);
+	}
+}
@@ -12,8 +12,13 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.service.ISysConfigBL;
 import org.adempiere.test.AdempiereTestHelper;
 import org.adempiere.test.AdempiereTestWatcher;
 import org.compiere.util.TimeUtil;
@@ -21,8 +26,13 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
+
 import de.metas.bpartner.BPartnerId;
+import de.metas.event.Event;
+import de.metas.event.IEventBusFactory;
 import de.metas.material.dispo.commons.repository.atp.AvailableToPromiseMultiQuery.AvailableToPromiseMultiQueryBuilder;
+import de.metas.material.dispo.commons.stockprojection.StockProjectionService;
 import de.metas.material.dispo.model.I_MD_Candidate;
 import de.metas.material.dispo.model.I_MD_Candidate_ATP_QueryResult;
 import de.metas.material.dispo.model.X_MD_Candidate;
@@ -30,6 +40,7 @@ import de.metas.material.event.EventTestHelper;
 import de.metas.material.event.commons.AttributesKey;
 import de.metas.material.event.commons.MaterialDescriptor;
 import de.metas.material.event.commons.ProductDescriptor;
+import de.metas.util.Services;
 
 /*
  * #%L
@@ -62,6 +73,7 @@ public class AvailableToPromiseRepositoryTest
 	public static final BigDecimal TWENTY = new BigDecimal("20");
 	public static final BigDecimal THIRTY = new BigDecimal("30");
 
+	private StockProjectionService stockProjectionService;
 	private AvailableToPromiseRepository availableToPromiseRepository;
 
 	@Rule
@@ -72,7 +84,8 @@ public class AvailableToPromiseRepositoryTest
 	{
 		AdempiereTestHelper.get().init();
 
-		availableToPromiseRepository = new AvailableToPromiseRepository();
+		stockProjectionService = new StockProjectionService();
+		availableToPromiseRepository = new AvailableToPromiseRepository(stockProjectionService);
 	}
 
 	/**
@@ -269,8 +282,137 @@ public class AvailableToPromiseRepositoryTest
 		return multiQuery;
 	}
 
+	@Test
+	public void retrieveAvailableStock_for_material_descriptor_fromInMemoryIndex()
+	{
+		enableInMemoryIndex();
+
+		createStockRecordWithBPartner(BPARTNER_ID_1, BEFORE_NOW);
+		createStockRecordWithBPartner(null, BEFORE_NOW); // belongs to "any" bpartner
+		createStockRecordWithBPartner(BPARTNER_ID_2, BEFORE_NOW); // belongs to an unrelated bPartner
+
+		final AvailableToPromiseMultiQuery query = AvailableToPromiseMultiQuery.forDescriptorAndAllPossibleBPartnerIds(createMaterialDescriptor());
+
+		final BigDecimal result = availableToPromiseRepository.retrieveAvailableStockQtySum(query);
+
+		assertThat(result).isEqualByComparingTo(TWENTY);
+		assertThat(availableToPromiseRepository.checkIndexConsistency(query)).isTrue();
+	}
+
+	@Test
+	public void retrieveAvailableStock_differentStorageAttributesKeys_fromInMemoryIndex()
+	{
+		enableInMemoryIndex();
+
+		final AvailableToPromiseMultiQuery multiQuery = retrieveAvailableStock_differentStorageAttributesKeys_performTest(false);
+
+		final AvailableToPromiseResult result = availableToPromiseRepository.retrieveAvailableStock(multiQuery);
+		assertThat(result.getResultGroups())
+				.hasSize(3)
+				.allMatch(group -> group.getQty().compareTo(TEN) == 0);
+		assertThat(availableToPromiseRepository.checkIndexConsistency(multiQuery)).isTrue();
+	}
+
+	/**
+	 * The stock candidate is changed without notifying the index, so the index is stale until the consistency check discards it.
+	 */
+	@Test
+	public void checkIndexConsistency_discards_stale_index()
+	{
+		enableInMemoryIndex();
+
+		final I_MD_Candidate_ATP_QueryResult viewRecord = createStockRecordWithBPartner(null, BEFORE_NOW);
+		final AvailableToPromiseMultiQuery query = AvailableToPromiseMultiQuery.of(AvailableToPromiseQuery.forMaterialDescriptor(createMaterialDescriptor().withCustomerId(null)));
+		assertThat(availableToPromiseRepository.retrieveAvailableStockQtySum(query)).isEqualByComparingTo(TEN);
+
+		final I_MD_Candidate candidateRecord = candidateRecordsBySeqNo.get(viewRecord.getSeqNo());
+		candidateRecord.setQty(TWENTY);
+		save(candidateRecord);
+		viewRecord.setQty(TWENTY);
+		save(viewRecord);
+		assertThat(availableToPromiseRepository.retrieveAvailableStockQtySum(query)).isEqualByComparingTo(TEN); // guard
+
+		assertThat(availableToPromiseRepository.checkIndexConsistency(query)).isFalse();
+
+		assertThat(availableToPromiseRepository.checkIndexConsistency(query)).isTrue();
+		assertThat(availableToPromiseRepository.retrieveAvailableStockQtySum(query)).isEqualByComparingTo(TWENTY);
+	}
+
+	/**
+	 * The stock candidate is changed by another process, which has its own {@link StockProjectionService} that broadcasts the change.
+	 */
+	@Test
+	public void retrieveAvailableStock_fromInMemoryIndex_seesChangesOfOtherProcesses()
+	{
+		enableInMemoryIndex();
+
+		final List<Event> broadcastedEvents = new ArrayList<>();
+		Services.get(IEventBusFactory.class)
+				.getEventBus(StockProjectionService.TOPIC_StockCandidatesChanged)
+				.subscribe(broadcastedEvents::add);
+
+		final I_MD_Candidate_ATP_QueryResult viewRecord = createStockRecordWithBPartner(null, BEFORE_NOW);
+		final AvailableToPromiseMultiQuery query = AvailableToPromiseMultiQuery.of(AvailableToPromiseQuery.forMaterialDescriptor(createMaterialDescriptor().withCustomerId(null)));
+		assertThat(availableToPromiseRepository.retrieveAvailableStockQtySum(query)).isEqualByComparingTo(TEN);
+
+		final StockProjectionService otherProcessStockProjectionService = new StockProjectionService();
+		final I_MD_Candidate candidateRecord = candidateRecordsBySeqNo.get(viewRecord.getSeqNo());
+		candidateRecord.setQty(TWENTY);
+		save(candidateRecord);
+		viewRecord.setQty(TWENTY);
+		save(viewRecord);
+		otherProcessStockProjectionService.onCandidateSaved(candidateRecord);
+
+		assertThat(broadcastedEvents).hasSize(1);
+		stockProjectionService.onEvent(null, broadcastedEvents.get(0));
+		assertThat(availableToPromiseRepository.retrieveAvailableStockQtySum(query)).isEqualByComparingTo(TEN); // guard: events sent from this process are ignored
+
+		// that's how the event arrives in this process
+		final Event eventFromOtherProcess = broadcastedEvents.get(0).toBuilder().setSenderId("otherProcess").build();
+		stockProjectionService.onEvent(null, eventFromOtherProcess);
+		assertThat(availableToPromiseRepository.retrieveAvailableStockQtySum(query)).isEqualByComparingTo(TWENTY);
+		assertThat(availableToPromiseRepository.checkIndexConsistency(query)).isTrue();
+	}
+
+	/**
+	 * The stock candidate is changed in the current transaction, which is not yet committed, so the index doesn't know about it yet.
+	 */
+	@Test
+	public void retrieveAvailableStock_fromInMemoryIndex_seesUncommittedChangesOfOwnTrx()
+	{
+		enableInMemoryIndex();
+
+		final I_MD_Candidate_ATP_QueryResult viewRecord = createStockRecordWithBPartner(null, BEFORE_NOW);
+		final AvailableToPromiseMultiQuery query = AvailableToPromiseMultiQuery.of(AvailableToPromiseQuery.forMaterialDescriptor(createMaterialDescriptor().withCustomerId(null)));
+		assertThat(availableToPromiseRepository.retrieveAvailableStockQtySum(query)).isEqualByComparingTo(TEN);
+
+		Services.get(ITrxManager.class).runInNewTrx(() -> {
+			final I_MD_Candidate candidateRecord = candidateRecordsBySeqNo.get(viewRecord.getSeqNo());
+			candidateRecord.setQty(TWENTY);
+			save(candidateRecord);
+			viewRecord.setQty(TWENTY);
+			save(viewRecord);
+			stockProjectionService.onCandidateSaved(candidateRecord);
+
+			assertThat(stockProjectionService.hasUncommittedChanges(ImmutableList.of(PRODUCT_ID))).isTrue();
+			assertThat(availableToPromiseRepository.retrieveAvailableStockQtySum(query)).isEqualByComparingTo(TWENTY);
+		});
+
+		// committed => the index has the change
+		assertThat(stockProjectionService.hasUncommittedChanges(ImmutableList.of(PRODUCT_ID))).isFalse();
+		assertThat(availableToPromiseRepository.retrieveAvailableStockQtySum(query)).isEqualByComparingTo(TWENTY);
+		assertThat(availableToPromiseRepository.checkIndexConsistency(query)).isTrue();
+	}
+
+	private void enableInMemoryIndex()
+	{
+		Services.get(ISysConfigBL.class).setValue(AvailableToPromiseRepository.SYSCONFIG_USE_IN_MEMORY_INDEX, true, 0);
+	}
+
 	private int seqNoCounter = 1; // we start with one, because 0 is not considered valid by the code under test
 
+	private final Map<Integer, I_MD_Candidate> candidateRecordsBySeqNo = new HashMap<>();
+
 	private I_MD_Candidate_ATP_QueryResult createStockRecordWithBPartner(
 			final BPartnerId bpartnerId,
 			final Instant dateProjected)
@@ -296,13 +438,19 @@ public class AvailableToPromiseRepositoryTest
 			final AttributesKey storgateAttributesKey,
 			final Instant dateProjected)
 	{
-		// set only the values we need
+		// set only the values we need; the candidate record is what the in-memory index is loaded from
 		final I_MD_Candidate candidateRecord = newInstance(I_MD_Candidate.class);
+		candidateRecord.setM_Product_ID(productId);
+		candidateRecord.setM_Warehouse_ID(WAREHOUSE_ID);
+		candidateRecord.setC_BPartner_Customer_ID(BPartnerId.toRepoId(bpartnerId));
+		candidateRecord.setStorageAttributesKey(storgateAttributesKey.getAsString());
 		candidateRecord.setDateProjected(TimeUtil.asTimestamp(dateProjected));
 		candidateRecord.setIsActive(true);
 		candidateRecord.setMD_Candidate_Type(X_MD_Candidate.MD_CANDIDATE_TYPE_STOCK);
+		candidateRecord.setQty(BigDecimal.TEN);
 		candidateRecord.setSeqNo(seqNoCounter);
 		save(candidateRecord);
+		candidateRecordsBySeqNo.put(seqNoCounter, candidateRecord);
 
 		final I_MD_Candidate_ATP_QueryResult viewRecord = newInstance(I_MD_Candidate_ATP_QueryResult.class);
 		viewRecord.setM_Product_ID(productId);
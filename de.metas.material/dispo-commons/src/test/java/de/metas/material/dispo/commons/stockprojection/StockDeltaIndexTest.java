@@ -0,0 +1,333 @@
+package de.metas.material.dispo.commons.stockprojection;
+
+import static java.math.BigDecimal.ZERO;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.google.common.base.Stopwatch;
+
+import de.metas.material.dispo.commons.repository.DateAndSeqNo;
+import de.metas.material.dispo.commons.repository.DateAndSeqNo.Operator;
+import lombok.AllArgsConstructor;
+
+/*
+ * #%L
+ * metasfresh-material-dispo-commons
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class StockDeltaIndexTest
+{
+	private final Instant t1 = Instant.parse("2017-11-22T00:00:00.00Z");
+	private final Instant t2 = t1.plus(10, ChronoUnit.MINUTES);
+	private final Instant t3 = t1.plus(20, ChronoUnit.MINUTES);
+	private final Instant t4 = t1.plus(30, ChronoUnit.MINUTES);
+
+	@Test
+	public void putCandidate_keepsQtysOfOtherCandidates()
+	{
+		final StockDeltaIndex index = new StockDeltaIndex();
+		index.putCandidate(1, t1, 1, new BigDecimal("10"));
+		index.putCandidate(3, t3, 3, new BigDecimal("3"));
+		index.putCandidate(2, t2, 2, new BigDecimal("6"));
+
+		assertThat(index.size()).isEqualTo(3);
+		assertThat(index.getQtyOfCandidate(1)).isEqualByComparingTo("10");
+		assertThat(index.getQtyOfCandidate(2)).isEqualByComparingTo("6");
+		assertThat(index.getQtyOfCandidate(3)).isEqualByComparingTo("3");
+
+		assertThat(index.getQty(DateAndSeqNo.atTimeNoSeqNo(t1.minusSeconds(1)))).isEqualByComparingTo("0");
+		assertThat(index.getQty(DateAndSeqNo.atTimeNoSeqNo(t2))).isEqualByComparingTo("6");
+		assertThat(index.getQty(DateAndSeqNo.atTimeNoSeqNo(t4))).isEqualByComparingTo("3");
+	}
+
+	@Test
+	public void putCandidate_moveCandidate()
+	{
+		final StockDeltaIndex index = new StockDeltaIndex();
+		index.putCandidate(1, t1, 1, new BigDecimal("10"));
+		index.putCandidate(2, t2, 2, new BigDecimal("6"));
+		index.putCandidate(3, t3, 3, new BigDecimal("3"));
+
+		index.putCandidate(1, t4, 1, new BigDecimal("7"));
+
+		assertThat(index.size()).isEqualTo(3);
+		assertThat(index.getQty(DateAndSeqNo.atTimeNoSeqNo(t1))).isEqualByComparingTo("0");
+		assertThat(index.getQtyOfCandidate(2)).isEqualByComparingTo("6");
+		assertThat(index.getQtyOfCandidate(3)).isEqualByComparingTo("3");
+		assertThat(index.getQtyOfCandidate(1)).isEqualByComparingTo("7");
+	}
+
+	@Test
+	public void getLatestCheckpoint()
+	{
+		final StockDeltaIndex index = new StockDeltaIndex();
+		index.putCandidate(1, t1, 1, new BigDecimal("10"));
+		index.putCandidate(3, t2, 3, new BigDecimal("3"));
+		index.putCandidate(2, t2, 2, new BigDecimal("6"));
+
+		assertThat(index.getLatestCheckpoint(t1.minusSeconds(1))).isNull();
+
+		final StockCheckpoint checkpointAtT1 = index.getLatestCheckpoint(t1);
+		assertThat(checkpointAtT1.getCandidateId()).isEqualTo(1);
+		assertThat(checkpointAtT1.getQty()).isEqualByComparingTo("10");
+
+		// all seqNos of the given date are considered
+		final StockCheckpoint checkpointAtT3 = index.getLatestCheckpoint(t3);
+		assertThat(checkpointAtT3.getCandidateId()).isEqualTo(3);
+		assertThat(checkpointAtT3.getDate()).isEqualTo(t2);
+		assertThat(checkpointAtT3.getSeqNo()).isEqualTo(3);
+		assertThat(checkpointAtT3.getQty()).isEqualByComparingTo("3");
+	}
+
+	@Test
+	public void removeCandidate_keepsQtysOfOtherCandidates()
+	{
+		final StockDeltaIndex index = new StockDeltaIndex();
+		index.putCandidate(1, t1, 1, new BigDecimal("10"));
+		index.putCandidate(2, t2, 2, new BigDecimal("6"));
+		index.putCandidate(3, t3, 3, new BigDecimal("3"));
+
+		assertThat(index.removeCandidate(2)).isTrue();
+		assertThat(index.removeCandidate(2)).isFalse();
+
+		assertThat(index.getQtyOfCandidate(2)).isNull();
+		assertThat(index.getQtyOfCandidate(1)).isEqualByComparingTo("10");
+		assertThat(index.getQtyOfCandidate(3)).isEqualByComparingTo("3");
+		assertThat(index.getQty(DateAndSeqNo.atTimeNoSeqNo(t2))).isEqualByComparingTo("10");
+	}
+
+	@Test
+	public void addQty_exclusiveRange()
+	{
+		final StockDeltaIndex index = new StockDeltaIndex();
+		index.putCandidate(1, t1, 1, new BigDecimal("10"));
+		index.putCandidate(2, t2, 2, new BigDecimal("6"));
+		index.putCandidate(3, t3, 3, new BigDecimal("3"));
+		index.putCandidate(4, t4, 4, new BigDecimal("5"));
+
+		index.addQty(
+				DateAndSeqNo.builder().date(t1).seqNo(1).operator(Operator.EXCLUSIVE).build(),
+				DateAndSeqNo.builder().date(t4).seqNo(4).operator(Operator.EXCLUSIVE).build(),
+				new BigDecimal("-2"));
+
+		assertThat(index.getQtyOfCandidate(1)).isEqualByComparingTo("10");
+		assertThat(index.getQtyOfCandidate(2)).isEqualByComparingTo("4");
+		assertThat(index.getQtyOfCandidate(3)).isEqualByComparingTo("1");
+		assertThat(index.getQtyOfCandidate(4)).isEqualByComparingTo("5");
+	}
+
+	@Test
+	public void addQty_openEnd()
+	{
+		final StockDeltaIndex index = new StockDeltaIndex();
+		index.putCandidate(1, t1, 1, new BigDecimal("10"));
+		index.putCandidate(2, t2, 2, new BigDecimal("6"));
+
+		index.addQty(DateAndSeqNo.builder().date(t1).operator(Operator.INCLUSIVE).build(), null, new BigDecimal("5"));
+
+		assertThat(index.getQtyOfCandidate(1)).isEqualByComparingTo("15");
+		assertThat(index.getQtyOfCandidate(2)).isEqualByComparingTo("11");
+	}
+
+	@Test
+	public void randomOperations_sameAsNaiveImplementation()
+	{
+		final StockDeltaIndex index = new StockDeltaIndex();
+		replayRandomEvents(new Random(42), 2000, 200, new IndexedStock(index));
+
+		final NaiveStock naiveStock = new NaiveStock();
+		replayRandomEvents(new Random(42), 2000, 200, naiveStock);
+
+		naiveStock.assertSameAs(index);
+	}
+
+	/**
+	 * Replays a day of material events (one every 2 seconds) against a product which already has many future stock candidates.
+	 * Each event either adds a new stock candidate (e.g. for a new shipment schedule), or changes the quantity of an existing one (e.g. because an order line's qty was changed).
+	 * Either way, the quantity delta needs to be added to all later stock candidates.
+	 */
+	@Test
+	@Ignore("benchmark; to be run manually")
+	public void loadTest_replayDayOfEvents()
+	{
+		final int eventsPerDay = 24 * 60 * 60 / 2;
+		final int existingCandidates = 10000;
+
+		final StockDeltaIndex index = new StockDeltaIndex();
+		final Stopwatch stopwatchIndex = Stopwatch.createStarted();
+		replayRandomEvents(new Random(42), eventsPerDay, existingCandidates, new IndexedStock(index));
+		stopwatchIndex.stop();
+
+		final NaiveStock naiveStock = new NaiveStock();
+		final Stopwatch stopwatchNaive = Stopwatch.createStarted();
+		replayRandomEvents(new Random(42), eventsPerDay, existingCandidates, naiveStock);
+		stopwatchNaive.stop();
+
+		System.out.println("Replayed " + eventsPerDay + " events on " + existingCandidates + " existing stock candidates"
+				+ "\n\t index: " + stopwatchIndex
+				+ "\n\t row by row: " + stopwatchNaive + " (" + naiveStock.updatedRowsCount + " row updates)");
+
+		naiveStock.assertSameAs(index);
+	}
+
+	private void replayRandomEvents(
+			final Random random,
+			final int eventsCount,
+			final int existingCandidatesCount,
+			final Stock stock)
+	{
+		final int minutesPerYear = 60 * 24 * 365;
+		int nextCandidateId = 1;
+
+		for (int i = 0; i < existingCandidatesCount + eventsCount; i++)
+		{
+			final BigDecimal delta = BigDecimal.valueOf(random.nextInt(20) - 10);
+			final Instant date = t1.plus(random.nextInt(minutesPerYear), ChronoUnit.MINUTES);
+			if (i < existingCandidatesCount || random.nextBoolean())
+			{
+				// new demand or supply => new stock candidate; same as StockCandidateService.createStockCandidate()
+				final int candidateId = nextCandidateId++;
+				final BigDecimal qtyBefore = stock.getQtyBefore(date, candidateId);
+				stock.putCandidate(candidateId, date, candidateId, qtyBefore.add(delta));
+				stock.addQtyAfter(date, candidateId, delta);
+			}
+			else
+			{
+				// changed demand or supply
+				final int seqNo = 1 + random.nextInt(nextCandidateId - 1);
+				stock.addQtyAfter(date, seqNo, delta);
+			}
+		}
+	}
+
+	private interface Stock
+	{
+		BigDecimal getQtyBefore(Instant date, int seqNo);
+
+		void putCandidate(int candidateId, Instant date, int seqNo, BigDecimal qty);
+
+		void addQtyAfter(Instant date, int seqNo, BigDecimal delta);
+	}
+
+	@AllArgsConstructor
+	private static final class IndexedStock implements Stock
+	{
+		private final StockDeltaIndex index;
+
+		@Override
+		public BigDecimal getQtyBefore(final Instant date, final int seqNo)
+		{
+			return index.getQty(DateAndSeqNo.builder().date(date).seqNo(seqNo - 1).build());
+		}
+
+		@Override
+		public void putCandidate(final int candidateId, final Instant date, final int seqNo, final BigDecimal qty)
+		{
+			index.putCandidate(candidateId, date, seqNo, qty);
+		}
+
+		@Override
+		public void addQtyAfter(final Instant date, final int seqNo, final BigDecimal delta)
+		{
+			index.addQty(DateAndSeqNo.builder().date(date).seqNo(seqNo).operator(Operator.EXCLUSIVE).build(), null, delta);
+		}
+	}
+
+	@AllArgsConstructor
+	private static final class NaiveStockRecord
+	{
+		private final int candidateId;
+		private final Instant date;
+		private final int seqNo;
+		private BigDecimal qty;
+
+		private boolean isAfter(final Instant otherDate, final int otherSeqNo)
+		{
+			final int cmp = date.compareTo(otherDate);
+			return cmp > 0 || cmp == 0 && seqNo > otherSeqNo;
+		}
+	}
+
+	/** Updates the stock row by row, like it was done on the database before. */
+	private static final class NaiveStock implements Stock
+	{
+		private final List<NaiveStockRecord> records = new ArrayList<>();
+		private long updatedRowsCount = 0;
+
+		@Override
+		public BigDecimal getQtyBefore(final Instant date, final int seqNo)
+		{
+			NaiveStockRecord latestRecord = null;
+			for (final NaiveStockRecord record : records)
+			{
+				if (!record.isAfter(date, seqNo - 1) && (latestRecord == null || record.isAfter(latestRecord.date, latestRecord.seqNo)))
+				{
+					latestRecord = record;
+				}
+			}
+			return latestRecord == null ? ZERO : latestRecord.qty;
+		}
+
+		@Override
+		public void putCandidate(final int candidateId, final Instant date, final int seqNo, final BigDecimal qty)
+		{
+			records.removeIf(record -> record.candidateId == candidateId);
+			records.add(new NaiveStockRecord(candidateId, date, seqNo, qty));
+		}
+
+		@Override
+		public void addQtyAfter(final Instant date, final int seqNo, final BigDecimal delta)
+		{
+			for (final NaiveStockRecord record : records)
+			{
+				if (record.isAfter(date, seqNo))
+				{
+					record.qty = record.qty.add(delta);
+					updatedRowsCount++;
+				}
+			}
+		}
+
+		private void assertSameAs(final StockDeltaIndex index)
+		{
+			assertThat(index.size()).isEqualTo(records.size());
+
+			records.sort(Comparator.<NaiveStockRecord, Instant> comparing(record -> record.date)
+					.thenComparing(record -> record.seqNo)
+					.thenComparing(record -> record.candidateId));
+			for (final NaiveStockRecord record : records)
+			{
+				assertThat(index.getQtyOfCandidate(record.candidateId))
+						.as("qty of candidateId=%s", record.candidateId)
+						.isEqualByComparingTo(record.qty);
+			}
+		}
+	}
+}
@@ -51,6 +51,7 @@ import de.metas.material.dispo.commons.repository.DateAndSeqNo.Operator;
 import de.metas.material.dispo.commons.repository.atp.AvailableToPromiseRepository;
 import de.metas.material.dispo.commons.repository.query.CandidatesQuery;
 import de.metas.material.dispo.commons.repository.query.MaterialDescriptorQuery;
+import de.metas.material.dispo.commons.stockprojection.StockProjectionService;
 import de.metas.material.dispo.model.I_MD_Candidate;
 import de.metas.material.dispo.service.candidatechange.handler.CandidateHandler;
 import de.metas.material.dispo.service.candidatechange.handler.DemandCandiateHandler;
@@ -124,9 +125,9 @@ public class CandidateChangeHandlerTests
 		AdempiereTestHelper.get().init();
 
 		candidateRepositoryRetrieval = new CandidateRepositoryRetrieval();
-		candidateRepositoryCommands = new CandidateRepositoryWriteService();
+		candidateRepositoryCommands = new CandidateRepositoryWriteService(new StockProjectionService());
 
-		stockRepository = new AvailableToPromiseRepository();
+		stockRepository = new AvailableToPromiseRepository(new StockProjectionService());
 		stockCandidateService = new StockCandidateService(
 				candidateRepositoryRetrieval,
 				candidateRepositoryCommands);
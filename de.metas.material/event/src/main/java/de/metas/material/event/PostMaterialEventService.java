@@ -1,7 +1,9 @@
 package de.metas.material.event;
 
+import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.ad.trx.api.ITrxListenerManager.TrxEventTiming;
 import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.ad.trx.api.OnTrxMissingPolicy;
 import org.slf4j.Logger;
 import org.springframework.stereotype.Service;
 
@@ -38,6 +40,8 @@ public class PostMaterialEventService
 
 	private static final Logger logger = LogManager.getLogger(PostMaterialEventService.class);
 
+	private static final String TRX_PROPERTY_PostEventsAfterCommit = PostMaterialEventService.class.getName() + ".PostEventsAfterCommit";
+
 	private final MetasfreshEventBusService materialEventService;
 
 	public PostMaterialEventService(@NonNull final MetasfreshEventBusService materialEventService)
@@ -57,15 +61,39 @@ public class PostMaterialEventService
 
 		trxManager.getCurrentTrxListenerManagerOrAutoCommit()
 				.newEventListener(TrxEventTiming.AFTER_COMMIT)
-				.registerHandlingMethod(innerTrx -> postEventNow(event));
+				.registerHandlingMethod(innerTrx -> postEvent(event));
 	}
 
 	/**
 	 * Fires the given event using our (distributed) event framework. If {@link #subscribeToEventBus()} was not yet invoked, an exception is thrown.
+	 * <p>
+	 * If the current transaction was marked via {@link #postEventsAfterCommit(ITrx)}, the event is posted after that transaction's commit instead.
 	 *
 	 * @param event
 	 */
 	public void postEventNow(final MaterialEvent event)
+	{
+		final ITrxManager trxManager = Services.get(ITrxManager.class);
+		final ITrx trx = trxManager.getThreadInheritedTrx(OnTrxMissingPolicy.ReturnTrxNone);
+		if (!trxManager.isNull(trx) && Boolean.TRUE.equals(trx.getProperty(TRX_PROPERTY_PostEventsAfterCommit)))
+		{
+			postEventAfterNextCommit(event);
+			return;
+		}
+
+		postEvent(event);
+	}
+
+	/**
+	 * Makes {@link #postEventNow(MaterialEvent)} post its events only after the given transaction was committed.
+	 * Needed if the transaction handles several material events and might be rolled back, so that the events are handled again.
+	 */
+	public static void postEventsAfterCommit(@NonNull final ITrx trx)
+	{
+		trx.setProperty(TRX_PROPERTY_PostEventsAfterCommit, Boolean.TRUE);
+	}
+
+	private void postEvent(final MaterialEvent event)
 	{
 		materialEventService.postEvent(event);
 		logger.info("Posted MaterialEvent={}", event);
@@ -0,0 +1,97 @@
+package de.metas.material.event.eventbus;
+
+import javax.annotation.Nullable;
+
+import de.metas.material.event.MaterialEvent;
+import de.metas.material.event.commons.MaterialDescriptor;
+import de.metas.material.event.receiptschedule.AbstractReceiptScheduleEvent;
+import de.metas.material.event.shipmentschedule.AbstractShipmentScheduleEvent;
+import de.metas.material.event.stock.StockChangedEvent;
+import de.metas.material.event.transactions.AbstractTransactionEvent;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * metasfresh-material-event
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Identifies the partition of a {@link MaterialEvent} that is about exactly one product and warehouse.
+ * Events of the same partition are handled in the order they were received, events of different partitions may be handled concurrently.
+ * <p>
+ * Note that the storage attributes are intentionally not part of the key,
+ * because candidates with different attributes keys may still be matched by the same (LIKE-based) query.
+ */
+@Value
+public class MaterialEventPartitionKey
+{
+	/**
+	 * @return the given event's partition key or {@code null} if the event might concern more than one product or warehouse.
+	 *         Such events need to be handled after all previously received events and before all subsequently received ones.
+	 */
+	@Nullable
+	public static MaterialEventPartitionKey ofEventOrNull(@NonNull final MaterialEvent event)
+	{
+		if (event instanceof AbstractShipmentScheduleEvent)
+		{
+			return ofMaterialDescriptorOrNull(((AbstractShipmentScheduleEvent)event).getMaterialDescriptor());
+		}
+		else if (event instanceof AbstractReceiptScheduleEvent)
+		{
+			return ofMaterialDescriptorOrNull(((AbstractReceiptScheduleEvent)event).getMaterialDescriptor());
+		}
+		else if (event instanceof AbstractTransactionEvent)
+		{
+			return ofMaterialDescriptorOrNull(((AbstractTransactionEvent)event).getMaterialDescriptor());
+		}
+		else if (event instanceof StockChangedEvent)
+		{
+			final StockChangedEvent stockChangedEvent = (StockChangedEvent)event;
+			if (stockChangedEvent.getProductDescriptor() == null)
+			{
+				return null;
+			}
+			return ofOrNull(stockChangedEvent.getProductDescriptor().getProductId(), stockChangedEvent.getWarehouseId());
+		}
+		return null;
+	}
+
+	private static MaterialEventPartitionKey ofMaterialDescriptorOrNull(@Nullable final MaterialDescriptor materialDescriptor)
+	{
+		if (materialDescriptor == null)
+		{
+			return null;
+		}
+		return ofOrNull(materialDescriptor.getProductId(), materialDescriptor.getWarehouseId());
+	}
+
+	private static MaterialEventPartitionKey ofOrNull(final int productId, final int warehouseId)
+	{
+		if (productId <= 0 || warehouseId <= 0)
+		{
+			return null;
+		}
+		return new MaterialEventPartitionKey(productId, warehouseId);
+	}
+
+	int productId;
+	int warehouseId;
+}
@@ -1,8 +1,18 @@
 package de.metas.material.event.eventbus;
 
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
+
+import org.adempiere.ad.trx.api.IBatchedPersistenceScope;
+import org.adempiere.ad.trx.api.ITrx;
 import org.adempiere.ad.trx.api.ITrxManager;
+import org.adempiere.ad.trx.api.OnTrxMissingPolicy;
+import org.adempiere.service.ISysConfigBL;
 import org.adempiere.util.lang.IAutoCloseable;
 import org.compiere.Adempiere;
 import org.compiere.util.Env;
@@ -13,9 +23,12 @@ import org.springframework.stereotype.Service;
 import de.metas.event.Event;
 import de.metas.event.IEventBus;
 import de.metas.event.IEventListener;
+import de.metas.event.log.impl.EventLogEntryCollector;
 import de.metas.logging.LogManager;
 import de.metas.material.event.MaterialEvent;
 import de.metas.material.event.MaterialEventHandlerRegistry;
+import de.metas.material.event.PostMaterialEventService;
+import de.metas.material.event.eventbus.PartitionedMaterialEventDispatcher.QueuedEvent;
 import de.metas.util.Services;
 import lombok.NonNull;
 
@@ -47,12 +60,32 @@ public class MetasfreshEventListener
 {
 	private static final Logger logger = LogManager.getLogger(MetasfreshEventListener.class);
 
+	/**
+	 * Number of worker threads which handle material events in per-product partitions.
+	 * If zero (the default), each event is handled synchronously in its own transaction, in the thread that received it.
+	 * <p>
+	 * Note that the thread which received a remote event still waits until it was handled, so the event is not acknowledged before.
+	 */
+	private static final String SYSCONFIG_PartitionedWorkers = "de.metas.material.event.eventbus.MetasfreshEventListener.PartitionedWorkers";
+
+	/** Maximum number of events of one partition that are handled in one transaction. */
+	private static final String SYSCONFIG_PartitionedMaxBatchSize = "de.metas.material.event.eventbus.MetasfreshEventListener.PartitionedMaxBatchSize";
+	private static final int DEFAULT_PartitionedMaxBatchSize = 100;
+
+	/** Maximum number of events that are queued for the workers. If reached, the thread that receives the events waits until the workers caught up. */
+	private static final String SYSCONFIG_PartitionedMaxQueuedEvents = "de.metas.material.event.eventbus.MetasfreshEventListener.PartitionedMaxQueuedEvents";
+	private static final int DEFAULT_PartitionedMaxQueuedEvents = 10000;
+
 	private final MaterialEventHandlerRegistry materialEventHandlerRegistry;
 
 	private final MetasfreshEventBusService metasfreshEventBusService;
 
 	private final MaterialEventConverter materialEventConverter;
 
+	/** {@code null} unless partitioned event handling was enabled via {@link #SYSCONFIG_PartitionedWorkers} */
+	@Nullable
+	private final PartitionedMaterialEventDispatcher partitionedDispatcher;
+
 	private final IEventListener internalListener = new IEventListener()
 	{
 		@Override
@@ -68,12 +101,45 @@ public class MetasfreshEventListener
 			Env.setContext(temporaryCtx, Env.CTXNAME_AD_Client_ID, lightWeightEvent.getEventDescriptor().getClientId());
 			Env.setContext(temporaryCtx, Env.CTXNAME_AD_Org_ID, lightWeightEvent.getEventDescriptor().getOrgId());
 
+			if (partitionedDispatcher != null)
+			{
+				final CompletableFuture<Void> handledFuture = partitionedDispatcher.enqueue(event, lightWeightEvent, temporaryCtx);
+				if (handledFuture != null)
+				{
+					if (!event.isLocalEvent())
+					{
+						// don't return before the event was handled, because returning acknowledges the remote event;
+						// if this JVM dies meanwhile, the event is delivered again
+						awaitHandled(handledFuture, lightWeightEvent);
+					}
+					return;
+				}
+				// the dispatcher was stopped => handle the event right here, like it's done without dispatcher
+			}
+
 			try (final IAutoCloseable c = Env.switchContext(temporaryCtx))
 			{
 				invokeListenerInTrx(lightWeightEvent);
 			}
 		}
 
+		private void awaitHandled(@NonNull final CompletableFuture<Void> handledFuture, @NonNull final MaterialEvent materialEvent)
+		{
+			try
+			{
+				handledFuture.get();
+			}
+			catch (final InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+				logger.warn("Interrupted while waiting for MaterialEvent={} to be handled", materialEvent, ex);
+			}
+			catch (final ExecutionException ex)
+			{
+				logger.warn("MaterialEvent={} was not handled", materialEvent, ex.getCause());
+			}
+		}
+
 		private void invokeListenerInTrx(@NonNull final MaterialEvent materialEvent)
 		{
 			Services.get(ITrxManager.class).run(() -> {
@@ -96,7 +162,99 @@ public class MetasfreshEventListener
 		this.materialEventConverter = materialEventConverter;
 		this.materialEventHandlerRegistry = materialEventHandlerRegistry;
 		this.metasfreshEventBusService = metasfreshEventBusService;
+		this.partitionedDispatcher = createPartitionedDispatcherOrNull();
 
 		this.metasfreshEventBusService.subscribe(internalListener);
 	}
+
+	@Nullable
+	private PartitionedMaterialEventDispatcher createPartitionedDispatcherOrNull()
+	{
+		final ISysConfigBL sysConfigBL = Services.get(ISysConfigBL.class);
+
+		final int workers = sysConfigBL.getIntValue(SYSCONFIG_PartitionedWorkers, 0);
+		if (workers <= 0)
+		{
+			return null;
+		}
+
+		final int maxBatchSize = Math.max(sysConfigBL.getIntValue(SYSCONFIG_PartitionedMaxBatchSize, DEFAULT_PartitionedMaxBatchSize), 1);
+		final int maxQueuedEvents = Math.max(sysConfigBL.getIntValue(SYSCONFIG_PartitionedMaxQueuedEvents, DEFAULT_PartitionedMaxQueuedEvents), 1);
+		logger.info("Handling material events in per-product partitions; workers={}, maxBatchSize={}, maxQueuedEvents={}", workers, maxBatchSize, maxQueuedEvents);
+
+		return PartitionedMaterialEventDispatcher.builder()
+				.workers(workers)
+				.maxBatchSize(maxBatchSize)
+				.maxQueuedEvents(maxQueuedEvents)
+				.batchHandler(this::handleBatch)
+				.build()
+				.registerJMX();
+	}
+
+	/**
+	 * Stops the partitioned dispatcher, if any, after it handled the events which were already queued.
+	 */
+	@PreDestroy
+	public void stop()
+	{
+		if (partitionedDispatcher != null)
+		{
+			partitionedDispatcher.stop();
+		}
+	}
+
+	/**
+	 * Handles the given events in one transaction, with batched persistence.
+	 * If that transaction fails, each event is handled again in its own transaction, like it's done when there is no partitioned dispatcher.
+	 * <p>
+	 * Note that just like in the non-partitioned case, a failing handler does not roll back the transaction,
+	 * because {@link MaterialEventHandlerRegistry} logs the handler's exception and carries on.
+	 * <p>
+	 * Events that the handlers post while the batch is handled are only posted after the batch's transaction was committed
+	 * (see {@link PostMaterialEventService#postEventsAfterCommit(ITrx)}), so a rolled back and retried batch does not post them twice.
+	 */
+	private void handleBatch(@NonNull final List<QueuedEvent> batch)
+	{
+		final ITrxManager trxManager = Services.get(ITrxManager.class);
+		try
+		{
+			trxManager.run(() -> {
+				PostMaterialEventService.postEventsAfterCommit(trxManager.getThreadInheritedTrx(OnTrxMissingPolicy.Fail));
+				try (final IBatchedPersistenceScope scope = trxManager.openBatchedPersistenceScope(ITrx.TRXNAME_ThreadInherited))
+				{
+					batch.forEach(this::handleQueuedEvent);
+				}
+			});
+		}
+		catch (final RuntimeException ex)
+		{
+			if (batch.size() <= 1)
+			{
+				throw ex;
+			}
+			logger.warn("Failed handling {} events in one transaction; handling them again, each in its own transaction", batch.size(), ex);
+
+			for (final QueuedEvent queuedEvent : batch)
+			{
+				try
+				{
+					trxManager.run(() -> handleQueuedEvent(queuedEvent));
+				}
+				catch (final RuntimeException singleEx)
+				{
+					logger.error("Failed handling MaterialEvent={}", queuedEvent.getMaterialEvent(), singleEx);
+				}
+			}
+		}
+	}
+
+	private void handleQueuedEvent(@NonNull final QueuedEvent queuedEvent)
+	{
+		// we are not in the event bus' thread, so we need to provide the event log collector ourselves
+		try (final IAutoCloseable c = Env.switchContext(queuedEvent.getCtx());
+				final EventLogEntryCollector collector = EventLogEntryCollector.createThreadLocalForEvent(queuedEvent.getEvent()))
+		{
+			materialEventHandlerRegistry.onEvent(queuedEvent.getMaterialEvent());
+		}
+	}
 }
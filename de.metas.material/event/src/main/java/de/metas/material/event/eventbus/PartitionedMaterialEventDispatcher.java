@@ -0,0 +1,616 @@
+package de.metas.material.event.eventbus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+import javax.management.ObjectName;
+
+import org.adempiere.util.concurrent.CustomizableThreadFactory;
+import org.adempiere.util.jmx.IJMXNameAware;
+import org.adempiere.util.jmx.JMXRegistry;
+import org.adempiere.util.jmx.JMXRegistry.OnJMXAlreadyExistsPolicy;
+import org.slf4j.Logger;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import de.metas.event.Event;
+import de.metas.logging.LogManager;
+import de.metas.material.event.MaterialEvent;
+import de.metas.util.Check;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/*
+ * #%L
+ * metasfresh-material-event
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Hands over {@link MaterialEvent}s to a pool of worker threads, in micro-batches per {@link MaterialEventPartitionKey}.
+ * <p>
+ * The events of one partition are handled strictly in the order they were enqueued, and at most one batch per partition is handled at a time.
+ * Events without a partition key (see {@link MaterialEventPartitionKey#ofEventOrNull(MaterialEvent)}) act as barriers:
+ * they are handled alone, after all previously enqueued events were handled and before any subsequently enqueued event is handled.
+ * <p>
+ * At most {@code maxQueuedEvents} events are queued. Above that, {@link #enqueue(Event, MaterialEvent, Properties)} blocks the event bus thread until the workers caught up,
+ * so that a backlog stays with the event bus and is not lost in memory if the process stops. Events that are enqueued by the workers themselves are never blocked.
+ */
+final class PartitionedMaterialEventDispatcher implements PartitionedMaterialEventDispatcherMBean, IJMXNameAware
+{
+	private static final Logger logger = LogManager.getLogger(PartitionedMaterialEventDispatcher.class);
+
+	private static final String JMX_NAME = "de.metas.material.event:type=PartitionedMaterialEventDispatcher";
+
+	/** How long {@link #stop()} waits for the queued events to be handled. */
+	private static final long STOP_TIMEOUT_SECONDS = 60;
+
+	private final int workers;
+	private final int maxBatchSize;
+	private final int maxQueuedEvents;
+	private final Consumer<List<QueuedEvent>> batchHandler;
+
+	private final ExecutorService executor;
+	private volatile boolean stopped = false;
+	private ObjectName jmxObjectName;
+
+	/** Guards {@link #partitions}, {@link #heldBackEvents}, {@link #barrierRunning} and {@link #queuedEventsCount}, as well as the state of each {@link Partition}. */
+	private final Object lock = new Object();
+
+	/** The partitions that currently have queued or running events. */
+	private final Map<MaterialEventPartitionKey, Partition> partitions = new HashMap<>();
+
+	/** Barrier events and all events that were enqueued after them, in their original order. */
+	private final ArrayDeque<QueuedEvent> heldBackEvents = new ArrayDeque<>();
+	private boolean barrierRunning = false;
+
+	/** Events that were enqueued, but not yet taken by a worker. */
+	private int queuedEventsCount = 0;
+
+	/** {@code true} while the current thread is one of our workers and handles a batch */
+	private final ThreadLocal<Boolean> handlingBatch = ThreadLocal.withInitial(() -> false);
+
+	private final AtomicLong enqueuedCount = new AtomicLong();
+	private final AtomicLong handledCount = new AtomicLong();
+	private final AtomicLong batchesCount = new AtomicLong();
+	private final AtomicLong failedBatchesCount = new AtomicLong();
+	private final AtomicLong maxLagNanos = new AtomicLong();
+
+	@Builder
+	private PartitionedMaterialEventDispatcher(
+			final int workers,
+			final int maxBatchSize,
+			final int maxQueuedEvents,
+			@NonNull final Consumer<List<QueuedEvent>> batchHandler)
+	{
+		this.workers = Check.assumeGreaterThanZero(workers, "workers");
+		this.maxBatchSize = Check.assumeGreaterThanZero(maxBatchSize, "maxBatchSize");
+		this.maxQueuedEvents = Check.assumeGreaterThanZero(maxQueuedEvents, "maxQueuedEvents");
+		this.batchHandler = batchHandler;
+
+		this.executor = Executors.newFixedThreadPool(workers, CustomizableThreadFactory.builder()
+				.setThreadNamePrefix(PartitionedMaterialEventDispatcher.class.getSimpleName())
+				.setDaemon(true)
+				.build());
+	}
+
+	@Override
+	public String toString()
+	{
+		return MoreObjects.toStringHelper(this)
+				.add("workers", workers)
+				.add("maxBatchSize", maxBatchSize)
+				.add("maxQueuedEvents", maxQueuedEvents)
+				.toString();
+	}
+
+	@Override
+	public String getJMXName()
+	{
+		return JMX_NAME;
+	}
+
+	public PartitionedMaterialEventDispatcher registerJMX()
+	{
+		try
+		{
+			jmxObjectName = JMXRegistry.get().registerJMX(this, OnJMXAlreadyExistsPolicy.Replace);
+		}
+		catch (final Exception ex)
+		{
+			logger.warn("Failed registering JMX bean for {}. Ignored.", this, ex);
+		}
+		return this;
+	}
+
+	/**
+	 * Stops accepting new events and waits (at most {@link #STOP_TIMEOUT_SECONDS}) until the already queued events were handled.
+	 */
+	public void stop()
+	{
+		synchronized (lock)
+		{
+			stopped = true;
+			lock.notifyAll(); // wake up enqueuing threads that wait for the workers; they will handle their events themselves
+		}
+
+		final boolean drained = awaitAllHandled(TimeUnit.SECONDS.toNanos(STOP_TIMEOUT_SECONDS));
+		executor.shutdown();
+		try
+		{
+			if (drained)
+			{
+				executor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			}
+		}
+		catch (final InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+		}
+
+		if (jmxObjectName != null)
+		{
+			JMXRegistry.get().unregisterJMX(jmxObjectName, false);
+			jmxObjectName = null;
+		}
+
+		if (!drained)
+		{
+			executor.shutdownNow();
+			logger.warn("{} stopped after {}s. {} queued events were not handled", this, STOP_TIMEOUT_SECONDS, getQueueDepth());
+			failQueuedEvents();
+		}
+	}
+
+	/**
+	 * Completes the futures of the events which were not handled, so that the threads which wait for them don't wait forever.
+	 */
+	private void failQueuedEvents()
+	{
+		final IllegalStateException ex = new IllegalStateException(this + " was stopped before the event was handled");
+		synchronized (lock)
+		{
+			heldBackEvents.forEach(queuedEvent -> queuedEvent.getHandledFuture().completeExceptionally(ex));
+			partitions.values().forEach(partition -> partition.queue.forEach(queuedEvent -> queuedEvent.getHandledFuture().completeExceptionally(ex)));
+		}
+	}
+
+	/**
+	 * @return {@code true} if there are no more queued or running events; {@code false} if the timeout elapsed first
+	 */
+	private boolean awaitAllHandled(final long timeoutNanos)
+	{
+		final long deadline = System.nanoTime() + timeoutNanos;
+		synchronized (lock)
+		{
+			while (!partitions.isEmpty() || !heldBackEvents.isEmpty() || barrierRunning)
+			{
+				final long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+				if (remainingMillis <= 0)
+				{
+					return false;
+				}
+
+				try
+				{
+					lock.wait(remainingMillis);
+				}
+				catch (final InterruptedException ex)
+				{
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Queues the given event for the workers.
+	 *
+	 * @return a future which is completed after the event was handled (also if the handler failed),
+	 *         or {@code null} if this dispatcher was stopped, in which case the caller needs to handle the event itself.
+	 */
+	@Nullable
+	public CompletableFuture<Void> enqueue(
+			@NonNull final Event event,
+			@NonNull final MaterialEvent materialEvent,
+			@NonNull final Properties ctx)
+	{
+		if (stopped)
+		{
+			logger.debug("{} is stopped; the caller has to handle the event itself. \n MaterialEvent: {}", this, materialEvent);
+			return null;
+		}
+
+		final QueuedEvent queuedEvent = QueuedEvent.builder()
+				.event(event)
+				.materialEvent(materialEvent)
+				.ctx(ctx)
+				.partitionKey(MaterialEventPartitionKey.ofEventOrNull(materialEvent))
+				.enqueuedNanos(System.nanoTime())
+				.handledFuture(new CompletableFuture<>())
+				.build();
+
+		synchronized (lock)
+		{
+			if (!awaitQueueCapacity())
+			{
+				logger.debug("{} was stopped while waiting for queue capacity; the caller has to handle the event itself. \n MaterialEvent: {}", this, materialEvent);
+				return null;
+			}
+
+			queuedEventsCount++;
+			if (queuedEvent.getPartitionKey() == null || barrierRunning || !heldBackEvents.isEmpty())
+			{
+				heldBackEvents.add(queuedEvent);
+				releaseHeldBackEvents();
+			}
+			else
+			{
+				addToPartition(queuedEvent);
+			}
+		}
+		enqueuedCount.incrementAndGet();
+		return queuedEvent.getHandledFuture();
+	}
+
+	/**
+	 * Waits until less than {@link #maxQueuedEvents} events are queued. Doesn't wait if called from a worker, because that worker might be needed to get below the limit.
+	 * Needs to be called while holding {@link #lock}.
+	 *
+	 * @return {@code false} if this dispatcher was stopped meanwhile
+	 */
+	private boolean awaitQueueCapacity()
+	{
+		if (handlingBatch.get())
+		{
+			return !stopped;
+		}
+
+		boolean logged = false;
+		while (!stopped && queuedEventsCount >= maxQueuedEvents)
+		{
+			if (!logged)
+			{
+				logger.info("{} events are queued; waiting until the workers caught up", queuedEventsCount);
+				logged = true;
+			}
+
+			try
+			{
+				lock.wait();
+			}
+			catch (final InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return !stopped;
+	}
+
+	/** Needs to be called while holding {@link #lock}. */
+	private void takenByWorker(final int eventsCount)
+	{
+		queuedEventsCount -= eventsCount;
+		lock.notifyAll();
+	}
+
+	/**
+	 * Moves held back events to their partitions, until the next barrier event. Starts that barrier event if all partitions are idle.
+	 * Needs to be called while holding {@link #lock}.
+	 */
+	private void releaseHeldBackEvents()
+	{
+		while (!barrierRunning && !heldBackEvents.isEmpty())
+		{
+			final QueuedEvent queuedEvent = heldBackEvents.peek();
+			if (queuedEvent.getPartitionKey() != null)
+			{
+				heldBackEvents.poll();
+				addToPartition(queuedEvent);
+			}
+			else if (partitions.isEmpty())
+			{
+				heldBackEvents.poll();
+				takenByWorker(1);
+				barrierRunning = true;
+				executor.execute(() -> runBarrier(queuedEvent));
+			}
+			else
+			{
+				return; // wait until all partitions are idle
+			}
+		}
+	}
+
+	/** Needs to be called while holding {@link #lock}. */
+	private void addToPartition(@NonNull final QueuedEvent queuedEvent)
+	{
+		final MaterialEventPartitionKey partitionKey = queuedEvent.getPartitionKey();
+		final Partition partition = partitions.computeIfAbsent(partitionKey, Partition::new);
+		partition.queue.add(queuedEvent);
+		if (!partition.scheduled)
+		{
+			partition.scheduled = true;
+			executor.execute(() -> runPartition(partition));
+		}
+	}
+
+	private void runPartition(@NonNull final Partition partition)
+	{
+		final List<QueuedEvent> batch = new ArrayList<>();
+		synchronized (lock)
+		{
+			while (batch.size() < maxBatchSize && !partition.queue.isEmpty())
+			{
+				batch.add(partition.queue.poll());
+			}
+			takenByWorker(batch.size());
+		}
+
+		try
+		{
+			handleBatch(batch);
+		}
+		finally
+		{
+			synchronized (lock)
+			{
+				if (!partition.queue.isEmpty())
+				{
+					// don't loop here, but let the other partitions have their turn first
+					executor.execute(() -> runPartition(partition));
+				}
+				else
+				{
+					partition.scheduled = false;
+					partitions.remove(partition.key);
+					releaseHeldBackEvents();
+					lock.notifyAll(); // wake up stop(), which waits for all partitions to be idle
+				}
+			}
+		}
+	}
+
+	private void runBarrier(@NonNull final QueuedEvent queuedEvent)
+	{
+		try
+		{
+			handleBatch(ImmutableList.of(queuedEvent));
+		}
+		finally
+		{
+			synchronized (lock)
+			{
+				barrierRunning = false;
+				releaseHeldBackEvents();
+				lock.notifyAll(); // wake up stop(), which waits for all partitions to be idle
+			}
+		}
+	}
+
+	private void handleBatch(@NonNull final List<QueuedEvent> batch)
+	{
+		if (batch.isEmpty())
+		{
+			return;
+		}
+
+		final long lagNanos = System.nanoTime() - batch.get(0).getEnqueuedNanos();
+		maxLagNanos.accumulateAndGet(lagNanos, Math::max);
+		logger.debug("Handling batch of {} events with a lag of {}ms; partitionKey={}",
+				batch.size(), TimeUnit.NANOSECONDS.toMillis(lagNanos), batch.get(0).getPartitionKey());
+
+		handlingBatch.set(true);
+		try
+		{
+			batchHandler.accept(batch);
+		}
+		catch (final Throwable ex)
+		{
+			failedBatchesCount.incrementAndGet();
+			logger.error("Failed handling batch of {} events using {}; first event={}", batch.size(), this, batch.get(0).getMaterialEvent(), ex);
+		}
+		finally
+		{
+			handlingBatch.set(false);
+			batchesCount.incrementAndGet();
+			handledCount.addAndGet(batch.size());
+			batch.forEach(queuedEvent -> queuedEvent.getHandledFuture().complete(null));
+		}
+	}
+
+	@Override
+	public int getWorkers()
+	{
+		return workers;
+	}
+
+	@Override
+	public int getMaxBatchSize()
+	{
+		return maxBatchSize;
+	}
+
+	@Override
+	public int getMaxQueuedEvents()
+	{
+		return maxQueuedEvents;
+	}
+
+	@Override
+	public int getPartitionsCount()
+	{
+		synchronized (lock)
+		{
+			return partitions.size();
+		}
+	}
+
+	@Override
+	public int getQueueDepth()
+	{
+		synchronized (lock)
+		{
+			int depth = heldBackEvents.size();
+			for (final Partition partition : partitions.values())
+			{
+				depth += partition.queue.size();
+			}
+			return depth;
+		}
+	}
+
+	@Override
+	public int getHeldBackEventsCount()
+	{
+		synchronized (lock)
+		{
+			return heldBackEvents.size();
+		}
+	}
+
+	@Override
+	public long getEnqueuedCount()
+	{
+		return enqueuedCount.get();
+	}
+
+	@Override
+	public long getHandledCount()
+	{
+		return handledCount.get();
+	}
+
+	@Override
+	public long getBatchesCount()
+	{
+		return batchesCount.get();
+	}
+
+	@Override
+	public long getFailedBatchesCount()
+	{
+		return failedBatchesCount.get();
+	}
+
+	@Override
+	public long getOldestQueuedEventAgeMillis()
+	{
+		final long now = System.nanoTime();
+		long maxAgeNanos = 0;
+		synchronized (lock)
+		{
+			final QueuedEvent oldestHeldBackEvent = heldBackEvents.peek();
+			if (oldestHeldBackEvent != null)
+			{
+				maxAgeNanos = now - oldestHeldBackEvent.getEnqueuedNanos();
+			}
+			for (final Partition partition : partitions.values())
+			{
+				maxAgeNanos = Math.max(maxAgeNanos, partition.getOldestQueuedEventAgeNanos(now));
+			}
+		}
+		return TimeUnit.NANOSECONDS.toMillis(maxAgeNanos);
+	}
+
+	@Override
+	public long getMaxLagMillis()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(maxLagNanos.get());
+	}
+
+	@Override
+	public String[] getPartitionLags()
+	{
+		final long now = System.nanoTime();
+		synchronized (lock)
+		{
+			return partitions.values()
+					.stream()
+					.sorted(Comparator.comparing((Partition partition) -> partition.getOldestQueuedEventAgeNanos(now)).reversed())
+					.map(partition -> "productId=" + partition.key.getProductId()
+							+ ", warehouseId=" + partition.key.getWarehouseId()
+							+ ": queued=" + partition.queue.size()
+							+ ", oldestQueuedEventAgeMillis=" + TimeUnit.NANOSECONDS.toMillis(partition.getOldestQueuedEventAgeNanos(now)))
+					.toArray(String[]::new);
+		}
+	}
+
+	@Value
+	@Builder
+	public static class QueuedEvent
+	{
+		/** the event as it was received from the event bus */
+		@NonNull
+		Event event;
+
+		@NonNull
+		MaterialEvent materialEvent;
+
+		/** the context to handle the event with */
+		@NonNull
+		Properties ctx;
+
+		@Nullable
+		MaterialEventPartitionKey partitionKey;
+
+		long enqueuedNanos;
+
+		/** completed after the event was handled */
+		@NonNull
+		CompletableFuture<Void> handledFuture;
+	}
+
+	private static final class Partition
+	{
+		private final MaterialEventPartitionKey key;
+		private final ArrayDeque<QueuedEvent> queue = new ArrayDeque<>();
+
+		/** {@code true} if a worker is about to handle this partition's next batch */
+		private boolean scheduled = false;
+
+		private Partition(@NonNull final MaterialEventPartitionKey key)
+		{
+			this.key = key;
+		}
+
+		private long getOldestQueuedEventAgeNanos(final long now)
+		{
+			final QueuedEvent oldestQueuedEvent = queue.peek();
+			return oldestQueuedEvent == null ? 0 : now - oldestQueuedEvent.getEnqueuedNanos();
+		}
+	}
+}
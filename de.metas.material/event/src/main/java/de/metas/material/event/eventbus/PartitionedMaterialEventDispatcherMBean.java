@@ -0,0 +1,59 @@
+package de.metas.material.event.eventbus;
+
+/*
+ * #%L
+ * metasfresh-material-event
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public interface PartitionedMaterialEventDispatcherMBean
+{
+	int getWorkers();
+
+	int getMaxBatchSize();
+
+	/** @return how many events may be queued before the event bus thread is blocked */
+	int getMaxQueuedEvents();
+
+	/** @return how many partitions currently have queued or running events */
+	int getPartitionsCount();
+
+	/** @return how many events are currently queued (all partitions, including the held back events) */
+	int getQueueDepth();
+
+	/** @return how many events are held back until a preceding event that concerns more than one partition was handled */
+	int getHeldBackEventsCount();
+
+	long getEnqueuedCount();
+
+	long getHandledCount();
+
+	long getBatchesCount();
+
+	long getFailedBatchesCount();
+
+	/** @return how long the oldest queued event is already waiting */
+	long getOldestQueuedEventAgeMillis();
+
+	/** @return the longest time an event was waiting in the queue */
+	long getMaxLagMillis();
+
+	/** @return one line per partition, with its queued events count and how long its oldest queued event is already waiting */
+	String[] getPartitionLags();
+}
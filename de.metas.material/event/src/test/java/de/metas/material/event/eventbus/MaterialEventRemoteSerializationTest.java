@@ -0,0 +1,153 @@
+package de.metas.material.event.eventbus;
+
+import static de.metas.material.event.EventTestHelper.NOW;
+import static de.metas.material.event.EventTestHelper.WAREHOUSE_ID;
+import static de.metas.material.event.EventTestHelper.createProductDescriptor;
+import static java.math.BigDecimal.ONE;
+import static java.math.BigDecimal.TEN;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import de.metas.event.Event;
+import de.metas.event.remote.IEventSerializer;
+import de.metas.event.remote.JacksonJsonEventSerializer;
+import de.metas.event.remote.JacksonSmileEventSerializer;
+import de.metas.material.event.MaterialEvent;
+import de.metas.material.event.MaterialEventSerializerTests;
+import de.metas.material.event.commons.EventDescriptor;
+import de.metas.material.event.stock.StockChangedEvent;
+import de.metas.material.event.stock.StockChangedEvent.StockChangeDetails;
+
+/*
+ * #%L
+ * metasfresh-material-event
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+/**
+ * Compares the remote event serializers on real {@link MaterialEvent}s, as they are sent by {@link MetasfreshEventBusService}.
+ */
+public class MaterialEventRemoteSerializationTest
+{
+	private final MaterialEventConverter materialEventConverter = new MaterialEventConverter();
+
+	private static List<MaterialEvent> createMaterialEvents()
+	{
+		final StockChangedEvent stockChangedEvent = StockChangedEvent.builder()
+				.eventDescriptor(EventDescriptor.ofClientAndOrg(1, 2))
+				.productDescriptor(createProductDescriptor())
+				.qtyOnHand(ONE)
+				.qtyOnHandOld(TEN)
+				.warehouseId(WAREHOUSE_ID)
+				.stockChangeDetails(StockChangeDetails.builder()
+						.resetStockAdPinstanceId(10)
+						.transactionId(20)
+						.stockId(30)
+						.build())
+				.changeDate(NOW)
+				.build();
+
+		return ImmutableList.of(
+				MaterialEventSerializerTests.createSampleTransactionEvent(),
+				stockChangedEvent);
+	}
+
+	@Test
+	public void smile_roundtrip()
+	{
+		for (final MaterialEvent materialEvent : createMaterialEvents())
+		{
+			final Event event = materialEventConverter.fromMaterialEvent(materialEvent);
+
+			final JacksonSmileEventSerializer serializer = JacksonSmileEventSerializer.instance;
+			final Event eventRestored = serializer.fromBytes(serializer.toBytes(event));
+
+			assertThat(eventRestored).isEqualTo(event);
+			assertThat(materialEventConverter.toMaterialEvent(eventRestored)).isEqualTo(materialEvent);
+		}
+	}
+
+	/**
+	 * Prints bytes/event and ns/event for each serializer and material event type.
+	 */
+	@Test
+	@Ignore("benchmark; to be run manually")
+	public void benchmark()
+	{
+		final int warmupIterations = 20_000;
+		final int iterations = 100_000;
+
+		final List<IEventSerializer> serializers = ImmutableList.of(JacksonJsonEventSerializer.instance, JacksonSmileEventSerializer.instance);
+		for (final MaterialEvent materialEvent : createMaterialEvents())
+		{
+			final Event event = materialEventConverter.fromMaterialEvent(materialEvent);
+			for (final IEventSerializer serializer : serializers)
+			{
+				runBenchmark(serializer, event, warmupIterations);
+				final BenchmarkResult result = runBenchmark(serializer, event, iterations);
+
+				System.out.println(materialEvent.getClass().getSimpleName()
+						+ " / " + serializer.getContentType()
+						+ ": bytes/event=" + result.bytesPerEvent
+						+ ", serialize ns/event=" + result.serializeNanosPerEvent
+						+ ", deserialize ns/event=" + result.deserializeNanosPerEvent);
+			}
+		}
+	}
+
+	private static BenchmarkResult runBenchmark(final IEventSerializer serializer, final Event event, final int iterations)
+	{
+		byte[] bytes = null;
+		final long serializeStart = System.nanoTime();
+		for (int i = 0; i < iterations; i++)
+		{
+			bytes = serializer.toBytes(event);
+		}
+		final long serializeNanos = System.nanoTime() - serializeStart;
+
+		Event eventRestored = null;
+		final long deserializeStart = System.nanoTime();
+		for (int i = 0; i < iterations; i++)
+		{
+			eventRestored = serializer.fromBytes(bytes);
+		}
+		final long deserializeNanos = System.nanoTime() - deserializeStart;
+
+		assertThat(eventRestored).isEqualTo(event);
+
+		final BenchmarkResult result = new BenchmarkResult();
+		result.bytesPerEvent = bytes.length;
+		result.serializeNanosPerEvent = serializeNanos / iterations;
+		result.deserializeNanosPerEvent = deserializeNanos / iterations;
+		return result;
+	}
+
+	private static final class BenchmarkResult
+	{
+		private int bytesPerEvent;
+		private long serializeNanosPerEvent;
+		private long deserializeNanosPerEvent;
+	}
+}
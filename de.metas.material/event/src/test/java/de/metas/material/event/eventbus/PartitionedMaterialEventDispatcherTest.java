@@ -0,0 +1,266 @@
+package de.metas.material.event.eventbus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.After;
+import org.junit.Test;
+
+import de.metas.event.Event;
+import de.metas.material.event.EventTestHelper;
+import de.metas.material.event.MaterialEvent;
+import de.metas.material.event.commons.EventDescriptor;
+import de.metas.material.event.eventbus.PartitionedMaterialEventDispatcher.QueuedEvent;
+import de.metas.material.event.stock.StockChangedEvent;
+import de.metas.material.event.supplyrequired.SupplyRequiredEvent;
+
+/*
+ * #%L
+ * metasfresh-material-event
+ * %%
+ * Copyright (C) 2019 metas GmbH
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program. If not, see
+ * <http://www.gnu.org/licenses/gpl-2.0.html>.
+ * #L%
+ */
+
+public class PartitionedMaterialEventDispatcherTest
+{
+	private PartitionedMaterialEventDispatcher dispatcher;
+
+	@After
+	public void stopDispatcher()
+	{
+		if (dispatcher != null)
+		{
+			dispatcher.stop();
+		}
+	}
+
+	private PartitionedMaterialEventDispatcher createDispatcher(final int maxBatchSize, final Consumer<List<QueuedEvent>> batchHandler)
+	{
+		return createDispatcher(maxBatchSize, 10000, batchHandler);
+	}
+
+	private PartitionedMaterialEventDispatcher createDispatcher(final int maxBatchSize, final int maxQueuedEvents, final Consumer<List<QueuedEvent>> batchHandler)
+	{
+		dispatcher = PartitionedMaterialEventDispatcher.builder()
+				.workers(4)
+				.maxBatchSize(maxBatchSize)
+				.maxQueuedEvents(maxQueuedEvents)
+				.batchHandler(batchHandler)
+				.build();
+		return dispatcher;
+	}
+
+	private static StockChangedEvent stockChangedEvent(final int productId, final int seqNo)
+	{
+		return StockChangedEvent.builder()
+				.eventDescriptor(EventDescriptor.ofClientAndOrg(EventTestHelper.CLIENT_ID, EventTestHelper.ORG_ID))
+				.productDescriptor(EventTestHelper.createProductDescriptorWithProductId(productId))
+				.warehouseId(EventTestHelper.WAREHOUSE_ID)
+				.qtyOnHand(BigDecimal.valueOf(seqNo))
+				.qtyOnHandOld(BigDecimal.ZERO)
+				.build();
+	}
+
+	private static int seqNo(final QueuedEvent queuedEvent)
+	{
+		return ((StockChangedEvent)queuedEvent.getMaterialEvent()).getQtyOnHand().intValueExact();
+	}
+
+	private CompletableFuture<Void> enqueue(final MaterialEvent materialEvent)
+	{
+		return dispatcher.enqueue(Event.builder().build(), materialEvent, new Properties());
+	}
+
+	@Test
+	public void eventsOfSamePartition_areHandledInOrder() throws Exception
+	{
+		final int eventsCount = 2000;
+		final CountDownLatch allHandled = new CountDownLatch(eventsCount);
+		final Map<Integer, List<Integer>> seqNosByProductId = new ConcurrentHashMap<>();
+
+		createDispatcher(7, batch -> {
+			assertThat(batch.size()).isBetween(1, 7);
+			for (final QueuedEvent queuedEvent : batch)
+			{
+				assertThat(queuedEvent.getPartitionKey()).isEqualTo(batch.get(0).getPartitionKey());
+
+				final int productId = queuedEvent.getPartitionKey().getProductId();
+				seqNosByProductId.computeIfAbsent(productId, k -> new CopyOnWriteArrayList<>()).add(seqNo(queuedEvent));
+				allHandled.countDown();
+			}
+		});
+
+		for (int seqNo = 0; seqNo < eventsCount; seqNo++)
+		{
+			enqueue(stockChangedEvent(1 + seqNo % 10, seqNo));
+		}
+
+		assertThat(allHandled.await(30, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(seqNosByProductId).hasSize(10);
+		seqNosByProductId.values().forEach(seqNos -> assertThat(seqNos).hasSize(eventsCount / 10).isSorted());
+
+		assertThat(dispatcher.getEnqueuedCount()).isEqualTo(eventsCount);
+		assertThat(dispatcher.getQueueDepth()).isZero();
+	}
+
+	@Test
+	public void eventWithoutPartitionKey_isHandledAsBarrier() throws Exception
+	{
+		final List<Integer> handledBeforeBarrier = new ArrayList<>();
+		final List<Integer> handledAfterBarrier = new ArrayList<>();
+		final CountDownLatch allHandled = new CountDownLatch(201);
+		final Object handledLock = new Object();
+		final boolean[] barrierHandled = { false };
+
+		createDispatcher(5, batch -> {
+			synchronized (handledLock)
+			{
+				for (final QueuedEvent queuedEvent : batch)
+				{
+					if (queuedEvent.getPartitionKey() == null)
+					{
+						assertThat(batch).hasSize(1);
+						barrierHandled[0] = true;
+					}
+					else if (barrierHandled[0])
+					{
+						handledAfterBarrier.add(seqNo(queuedEvent));
+					}
+					else
+					{
+						handledBeforeBarrier.add(seqNo(queuedEvent));
+					}
+					allHandled.countDown();
+				}
+			}
+		});
+
+		for (int seqNo = 0; seqNo < 100; seqNo++)
+		{
+			enqueue(stockChangedEvent(1 + seqNo % 3, seqNo));
+		}
+		enqueue(SupplyRequiredEvent.builder()
+				.supplyRequiredDescriptor(EventTestHelper.createSupplyRequiredDescriptor())
+				.build());
+		for (int seqNo = 100; seqNo < 200; seqNo++)
+		{
+			enqueue(stockChangedEvent(1 + seqNo % 3, seqNo));
+		}
+
+		assertThat(allHandled.await(30, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(handledBeforeBarrier).hasSize(100).allMatch(seqNo -> seqNo < 100);
+		assertThat(handledAfterBarrier).hasSize(100).allMatch(seqNo -> seqNo >= 100);
+		assertThat(dispatcher.getHeldBackEventsCount()).isZero();
+	}
+
+	@Test
+	public void enqueue_blocksIfMaxQueuedEventsIsReached() throws Exception
+	{
+		final CountDownLatch handlerMayProceed = new CountDownLatch(1);
+		final CountDownLatch allHandled = new CountDownLatch(5);
+
+		createDispatcher(1, 2, batch -> {
+			try
+			{
+				handlerMayProceed.await();
+			}
+			catch (final InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+			}
+			batch.forEach(queuedEvent -> allHandled.countDown());
+		});
+
+		final Thread enqueuer = new Thread(() -> {
+			for (int seqNo = 0; seqNo < 5; seqNo++)
+			{
+				enqueue(stockChangedEvent(1, seqNo));
+			}
+		});
+		enqueuer.start();
+
+		// the first event is taken by a worker which then blocks; two more events fit into the queue, the fourth has to wait
+		final long deadline = System.currentTimeMillis() + 10000;
+		while (enqueuer.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(10);
+		}
+		assertThat(enqueuer.getState()).isEqualTo(Thread.State.WAITING);
+		assertThat(dispatcher.getEnqueuedCount()).isEqualTo(3);
+		assertThat(dispatcher.getQueueDepth()).isEqualTo(2);
+
+		handlerMayProceed.countDown();
+
+		enqueuer.join(10000);
+		assertThat(enqueuer.isAlive()).isFalse();
+		assertThat(allHandled.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(dispatcher.getEnqueuedCount()).isEqualTo(5);
+	}
+
+	@Test
+	public void stop_handlesQueuedEventsFirst() throws Exception
+	{
+		final CountDownLatch handlerMayProceed = new CountDownLatch(1);
+		final List<Integer> handledSeqNos = new CopyOnWriteArrayList<>();
+
+		createDispatcher(1, batch -> {
+			try
+			{
+				handlerMayProceed.await();
+			}
+			catch (final InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+			}
+			batch.forEach(queuedEvent -> handledSeqNos.add(seqNo(queuedEvent)));
+		});
+
+		final List<CompletableFuture<Void>> handledFutures = new ArrayList<>();
+		for (int seqNo = 0; seqNo < 5; seqNo++)
+		{
+			handledFutures.add(enqueue(stockChangedEvent(1, seqNo)));
+		}
+		assertThat(handledFutures).noneMatch(CompletableFuture::isDone);
+
+		final Thread stopper = new Thread(dispatcher::stop);
+		stopper.start();
+		Thread.sleep(100);
+		assertThat(enqueue(stockChangedEvent(1, 5))).as("no new events are accepted while stopping").isNull();
+
+		handlerMayProceed.countDown();
+		stopper.join(10000);
+		assertThat(stopper.isAlive()).isFalse();
+
+		assertThat(handledSeqNos).containsExactly(0, 1, 2, 3, 4);
+		assertThat(handledFutures).allMatch(CompletableFuture::isDone);
+		assertThat(dispatcher.getQueueDepth()).isZero();
+	}
+}
@@ -57,6 +57,19 @@ public abstract class AbstractPropertiesProxy extends Properties
 
 	protected abstract Properties getDelegate();
 
+	/**
+	 * @return the actual properties behind the given <code>properties</code>, after unwrapping all {@link AbstractPropertiesProxy} layers
+	 */
+	public static Properties unwrap(final Properties properties)
+	{
+		Properties result = properties;
+		while (result instanceof AbstractPropertiesProxy)
+		{
+			result = ((AbstractPropertiesProxy)result).getDelegate();
+		}
+		return result;
+	}
+
 	@Override
 	public Object setProperty(String key, String value)
 	{
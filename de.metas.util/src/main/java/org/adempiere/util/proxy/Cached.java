@@ -90,4 +90,12 @@ public @interface Cached
 	 * <li>greater than ZERO - minutes to expire
 	 */
 	int expireMinutes() default -1;
+
+	/**
+	 * If true and the method returns a model or a collection of models, a change of one of the returned records evicts only the cached results which contain it, instead of resetting the whole cache.
+	 * Changes of any other records (e.g. new ones) still reset the whole cache.
+	 * <p>
+	 * Use it only if a changed record can't start to belong to the result of another method call, e.g. for child records which are retrieved by their parent's ID.
+	 */
+	boolean resetOnlyForReturnedRecords() default false;
 }